@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * Per-region mailbox for ranged beacon notifications with latest-value-wins semantics.
+ * A region holds at most one pending update, so the pending set is bounded by the number of ranged
+ * regions and no region's latest state is ever dropped. The payload is built from the region's
+ * current beacons only when the update is sent, so updates superseded while waiting are never serialized.
+ * At most {@code window} updates are in flight until Dart acknowledges them by sequence number;
+ * unacknowledged updates expire after {@code ackTimeoutMillis} so a consumer that never acks
+ * degrades to one update per timeout instead of stalling.
+ */
+class BeaconEventMailbox {
+
+    static final int DEFAULT_WINDOW = 2;
+    static final long DEFAULT_ACK_TIMEOUT_MILLIS = 2000;
+
+    interface Sender {
+        /** Sends the current state of the region; returns false if nobody is listening. */
+        boolean send(String regionId, long sequence);
+    }
+
+    private final int window;
+    private final long ackTimeoutMillis;
+    private final Sender sender;
+
+    private final LinkedHashSet<String> pending = new LinkedHashSet<>();
+
+    // In-flight ring, oldest at inFlightHead
+    private final long[] inFlightSequences;
+    private final long[] inFlightTimes;
+    private int inFlightHead;
+    private int inFlightCount;
+
+    private long nextSequence = 1;
+    private boolean flushing;
+
+    private long posted;
+    private long delivered;
+    private long coalesced;
+    private long dropped;
+    private long acked;
+    private long timedOut;
+
+    BeaconEventMailbox(Sender sender) {
+        this(DEFAULT_WINDOW, DEFAULT_ACK_TIMEOUT_MILLIS, sender);
+    }
+
+    BeaconEventMailbox(int window, long ackTimeoutMillis, Sender sender) {
+        this.window = Math.max(1, window);
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.sender = sender;
+        inFlightSequences = new long[this.window];
+        inFlightTimes = new long[this.window];
+    }
+
+    /** Marks the region as changed and sends what the window allows. */
+    void post(String regionId, long now) {
+        posted++;
+        if (!pending.add(regionId)) {
+            coalesced++;
+        }
+        flush(now);
+    }
+
+    /** Acknowledges every in-flight update up to and including the sequence. */
+    void ack(long sequence, long now) {
+        while ((inFlightCount > 0) && (inFlightSequences[inFlightHead] <= sequence)) {
+            popInFlight();
+            acked++;
+        }
+        flush(now);
+    }
+
+    /** Expires timed out updates and sends pending ones while the window has room. */
+    void flush(long now) {
+        while ((inFlightCount > 0) && ((now - inFlightTimes[inFlightHead]) >= ackTimeoutMillis)) {
+            popInFlight();
+            timedOut++;
+        }
+        if (flushing) {
+            // Acks arriving from within send() re-enter here; the outer loop picks up the freed window
+            return;
+        }
+        flushing = true;
+        try {
+            while ((inFlightCount < window) && !pending.isEmpty()) {
+                Iterator<String> eldest = pending.iterator();
+                String regionId = eldest.next();
+                eldest.remove();
+                long sequence = nextSequence++;
+                int tail = (inFlightHead + inFlightCount) % window;
+                inFlightSequences[tail] = sequence;
+                inFlightTimes[tail] = now;
+                inFlightCount++;
+                if (sender.send(regionId, sequence)) {
+                    delivered++;
+                } else {
+                    removeInFlight(sequence);
+                    dropped++;
+                }
+            }
+        } finally {
+            flushing = false;
+        }
+    }
+
+    boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    int getInFlightCount() {
+        return inFlightCount;
+    }
+
+    /** Time at which the oldest in-flight update expires, or Long.MAX_VALUE if none is in flight. */
+    long getNextExpiration() {
+        return (inFlightCount > 0) ? (inFlightTimes[inFlightHead] + ackTimeoutMillis) : Long.MAX_VALUE;
+    }
+
+    void clear() {
+        pending.clear();
+        inFlightHead = 0;
+        inFlightCount = 0;
+    }
+
+    long getPosted() {
+        return posted;
+    }
+
+    long getDelivered() {
+        return delivered;
+    }
+
+    long getCoalesced() {
+        return coalesced;
+    }
+
+    long getDropped() {
+        return dropped;
+    }
+
+    long getAcked() {
+        return acked;
+    }
+
+    long getTimedOut() {
+        return timedOut;
+    }
+
+    private void popInFlight() {
+        inFlightHead = (inFlightHead + 1) % window;
+        inFlightCount--;
+    }
+
+    private void removeInFlight(long sequence) {
+        // Only the newest entry can be removed, right after a failed send
+        int tail = (inFlightHead + inFlightCount - 1) % window;
+        if ((inFlightCount > 0) && (inFlightSequences[tail] == sequence)) {
+            inFlightCount--;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.bluetooth.BluetoothDevice;
+import android.util.Log;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.BeaconParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Beacon layouts selectable from Dart and the parsers built from them. Each parser carries the
+ * manufacturer codes (or service UUID, for Eddystone) of its format, which AltBeacon combines with
+ * the monitored region identifiers into hardware ScanFilters for the scans it runs with filters
+ * (background scans on Android 8 and later). Other scans deliver every advertisement to app code,
+ * where the ones matching no layout are only counted.
+ */
+class BeaconLayouts {
+
+    private static final String TAG = BeaconLayouts.class.getCanonicalName();
+
+    static final String IBEACON = "ibeacon";
+    static final String ALTBEACON = "altbeacon";
+    static final String EDDYSTONE_UID = "eddystone_uid";
+
+    static final List<String> DEFAULT_LAYOUTS = Arrays.asList(ALTBEACON, IBEACON);
+
+    private static final String IBEACON_LAYOUT = "m:2-3=0215,i:4-19,i:20-21,i:22-23,p:24-24";
+    private static final int APPLE_MANUFACTURER_CODE = 0x004c;
+    private static final int RADIUS_MANUFACTURER_CODE = 0x0118;
+
+    /**
+     * Advertisements parsed into beacons vs. ones that reached app code but matched no layout. Advertisements
+     * dropped by controller-side filters never reach the app and are not counted.
+     */
+    static class ScanCounters {
+        final AtomicLong parsed = new AtomicLong();
+        final AtomicLong unmatched = new AtomicLong();
+
+        HashMap<String, Object> toMap() {
+            HashMap<String, Object> map = new HashMap<>();
+            map.put("parsed", parsed.get());
+            map.put("unmatched", unmatched.get());
+            return map;
+        }
+    }
+
+    static class CountingBeaconParser extends BeaconParser {
+        private final ScanCounters counters;
+
+        CountingBeaconParser(String identifier, ScanCounters counters) {
+            super(identifier);
+            this.counters = counters;
+        }
+
+        @Override
+        public Beacon fromScanData(byte[] scanData, int rssi, BluetoothDevice device, long timestampMs) {
+            Beacon beacon = super.fromScanData(scanData, rssi, device, timestampMs);
+            if (beacon != null) {
+                counters.parsed.incrementAndGet();
+            }
+            return beacon;
+        }
+    }
+
+    /**
+     * Builds parsers for the given layouts. Entries are either layout names ({@link #IBEACON},
+     * {@link #ALTBEACON}, {@link #EDDYSTONE_UID}) or raw AltBeacon layout expressions. Invalid
+     * entries are skipped.
+     */
+    static List<BeaconParser> createParsers(List<String> layouts, ScanCounters counters) {
+        List<BeaconParser> parsers = new ArrayList<>();
+        if (layouts == null) {
+            return parsers;
+        }
+        for (String layout : layouts) {
+            if (Utils.Str.isEmpty(layout)) {
+                continue;
+            }
+            String name = layout.toLowerCase(Locale.US);
+            try {
+                BeaconParser parser;
+                if (IBEACON.equals(name)) {
+                    parser = new CountingBeaconParser(IBEACON, counters).setBeaconLayout(IBEACON_LAYOUT);
+                    parser.setHardwareAssistManufacturerCodes(new int[]{APPLE_MANUFACTURER_CODE});
+                } else if (ALTBEACON.equals(name)) {
+                    parser = new CountingBeaconParser(ALTBEACON, counters).setBeaconLayout(BeaconParser.ALTBEACON_LAYOUT);
+                    parser.setHardwareAssistManufacturerCodes(new int[]{RADIUS_MANUFACTURER_CODE});
+                } else if (EDDYSTONE_UID.equals(name)) {
+                    parser = new CountingBeaconParser(EDDYSTONE_UID, counters).setBeaconLayout(BeaconParser.EDDYSTONE_UID_LAYOUT);
+                } else {
+                    parser = new CountingBeaconParser(null, counters).setBeaconLayout(layout);
+                }
+                parsers.add(parser);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Invalid beacon layout '" + layout + "', ex: " + e);
+            }
+        }
+        return parsers;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.altbeacon.beacon.Region;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which beacon regions are actually handed to AltBeacon. Regions with identical identifiers
+ * share a single scan region, and at most {@link #getBudget()} scan regions are monitored, ranked by
+ * proximity (inside or ranging first, then recently seen) and by declared priority. Over budget, a
+ * fifth of the budget rotates round-robin through the regions that did not make the cut, so each of
+ * them is monitored now and then and can become near or recently seen.
+ */
+class BeaconRegionManager {
+
+    static final int DEFAULT_BUDGET = 30;
+    static final long RECENTLY_SEEN_MILLIS = 10 * 60 * 1000;
+    // About one background scan cycle, so every rotated region is scanned at least once
+    static final long ROTATION_PERIOD_MILLIS = 5 * 60 * 1000;
+    private static final String SCAN_REGION_PREFIX = "rokwire.scan:";
+
+    private static final int TIER_NEAR = 0;
+    private static final int TIER_RECENT = 1;
+    private static final int TIER_OTHER = 2;
+
+    /** Changes to apply to the beacon manager in one pass. */
+    static class Update {
+        final List<Region> startRegions = new ArrayList<>();
+        final List<Region> stopRegions = new ArrayList<>();
+        final List<String> deactivatedIds = new ArrayList<>();
+
+        boolean isEmpty() {
+            return startRegions.isEmpty() && stopRegions.isEmpty() && deactivatedIds.isEmpty();
+        }
+    }
+
+    private int budget = DEFAULT_BUDGET;
+    private final Map<String, Integer> priorities = new HashMap<>();
+    private final Map<String, Long> lastSeenTimes = new HashMap<>();
+    private int rotation = 0;
+    private boolean overBudget = false;
+
+    // Monitored scan regions by identifiers signature, their member region ids, and the reverse mapping
+    private final Map<String, Region> scanRegions = new HashMap<>();
+    private final Map<String, List<String>> scanRegionMembers = new HashMap<>();
+    private final Map<String, String> memberSignatures = new HashMap<>();
+
+    int getBudget() {
+        return budget;
+    }
+
+    void setBudget(int budget) {
+        this.budget = Math.max(1, budget);
+    }
+
+    void setPriority(String regionId, int priority) {
+        if (priority != 0) {
+            priorities.put(regionId, priority);
+        } else {
+            priorities.remove(regionId);
+        }
+    }
+
+    void removeRegion(String regionId) {
+        priorities.remove(regionId);
+        lastSeenTimes.remove(regionId);
+    }
+
+    void markSeen(String regionId, long timestamp) {
+        lastSeenTimes.put(regionId, timestamp);
+    }
+
+    /** Moves the rotating slots on to the next regions of the over-budget tail, applied by the next update. */
+    void rotate() {
+        rotation++;
+    }
+
+    /** Whether the last update had more scan regions than the budget, so rotation is in effect. */
+    boolean isOverBudget() {
+        return overBudget;
+    }
+
+    boolean isMonitored(String regionId) {
+        return memberSignatures.containsKey(regionId);
+    }
+
+    Region getScanRegion(String regionId) {
+        String signature = memberSignatures.get(regionId);
+        return (signature != null) ? scanRegions.get(signature) : null;
+    }
+
+    /** Ids of the monitored regions served by a scan region reported by AltBeacon. */
+    List<String> getMembers(Region scanRegion) {
+        String uniqueId = (scanRegion != null) ? scanRegion.getUniqueId() : null;
+        List<String> members = ((uniqueId != null) && uniqueId.startsWith(SCAN_REGION_PREFIX)) ?
+                scanRegionMembers.get(uniqueId.substring(SCAN_REGION_PREFIX.length())) : null;
+        return (members != null) ? members : Collections.emptyList();
+    }
+
+    Collection<Region> getScanRegions() {
+        return scanRegions.values();
+    }
+
+    /**
+     * Recomputes the monitored scan regions for the given candidates. {@code nearIds} are regions the
+     * user is inside of or ranging in; they keep their scan region ahead of everything else.
+     */
+    Update update(Collection<Region> candidates, Set<String> nearIds, long now) {
+        // Merge candidates with identical identifiers
+        Map<String, List<Region>> groups = new LinkedHashMap<>();
+        for (Region region : candidates) {
+            String signature = signature(region);
+            List<Region> group = groups.get(signature);
+            if (group == null) {
+                groups.put(signature, group = new ArrayList<>());
+            }
+            group.add(region);
+        }
+
+        // Rank groups and keep the best ones within budget
+        List<String> signatures = new ArrayList<>(groups.keySet());
+        Map<String, long[]> ranks = new HashMap<>();
+        int nearCount = 0;
+        for (String signature : signatures) {
+            int tier = TIER_OTHER;
+            long priority = Long.MIN_VALUE, lastSeen = 0;
+            for (Region region : groups.get(signature)) {
+                String regionId = region.getUniqueId();
+                Long seen = lastSeenTimes.get(regionId);
+                if (nearIds.contains(regionId)) {
+                    tier = TIER_NEAR;
+                } else if ((seen != null) && ((now - seen) < RECENTLY_SEEN_MILLIS)) {
+                    tier = Math.min(tier, TIER_RECENT);
+                }
+                Integer regionPriority = priorities.get(regionId);
+                priority = Math.max(priority, (regionPriority != null) ? regionPriority : 0);
+                lastSeen = Math.max(lastSeen, (seen != null) ? seen : 0);
+            }
+            ranks.put(signature, new long[]{tier, -priority, -lastSeen});
+            if (tier == TIER_NEAR) {
+                nearCount++;
+            }
+        }
+        Collections.sort(signatures, (signature1, signature2) -> {
+            long[] rank1 = ranks.get(signature1), rank2 = ranks.get(signature2);
+            for (int index = 0; index < rank1.length; index++) {
+                int result = Long.compare(rank1[index], rank2[index]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return signature1.compareTo(signature2);
+        });
+        overBudget = signatures.size() > budget;
+        if (overBudget) {
+            // Near regions always keep their slots, rotating slots take the rest round-robin from the tail
+            int rotationSlots = (budget > 1) ? Math.max(1, budget / 5) : 0;
+            int fixedSlots = Math.min(budget, Math.max(budget - rotationSlots, nearCount));
+            List<String> tail = signatures.subList(fixedSlots, signatures.size());
+            List<String> selected = new ArrayList<>(signatures.subList(0, fixedSlots));
+            int offset = (int) (((long) rotation * (budget - fixedSlots)) % tail.size());
+            for (int slot = 0; slot < budget - fixedSlots; slot++) {
+                selected.add(tail.get((offset + slot) % tail.size()));
+            }
+            signatures = selected;
+        } else {
+            rotation = 0;
+        }
+
+        // Diff against the currently monitored scan regions
+        Update update = new Update();
+        Map<String, Region> newScanRegions = new HashMap<>();
+        Map<String, List<String>> newMembers = new HashMap<>();
+        Map<String, String> newMemberSignatures = new HashMap<>();
+        for (String signature : signatures) {
+            Region scanRegion = scanRegions.get(signature);
+            if (scanRegion == null) {
+                Region sample = groups.get(signature).get(0);
+                scanRegion = new Region(SCAN_REGION_PREFIX + signature, sample.getId1(), sample.getId2(), sample.getId3());
+                update.startRegions.add(scanRegion);
+            }
+            newScanRegions.put(signature, scanRegion);
+            List<String> members = new ArrayList<>();
+            for (Region region : groups.get(signature)) {
+                members.add(region.getUniqueId());
+                newMemberSignatures.put(region.getUniqueId(), signature);
+            }
+            newMembers.put(signature, members);
+        }
+        for (Map.Entry<String, Region> entry : scanRegions.entrySet()) {
+            if (!newScanRegions.containsKey(entry.getKey())) {
+                update.stopRegions.add(entry.getValue());
+            }
+        }
+        for (String regionId : memberSignatures.keySet()) {
+            if (!newMemberSignatures.containsKey(regionId)) {
+                update.deactivatedIds.add(regionId);
+            }
+        }
+        scanRegions.clear();
+        scanRegions.putAll(newScanRegions);
+        scanRegionMembers.clear();
+        scanRegionMembers.putAll(newMembers);
+        memberSignatures.clear();
+        memberSignatures.putAll(newMemberSignatures);
+        return update;
+    }
+
+    private static String signature(Region region) {
+        return region.getId1() + "/" + region.getId2() + "/" + region.getId3();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming per-region dwell aggregates: visit count, total and last dwell duration and a histogram of dwell
+ * durations in fixed buckets. Each region's aggregate is one preference value rewritten on its own enter and exit,
+ * so the open visit and the counts survive process death. Times are wall clock milliseconds, since visits may span
+ * reboots; a visit whose exit was missed is dropped when the region is entered again.
+ */
+class DwellStats {
+
+    private static final String TAG = "DwellStats";
+
+    static final String PREFS_FILE_NAME = "edu.illinois.rokwire.dwell_stats";
+    private static final String REGION_KEY_PREFIX = "region.";
+
+    /** Upper bounds of the histogram buckets; the last bucket holds longer dwells. */
+    static final long[] BUCKET_BOUNDS_MILLIS = {60000, 300000, 900000, 1800000, 3600000, 7200000, 14400000};
+    static final int BUCKET_COUNT = BUCKET_BOUNDS_MILLIS.length + 1;
+
+    static class Aggregate {
+        int visits;
+        long totalMillis;
+        long lastMillis;
+        // Start of the open visit, 0 when outside
+        long enteredAt;
+        final int[] histogram = new int[BUCKET_COUNT];
+
+        void addDwell(long dwellMillis) {
+            visits++;
+            totalMillis += dwellMillis;
+            lastMillis = dwellMillis;
+            histogram[bucket(dwellMillis)]++;
+        }
+
+        String encode() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(visits).append(',').append(totalMillis).append(',').append(lastMillis).append(',').append(enteredAt);
+            for (int count : histogram) {
+                builder.append(',').append(count);
+            }
+            return builder.toString();
+        }
+
+        static Aggregate decode(String value) {
+            String[] fields = (value != null) ? value.split(",") : null;
+            if ((fields == null) || (fields.length != 4 + BUCKET_COUNT)) {
+                return null;
+            }
+            try {
+                Aggregate aggregate = new Aggregate();
+                aggregate.visits = Integer.parseInt(fields[0]);
+                aggregate.totalMillis = Long.parseLong(fields[1]);
+                aggregate.lastMillis = Long.parseLong(fields[2]);
+                aggregate.enteredAt = Long.parseLong(fields[3]);
+                for (int index = 0; index < BUCKET_COUNT; index++) {
+                    aggregate.histogram[index] = Integer.parseInt(fields[4 + index]);
+                }
+                return aggregate;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        HashMap<String, Object> toMap() {
+            HashMap<String, Object> map = new HashMap<>();
+            map.put("visits", visits);
+            map.put("total", totalMillis);
+            map.put("last", lastMillis);
+            if (enteredAt != 0) {
+                map.put("enteredAt", enteredAt);
+            }
+            List<Integer> histogramList = new ArrayList<>(BUCKET_COUNT);
+            for (int count : histogram) {
+                histogramList.add(count);
+            }
+            map.put("histogram", histogramList);
+            return map;
+        }
+    }
+
+    // Loaded from preferences on first use
+    private Map<String, Aggregate> aggregates;
+
+    void onEnter(Context context, String regionId, long now) {
+        Aggregate aggregate = getAggregate(context, regionId, true);
+        if (aggregate != null) {
+            aggregate.enteredAt = now;
+            save(context, regionId, aggregate);
+        }
+    }
+
+    void onExit(Context context, String regionId, long now) {
+        Aggregate aggregate = getAggregate(context, regionId, false);
+        if ((aggregate != null) && (aggregate.enteredAt != 0)) {
+            long dwell = now - aggregate.enteredAt;
+            aggregate.enteredAt = 0;
+            // A clock change may put the exit before the enter
+            if (0 <= dwell) {
+                aggregate.addDwell(dwell);
+            }
+            save(context, regionId, aggregate);
+        }
+    }
+
+    /** Drops the open visit of a region that is no longer monitored; its counts are kept. */
+    void onRemoved(Context context, String regionId) {
+        Aggregate aggregate = getAggregate(context, regionId, false);
+        if ((aggregate != null) && (aggregate.enteredAt != 0)) {
+            aggregate.enteredAt = 0;
+            save(context, regionId, aggregate);
+        }
+    }
+
+    /** Regions whose visit is still open, e.g. the ones current before the process died. */
+    List<String> getOpenRegionIds(Context context) {
+        List<String> regionIds = new ArrayList<>();
+        if (load(context)) {
+            for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+                if (entry.getValue().enteredAt != 0) {
+                    regionIds.add(entry.getKey());
+                }
+            }
+        }
+        return regionIds;
+    }
+
+    HashMap<String, Object> toMap(Context context) {
+        HashMap<String, Object> regions = new HashMap<>();
+        if (load(context)) {
+            for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+                regions.put(entry.getKey(), entry.getValue().toMap());
+            }
+        }
+        List<Long> bounds = new ArrayList<>(BUCKET_BOUNDS_MILLIS.length);
+        for (long bound : BUCKET_BOUNDS_MILLIS) {
+            bounds.add(bound);
+        }
+        HashMap<String, Object> stats = new HashMap<>();
+        stats.put("buckets", bounds);
+        stats.put("regions", regions);
+        return stats;
+    }
+
+    /** Clears the aggregates of the given regions, or of all regions when ids is null. */
+    void reset(Context context, Collection<String> regionIds) {
+        if ((context == null) || !load(context)) {
+            return;
+        }
+        SharedPreferences.Editor editor = context.getSharedPreferences(PREFS_FILE_NAME, Context.MODE_PRIVATE).edit();
+        if (regionIds == null) {
+            aggregates.clear();
+            editor.clear();
+        } else {
+            for (String regionId : regionIds) {
+                aggregates.remove(regionId);
+                editor.remove(REGION_KEY_PREFIX + regionId);
+            }
+        }
+        editor.apply();
+    }
+
+    static int bucket(long dwellMillis) {
+        int index = 0;
+        while ((index < BUCKET_BOUNDS_MILLIS.length) && (BUCKET_BOUNDS_MILLIS[index] <= dwellMillis)) {
+            index++;
+        }
+        return index;
+    }
+
+    private Aggregate getAggregate(Context context, String regionId, boolean create) {
+        if ((regionId == null) || !load(context)) {
+            return null;
+        }
+        Aggregate aggregate = aggregates.get(regionId);
+        if ((aggregate == null) && create) {
+            aggregates.put(regionId, aggregate = new Aggregate());
+        }
+        return aggregate;
+    }
+
+    private void save(Context context, String regionId, Aggregate aggregate) {
+        if (context == null) {
+            return;
+        }
+        context.getSharedPreferences(PREFS_FILE_NAME, Context.MODE_PRIVATE).edit().putString(REGION_KEY_PREFIX + regionId, aggregate.encode()).apply();
+    }
+
+    private boolean load(Context context) {
+        if (aggregates != null) {
+            return true;
+        }
+        if (context == null) {
+            return false;
+        }
+        aggregates = new HashMap<>();
+        for (Map.Entry<String, ?> entry : context.getSharedPreferences(PREFS_FILE_NAME, Context.MODE_PRIVATE).getAll().entrySet()) {
+            if (entry.getKey().startsWith(REGION_KEY_PREFIX) && (entry.getValue() instanceof String)) {
+                Aggregate aggregate = Aggregate.decode((String) entry.getValue());
+                if (aggregate != null) {
+                    aggregates.put(entry.getKey().substring(REGION_KEY_PREFIX.length()), aggregate);
+                } else {
+                    Log.e(TAG, "Dropping malformed dwell aggregate " + entry.getKey());
+                }
+            }
+        }
+        return true;
+    }
+}
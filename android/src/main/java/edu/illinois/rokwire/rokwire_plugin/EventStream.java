@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+
+/**
+ * EventChannel endpoint on the engine's BinaryMessenger. Events are emitted on the main looper, so delivery
+ * does not depend on an Activity being bound. Callers check {@link #isListening()} before building a payload,
+ * so nothing is serialized while Dart is not subscribed.
+ */
+class EventStream implements EventChannel.StreamHandler {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable cancelListener;
+    private EventChannel channel;
+    private EventChannel.EventSink sink;
+
+    EventStream() {
+        this(null);
+    }
+
+    /** The listener runs when Dart cancels its subscription. */
+    EventStream(Runnable cancelListener) {
+        this.cancelListener = cancelListener;
+    }
+
+    void attach(BinaryMessenger messenger, String name) {
+        channel = new EventChannel(messenger, name);
+        channel.setStreamHandler(this);
+    }
+
+    void detach() {
+        if (channel != null) {
+            channel.setStreamHandler(null);
+            channel = null;
+        }
+        sink = null;
+    }
+
+    boolean isListening() {
+        return (sink != null);
+    }
+
+    /** Sends the event right away when called on the main thread, otherwise posts it to the main looper. */
+    void emit(Object event) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            if (sink != null) {
+                sink.success(event);
+            }
+        } else {
+            handler.post(() -> {
+                if (sink != null) {
+                    sink.success(event);
+                }
+            });
+        }
+    }
+
+    // EventChannel.StreamHandler
+
+    @Override
+    public void onListen(Object arguments, EventChannel.EventSink events) {
+        sink = events;
+    }
+
+    @Override
+    public void onCancel(Object arguments) {
+        sink = null;
+        if (cancelListener != null) {
+            cancelListener.run();
+        }
+    }
+}
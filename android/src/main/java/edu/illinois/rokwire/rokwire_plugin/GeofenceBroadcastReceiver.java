@@ -21,6 +21,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.util.Log;
 
+import com.google.android.gms.location.GeofenceStatusCodes;
 import com.google.android.gms.location.GeofencingEvent;
 
 public class GeofenceBroadcastReceiver extends BroadcastReceiver {
@@ -36,8 +37,22 @@ public class GeofenceBroadcastReceiver extends BroadcastReceiver {
         }
         if (geofencingEvent.hasError()) {
             Log.e(TAG, "GeofencingEvent error code: " + geofencingEvent.getErrorCode());
+            if (geofencingEvent.getErrorCode() == GeofenceStatusCodes.GEOFENCE_NOT_AVAILABLE) {
+                // Location was turned off and Play Services removed all geofences
+                RokwireCore.getInstance().applyApplicationContext(context);
+                GeofenceMonitor.getInstance().onGeofencesNotAvailable();
+            }
             return;
         }
+        // Region notifications are posted natively, also when no Flutter engine is running
+        RokwireCore.getInstance().applyApplicationContext(context);
+        // Debounced transitions commit on a timer, keep the process alive until they did; null when not dispatched by the system
+        PendingResult pendingResult = goAsync();
         GeofenceMonitor.getInstance().handleGeofenceTransition(geofencingEvent);
+        GeofenceMonitor.getInstance().whenTransitionsSettled(() -> {
+            if (pendingResult != null) {
+                pendingResult.finish();
+            }
+        });
     }
 }
@@ -17,20 +17,32 @@
 package edu.illinois.rokwire.rokwire_plugin;
 
 import android.Manifest;
-import android.app.Activity;
+import android.app.Notification;
 import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
+import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.Geofence;
 import com.google.android.gms.location.GeofencingClient;
 import com.google.android.gms.location.GeofencingEvent;
 import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
-import com.google.android.gms.tasks.OnFailureListener;
-import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 
 import org.altbeacon.beacon.Beacon;
 import org.altbeacon.beacon.BeaconManager;
@@ -43,13 +55,21 @@ import org.altbeacon.beacon.Region;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.core.content.ContextCompat;
+import androidx.core.location.LocationManagerCompat;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ProcessLifecycleOwner;
 
 import io.flutter.plugin.common.MethodChannel;
 
@@ -57,6 +77,13 @@ public class GeofenceMonitor {
 
     private static final String TAG = GeofenceMonitor.class.getCanonicalName();
     private static final int BEACON_INVALID_VALUE = -420000;
+    private static final long POLYGON_LOCATION_INTERVAL_MILLIS = 10000;
+    // A broadcast held with goAsync should finish well within the 10 second limit
+    private static final long MAX_BROADCAST_HOLD_MILLIS = 9000;
+    private static final float POLYGON_LOCATION_MIN_DISTANCE_METERS = 5;
+    private static final int BEACON_FOREGROUND_SERVICE_NOTIFICATION_ID = 0x4253;
+    // AltBeacon's recommended background cycle for foreground service scanning
+    private static final long BEACON_FOREGROUND_SERVICE_SCAN_PERIOD_MILLIS = 1100;
 
     private static GeofenceMonitor instance = null;
 
@@ -64,11 +91,46 @@ public class GeofenceMonitor {
     private PendingIntent geofencePendingIntent;
     private final List<String> currentRegionIds = new ArrayList<>();
     private Map<String, Geofence> geofenceRegions;
+    private final Map<String, Map<String, Object>> geofenceRegionEntries = new HashMap<>();
+    // GeofencingRequest initial trigger of each geofence region, requests are split by it
+    private final Map<String, Integer> geofenceInitialTriggers = new HashMap<>();
+    // Registered while Play Services reports geofences not available, to recover once location is back
+    private BroadcastReceiver providersChangedReceiver;
+
+    // Polygon geofences, evaluated on device against fused location updates
+    private Map<String, PolygonGeofenceIndex.Polygon> polygonRegions;
+    private PolygonGeofenceIndex polygonIndex;
+    private int[] polygonQueryResult = new int[0];
+    private Set<String> polygonInsideIds = new HashSet<>();
+    // Swapped with polygonInsideIds after each fix, so evaluating a fix allocates no set
+    private Set<String> polygonFixInsideIds = new HashSet<>();
+    private FusedLocationProviderClient fusedLocationClient;
 
     // Beacons
     private BeaconManager beaconManager;
     private Map<String, Region> beaconRegions;
-    private final Map<String, Collection<Beacon>> currentRegionBeacons = new HashMap<>();
+    // Beacon regions gated by a parent geofence are monitored only while the parent is current
+    private final Map<String, String> beaconRegionParents = new HashMap<>();
+    private final Set<String> activeBeaconRegionIds = new HashSet<>();
+    private final BeaconRegionManager beaconRegionManager = new BeaconRegionManager();
+    private final Set<String> rangingRegionIds = new HashSet<>();
+    private List<String> beaconLayouts = BeaconLayouts.DEFAULT_LAYOUTS;
+    private final BeaconLayouts.ScanCounters beaconScanCounters = new BeaconLayouts.ScanCounters();
+    // Scanning follows the process lifecycle; the notification is set while scanning from a foreground service
+    private boolean beaconScanForeground = false;
+    private Notification beaconForegroundServiceNotification;
+    private final IndoorPositioningEngine positioningEngine = new IndoorPositioningEngine();
+    private final NearestBeacons nearestBeacons = new NearestBeacons();
+    private final Map<String, RangedBeaconStore> currentRegionBeacons = new HashMap<>();
+    private final BeaconEventMailbox beaconEvents = new BeaconEventMailbox(this::sendBeacons);
+    private final Handler beaconEventsHandler = new Handler(Looper.getMainLooper());
+    private boolean beaconRegionRotationScheduled = false;
+    private final RegionNotifications regionNotifications = new RegionNotifications();
+    private final RegionSet regionSet = new RegionSet();
+    private final DwellStats dwellStats = new DwellStats();
+    private boolean processStateRestored = false;
+    private final Handler transitionHandler = new Handler(Looper.getMainLooper());
+    private final TransitionDebouncer transitionDebouncer = new TransitionDebouncer(transitionHandler, this::applyRegionTransitions);
 
     public static GeofenceMonitor getInstance() {
         if (instance == null) {
@@ -77,17 +139,24 @@ public class GeofenceMonitor {
         return instance;
     }
 
+    @VisibleForTesting
+    static void resetInstance() {
+        if (instance != null) {
+            instance.unInit();
+            instance = null;
+        }
+    }
+
     //region Public API
 
     public void init() {
-        Context activityContext = RokwirePlugin.getInstance().getActivity();
-        if (activityContext != null) {
-            if ((ContextCompat.checkSelfPermission(activityContext, android.Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED) &&
-                    (ContextCompat.checkSelfPermission(activityContext, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED)) {
+        Context context = RokwireCore.getInstance().getContext();
+        if (context != null) {
+            if (isLocationPermissionGranted(context)) {
                 Log.d(TAG, "Location Permissions Granted - init geofence client.");
                 initGeofenceClient();
             }
-            if ((ContextCompat.checkSelfPermission(activityContext, Manifest.permission.BLUETOOTH_SCAN) == PackageManager.PERMISSION_GRANTED)) {
+            if ((ContextCompat.checkSelfPermission(context, Manifest.permission.BLUETOOTH_SCAN) == PackageManager.PERMISSION_GRANTED)) {
                 Log.d(TAG, "Bluetooth_scan permissions Granted - init beacon manager.");
                 initBeaconManager();
             }
@@ -95,6 +164,7 @@ public class GeofenceMonitor {
     }
 
     public void unInit() {
+        unregisterProvidersChangedReceiver();
         unInitGeofenceClient();
         unInitBeaconManager();
     }
@@ -109,7 +179,103 @@ public class GeofenceMonitor {
     }
 
     public void monitorRegions(List<Map<String, Object>> regions) {
-        monitor(regions);
+        monitorRegions(regions, null, null);
+    }
+
+    public void monitorRegions(List<Map<String, Object>> regions, Map<String, String> digests, String hash) {
+        if (regions != null) {
+            regionSet.replace(regions, digests, hash);
+            RegionStore.save(RokwireCore.getInstance().getContext(), regionSet);
+            monitor(regionSet.getEntries());
+        }
+    }
+
+    public boolean addRegions(List<Map<String, Object>> regions, Map<String, String> digests, String hash) {
+        String previousHash = regionSet.getHash();
+        return monitorIfChanged(regionSet.add(regions, digests, hash), previousHash);
+    }
+
+    public boolean updateRegions(List<Map<String, Object>> regions, Map<String, String> digests, String hash) {
+        String previousHash = regionSet.getHash();
+        return monitorIfChanged(regionSet.update(regions, digests, hash), previousHash);
+    }
+
+    public boolean removeRegions(List<String> ids, String hash) {
+        String previousHash = regionSet.getHash();
+        return monitorIfChanged(regionSet.remove(ids, hash), previousHash);
+    }
+
+    /**
+     * Registers the region set again after Play Services dropped all geofences: on reboot, app update or when
+     * location became available again. In a process started by the broadcast the set is loaded from the store,
+     * so no Flutter engine is needed.
+     */
+    void recoverRegions() {
+        Context context = RokwireCore.getInstance().getContext();
+        if (context == null) {
+            return;
+        }
+        unregisterProvidersChangedReceiver();
+        if ((regionSet.size() == 0) && RegionStore.load(context, regionSet)) {
+            Log.d(TAG, "recoverRegions() -> Restored " + regionSet.size() + " regions");
+            monitor(regionSet.getEntries());
+        }
+        if ((geofenceRegions == null) || geofenceRegions.isEmpty()) {
+            return;
+        }
+        if (geofencingClient == null) {
+            // Registers every geofence region
+            if (isLocationPermissionGranted(context)) {
+                initGeofenceClient();
+            }
+        } else {
+            // Registration state no longer matches Play Services
+            geofenceRegistrationQueue.clear();
+            startMonitorGeofenceRegions(new ArrayList<>(geofenceRegions.values()));
+        }
+    }
+
+    /** Play Services removed every geofence because location is off; they are registered again once it is back. */
+    void onGeofencesNotAvailable() {
+        geofenceRegistrationQueue.clear();
+        waitForLocation();
+    }
+
+    /** Registers the provider change receiver that recovers the geofences once location is on again. */
+    private void waitForLocation() {
+        Context context = RokwireCore.getInstance().getApplicationContext();
+        if ((context != null) && (providersChangedReceiver == null)) {
+            providersChangedReceiver = new GeofenceRecoveryReceiver();
+            IntentFilter filter = new IntentFilter(LocationManager.PROVIDERS_CHANGED_ACTION);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+                context.registerReceiver(providersChangedReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+            } else {
+                context.registerReceiver(providersChangedReceiver, filter);
+            }
+        }
+    }
+
+    /** Runs the callback once the queued geofence registrations completed or have to wait. */
+    void whenGeofencesSettled(@NonNull Runnable callback) {
+        geofenceRegistrationQueue.whenSettled(callback);
+    }
+
+    /** Recovers geofences lost while location was off, or those of a process started by the broadcast. */
+    void onLocationProvidersChanged() {
+        Context context = RokwireCore.getInstance().getApplicationContext();
+        LocationManager locationManager = (context != null) ? (LocationManager) context.getSystemService(Context.LOCATION_SERVICE) : null;
+        if ((locationManager != null) && LocationManagerCompat.isLocationEnabled(locationManager) &&
+                ((providersChangedReceiver != null) || (geofencingClient == null))) {
+            recoverRegions();
+        }
+    }
+
+    public String getRegionSetHash() {
+        return regionSet.getHash();
+    }
+
+    public HashMap<String, Object> getStaleRegions(Map<String, String> digests) {
+        return regionSet.getStale(digests);
     }
 
     public List<String> getCurrentIds() {
@@ -120,36 +286,105 @@ public class GeofenceMonitor {
         if (Utils.Str.isEmpty(regionId)) {
             return false;
         }
-        Region region = (beaconRegions != null) ? beaconRegions.get(regionId) : null;
-        if ((region != null) && (beaconManager != null)) {
-            Collection<Region> rangingRegions = beaconManager.getRangedRegions();
-            if (!rangingRegions.contains(region)) {
-                beaconManager.startRangingBeacons(region);
-                return true;
-            }
+        if ((beaconManager != null) && beaconRegionManager.isMonitored(regionId) && rangingRegionIds.add(regionId)) {
+            updateRangedScanRegions();
+            return true;
         }
         return false;
     }
 
     public boolean stopRangingBeaconsInRegion(String regionId) {
         if (!Utils.Str.isEmpty(regionId)) {
-            Region region = (beaconRegions != null) ? beaconRegions.get(regionId) : null;
-            return stopRangingBeaconsInRegion(region);
+            boolean result = (beaconManager != null) && (beaconRegions != null) && beaconRegions.containsKey(regionId);
+            stopRangingBeacons(regionId);
+            updateRangedScanRegions();
+            return result;
         } else {
             stopAllRangingBeacons();
             return true;
         }
     }
 
+    public void setBeaconRegionBudget(int budget) {
+        beaconRegionManager.setBudget(budget);
+        if (updateMonitoredBeaconRegions()) {
+            notifyCurrentGeofencesUpdated();
+        }
+    }
+
+    public boolean setBeaconLayouts(List<String> layouts) {
+        if (BeaconLayouts.createParsers(layouts, beaconScanCounters).isEmpty()) {
+            Log.e(TAG, "setBeaconLayouts: no valid beacon layouts in " + layouts);
+            return false;
+        }
+        beaconLayouts = new ArrayList<>(layouts);
+        if (beaconManager != null) {
+            // Parsers cannot be changed while AltBeacon is scanning
+            reconfigureBeaconScanner(this::applyBeaconParsers);
+        }
+        return true;
+    }
+
+    /**
+     * Moves beacon scanning to a foreground service showing the given notification, so scans keep their foreground
+     * cycle while the app is in the background. A null notification returns to the default scheduled scan jobs.
+     * Apps using it must declare the foreground service permissions for their target SDK.
+     */
+    public boolean setBeaconForegroundService(Notification notification) {
+        beaconForegroundServiceNotification = notification;
+        if (beaconManager == null) {
+            return true;
+        }
+        // AltBeacon accepts a scan strategy only while its scanning service is unbound
+        boolean[] applied = {false};
+        reconfigureBeaconScanner(() -> applied[0] = applyBeaconScanStrategy());
+        return applied[0];
+    }
+
+    public HashMap<String, Object> getBeaconScanStats() {
+        HashMap<String, Object> stats = beaconScanCounters.toMap();
+        stats.put("mode", (beaconForegroundServiceNotification != null) ? "foregroundService" : (beaconScanForeground ? "foreground" : "background"));
+        stats.put("scanning", (beaconManager != null) && !beaconManager.getMonitoredRegions().isEmpty());
+        return stats;
+    }
+
+    public void ackBeaconEvents(long sequence) {
+        beaconEvents.ack(sequence, System.currentTimeMillis());
+        scheduleBeaconEventsFlush();
+    }
+
+    public HashMap<String, Object> getBeaconEventStats() {
+        HashMap<String, Object> stats = new HashMap<>();
+        stats.put("posted", beaconEvents.getPosted());
+        stats.put("delivered", beaconEvents.getDelivered());
+        stats.put("coalesced", beaconEvents.getCoalesced());
+        stats.put("dropped", beaconEvents.getDropped());
+        stats.put("acked", beaconEvents.getAcked());
+        stats.put("timedOut", beaconEvents.getTimedOut());
+        stats.put("inFlight", beaconEvents.getInFlightCount());
+        return stats;
+    }
+
+    public List<HashMap> getNearestBeacons(int count, long windowMillis) {
+        return nearestBeacons.query(currentRegionBeacons, count, windowMillis, System.currentTimeMillis());
+    }
+
+    public void setPositioningAnchors(List<?> anchors, long publishIntervalMillis, double smoothing) {
+        positioningEngine.setAnchors(anchors);
+        positioningEngine.setPublishInterval(publishIntervalMillis);
+        positioningEngine.setSmoothing(smoothing);
+    }
+
+    public HashMap<String, Object> getPosition() {
+        return positioningEngine.toMap();
+    }
+
     public List<HashMap> getBeaconsInRegion(String regionId) {
         if (Utils.Str.isEmpty(regionId)) {
             return null;
         }
-        Collection<Beacon> regionBeacons = currentRegionBeacons.get(regionId);
-        if (regionBeacons == null || regionBeacons.isEmpty()) {
-            return null;
-        }
-        return Utils.Beacons.toListMap(regionBeacons);
+        RangedBeaconStore regionBeacons = currentRegionBeacons.get(regionId);
+        return (regionBeacons != null) ? regionBeacons.toListMap() : null;
     }
 
     //endregion
@@ -164,62 +399,200 @@ public class GeofenceMonitor {
             Log.e(TAG, "There are no triggering geofences!");
             return;
         }
-        int transitionCode = geofencingEvent.getGeofenceTransition();
-        boolean notifyForGeofencesUpdate = false;
+        List<String> geofenceIds = new ArrayList<>(triggeringGeofences.size());
+        for (Geofence triggeringGeofence : triggeringGeofences) {
+            geofenceIds.add(triggeringGeofence.getRequestId());
+        }
+        applyGeofenceTransition(geofencingEvent.getGeofenceTransition(), geofenceIds);
+    }
+
+    void applyGeofenceTransition(int transitionCode, @NonNull List<String> geofenceIds) {
+        restoreProcessState();
         switch (transitionCode) {
-            case Geofence.GEOFENCE_TRANSITION_ENTER: {
-                for (Geofence triggeringGeofence : triggeringGeofences) {
-                    String geofenceId = triggeringGeofence.getRequestId();
-                    if (!currentRegionIds.contains(geofenceId)) {
-                        currentRegionIds.add(geofenceId);
-                        notifyForGeofencesUpdate = true;
-                        notifyRegionEnter(geofenceId);
-                    }
-                }
-            }
-            break;
-            case Geofence.GEOFENCE_TRANSITION_EXIT: {
-                for (Geofence triggeringGeofence : triggeringGeofences) {
-                    String geofenceId = triggeringGeofence.getRequestId();
-                    if (currentRegionIds.contains(geofenceId)) {
-                        currentRegionIds.remove(geofenceId);
-                        notifyForGeofencesUpdate = true;
-                        notifyRegionExit(geofenceId);
-                    }
-                }
-            }
-            break;
+            // Regions tuned for dwell report presence once the loitering delay has passed
+            case Geofence.GEOFENCE_TRANSITION_ENTER:
+            case Geofence.GEOFENCE_TRANSITION_DWELL:
+                transitionDebouncer.update(geofenceIds, true);
+                break;
+            case Geofence.GEOFENCE_TRANSITION_EXIT:
+                transitionDebouncer.update(geofenceIds, false);
+                break;
             default:
                 Log.e(TAG, "Invalid geofence transition code: " + transitionCode);
                 break;
         }
-        if (notifyForGeofencesUpdate) {
+    }
+
+    public void setTransitionDebounce(long enterConfirmMillis, long exitGraceMillis) {
+        restoreProcessState();
+        transitionDebouncer.setPeriods(enterConfirmMillis, exitGraceMillis);
+        RegionStore.saveTransitionDebounce(RokwireCore.getInstance().getContext(), enterConfirmMillis, exitGraceMillis);
+    }
+
+    /**
+     * Runs the callback once no debounced transition is pending, or after the longest a broadcast may be held;
+     * a pending transition beyond that commits only if the process lives on.
+     */
+    void whenTransitionsSettled(@NonNull Runnable callback) {
+        Runnable finish = new Runnable() {
+            private boolean finished = false;
+
+            @Override
+            public void run() {
+                if (!finished) {
+                    finished = true;
+                    transitionHandler.removeCallbacks(this);
+                    callback.run();
+                }
+            }
+        };
+        transitionHandler.postDelayed(finish, MAX_BROADCAST_HOLD_MILLIS);
+        transitionDebouncer.whenSettled(finish);
+    }
+
+    public HashMap<String, Object> getTransitionStats() {
+        return transitionDebouncer.getStats();
+    }
+
+    public HashMap<String, Object> getDwellStats() {
+        return dwellStats.toMap(RokwireCore.getInstance().getContext());
+    }
+
+    public void resetDwellStats(List<String> regionIds) {
+        dwellStats.reset(RokwireCore.getInstance().getContext(), regionIds);
+    }
+
+    /** Applies stable membership changes from the debouncer, for geofence, polygon and beacon regions alike. */
+    private void applyRegionTransitions(@NonNull List<String> entered, @NonNull List<String> exited) {
+        Context context = RokwireCore.getInstance().getContext();
+        long now = System.currentTimeMillis();
+        boolean changed = false;
+        boolean geofencesChanged = false;
+        boolean beaconsExited = false;
+        for (String regionId : entered) {
+            if (!currentRegionIds.contains(regionId)) {
+                currentRegionIds.add(regionId);
+                dwellStats.onEnter(context, regionId, now);
+                notifyRegionEnter(regionId);
+                changed = true;
+                geofencesChanged |= !isBeaconRegion(regionId);
+            }
+        }
+        for (String regionId : exited) {
+            if (currentRegionIds.remove(regionId)) {
+                dwellStats.onExit(context, regionId, now);
+                notifyRegionExit(regionId);
+                changed = true;
+                geofencesChanged |= !isBeaconRegion(regionId);
+            }
+            if (isBeaconRegion(regionId)) {
+                stopRangingBeacons(regionId);
+                beaconsExited = true;
+            }
+        }
+        if (beaconsExited) {
+            updateRangedScanRegions();
+        }
+        if (changed) {
+            if (geofencesChanged && !beaconRegionParents.isEmpty()) {
+                updateBeaconRegionsActivation();
+            }
             notifyCurrentGeofencesUpdated();
         }
     }
 
+    /** Drops a region from the current ones without an exit event, when it is no longer monitored. */
+    private boolean removeCurrentRegion(String regionId) {
+        transitionDebouncer.remove(regionId);
+        if (currentRegionIds.remove(regionId)) {
+            dwellStats.onRemoved(RokwireCore.getInstance().getContext(), regionId);
+            return true;
+        }
+        return false;
+    }
+
+    /** Drops a region from the current ones as if it was exited, closing its visit, when it is deactivated. */
+    private boolean exitCurrentRegion(String regionId) {
+        transitionDebouncer.remove(regionId);
+        if (currentRegionIds.remove(regionId)) {
+            dwellStats.onExit(RokwireCore.getInstance().getContext(), regionId, System.currentTimeMillis());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Restores the debounce periods and makes the regions with an open visit current again, once per process. After
+     * a cold start their exit reaches the debouncer and closes the visit instead of being ignored for an unknown region.
+     */
+    private void restoreProcessState() {
+        Context context = RokwireCore.getInstance().getContext();
+        if (processStateRestored || (context == null)) {
+            return;
+        }
+        processStateRestored = true;
+        RegionStore.loadTransitionDebounce(context, transitionDebouncer);
+        List<String> regionIds = dwellStats.getOpenRegionIds(context);
+        for (String regionId : regionIds) {
+            if (!currentRegionIds.contains(regionId)) {
+                currentRegionIds.add(regionId);
+            }
+        }
+        transitionDebouncer.restore(regionIds);
+    }
+
+    private boolean isBeaconRegion(String regionId) {
+        return (beaconRegions != null) && beaconRegions.containsKey(regionId);
+    }
+
     private void initGeofenceClient() {
         if (geofencingClient != null) {
             Log.d(TAG, "initGeofenceClient() -> Monitoring already started");
             return;
         }
 
-        Activity activity = RokwirePlugin.getInstance().getActivity();
-        if (activity == null) {
-            Log.d(TAG, "initGeofenceClient() -> No binded activity");
+        Context context = RokwireCore.getInstance().getContext();
+        if (context == null) {
+            Log.d(TAG, "initGeofenceClient() -> No attached engine");
             return;
         }
 
-        geofencingClient = LocationServices.getGeofencingClient(activity);
+        applyGeofencingClient(LocationServices.getGeofencingClient(context));
+        updatePolygonLocationUpdates();
+    }
+
+    @VisibleForTesting
+    void applyGeofencingClient(@NonNull GeofencingClient client) {
+        geofencingClient = client;
         if (geofenceRegions != null && !geofenceRegions.isEmpty()) {
             List<Geofence> geofenceRegionList = new ArrayList<>(geofenceRegions.values());
             if (!geofenceRegionList.isEmpty()) {
                 startMonitorGeofenceRegions(geofenceRegionList);
             }
         }
+        geofenceRegistrationQueue.resume();
+    }
+
+    private void unregisterProvidersChangedReceiver() {
+        Context context = RokwireCore.getInstance().getApplicationContext();
+        if (providersChangedReceiver != null) {
+            if (context != null) {
+                context.unregisterReceiver(providersChangedReceiver);
+            }
+            providersChangedReceiver = null;
+        }
+    }
+
+    private static boolean isLocationPermissionGranted(Context context) {
+        return (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED) &&
+                (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED);
     }
 
     private void unInitGeofenceClient() {
+        stopPolygonLocationUpdates();
+        geofenceRegistrationQueue.clear();
+        // All geofences are removed below, so none of them may be skipped as unchanged later
+        geofenceRegionEntries.clear();
         if (geofencingClient != null) {
             if (geofencePendingIntent != null) {
                 geofencingClient.removeGeofences(geofencePendingIntent);
@@ -233,12 +606,26 @@ public class GeofenceMonitor {
         return (geofencingClient != null);
     }
 
+    private boolean monitorIfChanged(boolean changed, String previousHash) {
+        // A delta that only vouches for the set hash is stored too, so the next sync can be skipped
+        if (changed || !Objects.equals(previousHash, regionSet.getHash())) {
+            RegionStore.save(RokwireCore.getInstance().getContext(), regionSet);
+        }
+        if (changed) {
+            monitor(regionSet.getEntries());
+        }
+        return changed;
+    }
+
     private void monitor(List<Map<String, Object>> geofenceEntries) {
-        List<String> newGeofenceIds = new ArrayList<>();
+        Set<String> newGeofenceIds = new HashSet<>();
         List<Geofence> newGeofences = new ArrayList<>();
-        List<String> newBeaconRegionIds = new ArrayList<>();
-        List<Region> newBeaconRegions = new ArrayList<>();
-        if ((geofenceEntries != null) && !geofenceEntries.isEmpty()) {
+        Map<String, PolygonGeofenceIndex.Polygon> newPolygons = new HashMap<>();
+        Set<String> newBeaconRegionIds = new HashSet<>();
+        Map<String, RegionNotifications.Template> newNotificationTemplates = new HashMap<>();
+        // An empty list removes every monitored region
+        if (geofenceEntries != null) {
+            restoreProcessState();
             if (geofenceRegions == null) {
                 geofenceRegions = new HashMap<>();
             }
@@ -248,21 +635,33 @@ public class GeofenceMonitor {
             for (Map<String, Object> regionEntry : geofenceEntries) {
                 if (regionEntry != null) {
                     String id = Utils.Map.getValueFromPath(regionEntry, "id", null);
+                    RegionNotifications.Template notificationTemplate = regionEntry.containsKey("notification") ? RegionNotifications.Template.fromMap(regionEntry.get("notification")) : null;
+                    if ((id != null) && (notificationTemplate != null)) {
+                        newNotificationTemplates.put(id, notificationTemplate);
+                    }
+                    // Polygon geofence regions
+                    PolygonGeofenceIndex.Polygon polygon = regionEntry.containsKey("location") ? buildPolygon(id, Utils.Map.getListFromPath(regionEntry, "location.polygon")) : null;
+                    if (polygon != null) {
+                        newPolygons.put(id, polygon);
+                    }
                     // Geofence regions
-                    if (regionEntry.containsKey("location")) {
+                    else if (regionEntry.containsKey("location")) {
                         double lat = Utils.Map.getValueFromPath(regionEntry, "location.latitude", 0.0);
                         double lng = Utils.Map.getValueFromPath(regionEntry, "location.longitude", 0.0);
                         double radius = Utils.Map.getValueFromPath(regionEntry, "location.radius", 0.0);
-                        Geofence geofence = new Geofence.Builder().
-                                setRequestId(id).
-                                setCircularRegion(lat, lng, (int) radius).
-                                setExpirationDuration(Geofence.NEVER_EXPIRE).
-                                setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT).
-                                build();
+                        GeofenceTuning tuning = GeofenceTuning.fromMap(regionEntry.get("tuning"));
+                        Geofence geofence = tuning.build(id, lat, lng, (int) radius);
                         geofenceRegions.put(id, geofence);
-
+                        geofenceInitialTriggers.put(id, tuning.initialTrigger);
                         newGeofenceIds.add(id);
-                        newGeofences.add(geofence);
+
+                        // Skip re-registering geofences that did not change since the last sync
+                        GeofenceRegistrationQueue.State state = geofenceRegistrationQueue.getState(id);
+                        boolean unchanged = regionEntry.equals(geofenceRegionEntries.put(id, regionEntry)) &&
+                                ((state == GeofenceRegistrationQueue.State.REGISTERED) || (state == GeofenceRegistrationQueue.State.PENDING_ADD));
+                        if (!unchanged) {
+                            newGeofences.add(geofence);
+                        }
                     }
                     // Beacon Regions
                     else if (regionEntry.containsKey("beacon")) {
@@ -278,14 +677,21 @@ public class GeofenceMonitor {
                             beaconRegion = new Region(id, Identifier.fromUuid(UUID.fromString(uuidString)), null, null);
                         }
                         if (beaconRegion != null) {
+                            String parentId = Utils.Map.getValueFromPath(regionEntry, "parent_id", null);
+                            if (!Utils.Str.isEmpty(parentId)) {
+                                beaconRegionParents.put(id, parentId);
+                            } else {
+                                beaconRegionParents.remove(id);
+                            }
+                            beaconRegionManager.setPriority(id, Utils.Map.getValueFromPath(regionEntry, "priority", 0));
                             beaconRegions.put(id, beaconRegion);
                             newBeaconRegionIds.add(id);
-                            newBeaconRegions.add(beaconRegion);
                         }
                     }
                 }
             }
             boolean regionsChanged = false;
+            regionNotifications.setTemplates(RokwireCore.getInstance().getContext(), newNotificationTemplates);
 
             // Geofence regions
             startMonitorGeofenceRegions(newGeofences);
@@ -297,28 +703,48 @@ public class GeofenceMonitor {
             }
             for (String geofenceId : removeGeofenceIds) {
                 geofenceRegions.remove(geofenceId);
-                currentRegionIds.remove(geofenceId);
+                geofenceRegionEntries.remove(geofenceId);
+                geofenceInitialTriggers.remove(geofenceId);
+                removeCurrentRegion(geofenceId);
             }
             stopMonitorGeofenceRegions(removeGeofenceIds);
             if (!removeGeofenceIds.isEmpty()) {
                 regionsChanged = true;
             }
 
+            // Polygon regions
+            if (applyPolygonRegions(newPolygons)) {
+                regionsChanged = true;
+            }
+
             // Beacon Regions
-            startMonitorBeaconRegions(newBeaconRegions);
-            List<Region> removeBeaconRegions = new ArrayList<>();
-            for (Region beaconRegion : beaconRegions.values()) {
-                if (!newBeaconRegionIds.contains(beaconRegion.getUniqueId())) {
-                    removeBeaconRegions.add(beaconRegion);
-                    stopRangingBeaconsInRegion(beaconRegion);
+            List<String> removeBeaconRegionIds = new ArrayList<>();
+            for (String beaconRegionId : beaconRegions.keySet()) {
+                if (!newBeaconRegionIds.contains(beaconRegionId)) {
+                    removeBeaconRegionIds.add(beaconRegionId);
                 }
             }
-            for (Region beaconRegion : removeBeaconRegions) {
-                beaconRegions.remove(beaconRegion.getUniqueId());
-                currentRegionIds.remove(beaconRegion.getUniqueId());
+            for (String beaconRegionId : removeBeaconRegionIds) {
+                stopRangingBeacons(beaconRegionId);
+                beaconRegions.remove(beaconRegionId);
+                beaconRegionParents.remove(beaconRegionId);
+                beaconRegionManager.removeRegion(beaconRegionId);
+                removeCurrentRegion(beaconRegionId);
             }
-            stopMonitorBeaconRegions(removeBeaconRegions);
-            if (!removeBeaconRegions.isEmpty()) {
+            if (!removeBeaconRegionIds.isEmpty()) {
+                regionsChanged = true;
+            }
+
+            // Regions restored after a cold start that are no longer in the set
+            for (String regionId : new ArrayList<>(currentRegionIds)) {
+                if (!geofenceRegions.containsKey(regionId) && !polygonRegions.containsKey(regionId) &&
+                        !beaconRegions.containsKey(regionId) && removeCurrentRegion(regionId)) {
+                    regionsChanged = true;
+                }
+            }
+
+            // Monitor active beacon regions within budget, gated ones only while their parent is current
+            if (updateBeaconRegionsActivation()) {
                 regionsChanged = true;
             }
 
@@ -329,85 +755,226 @@ public class GeofenceMonitor {
         }
     }
 
-    private void startMonitorGeofenceRegions(List<Geofence> geofenceList) {
-        if (geofenceList == null || geofenceList.isEmpty()) {
+    //region Polygon geofences
+
+    private static PolygonGeofenceIndex.Polygon buildPolygon(String id, List<?> vertices) {
+        if ((id == null) || (vertices == null) || (vertices.size() < 3)) {
+            return null;
+        }
+        double[] latitudes = new double[vertices.size()];
+        double[] longitudes = new double[vertices.size()];
+        for (int index = 0; index < vertices.size(); index++) {
+            Object vertex = vertices.get(index);
+            if (vertex instanceof List<?> && (((List<?>) vertex).size() >= 2) &&
+                    (((List<?>) vertex).get(0) instanceof Number) && (((List<?>) vertex).get(1) instanceof Number)) {
+                latitudes[index] = ((Number) ((List<?>) vertex).get(0)).doubleValue();
+                longitudes[index] = ((Number) ((List<?>) vertex).get(1)).doubleValue();
+            } else if (vertex instanceof Map<?, ?>) {
+                latitudes[index] = Utils.Map.getDoubleFromPath(vertex, "latitude", Double.NaN);
+                longitudes[index] = Utils.Map.getDoubleFromPath(vertex, "longitude", Double.NaN);
+            } else {
+                latitudes[index] = longitudes[index] = Double.NaN;
+            }
+            if (Double.isNaN(latitudes[index]) || Double.isNaN(longitudes[index])) {
+                Log.e(TAG, "Invalid polygon vertex " + index + " in region with id: " + id);
+                return null;
+            }
+        }
+        return new PolygonGeofenceIndex.Polygon(id, latitudes, longitudes);
+    }
+
+    /** Replaces the polygon region set. Returns true if current regions changed because of removed polygons. */
+    private boolean applyPolygonRegions(Map<String, PolygonGeofenceIndex.Polygon> newPolygons) {
+        boolean currentRegionsChanged = false;
+        if (polygonRegions != null) {
+            for (String polygonId : polygonRegions.keySet()) {
+                if (!newPolygons.containsKey(polygonId)) {
+                    polygonInsideIds.remove(polygonId);
+                    if (removeCurrentRegion(polygonId)) {
+                        currentRegionsChanged = true;
+                    }
+                }
+            }
+        }
+        polygonRegions = newPolygons;
+        // A polygon restored as current after a cold start exits on the first fix outside it
+        for (String polygonId : newPolygons.keySet()) {
+            if (currentRegionIds.contains(polygonId)) {
+                polygonInsideIds.add(polygonId);
+            }
+        }
+        polygonIndex = !newPolygons.isEmpty() ? new PolygonGeofenceIndex(new ArrayList<>(newPolygons.values())) : null;
+        polygonQueryResult = new int[newPolygons.size()];
+        updatePolygonLocationUpdates();
+        return currentRegionsChanged;
+    }
+
+    void evaluatePolygonRegions(double latitude, double longitude) {
+        PolygonGeofenceIndex index = polygonIndex;
+        if (index == null) {
             return;
         }
-        if (geofencingClient == null) {
+        int found = index.query(latitude, longitude, polygonQueryResult);
+        List<String> entered = null;
+        List<String> exited = null;
+        Set<String> insideIds = polygonFixInsideIds;
+        insideIds.clear();
+        for (int position = 0; position < found; position++) {
+            String polygonId = index.getId(polygonQueryResult[position]);
+            insideIds.add(polygonId);
+            if (!polygonInsideIds.contains(polygonId)) {
+                if (entered == null) {
+                    entered = new ArrayList<>();
+                }
+                entered.add(polygonId);
+            }
+        }
+        for (String polygonId : polygonInsideIds) {
+            if (!insideIds.contains(polygonId)) {
+                if (exited == null) {
+                    exited = new ArrayList<>();
+                }
+                exited.add(polygonId);
+            }
+        }
+        polygonFixInsideIds = polygonInsideIds;
+        polygonInsideIds = insideIds;
+        if (entered != null) {
+            applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, entered);
+        }
+        if (exited != null) {
+            applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_EXIT, exited);
+        }
+    }
+
+    private void updatePolygonLocationUpdates() {
+        if ((polygonIndex != null) && (geofencingClient != null)) {
+            startPolygonLocationUpdates();
+        } else {
+            stopPolygonLocationUpdates();
+        }
+    }
+
+    private void startPolygonLocationUpdates() {
+        if (fusedLocationClient != null) {
             return;
         }
-        GeofencingRequest.Builder builder = new GeofencingRequest.Builder();
-        builder.setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER);
-        builder.addGeofences(geofenceList);
-        GeofencingRequest geofencingRequest = builder.build();
-        if (ContextCompat.checkSelfPermission(RokwirePlugin.getInstance().getActivity(), Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
-            geofencingClient.addGeofences(geofencingRequest, getGeofencePendingIntent()).
-                    addOnSuccessListener(addGeofencesSuccessListener).
-                    addOnFailureListener(addGeofencesFailureListener);
+        Context context = RokwireCore.getInstance().getContext();
+        if ((context == null) || (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED)) {
+            return;
         }
+        LocationRequest locationRequest = new LocationRequest.Builder(Priority.PRIORITY_BALANCED_POWER_ACCURACY, POLYGON_LOCATION_INTERVAL_MILLIS).
+                setMinUpdateDistanceMeters(POLYGON_LOCATION_MIN_DISTANCE_METERS).
+                build();
+        fusedLocationClient = LocationServices.getFusedLocationProviderClient(context);
+        fusedLocationClient.requestLocationUpdates(locationRequest, polygonLocationCallback, Looper.getMainLooper()).
+                addOnFailureListener(e -> Log.e(TAG, "Polygon location updates -> onFailure: " + e));
     }
 
-    private void stopMonitorGeofenceRegions(List<String> geofenceIdList) {
-        if (geofenceIdList == null || geofenceIdList.isEmpty()) {
+    private void stopPolygonLocationUpdates() {
+        if (fusedLocationClient != null) {
+            fusedLocationClient.removeLocationUpdates(polygonLocationCallback);
+            fusedLocationClient = null;
+        }
+    }
+
+    private final LocationCallback polygonLocationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult locationResult) {
+            Location location = locationResult.getLastLocation();
+            if (location != null) {
+                evaluatePolygonRegions(location.getLatitude(), location.getLongitude());
+            }
+        }
+    };
+
+    //endregion
+
+    private void startMonitorGeofenceRegions(List<Geofence> geofenceList) {
+        if (geofenceList == null || geofenceList.isEmpty()) {
             return;
         }
-        if (geofencingClient == null) {
+        geofenceRegistrationQueue.add(geofenceList);
+    }
+
+    private void stopMonitorGeofenceRegions(List<String> geofenceIdList) {
+        if (geofenceIdList == null || geofenceIdList.isEmpty()) {
             return;
         }
-        geofencingClient.removeGeofences(geofenceIdList).
-                addOnSuccessListener(removeGeofencesSuccessListener).
-                addOnFailureListener(removeGeofencesFailureListener);
+        geofenceRegistrationQueue.remove(geofenceIdList);
     }
 
     private PendingIntent getGeofencePendingIntent() {
         if (geofencePendingIntent != null) {
             return geofencePendingIntent;
         }
-        Intent intent = new Intent(RokwirePlugin.getInstance().getActivity(), GeofenceBroadcastReceiver.class);
-        geofencePendingIntent = PendingIntent.getBroadcast(RokwirePlugin.getInstance().getActivity(), 0,
+        Intent intent = new Intent(RokwireCore.getInstance().getContext(), GeofenceBroadcastReceiver.class);
+        geofencePendingIntent = PendingIntent.getBroadcast(RokwireCore.getInstance().getContext(), 0,
                 intent, PendingIntent.FLAG_IMMUTABLE);
         return geofencePendingIntent;
     }
 
     private void notifyCurrentGeofencesUpdated() {
         //TBD
-        RokwirePlugin.getInstance().notifyGeoFence​("onCurrentRegionsChanged", getCurrentIds());
+        RokwireCore.getInstance().notifyGeoFence("onCurrentRegionsChanged", getCurrentIds());
     }
 
     private void notifyRegionEnter(String regionId) {
-        RokwirePlugin.getInstance().notifyGeoFence​("onEnterRegion", regionId);
+        regionNotifications.onRegionEnter(RokwireCore.getInstance().getContext(), regionId, System.currentTimeMillis());
+        RokwireCore.getInstance().notifyGeoFence("onEnterRegion", regionId);
     }
 
     private void notifyRegionExit(String regionId) {
-        RokwirePlugin.getInstance().notifyGeoFence​("onExitRegion", regionId);
+        RokwireCore.getInstance().notifyGeoFence("onExitRegion", regionId);
     }
 
-    //region Add Geofences Listeners
+    //region Geofence registration
 
-    private final OnSuccessListener<Void> addGeofencesSuccessListener = aVoid -> Log.i(TAG, "Add Geofences -> onSuccess");
-
-    private final OnFailureListener addGeofencesFailureListener = e -> {
-        Log.e(TAG, "Add Geofences -> onFailure");
-        String localizedMsg = e.getLocalizedMessage();
-        if (localizedMsg != null) {
-            Log.e(TAG, localizedMsg);
+    private final GeofenceRegistrationQueue.Client geofenceRegistrationClient = new GeofenceRegistrationQueue.Client() {
+        @Override
+        public boolean isReady() {
+            Context context = RokwireCore.getInstance().getContext();
+            return (geofencingClient != null) && (context != null) &&
+                    (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED);
         }
-    };
 
-    //endregion
-
-    //region Remove Geofences Listeners
+        @Override
+        @SuppressWarnings("MissingPermission")
+        public Task<Void> addGeofences(@NonNull List<Geofence> geofences) {
+            Map<Integer, List<Geofence>> geofencesByTrigger = new HashMap<>();
+            for (Geofence geofence : geofences) {
+                Integer initialTrigger = geofenceInitialTriggers.get(geofence.getRequestId());
+                int trigger = (initialTrigger != null) ? initialTrigger : GeofenceTuning.DEFAULT_INITIAL_TRIGGER;
+                List<Geofence> triggerGeofences = geofencesByTrigger.get(trigger);
+                if (triggerGeofences == null) {
+                    geofencesByTrigger.put(trigger, triggerGeofences = new ArrayList<>());
+                }
+                triggerGeofences.add(geofence);
+            }
+            List<Task<Void>> tasks = new ArrayList<>();
+            for (Map.Entry<Integer, List<Geofence>> entry : geofencesByTrigger.entrySet()) {
+                GeofencingRequest.Builder builder = new GeofencingRequest.Builder();
+                builder.setInitialTrigger(entry.getKey());
+                builder.addGeofences(entry.getValue());
+                tasks.add(geofencingClient.addGeofences(builder.build(), getGeofencePendingIntent()));
+            }
+            return (tasks.size() == 1) ? tasks.get(0) : Tasks.whenAll(tasks);
+        }
 
-    private final OnSuccessListener<Void> removeGeofencesSuccessListener = aVoid -> Log.i(TAG, "Remove Geofences -> onSuccess");
+        @Override
+        public Task<Void> removeGeofences(@NonNull List<String> geofenceIds) {
+            return geofencingClient.removeGeofences(geofenceIds);
+        }
 
-    private final OnFailureListener removeGeofencesFailureListener = e -> {
-        Log.e(TAG, "Remove Geofences -> onFailure");
-        String localizedMsg = e.getLocalizedMessage();
-        if (localizedMsg != null) {
-            Log.e(TAG, localizedMsg);
+        @Override
+        public void onGeofencesNotAvailable() {
+            // Location is off, the queue keeps the adds pending until the recovery registers them all again
+            waitForLocation();
         }
     };
 
+    private final GeofenceRegistrationQueue geofenceRegistrationQueue = new GeofenceRegistrationQueue(new Handler(Looper.getMainLooper()), geofenceRegistrationClient);
+
     //endregion
 
     //region Beacon scanner
@@ -417,38 +984,249 @@ public class GeofenceMonitor {
             Log.d(TAG, "initBeaconManager() -> Monitoring already started");
             return;
         }
-        Context context = RokwirePlugin.getInstance().getActivity();
+        Context context = RokwireCore.getInstance().getContext();
         if (context == null) {
-            Log.d(TAG, "initBeaconManager() -> No binded activity");
+            Log.d(TAG, "initBeaconManager() -> No attached engine");
             return;
         }
-        beaconManager = BeaconManager.getInstanceForApplication(context);
-        // Layout for iBeacons
-        beaconManager.getBeaconParsers().add(new BeaconParser().setBeaconLayout("m:2-3=0215,i:4-19,i:20-21,i:22-23,p:24-24"));
+        applyBeaconManager(BeaconManager.getInstanceForApplication(context));
+    }
+
+    @VisibleForTesting
+    void applyBeaconManager(@NonNull BeaconManager manager) {
+        beaconManager = manager;
+        applyBeaconParsers();
+        applyBeaconScanStrategy();
+        beaconManager.setNonBeaconLeScanCallback((device, rssi, scanRecord) -> beaconScanCounters.unmatched.incrementAndGet());
 
         beaconManager.addMonitorNotifier(monitorNotifier);
         beaconManager.addRangeNotifier(rangeNotifier);
 
-        if (beaconRegions != null && !beaconRegions.isEmpty()) {
-            List<Region> beaconRegionList = new ArrayList<>(beaconRegions.values());
-            if (!beaconRegionList.isEmpty()) {
-                startMonitorBeaconRegions(beaconRegionList);
+        // Background until the process lifecycle reports started, which it does on registration if it already is
+        setBeaconScanForeground(false);
+        ProcessLifecycleOwner.get().getLifecycle().addObserver(processLifecycleObserver);
+
+        // Regions AltBeacon restored from an earlier process are released unless still wanted
+        releaseBeaconScannerIfIdle();
+        startMonitorBeaconRegions(new ArrayList<>(beaconRegionManager.getScanRegions()));
+        updateRangedScanRegions();
+        scheduleBeaconRegionRotation();
+    }
+
+    private final DefaultLifecycleObserver processLifecycleObserver = new DefaultLifecycleObserver() {
+        @Override
+        public void onStart(@NonNull LifecycleOwner owner) {
+            setBeaconScanForeground(true);
+        }
+
+        @Override
+        public void onStop(@NonNull LifecycleOwner owner) {
+            setBeaconScanForeground(false);
+        }
+    };
+
+    /** Switches AltBeacon between its foreground and background scan cycles as the app moves between them. */
+    @VisibleForTesting
+    void setBeaconScanForeground(boolean foreground) {
+        beaconScanForeground = foreground;
+        if (beaconManager != null) {
+            beaconManager.setBackgroundMode(!foreground);
+        }
+    }
+
+    /** Applies the foreground service or scheduled job strategy; AltBeacon rejects it while its service is bound. */
+    private boolean applyBeaconScanStrategy() {
+        try {
+            if (beaconForegroundServiceNotification != null) {
+                beaconManager.setEnableScheduledScanJobs(false);
+                beaconManager.enableForegroundServiceScanning(beaconForegroundServiceNotification, BEACON_FOREGROUND_SERVICE_NOTIFICATION_ID);
+                beaconManager.setBackgroundBetweenScanPeriod(0);
+                beaconManager.setBackgroundScanPeriod(BEACON_FOREGROUND_SERVICE_SCAN_PERIOD_MILLIS);
+            } else if (beaconManager.getForegroundServiceNotification() != null) {
+                beaconManager.disableForegroundServiceScanning();
+                beaconManager.setEnableScheduledScanJobs(Build.VERSION.SDK_INT >= Build.VERSION_CODES.O);
+                beaconManager.setBackgroundBetweenScanPeriod(BeaconManager.DEFAULT_BACKGROUND_BETWEEN_SCAN_PERIOD);
+                beaconManager.setBackgroundScanPeriod(BeaconManager.DEFAULT_BACKGROUND_SCAN_PERIOD);
+            }
+            return true;
+        } catch (IllegalStateException e) {
+            Log.e(TAG, "Failed to apply beacon scan strategy, ex: " + e);
+            return false;
+        }
+    }
+
+    /** Stops every scan, applies a change AltBeacon only accepts while idle, then resumes the wanted scans. */
+    private void reconfigureBeaconScanner(Runnable change) {
+        stopBeaconScanner();
+        change.run();
+        startMonitorBeaconRegions(new ArrayList<>(beaconRegionManager.getScanRegions()));
+        updateRangedScanRegions();
+    }
+
+    /**
+     * Stops monitoring and ranging of every region AltBeacon knows, including ones it restored from its own state
+     * file. With nothing left to scan, AltBeacon unbinds and stops its scanning service.
+     */
+    private void stopBeaconScanner() {
+        if (beaconManager == null) {
+            return;
+        }
+        for (Region rangedRegion : beaconManager.getRangedRegions()) {
+            beaconManager.stopRangingBeacons(rangedRegion);
+        }
+        stopMonitorBeaconRegions(new ArrayList<>(beaconManager.getMonitoredRegions()));
+    }
+
+    private void releaseBeaconScannerIfIdle() {
+        if (beaconRegionManager.getScanRegions().isEmpty()) {
+            stopBeaconScanner();
+        }
+    }
+
+    private void applyBeaconParsers() {
+        // Build the new parsers first and keep the current ones unless they can all be swapped in
+        List<BeaconParser> parsers = BeaconLayouts.createParsers(beaconLayouts, beaconScanCounters);
+        if (parsers.isEmpty()) {
+            Log.e(TAG, "No valid beacon layouts in " + beaconLayouts + ", keeping the current parsers");
+            return;
+        }
+        List<BeaconParser> currentParsers = beaconManager.getBeaconParsers();
+        List<BeaconParser> previousParsers = new ArrayList<>(currentParsers);
+        try {
+            currentParsers.clear();
+            currentParsers.addAll(parsers);
+        } catch (UnsupportedOperationException e) {
+            Log.e(TAG, "Failed to apply beacon layouts while scanning, ex: " + e);
+            if (currentParsers.isEmpty()) {
+                currentParsers.addAll(previousParsers);
             }
         }
     }
 
     private void unInitBeaconManager() {
         if (beaconManager != null) {
+            ProcessLifecycleOwner.get().getLifecycle().removeObserver(processLifecycleObserver);
+            stopBeaconScanner();
             beaconManager.removeAllMonitorNotifiers();
             beaconManager.removeAllRangeNotifiers();
+            beaconManager.setNonBeaconLeScanCallback(null);
             beaconManager = null;
         }
+        beaconEvents.clear();
+        beaconEventsHandler.removeCallbacks(beaconEventsFlush);
+        beaconEventsHandler.removeCallbacks(beaconRegionRotation);
+        beaconRegionRotationScheduled = false;
     }
 
     private boolean isBeaconManagerInitialized() {
         return (beaconManager != null);
     }
 
+    private boolean isBeaconRegionActive(String regionId) {
+        String parentId = beaconRegionParents.get(regionId);
+        return (parentId == null) || currentRegionIds.contains(parentId);
+    }
+
+    /**
+     * Recomputes which beacon regions are active: gated regions only while their parent geofence is current.
+     * Returns true if current regions changed.
+     */
+    private boolean updateBeaconRegionsActivation() {
+        activeBeaconRegionIds.clear();
+        if (beaconRegions != null) {
+            for (String regionId : beaconRegions.keySet()) {
+                if (isBeaconRegionActive(regionId)) {
+                    activeBeaconRegionIds.add(regionId);
+                }
+            }
+        }
+        return updateMonitoredBeaconRegions();
+    }
+
+    /**
+     * Applies the beacon region budget to the active regions and updates the monitored scan regions in one pass.
+     * Regions that lost their scan region are exited. Returns true if current regions changed.
+     */
+    private boolean updateMonitoredBeaconRegions() {
+        List<Region> candidates = new ArrayList<>();
+        Set<String> nearIds = new HashSet<>(rangingRegionIds);
+        for (String regionId : activeBeaconRegionIds) {
+            Region region = beaconRegions.get(regionId);
+            if (region != null) {
+                candidates.add(region);
+                if (currentRegionIds.contains(regionId)) {
+                    nearIds.add(regionId);
+                }
+            }
+        }
+        BeaconRegionManager.Update update = beaconRegionManager.update(candidates, nearIds, System.currentTimeMillis());
+        scheduleBeaconRegionRotation();
+        if (update.isEmpty()) {
+            return false;
+        }
+        boolean currentRegionsChanged = false;
+        for (String regionId : update.deactivatedIds) {
+            stopRangingBeacons(regionId);
+            if (exitCurrentRegion(regionId)) {
+                currentRegionsChanged = true;
+                notifyRegionExit(regionId);
+            }
+        }
+        stopMonitorBeaconRegions(update.stopRegions);
+        startMonitorBeaconRegions(update.startRegions);
+        updateRangedScanRegions();
+        releaseBeaconScannerIfIdle();
+        return currentRegionsChanged;
+    }
+
+    /** Keeps the over-budget rotation ticking while there are more beacon regions than the budget. */
+    private void scheduleBeaconRegionRotation() {
+        if ((beaconManager != null) && beaconRegionManager.isOverBudget()) {
+            if (!beaconRegionRotationScheduled) {
+                beaconRegionRotationScheduled = true;
+                beaconEventsHandler.postDelayed(beaconRegionRotation, BeaconRegionManager.ROTATION_PERIOD_MILLIS);
+            }
+        } else if (beaconRegionRotationScheduled) {
+            beaconRegionRotationScheduled = false;
+            beaconEventsHandler.removeCallbacks(beaconRegionRotation);
+        }
+    }
+
+    private final Runnable beaconRegionRotation = () -> {
+        beaconRegionRotationScheduled = false;
+        beaconRegionManager.rotate();
+        if (updateMonitoredBeaconRegions()) {
+            notifyCurrentGeofencesUpdated();
+        }
+    };
+
+    /** Ranges exactly the scan regions that serve at least one region Dart asked to range. */
+    private void updateRangedScanRegions() {
+        if (beaconManager == null) {
+            return;
+        }
+        Set<Region> scanRegions = new HashSet<>();
+        for (String regionId : rangingRegionIds) {
+            Region scanRegion = beaconRegionManager.getScanRegion(regionId);
+            if (scanRegion != null) {
+                scanRegions.add(scanRegion);
+            }
+        }
+        for (Region rangedRegion : beaconManager.getRangedRegions()) {
+            if (!scanRegions.remove(rangedRegion)) {
+                beaconManager.stopRangingBeacons(rangedRegion);
+            }
+        }
+        for (Region scanRegion : scanRegions) {
+            beaconManager.startRangingBeacons(scanRegion);
+        }
+    }
+
+    @VisibleForTesting
+    Region getBeaconScanRegion(String regionId) {
+        return beaconRegionManager.getScanRegion(regionId);
+    }
+
     private void startMonitorBeaconRegions(List<Region> beaconRegions) {
         if (beaconRegions == null || beaconRegions.isEmpty()) {
             return;
@@ -485,109 +1263,143 @@ public class GeofenceMonitor {
         if (Utils.Str.isEmpty(regionId)) {
             return;
         }
-        Collection<Beacon> currentBeacons = currentRegionBeacons.get(regionId);
-        if (!Utils.Beacons.equalCollections(currentBeacons, beacons)) {
-            if (beacons != null) {
-                currentRegionBeacons.put(regionId, beacons);
-            } else {
-                currentRegionBeacons.remove(regionId);
-            }
-            List<HashMap> beaconsList = null;
-            if (beacons != null && !beacons.isEmpty()) {
-                beaconsList = Utils.Beacons.toListMap(beacons);
+        RangedBeaconStore regionBeacons = currentRegionBeacons.get(regionId);
+        if (regionBeacons == null) {
+            if (beacons == null || beacons.isEmpty()) {
+                return;
             }
-            notifyBeacons(beaconsList, regionId);
+            currentRegionBeacons.put(regionId, regionBeacons = new RangedBeaconStore());
+        }
+        boolean changed = regionBeacons.update(beacons, System.currentTimeMillis());
+        // Beacons out of range keep their history for nearest-beacon queries until it expires
+        if (regionBeacons.isEmpty()) {
+            currentRegionBeacons.remove(regionId);
+        }
+        if (changed) {
+            notifyBeacons(regionId);
         }
     }
 
-    private boolean stopRangingBeaconsInRegion(Region region) {
-        String regionId = (region != null) ? region.getUniqueId() : null;
-        if (Utils.Str.isEmpty(regionId)) {
-            return false;
-        }
-        if (beaconManager != null) {
-            beaconManager.stopRangingBeacons(region);
-            if (currentRegionBeacons.get(regionId) != null) {
-                currentRegionBeacons.remove(regionId);
-                notifyBeacons(null, regionId);
-            }
-            return true;
+    private void stopRangingBeacons(String regionId) {
+        rangingRegionIds.remove(regionId);
+        if (currentRegionBeacons.remove(regionId) != null) {
+            notifyBeacons(regionId);
         }
-        return false;
     }
 
     private void stopAllRangingBeacons() {
-        if (beaconRegions != null && !beaconRegions.isEmpty()) {
-            for (String regionId : beaconRegions.keySet()) {
-                stopRangingBeaconsInRegion(regionId);
-            }
+        for (String regionId : new ArrayList<>(rangingRegionIds)) {
+            stopRangingBeacons(regionId);
+        }
+        updateRangedScanRegions();
+    }
+
+    private void notifyBeacons(String regionId) {
+        if (RokwireCore.getInstance().isGeoFenceListening("onBeaconsInRegionChanged")) {
+            beaconEvents.post(regionId, System.currentTimeMillis());
+            scheduleBeaconEventsFlush();
         }
     }
 
-    private void notifyBeacons(List<HashMap> beaconsList, String regionId) {
+    /** Sends the latest beacons of a region when its mailbox slot comes up; superseded updates are never built. */
+    private boolean sendBeacons(String regionId, long sequence) {
+        if (!RokwireCore.getInstance().isGeoFenceListening("onBeaconsInRegionChanged")) {
+            return false;
+        }
+        RangedBeaconStore regionBeacons = currentRegionBeacons.get(regionId);
         HashMap<String, Object> parameters = new HashMap<>();
         parameters.put("regionId", regionId);
-        parameters.put("beacons", beaconsList);
-        RokwirePlugin.getInstance().notifyGeoFence​("onBeaconsInRegionChanged", parameters);
+        parameters.put("beacons", (regionBeacons != null) ? regionBeacons.toListMap() : (rangingRegionIds.contains(regionId) ? new ArrayList<>() : null));
+        parameters.put("sequence", sequence);
+        RokwireCore.getInstance().notifyGeoFence("onBeaconsInRegionChanged", parameters);
+        return true;
+    }
+
+    /** Retries pending updates once the oldest unacknowledged one expires. */
+    private void scheduleBeaconEventsFlush() {
+        beaconEventsHandler.removeCallbacks(beaconEventsFlush);
+        if (beaconEvents.hasPending()) {
+            long delay = beaconEvents.getNextExpiration() - System.currentTimeMillis();
+            beaconEventsHandler.postDelayed(beaconEventsFlush, Math.max(0, delay));
+        }
+    }
+
+    private final Runnable beaconEventsFlush = () -> {
+        beaconEvents.flush(System.currentTimeMillis());
+        scheduleBeaconEventsFlush();
+    };
+
+    private void updateBeaconRegionsState(Region scanRegion, boolean inside) {
+        restoreProcessState();
+        List<String> regionIds = beaconRegionManager.getMembers(scanRegion);
+        boolean stoppedRanging = false;
+        for (String regionId : regionIds) {
+            if (inside) {
+                beaconRegionManager.markSeen(regionId, System.currentTimeMillis());
+            } else if (!currentRegionIds.contains(regionId)) {
+                // Not current, so no stable exit will follow to stop ranging
+                stopRangingBeacons(regionId);
+                stoppedRanging = true;
+            }
+        }
+        if (stoppedRanging) {
+            updateRangedScanRegions();
+        }
+        transitionDebouncer.update(regionIds, inside);
     }
 
     private final MonitorNotifier monitorNotifier = new MonitorNotifier() {
         @Override
         public void didEnterRegion(Region region) {
-            String beaconRegionId = region.getUniqueId();
-            Log.i(TAG, "BeaconScanner.didEnterRegion with id: " + beaconRegionId);
-            if (!currentRegionIds.contains(beaconRegionId)) {
-                currentRegionIds.add(beaconRegionId);
-                notifyRegionEnter(beaconRegionId);
-                notifyCurrentGeofencesUpdated();
-            }
+            Log.i(TAG, "BeaconScanner.didEnterRegion with id: " + region.getUniqueId());
+            updateBeaconRegionsState(region, true);
         }
 
         @Override
         public void didExitRegion(Region region) {
-            String beaconRegionId = region.getUniqueId();
-            Log.i(TAG, "BeaconScanner.didExitRegion with id: " + beaconRegionId);
-            if (currentRegionIds.contains(beaconRegionId)) {
-                currentRegionIds.remove(beaconRegionId);
-                notifyRegionExit(beaconRegionId);
-                notifyCurrentGeofencesUpdated();
-                stopRangingBeaconsInRegion(region);
-            }
+            Log.i(TAG, "BeaconScanner.didExitRegion with id: " + region.getUniqueId());
+            updateBeaconRegionsState(region, false);
         }
 
         @Override
         public void didDetermineStateForRegion(int state, Region region) {
-            String regionId = region.getUniqueId();
-            Log.i(TAG, "BeaconScanner.didDetermineStateForRegion with id: " + regionId + " and state: " + state);
-            boolean changed;
+            Log.i(TAG, "BeaconScanner.didDetermineStateForRegion with id: " + region.getUniqueId() + " and state: " + state);
             if (state == INSIDE) {
-                Log.i(TAG, "BeaconScanner.INSIDE region with id: " + regionId);
-                changed = !currentRegionIds.contains(regionId);
-                currentRegionIds.add(regionId);
-                if (changed) {
-                    notifyRegionEnter(regionId);
-                    notifyCurrentGeofencesUpdated();
-                }
+                updateBeaconRegionsState(region, true);
             } else if (state == OUTSIDE) {
-                Log.i(TAG, "BeaconScanner.OUTSIDE region with id: " + regionId);
-                changed = currentRegionIds.contains(regionId);
-                currentRegionIds.remove(regionId);
-                if (changed) {
-                    notifyRegionExit(regionId);
-                    notifyCurrentGeofencesUpdated();
-                }
-                stopRangingBeaconsInRegion(region);
+                updateBeaconRegionsState(region, false);
             }
         }
     };
 
     private final RangeNotifier rangeNotifier = (collection, region) -> {
         int beaconsCount = (collection != null) ? collection.size() : 0;
-        String regionId = region.getUniqueId();
-        Log.i(TAG, String.format(Locale.getDefault(), "BeaconScanner.didRangeBeaconsInRegion: [%d] in region with id '%s'", beaconsCount, regionId));
-        rangedBeaconsInRegion(collection, regionId);
+        Log.i(TAG, String.format(Locale.getDefault(), "BeaconScanner.didRangeBeaconsInRegion: [%d] in region with id '%s'", beaconsCount, region.getUniqueId()));
+        // Late callbacks for scan regions that are not monitored anymore have no members and are ignored
+        for (String regionId : beaconRegionManager.getMembers(region)) {
+            if (rangingRegionIds.contains(regionId)) {
+                if (beaconsCount > 0) {
+                    beaconRegionManager.markSeen(regionId, System.currentTimeMillis());
+                }
+                rangedBeaconsInRegion(collection, regionId);
+            }
+        }
+        updatePosition();
     };
 
+    private void updatePosition() {
+        if (!positioningEngine.hasAnchors()) {
+            return;
+        }
+        positioningEngine.beginCycle();
+        for (RangedBeaconStore regionBeacons : currentRegionBeacons.values()) {
+            positioningEngine.addMeasurements(regionBeacons);
+        }
+        if (positioningEngine.endCycle(System.currentTimeMillis()) && RokwireCore.getInstance().isGeoFenceListening("onPositionChanged")) {
+            RokwireCore.getInstance().notifyGeoFence("onPositionChanged", positioningEngine.toMap());
+        }
+    }
+
     //endregion
 
     public void handleMethodCall(String name, Object params, MethodChannel.Result result) {
@@ -596,17 +1408,38 @@ public class GeofenceMonitor {
                 result.success(getCurrentIds());
             }
             else if ("monitorRegions".equals(name)) {
-                List<Map<String, Object>> geoFencesList = null;
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> paramsList = (params instanceof List<?>) ? (List<Map<String, Object>>) params : null;
-                    geoFencesList = paramsList;
-                } catch (Exception e) {
-                    Log.e(TAG, String.format(Locale.getDefault(), "monitorRegions: Failed to parse geofences list. Ex: '%s'", e));
+                // Either the plain region list or {regions, digests, hash}
+                if (params instanceof Map<?, ?>) {
+                    monitorRegions(regionsFromParams(Utils.Map.getListFromPath(params, "regions")), digestsFromParams(params), Utils.Map.getValueFromPath(params, "hash", null));
+                } else {
+                    monitorRegions(regionsFromParams(params));
                 }
-                monitorRegions(geoFencesList);
                 result.success(null);
             }
+            else if ("addRegions".equals(name)) {
+                result.success(addRegions(regionsFromParams(Utils.Map.getListFromPath(params, "regions")), digestsFromParams(params), Utils.Map.getValueFromPath(params, "hash", null)));
+            }
+            else if ("updateRegions".equals(name)) {
+                result.success(updateRegions(regionsFromParams(Utils.Map.getListFromPath(params, "regions")), digestsFromParams(params), Utils.Map.getValueFromPath(params, "hash", null)));
+            }
+            else if ("removeRegions".equals(name)) {
+                List<String> ids = new ArrayList<>();
+                List<?> idsList = Utils.Map.getListFromPath(params, "ids");
+                if (idsList != null) {
+                    for (Object id : idsList) {
+                        if (id instanceof String) {
+                            ids.add((String) id);
+                        }
+                    }
+                }
+                result.success(removeRegions(ids, Utils.Map.getValueFromPath(params, "hash", null)));
+            }
+            else if ("regionSetHash".equals(name)) {
+                result.success(getRegionSetHash());
+            }
+            else if ("staleRegions".equals(name)) {
+                result.success(getStaleRegions(stringMapFromParams(params)));
+            }
             else if ("startRangingBeaconsInRegion".equals(name)) {
                 String regionId = (params instanceof String) ? (String) params : null;
                 result.success(startRangingBeaconsInRegion(regionId));
@@ -615,6 +1448,92 @@ public class GeofenceMonitor {
                 String regionId = (params instanceof String) ? (String) params : null;
                 result.success(stopRangingBeaconsInRegion(regionId));
             }
+            else if ("setBeaconRegionBudget".equals(name)) {
+                if (params instanceof Integer) {
+                    setBeaconRegionBudget((Integer) params);
+                }
+                result.success(null);
+            }
+            else if ("setBeaconLayouts".equals(name)) {
+                List<String> layouts = new ArrayList<>();
+                if (params instanceof List<?>) {
+                    for (Object layout : (List<?>) params) {
+                        if (layout instanceof String) {
+                            layouts.add((String) layout);
+                        }
+                    }
+                }
+                result.success(setBeaconLayouts(layouts));
+            }
+            else if ("setBeaconForegroundService".equals(name)) {
+                // Either false/null or the {title, body, channel} of the ongoing notification
+                Notification notification = null;
+                Context context = RokwireCore.getInstance().getApplicationContext();
+                if ((params instanceof Map<?, ?>) && (context != null)) {
+                    notification = Utils.Notifications.build(context, "beacon_scanning",
+                            Utils.Map.getValueFromPath(params, "title", null),
+                            Utils.Map.getValueFromPath(params, "body", null),
+                            Utils.Map.getValueFromPath(params, "channel", null), null).
+                            setOngoing(true).
+                            build();
+                }
+                result.success(setBeaconForegroundService(notification));
+            }
+            else if ("beaconScanStats".equals(name)) {
+                result.success(getBeaconScanStats());
+            }
+            else if ("ackBeacons".equals(name)) {
+                if (params instanceof Number) {
+                    ackBeaconEvents(((Number) params).longValue());
+                }
+                result.success(null);
+            }
+            else if ("beaconEventStats".equals(name)) {
+                result.success(getBeaconEventStats());
+            }
+            else if ("setPositioningAnchors".equals(name)) {
+                List<?> anchors = Utils.Map.getListFromPath(params, "anchors");
+                long publishInterval = Utils.Map.getLongFromPath(params, "publishInterval", IndoorPositioningEngine.DEFAULT_PUBLISH_INTERVAL_MILLIS);
+                double smoothing = Utils.Map.getDoubleFromPath(params, "smoothing", IndoorPositioningEngine.DEFAULT_SMOOTHING);
+                setPositioningAnchors(anchors, publishInterval, smoothing);
+                result.success(null);
+            }
+            else if ("nearestBeacons".equals(name)) {
+                int count = Utils.Map.getValueFromPath(params, "count", NearestBeacons.DEFAULT_COUNT);
+                long window = Utils.Map.getLongFromPath(params, "window", NearestBeacons.DEFAULT_WINDOW_MILLIS);
+                result.success(getNearestBeacons(count, window));
+            }
+            else if ("position".equals(name)) {
+                result.success(getPosition());
+            }
+            else if ("setTransitionDebounce".equals(name)) {
+                double enterConfirm = Utils.Map.getDoubleFromPath(params, "enter", 0);
+                double exitGrace = Utils.Map.getDoubleFromPath(params, "exit", 0);
+                setTransitionDebounce((long) (enterConfirm * 1000), (long) (exitGrace * 1000));
+                result.success(null);
+            }
+            else if ("transitionStats".equals(name)) {
+                result.success(getTransitionStats());
+            }
+            else if ("dwellStats".equals(name)) {
+                result.success(getDwellStats());
+            }
+            else if ("resetDwellStats".equals(name)) {
+                List<String> regionIds = null;
+                if (params instanceof List<?>) {
+                    regionIds = new ArrayList<>();
+                    for (Object regionId : (List<?>) params) {
+                        if (regionId instanceof String) {
+                            regionIds.add((String) regionId);
+                        }
+                    }
+                }
+                resetDwellStats(regionIds);
+                result.success(null);
+            }
+            else if ("registrationStates".equals(name)) {
+                result.success(geofenceRegistrationQueue.getStates());
+            }
             else if("beaconsInRegion".equals(name)) {
                 String regionId = (params instanceof String) ? (String) params : null;
                 result.success(getBeaconsInRegion(regionId));
@@ -627,4 +1546,33 @@ public class GeofenceMonitor {
             Log.e(TAG, errorMsg);
         }
     }
+
+    private static List<Map<String, Object>> regionsFromParams(Object params) {
+        List<Map<String, Object>> regions = null;
+        try {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> paramsList = (params instanceof List<?>) ? (List<Map<String, Object>>) params : null;
+            regions = paramsList;
+        } catch (Exception e) {
+            Log.e(TAG, String.format(Locale.getDefault(), "Failed to parse geofences list. Ex: '%s'", e));
+        }
+        return regions;
+    }
+
+    private static Map<String, String> digestsFromParams(Object params) {
+        return (params instanceof Map<?, ?>) ? stringMapFromParams(((Map<?, ?>) params).get("digests")) : null;
+    }
+
+    private static Map<String, String> stringMapFromParams(Object params) {
+        if (!(params instanceof Map<?, ?>)) {
+            return null;
+        }
+        Map<String, String> map = new HashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) params).entrySet()) {
+            if ((entry.getKey() instanceof String) && (entry.getValue() instanceof String)) {
+                map.put((String) entry.getKey(), (String) entry.getValue());
+            }
+        }
+        return map;
+    }
 }
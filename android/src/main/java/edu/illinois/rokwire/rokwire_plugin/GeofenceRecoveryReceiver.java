@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.location.LocationManager;
+
+/**
+ * Registers the last synced regions again after Play Services dropped them: on reboot, after an app update and
+ * when location comes back after geofences were reported not available. Provider changes reach the manifest
+ * receiver only before Android 8; later the monitor registers this receiver at runtime while it waits. The
+ * broadcast is held open until the registrations completed. Clearing Play Services data sends no broadcast; those
+ * geofences are registered again at the next launch, when Dart syncs its set into the fresh process.
+ */
+public class GeofenceRecoveryReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = (intent != null) ? intent.getAction() : null;
+        if (action == null) {
+            return;
+        }
+        RokwireCore.getInstance().applyApplicationContext(context);
+        // Keep the process alive until Play Services answered the registrations; null when not dispatched by the system
+        PendingResult pendingResult = goAsync();
+        switch (action) {
+            case Intent.ACTION_BOOT_COMPLETED:
+            case Intent.ACTION_MY_PACKAGE_REPLACED:
+                GeofenceMonitor.getInstance().recoverRegions();
+                break;
+            case LocationManager.PROVIDERS_CHANGED_ACTION:
+                GeofenceMonitor.getInstance().onLocationProvidersChanged();
+                break;
+            default:
+                break;
+        }
+        GeofenceMonitor.getInstance().whenGeofencesSettled(() -> {
+            if (pendingResult != null) {
+                pendingResult.finish();
+            }
+        });
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.os.Handler;
+import android.util.Log;
+
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofenceStatusCodes;
+import com.google.android.gms.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Serializes geofence registrations into bounded chunks. Queued add and remove operations for the
+ * same id collapse into the latest one, transient failures are retried with exponential backoff
+ * and every region has a tracked registration state. Attempts are counted per region, and retried
+ * regions are chunked with regions of the same attempt count in ever smaller chunks, so a region
+ * that keeps failing ends up alone instead of using up the retries of the others. While location is off adds
+ * fail with GEOFENCE_NOT_AVAILABLE; they stay pending without retries until the client resumes the queue.
+ */
+class GeofenceRegistrationQueue {
+
+    private static final String TAG = GeofenceRegistrationQueue.class.getCanonicalName();
+
+    static final int MAX_CHUNK_SIZE = 50;
+    static final long INITIAL_BACKOFF_MILLIS = 1000;
+    static final long MAX_BACKOFF_MILLIS = 5 * 60 * 1000;
+    static final int MAX_ATTEMPTS = 8;
+
+    enum State { PENDING_ADD, REGISTERED, PENDING_REMOVE, FAILED }
+
+    interface Client {
+        boolean isReady();
+        Task<Void> addGeofences(@NonNull List<Geofence> geofences);
+        Task<Void> removeGeofences(@NonNull List<String> geofenceIds);
+        void onGeofencesNotAvailable();
+    }
+
+    private final Handler handler;
+    private final Client client;
+
+    private final LinkedHashMap<String, Geofence> pendingAdds = new LinkedHashMap<>();
+    private final LinkedHashSet<String> pendingRemoves = new LinkedHashSet<>();
+    private final Set<String> registeredIds = new HashSet<>();
+    private final Set<String> failedIds = new HashSet<>();
+
+    // Chunk currently handed to the client
+    private List<Geofence> inFlightAdds;
+    private List<String> inFlightRemoves;
+    private int generation = 0;
+
+    // Failed attempts of the queued operation of each region
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private boolean processPosted = false;
+    private boolean retryScheduled = false;
+    // Location is off, nothing is sent until resumed
+    private boolean notAvailable = false;
+
+    // Run once no chunk is queued or in flight
+    private final List<Runnable> settledCallbacks = new ArrayList<>();
+
+    GeofenceRegistrationQueue(@NonNull Handler handler, @NonNull Client client) {
+        this.handler = handler;
+        this.client = client;
+    }
+
+    void add(@NonNull List<Geofence> geofences) {
+        for (Geofence geofence : geofences) {
+            String id = geofence.getRequestId();
+            pendingRemoves.remove(id);
+            failedIds.remove(id);
+            attempts.remove(id);
+            pendingAdds.put(id, geofence);
+        }
+        scheduleProcess();
+    }
+
+    void remove(@NonNull List<String> geofenceIds) {
+        for (String id : geofenceIds) {
+            pendingAdds.remove(id);
+            failedIds.remove(id);
+            attempts.remove(id);
+            if (registeredIds.contains(id) || isInFlightAdd(id)) {
+                pendingRemoves.add(id);
+            }
+        }
+        scheduleProcess();
+    }
+
+    /** Drops all queued work and registration state, e.g. after all geofences were removed at once. */
+    void clear() {
+        pendingAdds.clear();
+        pendingRemoves.clear();
+        registeredIds.clear();
+        failedIds.clear();
+        inFlightAdds = null;
+        inFlightRemoves = null;
+        generation++;
+        attempts.clear();
+        handler.removeCallbacks(processRunnable);
+        handler.removeCallbacks(retryRunnable);
+        processPosted = retryScheduled = notAvailable = false;
+        notifyIfSettled();
+    }
+
+    /** Starts processing after the client became ready or location is available again. */
+    void resume() {
+        notAvailable = false;
+        scheduleProcess();
+    }
+
+    State getState(String id) {
+        if (pendingAdds.containsKey(id) || isInFlightAdd(id)) {
+            return State.PENDING_ADD;
+        } else if (pendingRemoves.contains(id) || ((inFlightRemoves != null) && inFlightRemoves.contains(id))) {
+            return State.PENDING_REMOVE;
+        } else if (registeredIds.contains(id)) {
+            return State.REGISTERED;
+        } else if (failedIds.contains(id)) {
+            return State.FAILED;
+        }
+        return null;
+    }
+
+    Map<String, String> getStates() {
+        Map<String, String> states = new HashMap<>();
+        for (String id : registeredIds) {
+            states.put(id, stateName(State.REGISTERED));
+        }
+        for (String id : failedIds) {
+            states.put(id, stateName(State.FAILED));
+        }
+        for (String id : pendingRemoves) {
+            states.put(id, stateName(State.PENDING_REMOVE));
+        }
+        if (inFlightRemoves != null) {
+            for (String id : inFlightRemoves) {
+                states.put(id, stateName(State.PENDING_REMOVE));
+            }
+        }
+        if (inFlightAdds != null) {
+            for (Geofence geofence : inFlightAdds) {
+                states.put(geofence.getRequestId(), stateName(State.PENDING_ADD));
+            }
+        }
+        for (String id : pendingAdds.keySet()) {
+            states.put(id, stateName(State.PENDING_ADD));
+        }
+        return states;
+    }
+
+    static String stateName(State state) {
+        return state.name().toLowerCase(Locale.US);
+    }
+
+    /**
+     * Runs the callback once the queued registrations completed, or once the rest waits on a retry backoff, on
+     * location or on the client becoming ready, so a caller holding a broadcast open never waits for minutes.
+     */
+    void whenSettled(@NonNull Runnable callback) {
+        settledCallbacks.add(callback);
+        notifyIfSettled();
+    }
+
+    boolean isIdle() {
+        return pendingAdds.isEmpty() && pendingRemoves.isEmpty() && (inFlightAdds == null) && (inFlightRemoves == null);
+    }
+
+    // Processing
+
+    private void scheduleProcess() {
+        if (!processPosted) {
+            // Coalesce operations queued within the same main loop turn into full chunks
+            processPosted = true;
+            handler.post(processRunnable);
+        }
+    }
+
+    private final Runnable processRunnable = () -> {
+        processPosted = false;
+        process();
+    };
+
+    private final Runnable retryRunnable = () -> {
+        retryScheduled = false;
+        process();
+    };
+
+    private void process() {
+        if ((inFlightAdds != null) || (inFlightRemoves != null) || retryScheduled || notAvailable || !client.isReady()) {
+            notifyIfSettled();
+            return;
+        }
+        // Removals first, they free Play Services capacity for the adds that follow
+        if (!pendingRemoves.isEmpty()) {
+            List<String> chunk = new ArrayList<>(Math.min(MAX_CHUNK_SIZE, pendingRemoves.size()));
+            int chunkAttempts = getAttempts(pendingRemoves.iterator().next());
+            int chunkSize = getChunkSize(chunkAttempts);
+            Iterator<String> iterator = pendingRemoves.iterator();
+            while (iterator.hasNext() && (chunk.size() < chunkSize)) {
+                String id = iterator.next();
+                if (getAttempts(id) == chunkAttempts) {
+                    chunk.add(id);
+                    iterator.remove();
+                }
+            }
+            inFlightRemoves = chunk;
+            int chunkGeneration = generation;
+            client.removeGeofences(chunk).
+                    addOnSuccessListener(aVoid -> onRemoveSucceeded(chunkGeneration, chunk)).
+                    addOnFailureListener(e -> onRemoveFailed(chunkGeneration, chunk, e));
+        } else if (!pendingAdds.isEmpty()) {
+            List<Geofence> chunk = new ArrayList<>(Math.min(MAX_CHUNK_SIZE, pendingAdds.size()));
+            int chunkAttempts = getAttempts(pendingAdds.keySet().iterator().next());
+            int chunkSize = getChunkSize(chunkAttempts);
+            Iterator<Geofence> iterator = pendingAdds.values().iterator();
+            while (iterator.hasNext() && (chunk.size() < chunkSize)) {
+                Geofence geofence = iterator.next();
+                if (getAttempts(geofence.getRequestId()) == chunkAttempts) {
+                    chunk.add(geofence);
+                    iterator.remove();
+                }
+            }
+            inFlightAdds = chunk;
+            int chunkGeneration = generation;
+            client.addGeofences(chunk).
+                    addOnSuccessListener(aVoid -> onAddSucceeded(chunkGeneration, chunk)).
+                    addOnFailureListener(e -> onAddFailed(chunkGeneration, chunk, e));
+        } else {
+            notifyIfSettled();
+        }
+    }
+
+    private void notifyIfSettled() {
+        if (settledCallbacks.isEmpty() || processPosted || (inFlightAdds != null) || (inFlightRemoves != null)) {
+            return;
+        }
+        if (isIdle() || retryScheduled || notAvailable || !client.isReady()) {
+            List<Runnable> callbacks = new ArrayList<>(settledCallbacks);
+            settledCallbacks.clear();
+            for (Runnable callback : callbacks) {
+                callback.run();
+            }
+        }
+    }
+
+    private void onAddSucceeded(int chunkGeneration, List<Geofence> chunk) {
+        if (chunkGeneration != generation) {
+            return;
+        }
+        Log.i(TAG, "Add Geofences -> onSuccess: " + chunk.size());
+        for (Geofence geofence : chunk) {
+            registeredIds.add(geofence.getRequestId());
+            attempts.remove(geofence.getRequestId());
+        }
+        inFlightAdds = null;
+        process();
+    }
+
+    private void onAddFailed(int chunkGeneration, List<Geofence> chunk, Exception e) {
+        if (chunkGeneration != generation) {
+            return;
+        }
+        int statusCode = statusCode(e);
+        Log.e(TAG, "Add Geofences -> onFailure: " + GeofenceStatusCodes.getStatusCodeString(statusCode));
+        inFlightAdds = null;
+        if (statusCode == GeofenceStatusCodes.GEOFENCE_NOT_AVAILABLE) {
+            onAddNotAvailable(chunk);
+            return;
+        }
+        int retryAttempts = 0;
+        for (Geofence geofence : chunk) {
+            String id = geofence.getRequestId();
+            if (pendingRemoves.contains(id) && !registeredIds.contains(id)) {
+                pendingRemoves.remove(id); // removed while in flight, nothing to undo
+            } else if (!pendingAdds.containsKey(id)) {
+                int idAttempts = getAttempts(id) + 1;
+                if (isTransient(statusCode) && (idAttempts <= MAX_ATTEMPTS)) {
+                    attempts.put(id, idAttempts);
+                    pendingAdds.put(id, geofence);
+                    retryAttempts = Math.max(retryAttempts, idAttempts);
+                } else {
+                    attempts.remove(id);
+                    failedIds.add(id);
+                }
+            }
+        }
+        onChunkFailed(retryAttempts);
+    }
+
+    /** Keeps the chunk pending without counting an attempt; retrying is pointless until location is back. */
+    private void onAddNotAvailable(List<Geofence> chunk) {
+        for (Geofence geofence : chunk) {
+            String id = geofence.getRequestId();
+            if (pendingRemoves.contains(id) && !registeredIds.contains(id)) {
+                pendingRemoves.remove(id); // removed while in flight, nothing to undo
+            } else if (!pendingAdds.containsKey(id)) {
+                pendingAdds.put(id, geofence);
+            }
+        }
+        notAvailable = true;
+        client.onGeofencesNotAvailable();
+        notifyIfSettled();
+    }
+
+    private void onRemoveSucceeded(int chunkGeneration, List<String> chunk) {
+        if (chunkGeneration != generation) {
+            return;
+        }
+        Log.i(TAG, "Remove Geofences -> onSuccess: " + chunk.size());
+        registeredIds.removeAll(chunk);
+        for (String id : chunk) {
+            attempts.remove(id);
+        }
+        inFlightRemoves = null;
+        process();
+    }
+
+    private void onRemoveFailed(int chunkGeneration, List<String> chunk, Exception e) {
+        if (chunkGeneration != generation) {
+            return;
+        }
+        int statusCode = statusCode(e);
+        Log.e(TAG, "Remove Geofences -> onFailure: " + GeofenceStatusCodes.getStatusCodeString(statusCode));
+        inFlightRemoves = null;
+        int retryAttempts = 0;
+        for (String id : chunk) {
+            if (!pendingAdds.containsKey(id)) {
+                int idAttempts = getAttempts(id) + 1;
+                if (idAttempts <= MAX_ATTEMPTS) {
+                    attempts.put(id, idAttempts);
+                    pendingRemoves.add(id);
+                    retryAttempts = Math.max(retryAttempts, idAttempts);
+                } else {
+                    attempts.remove(id);
+                    registeredIds.remove(id);
+                    failedIds.add(id);
+                }
+            }
+        }
+        onChunkFailed(retryAttempts);
+    }
+
+    /** Backs off before the next chunk when the failed one is retried, by its highest attempt count. */
+    private void onChunkFailed(int retryAttempts) {
+        if (retryAttempts > 0) {
+            long delay = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(retryAttempts - 1, 20));
+            retryScheduled = true;
+            handler.postDelayed(retryRunnable, delay);
+            notifyIfSettled();
+        } else {
+            process();
+        }
+    }
+
+    private int getAttempts(String id) {
+        Integer idAttempts = attempts.get(id);
+        return (idAttempts != null) ? idAttempts : 0;
+    }
+
+    /** Chunks halve with every failed attempt, isolating a region that keeps failing. */
+    private static int getChunkSize(int attempts) {
+        return Math.max(1, MAX_CHUNK_SIZE >> Math.max(0, attempts - 1));
+    }
+
+    private static int statusCode(Exception e) {
+        return (e instanceof ApiException) ? ((ApiException) e).getStatusCode() : CommonStatusCodes.INTERNAL_ERROR;
+    }
+
+    /**
+     * Too many geofences or pending intents will not resolve by retrying the same request, and geofences not
+     * available only once location is turned on again.
+     */
+    private static boolean isTransient(int statusCode) {
+        return (statusCode != GeofenceStatusCodes.GEOFENCE_NOT_AVAILABLE) &&
+                (statusCode != GeofenceStatusCodes.GEOFENCE_TOO_MANY_GEOFENCES) &&
+                (statusCode != GeofenceStatusCodes.GEOFENCE_TOO_MANY_PENDING_INTENTS) &&
+                (statusCode != CommonStatusCodes.DEVELOPER_ERROR);
+    }
+
+    private boolean isInFlightAdd(String id) {
+        if (inFlightAdds != null) {
+            for (Geofence geofence : inFlightAdds) {
+                if (id.equals(geofence.getRequestId())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingRequest;
+
+import java.util.List;
+
+/**
+ * Per-region geofence settings from a region entry's {@code tuning} map:
+ * {@code {responsiveness, transitions, loitering_delay, expiration, initial_trigger}}, durations in seconds and
+ * transitions as lists of "enter", "exit" and "dwell". Regions that only feed background analytics can use a
+ * slow responsiveness and dwell instead of enter, so Play Services batches their alerts and wakes the device less.
+ * Exit is always registered along with enter or dwell, otherwise a region could never leave the current regions.
+ */
+class GeofenceTuning {
+
+    static final int DEFAULT_TRANSITIONS = Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT;
+    static final int DEFAULT_INITIAL_TRIGGER = GeofencingRequest.INITIAL_TRIGGER_ENTER;
+    static final int DEFAULT_LOITERING_DELAY_MILLIS = 300000;
+
+    static final GeofenceTuning DEFAULT = new GeofenceTuning(0, DEFAULT_TRANSITIONS, DEFAULT_LOITERING_DELAY_MILLIS, Geofence.NEVER_EXPIRE, DEFAULT_INITIAL_TRIGGER);
+
+    final int responsivenessMillis;
+    final int transitions;
+    final int loiteringDelayMillis;
+    final long expirationMillis;
+    final int initialTrigger;
+
+    GeofenceTuning(int responsivenessMillis, int transitions, int loiteringDelayMillis, long expirationMillis, int initialTrigger) {
+        this.responsivenessMillis = responsivenessMillis;
+        this.transitions = transitions;
+        this.loiteringDelayMillis = loiteringDelayMillis;
+        this.expirationMillis = expirationMillis;
+        this.initialTrigger = initialTrigger;
+    }
+
+    static GeofenceTuning fromMap(Object tuning) {
+        if (tuning == null) {
+            return DEFAULT;
+        }
+        int responsiveness = (int) (Utils.Map.getDoubleFromPath(tuning, "responsiveness", 0) * 1000);
+        List<?> transitionsList = Utils.Map.getListFromPath(tuning, "transitions");
+        int transitions = (transitionsList != null) ? transitionsMask(transitionsList, true) : DEFAULT_TRANSITIONS;
+        if (transitions == 0) {
+            transitions = DEFAULT_TRANSITIONS;
+        } else if ((transitions & (Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_DWELL)) != 0) {
+            transitions |= Geofence.GEOFENCE_TRANSITION_EXIT;
+        }
+        int loiteringDelay = (int) (Utils.Map.getDoubleFromPath(tuning, "loitering_delay", DEFAULT_LOITERING_DELAY_MILLIS / 1000.0) * 1000);
+        double expiration = Utils.Map.getDoubleFromPath(tuning, "expiration", 0);
+        List<?> initialTriggerList = Utils.Map.getListFromPath(tuning, "initial_trigger");
+        // An empty initial trigger list means no initial trigger
+        int initialTrigger = (initialTriggerList != null) ? transitionsMask(initialTriggerList, false) : DEFAULT_INITIAL_TRIGGER;
+        return new GeofenceTuning(Math.max(0, responsiveness), transitions, Math.max(0, loiteringDelay),
+                (0 < expiration) ? (long) (expiration * 1000) : Geofence.NEVER_EXPIRE, initialTrigger);
+    }
+
+    Geofence build(String id, double latitude, double longitude, float radius) {
+        Geofence.Builder builder = new Geofence.Builder().
+                setRequestId(id).
+                setCircularRegion(latitude, longitude, radius).
+                setExpirationDuration(expirationMillis).
+                setTransitionTypes(transitions);
+        if (0 < responsivenessMillis) {
+            builder.setNotificationResponsiveness(responsivenessMillis);
+        }
+        // Play Services requires a loitering delay with dwell transitions
+        if ((transitions & Geofence.GEOFENCE_TRANSITION_DWELL) != 0) {
+            builder.setLoiteringDelay(loiteringDelayMillis);
+        }
+        return builder.build();
+    }
+
+    // Maps transition names to Geofence transition types, or to GeofencingRequest initial triggers
+    private static int transitionsMask(List<?> names, boolean transitionTypes) {
+        int mask = 0;
+        for (Object name : names) {
+            if ("enter".equals(name)) {
+                mask |= transitionTypes ? Geofence.GEOFENCE_TRANSITION_ENTER : GeofencingRequest.INITIAL_TRIGGER_ENTER;
+            } else if ("exit".equals(name)) {
+                mask |= transitionTypes ? Geofence.GEOFENCE_TRANSITION_EXIT : GeofencingRequest.INITIAL_TRIGGER_EXIT;
+            } else if ("dwell".equals(name)) {
+                mask |= transitionTypes ? Geofence.GEOFENCE_TRANSITION_DWELL : GeofencingRequest.INITIAL_TRIGGER_DWELL;
+            }
+        }
+        return mask;
+    }
+}
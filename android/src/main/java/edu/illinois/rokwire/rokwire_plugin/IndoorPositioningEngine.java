@@ -0,0 +1,313 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Computes a position from ranged beacons with known coordinates (anchors). Each ranging cycle the
+ * anchors in range are trilaterated with weighted least squares in a local metric plane, and the
+ * result is exponentially smoothed. The math works on preallocated primitive arrays only.
+ */
+class IndoorPositioningEngine {
+
+    static final long DEFAULT_PUBLISH_INTERVAL_MILLIS = 1000;
+    static final double DEFAULT_SMOOTHING = 0.3;
+
+    private static final double METERS_PER_DEGREE = 111320.0;
+    private static final double MIN_DISTANCE_METERS = 0.1;
+    private static final int MAX_ITERATIONS = 10;
+    private static final int DEFAULT_MEASURED_POWER = -59;
+    private static final double PATH_LOSS_EXPONENT = 2.0;
+
+    // Anchors, projected around the first one
+    private int anchorCount;
+    private long[] anchorIdsHigh = new long[0];
+    private long[] anchorIdsLow = new long[0];
+    private short[] anchorMajors = new short[0];
+    private short[] anchorMinors = new short[0];
+    private double[] anchorXs = new double[0];
+    private double[] anchorYs = new double[0];
+    private int[] anchorCycles = new int[0];
+    private int[] anchorSlots = new int[1];
+    private double originLatitude, originLongitude, metersPerDegreeLongitude;
+
+    // Measurements of the current cycle
+    private int measurementCount;
+    private double[] measurementXs = new double[0];
+    private double[] measurementYs = new double[0];
+    private double[] measurementDistances = new double[0];
+    private double[] measurementWeights = new double[0];
+    private int cycle;
+    private final double[] solution = new double[3];
+
+    // Smoothed position in the local plane
+    private boolean hasPosition;
+    private double positionX, positionY, accuracy;
+    private int positionAnchors;
+    private long positionTime;
+    private long lastPublishTime;
+
+    private long publishIntervalMillis = DEFAULT_PUBLISH_INTERVAL_MILLIS;
+    private double smoothing = DEFAULT_SMOOTHING;
+
+    boolean hasAnchors() {
+        return anchorCount > 0;
+    }
+
+    void setPublishInterval(long publishIntervalMillis) {
+        this.publishIntervalMillis = Math.max(0, publishIntervalMillis);
+    }
+
+    void setSmoothing(double smoothing) {
+        this.smoothing = Math.min(1.0, Math.max(0.01, smoothing));
+    }
+
+    /** Anchor entries are maps with uuid, major, minor, latitude and longitude. Invalid entries are skipped. */
+    void setAnchors(List<?> anchors) {
+        int capacity = (anchors != null) ? anchors.size() : 0;
+        anchorIdsHigh = new long[capacity];
+        anchorIdsLow = new long[capacity];
+        anchorMajors = new short[capacity];
+        anchorMinors = new short[capacity];
+        anchorXs = new double[capacity];
+        anchorYs = new double[capacity];
+        anchorCycles = new int[capacity];
+        anchorSlots = new int[Integer.highestOneBit(Math.max(1, capacity)) * 4];
+        measurementXs = new double[capacity];
+        measurementYs = new double[capacity];
+        measurementDistances = new double[capacity];
+        measurementWeights = new double[capacity];
+        anchorCount = 0;
+        reset();
+        if (anchors == null) {
+            return;
+        }
+        for (Object anchor : anchors) {
+            if (!(anchor instanceof Map)) {
+                continue;
+            }
+            String uuidString = Utils.Map.getValueFromPath(anchor, "uuid", null);
+            int major = Utils.Map.getValueFromPath(anchor, "major", -1);
+            int minor = Utils.Map.getValueFromPath(anchor, "minor", -1);
+            double latitude = Utils.Map.getDoubleFromPath(anchor, "latitude", Double.NaN);
+            double longitude = Utils.Map.getDoubleFromPath(anchor, "longitude", Double.NaN);
+            UUID uuid;
+            try {
+                uuid = (uuidString != null) ? UUID.fromString(uuidString) : null;
+            } catch (IllegalArgumentException e) {
+                uuid = null;
+            }
+            if ((uuid == null) || (major < 0) || (minor < 0) || Double.isNaN(latitude) || Double.isNaN(longitude)) {
+                continue;
+            }
+            if (anchorCount == 0) {
+                originLatitude = latitude;
+                originLongitude = longitude;
+                metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+            }
+            int index = anchorCount++;
+            anchorIdsHigh[index] = uuid.getMostSignificantBits();
+            anchorIdsLow[index] = uuid.getLeastSignificantBits();
+            anchorMajors[index] = (short) major;
+            anchorMinors[index] = (short) minor;
+            anchorXs[index] = (longitude - originLongitude) * metersPerDegreeLongitude;
+            anchorYs[index] = (latitude - originLatitude) * METERS_PER_DEGREE;
+            insertAnchorSlot(index);
+        }
+    }
+
+    void reset() {
+        hasPosition = false;
+        lastPublishTime = 0;
+        measurementCount = 0;
+    }
+
+    void beginCycle() {
+        measurementCount = 0;
+        cycle++;
+    }
+
+    /** Adds the anchors ranged in one region; an anchor ranged in several regions counts once per cycle. */
+    void addMeasurements(RangedBeaconStore store) {
+        for (int index = 0; index < store.size(); index++) {
+            if (!store.isCurrent(index) || (store.getFormat(index) != RangedBeaconStore.FORMAT_UUID_MAJOR_MINOR)) {
+                continue;
+            }
+            int anchor = findAnchor(store.getIdHigh(index), store.getIdLow(index), (short) store.getMajor(index), (short) store.getMinor(index));
+            if ((anchor < 0) || (anchorCycles[anchor] == cycle)) {
+                continue;
+            }
+            double distance = store.getDistance(index);
+            if (!(distance > 0)) {
+                distance = distanceFromRssi(store.getRssi(index));
+            }
+            distance = Math.max(distance, MIN_DISTANCE_METERS);
+            anchorCycles[anchor] = cycle;
+            measurementXs[measurementCount] = anchorXs[anchor];
+            measurementYs[measurementCount] = anchorYs[anchor];
+            measurementDistances[measurementCount] = distance;
+            measurementWeights[measurementCount] = 1.0 / (distance * distance);
+            measurementCount++;
+        }
+    }
+
+    /** Solves and smooths the cycle position. Returns true if it is due to be published. */
+    boolean endCycle(long timestamp) {
+        if (measurementCount == 0) {
+            return false;
+        }
+        solve(measurementXs, measurementYs, measurementDistances, measurementWeights, measurementCount, solution);
+        if (!hasPosition) {
+            positionX = solution[0];
+            positionY = solution[1];
+            accuracy = solution[2];
+            hasPosition = true;
+        } else {
+            positionX += smoothing * (solution[0] - positionX);
+            positionY += smoothing * (solution[1] - positionY);
+            accuracy += smoothing * (solution[2] - accuracy);
+        }
+        positionAnchors = measurementCount;
+        positionTime = timestamp;
+        if ((lastPublishTime == 0) || ((timestamp - lastPublishTime) >= publishIntervalMillis)) {
+            lastPublishTime = timestamp;
+            return true;
+        }
+        return false;
+    }
+
+    HashMap<String, Object> toMap() {
+        if (!hasPosition) {
+            return null;
+        }
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("latitude", originLatitude + positionY / METERS_PER_DEGREE);
+        map.put("longitude", originLongitude + positionX / metersPerDegreeLongitude);
+        map.put("accuracy", accuracy);
+        map.put("anchors", positionAnchors);
+        map.put("timestamp", positionTime);
+        return map;
+    }
+
+    /** Log-distance path loss estimate for beacons without a device model distance. */
+    static double distanceFromRssi(double rssi) {
+        return Math.pow(10.0, (DEFAULT_MEASURED_POWER - rssi) / (10.0 * PATH_LOSS_EXPONENT));
+    }
+
+    /**
+     * Weighted least-squares trilateration by Gauss-Newton iteration from the weighted centroid.
+     * Writes x, y and the weighted RMS range residual into {@code result}. With fewer than three
+     * measurements the centroid is returned and the residual is the mean range.
+     */
+    static void solve(double[] xs, double[] ys, double[] distances, double[] weights, int count, double[] result) {
+        double x = 0, y = 0, weightSum = 0;
+        for (int index = 0; index < count; index++) {
+            x += weights[index] * xs[index];
+            y += weights[index] * ys[index];
+            weightSum += weights[index];
+        }
+        x /= weightSum;
+        y /= weightSum;
+
+        if (count < 3) {
+            double rangeSum = 0;
+            for (int index = 0; index < count; index++) {
+                rangeSum += distances[index];
+            }
+            result[0] = x;
+            result[1] = y;
+            result[2] = rangeSum / count;
+            return;
+        }
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double a11 = 0, a12 = 0, a22 = 0, b1 = 0, b2 = 0;
+            for (int index = 0; index < count; index++) {
+                double dx = x - xs[index], dy = y - ys[index];
+                double range = Math.max(Math.sqrt(dx * dx + dy * dy), 1e-6);
+                double jx = dx / range, jy = dy / range;
+                double residual = range - distances[index];
+                double weight = weights[index];
+                a11 += weight * jx * jx;
+                a12 += weight * jx * jy;
+                a22 += weight * jy * jy;
+                b1 += weight * jx * residual;
+                b2 += weight * jy * residual;
+            }
+            double determinant = a11 * a22 - a12 * a12;
+            if (Math.abs(determinant) < 1e-12) {
+                break;
+            }
+            double stepX = -(a22 * b1 - a12 * b2) / determinant;
+            double stepY = -(a11 * b2 - a12 * b1) / determinant;
+            x += stepX;
+            y += stepY;
+            if ((stepX * stepX + stepY * stepY) < 1e-6) {
+                break;
+            }
+        }
+
+        double squaredSum = 0;
+        for (int index = 0; index < count; index++) {
+            double dx = x - xs[index], dy = y - ys[index];
+            double residual = Math.sqrt(dx * dx + dy * dy) - distances[index];
+            squaredSum += weights[index] * residual * residual;
+        }
+        result[0] = x;
+        result[1] = y;
+        result[2] = Math.sqrt(squaredSum / weightSum);
+    }
+
+    private int findAnchor(long high, long low, short major, short minor) {
+        int mask = anchorSlots.length - 1;
+        for (int slot = hash(high, low, major, minor) & mask; anchorSlots[slot] != 0; slot = (slot + 1) & mask) {
+            int index = anchorSlots[slot] - 1;
+            if ((anchorIdsHigh[index] == high) && (anchorIdsLow[index] == low) && (anchorMajors[index] == major) && (anchorMinors[index] == minor)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void insertAnchorSlot(int index) {
+        int existing = findAnchor(anchorIdsHigh[index], anchorIdsLow[index], anchorMajors[index], anchorMinors[index]);
+        if (existing >= 0) {
+            // Duplicate anchor: the later coordinates win
+            anchorXs[existing] = anchorXs[index];
+            anchorYs[existing] = anchorYs[index];
+            anchorCount--;
+            return;
+        }
+        int mask = anchorSlots.length - 1;
+        int slot = hash(anchorIdsHigh[index], anchorIdsLow[index], anchorMajors[index], anchorMinors[index]) & mask;
+        while (anchorSlots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        anchorSlots[slot] = index + 1;
+    }
+
+    private static int hash(long high, long low, short major, short minor) {
+        long value = high * 0x9e3779b97f4a7c15L ^ low;
+        value ^= ((long) (major & 0xffff) << 16) | (minor & 0xffff);
+        value = (value ^ (value >>> 32)) * 0x94d049bb133111ebL;
+        return (int) (value ^ (value >>> 31));
+    }
+}
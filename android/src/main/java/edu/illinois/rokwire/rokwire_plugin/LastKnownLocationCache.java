@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.location.Location;
+
+/**
+ * Keeps the most recent location fixes seen by the plugin, whatever their source (fused last location,
+ * passive updates, subscribed batches or single requests), and answers freshness/accuracy bounded queries
+ * without a provider round trip. Ages are measured on the elapsed realtime clock so that wall clock
+ * changes do not make fixes look fresh.
+ */
+class LastKnownLocationCache {
+
+    static final int CAPACITY = 8;
+
+    // Ring buffer ordered by fix time, newest at head
+    private final Location[] locations = new Location[CAPACITY];
+    private int head = -1;
+    private int size;
+
+    /** Adds a fix. Fixes not newer than the newest cached one are ignored. */
+    boolean offer(Location location) {
+        if (location == null) {
+            return false;
+        }
+        if ((size > 0) && (location.getElapsedRealtimeNanos() <= locations[head].getElapsedRealtimeNanos())) {
+            return false;
+        }
+        head = (head + 1) % CAPACITY;
+        locations[head] = location;
+        if (size < CAPACITY) {
+            size++;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the newest fix not older than maxAgeMillis with an accuracy radius of at most maxAccuracyMeters,
+     * or null. A negative maxAccuracyMeters accepts any accuracy, including fixes without one.
+     */
+    Location get(long maxAgeMillis, double maxAccuracyMeters, long nowElapsedNanos) {
+        long minElapsedNanos = nowElapsedNanos - maxAgeMillis * 1000000L;
+        for (int i = 0, index = head; i < size; i++, index = (index + CAPACITY - 1) % CAPACITY) {
+            Location location = locations[index];
+            if (location.getElapsedRealtimeNanos() < minElapsedNanos) {
+                break;
+            }
+            if (isAccurate(location, maxAccuracyMeters)) {
+                return location;
+            }
+        }
+        return null;
+    }
+
+    /** Whether a fix is no older than {@code maxAgeMillis} and within {@code maxAccuracyMeters}, if not negative. */
+    static boolean isWithinBounds(Location location, long maxAgeMillis, double maxAccuracyMeters, long nowElapsedNanos) {
+        return (location != null) && (location.getElapsedRealtimeNanos() >= nowElapsedNanos - maxAgeMillis * 1000000L) &&
+                isAccurate(location, maxAccuracyMeters);
+    }
+
+    private static boolean isAccurate(Location location, double maxAccuracyMeters) {
+        return (maxAccuracyMeters < 0) || (location.hasAccuracy() && (location.getAccuracy() <= maxAccuracyMeters));
+    }
+
+    Location getNewest() {
+        return (size > 0) ? locations[head] : null;
+    }
+
+    void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            locations[i] = null;
+        }
+        head = -1;
+        size = 0;
+    }
+}
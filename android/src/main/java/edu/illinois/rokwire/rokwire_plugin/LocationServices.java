@@ -3,6 +3,11 @@ package edu.illinois.rokwire.rokwire_plugin;
 import androidx.annotation.NonNull;
 
 import android.app.Activity;
+import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
 import android.Manifest;
 import android.os.Build;
 import android.content.Context;
@@ -10,12 +15,28 @@ import android.provider.Settings;
 import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
 
+import android.location.Location;
 import android.location.LocationManager;
+import android.os.Looper;
+import android.os.SystemClock;
 
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import android.util.Log;
 
+import com.google.android.gms.location.CurrentLocationRequest;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.Priority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
@@ -36,6 +57,37 @@ public class LocationServices implements PluginRegistry.RequestPermissionsResult
 
     private MethodChannel.Result _requestPermissionResult;
 
+    private static final String TRACE_SUBSCRIBER_ID = "rokwire.trace";
+
+    private static final long DEFAULT_LAST_KNOWN_MAX_AGE_MILLIS = 60000;
+    private static final long DEFAULT_LAST_KNOWN_TIMEOUT_MILLIS = 5000;
+    private static final long MAX_LAST_KNOWN_TIMEOUT_MILLIS = 30000;
+    private static final double HIGH_ACCURACY_THRESHOLD_METERS = 100;
+    private static final long PASSIVE_INTERVAL_MILLIS = 5000;
+
+    private Context _context;
+    private String _status;
+    private Boolean _permissionsRequested;
+
+    private LocationTraceEncoder _traceEncoder;
+    // Chunks nobody listened to, and the tail flushed on stop, returned by stopTrace
+    private final List<HashMap<String, Object>> _pendingTraceChunks = new ArrayList<>();
+    private boolean _traceRecording;
+    private FusedLocationProviderClient _fusedLocationClient;
+    private final LastKnownLocationCache _lastKnownLocations = new LastKnownLocationCache();
+    private boolean _passiveLocationUpdates;
+    private final LocationUpdatesMultiplexer _locationUpdates = new LocationUpdatesMultiplexer(new LocationUpdatesMultiplexer.Provider() {
+        @Override
+        public boolean request(long intervalMillis, int priority, long maxUpdateDelayMillis) {
+            return requestLocationUpdates(intervalMillis, priority, maxUpdateDelayMillis);
+        }
+
+        @Override
+        public void remove() {
+            removeLocationUpdates();
+        }
+    });
+
     public LocationServices() {
         _instance = this;
     }
@@ -49,6 +101,319 @@ public class LocationServices implements PluginRegistry.RequestPermissionsResult
             result.success(getLocationServicesStatus());
         } else if (name.equals("requestPermission")) {
             requestLocationPermission(result);
+        } else if (name.equals("subscribe")) {
+            String id = Utils.Map.getValueFromPath(params, "id", null);
+            if ((id != null) && !TRACE_SUBSCRIBER_ID.equals(id)) {
+                long interval = Utils.Map.getValueFromPath(params, "interval", (int) LocationUpdatesMultiplexer.DEFAULT_INTERVAL_MILLIS);
+                String accuracy = Utils.Map.getValueFromPath(params, "accuracy", null);
+                long maxDelay = Utils.Map.getValueFromPath(params, "maxDelay", (int) LocationUpdatesMultiplexer.DEFAULT_MAX_UPDATE_DELAY_MILLIS);
+                result.success(_locationUpdates.subscribe(id, interval, LocationUpdatesMultiplexer.priorityFromAccuracy(accuracy), maxDelay));
+            } else {
+                result.success(false);
+            }
+        } else if (name.equals("lastKnown")) {
+            queryLastKnownLocation(params, result);
+        } else if (name.equals("startTrace")) {
+            result.success(startTrace(params));
+        } else if (name.equals("flushTrace")) {
+            if (_traceEncoder != null) {
+                _traceEncoder.flush();
+            }
+            result.success(null);
+        } else if (name.equals("stopTrace")) {
+            result.success(stopTrace());
+        } else if (name.equals("unsubscribe")) {
+            String id = (params instanceof String) ? (String) params : null;
+            if ((id != null) && !TRACE_SUBSCRIBER_ID.equals(id)) {
+                _locationUpdates.unsubscribe(id);
+            }
+            result.success(null);
+        }
+    }
+
+    public void init(Context context) {
+        if (_context != null) {
+            return;
+        }
+        _context = context.getApplicationContext();
+        IntentFilter filter = new IntentFilter(LocationManager.PROVIDERS_CHANGED_ACTION);
+        filter.addAction(LocationManager.MODE_CHANGED_ACTION);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            _context.registerReceiver(_providersChangedReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+        } else {
+            _context.registerReceiver(_providersChangedReceiver, filter);
+        }
+        if (_context instanceof Application) {
+            ((Application) _context).registerActivityLifecycleCallbacks(_activityLifecycleCallbacks);
+        }
+    }
+
+    public void unInit() {
+        if (_context != null) {
+            _context.unregisterReceiver(_providersChangedReceiver);
+            if (_context instanceof Application) {
+                ((Application) _context).unregisterActivityLifecycleCallbacks(_activityLifecycleCallbacks);
+            }
+            _context = null;
+        }
+        _status = null;
+        _permissionsRequested = null;
+        stopTrace();
+        _locationUpdates.unsubscribeAll();
+        removePassiveLocationUpdates();
+        _lastKnownLocations.clear();
+    }
+
+    // Location trace
+
+    private boolean startTrace(Object params) {
+        double tolerance = Utils.Map.getDoubleFromPath(params, "tolerance", LocationTraceEncoder.DEFAULT_TOLERANCE_METERS);
+        int chunkPoints = Utils.Map.getValueFromPath(params, "chunkPoints", LocationTraceEncoder.DEFAULT_CHUNK_POINTS);
+        long interval = Utils.Map.getValueFromPath(params, "interval", (int) LocationUpdatesMultiplexer.DEFAULT_INTERVAL_MILLIS);
+        String accuracy = Utils.Map.getValueFromPath(params, "accuracy", "high");
+        long maxDelay = Utils.Map.getValueFromPath(params, "maxDelay", (int) LocationUpdatesMultiplexer.DEFAULT_MAX_UPDATE_DELAY_MILLIS);
+        if (_traceEncoder != null) {
+            _traceEncoder.flush();
+        }
+        _pendingTraceChunks.clear();
+        _traceEncoder = new LocationTraceEncoder(tolerance, chunkPoints, this::onTraceChunk);
+        _traceRecording = true;
+        return _locationUpdates.subscribe(TRACE_SUBSCRIBER_ID, interval, LocationUpdatesMultiplexer.priorityFromAccuracy(accuracy), maxDelay);
+    }
+
+    /** Stops recording and returns the counts together with the chunks not delivered yet, including the tail. */
+    private HashMap<String, Object> stopTrace() {
+        if (_traceEncoder == null) {
+            return null;
+        }
+        finishTraceRecording();
+        HashMap<String, Object> stats = new HashMap<>();
+        stats.put("inputPoints", _traceEncoder.getInputPoints());
+        stats.put("outputPoints", _traceEncoder.getOutputPoints());
+        stats.put("outputBytes", _traceEncoder.getOutputBytes());
+        stats.put("chunks", new ArrayList<>(_pendingTraceChunks));
+        _pendingTraceChunks.clear();
+        _traceEncoder = null;
+        return stats;
+    }
+
+    /** Called when no attached engine listens to the trace anymore; the tail is kept for stopTrace. */
+    void onTraceCancelled() {
+        if (_traceEncoder != null) {
+            finishTraceRecording();
+        }
+    }
+
+    private void finishTraceRecording() {
+        if (_traceRecording) {
+            _traceRecording = false;
+            _locationUpdates.unsubscribe(TRACE_SUBSCRIBER_ID);
+            _traceEncoder.flush();
+        }
+    }
+
+    private void onTraceChunk(byte[] data, int points, int sequence) {
+        HashMap<String, Object> chunk = new HashMap<>();
+        chunk.put("sequence", sequence);
+        chunk.put("points", points);
+        chunk.put("data", data);
+        if (_traceRecording && RokwireCore.getInstance().isListening(RokwireCore.LOCATION_TRACE_STREAM)) {
+            RokwireCore.getInstance().emit(RokwireCore.LOCATION_TRACE_STREAM, chunk);
+        } else {
+            _pendingTraceChunks.add(chunk);
+        }
+    }
+
+    // Last known location
+
+    /**
+     * Answers from the in-memory cache when it holds a fix satisfying maxAge/accuracy, then from the fused
+     * provider's last location, and only then falls back to a single current location request bounded by timeout.
+     */
+    private void queryLastKnownLocation(Object params, MethodChannel.Result result) {
+        long maxAge = Utils.Map.getLongFromPath(params, "maxAge", DEFAULT_LAST_KNOWN_MAX_AGE_MILLIS);
+        double accuracy = Utils.Map.getDoubleFromPath(params, "accuracy", -1);
+        long timeout = Math.min(Utils.Map.getLongFromPath(params, "timeout", DEFAULT_LAST_KNOWN_TIMEOUT_MILLIS), MAX_LAST_KNOWN_TIMEOUT_MILLIS);
+        Location location = _lastKnownLocations.get(maxAge, accuracy, SystemClock.elapsedRealtimeNanos());
+        if (location != null) {
+            result.success(LocationUpdatesMultiplexer.toMap(location));
+            return;
+        }
+        FusedLocationProviderClient client = getFusedLocationClient();
+        if (client == null) {
+            Log.d(TAG, "lastKnown() -> no location permission");
+            result.success(null);
+            return;
+        }
+        requestPassiveLocationUpdates();
+        try {
+            client.getLastLocation().addOnCompleteListener(task -> {
+                if (task.isSuccessful()) {
+                    _lastKnownLocations.offer(task.getResult());
+                }
+                Location lastLocation = _lastKnownLocations.get(maxAge, accuracy, SystemClock.elapsedRealtimeNanos());
+                if (lastLocation != null) {
+                    result.success(LocationUpdatesMultiplexer.toMap(lastLocation));
+                } else {
+                    requestCurrentLocation(client, maxAge, accuracy, timeout, result);
+                }
+            });
+        } catch (SecurityException e) {
+            Log.e(TAG, "lastKnown() failed: " + e);
+            result.success(null);
+        }
+    }
+
+    private void requestCurrentLocation(FusedLocationProviderClient client, long maxAge, double accuracy, long timeout, MethodChannel.Result result) {
+        int priority = ((0 <= accuracy) && (accuracy <= HIGH_ACCURACY_THRESHOLD_METERS)) ? Priority.PRIORITY_HIGH_ACCURACY : Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+        CurrentLocationRequest request = new CurrentLocationRequest.Builder().
+                setPriority(priority).
+                setMaxUpdateAgeMillis(maxAge).
+                setDurationMillis(Math.max(1, timeout)).
+                build();
+        try {
+            client.getCurrentLocation(request, null).addOnCompleteListener(task -> {
+                Location location = task.isSuccessful() ? task.getResult() : null;
+                _lastKnownLocations.offer(location);
+                // The provider may answer with a cached fix, which still has to meet the requested bounds
+                boolean withinBounds = LastKnownLocationCache.isWithinBounds(location, maxAge, accuracy, SystemClock.elapsedRealtimeNanos());
+                result.success(withinBounds ? LocationUpdatesMultiplexer.toMap(location) : null);
+            });
+        } catch (SecurityException e) {
+            Log.e(TAG, "getCurrentLocation() failed: " + e);
+            result.success(null);
+        }
+    }
+
+    /** Keeps the cache warm with fixes requested by other apps and services, at no power cost of our own. */
+    private void requestPassiveLocationUpdates() {
+        FusedLocationProviderClient client = getFusedLocationClient();
+        if (!_passiveLocationUpdates && (client != null)) {
+            LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_PASSIVE, PASSIVE_INTERVAL_MILLIS).build();
+            try {
+                client.requestLocationUpdates(request, _passiveLocationCallback, Looper.getMainLooper());
+                _passiveLocationUpdates = true;
+            } catch (SecurityException e) {
+                Log.e(TAG, "requestPassiveLocationUpdates() failed: " + e);
+            }
+        }
+    }
+
+    private void removePassiveLocationUpdates() {
+        if (_passiveLocationUpdates && (_fusedLocationClient != null)) {
+            _fusedLocationClient.removeLocationUpdates(_passiveLocationCallback);
+        }
+        _passiveLocationUpdates = false;
+    }
+
+    private final LocationCallback _passiveLocationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult locationResult) {
+            for (Location location : locationResult.getLocations()) {
+                _lastKnownLocations.offer(location);
+            }
+        }
+    };
+
+    /** Returns the fused client, or null if there is no context or no location permission. */
+    private FusedLocationProviderClient getFusedLocationClient() {
+        Context context = RokwireCore.getInstance().getApplicationContext();
+        if ((context == null) || (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED &&
+                ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED)) {
+            return null;
+        }
+        if (_fusedLocationClient == null) {
+            _fusedLocationClient = com.google.android.gms.location.LocationServices.getFusedLocationProviderClient(context);
+        }
+        return _fusedLocationClient;
+    }
+
+    // Location updates
+
+    private boolean requestLocationUpdates(long intervalMillis, int priority, long maxUpdateDelayMillis) {
+        if (getFusedLocationClient() == null) {
+            Log.d(TAG, "requestLocationUpdates() -> no location permission");
+            return false;
+        }
+        // Fixes are accumulated by the provider and delivered in batches of up to maxUpdateDelay
+        LocationRequest request = new LocationRequest.Builder(priority, intervalMillis).
+                setMaxUpdateDelayMillis(maxUpdateDelayMillis).
+                build();
+        try {
+            _fusedLocationClient.requestLocationUpdates(request, _locationCallback, Looper.getMainLooper());
+            return true;
+        } catch (SecurityException e) {
+            Log.e(TAG, "requestLocationUpdates() failed: " + e);
+            return false;
+        }
+    }
+
+    private void removeLocationUpdates() {
+        if (_fusedLocationClient != null) {
+            _fusedLocationClient.removeLocationUpdates(_locationCallback);
+        }
+    }
+
+    private final LocationCallback _locationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult locationResult) {
+            onLocationsBatch(locationResult.getLocations());
+        }
+    };
+
+    void onLocationsBatch(List<Location> locations) {
+        if (locations != null) {
+            for (Location location : locations) {
+                _lastKnownLocations.offer(location);
+            }
+        }
+        if ((_traceEncoder != null) && (locations != null)) {
+            for (Location location : locations) {
+                _traceEncoder.add(location.getLatitude(), location.getLongitude(), location.getTime());
+            }
+        }
+        Map<String, List<HashMap<String, Object>>> batches = _locationUpdates.dispatch(locations);
+        batches.remove(TRACE_SUBSCRIBER_ID);
+        if (!batches.isEmpty()) {
+            RokwireCore.getInstance().emit(RokwireCore.LOCATION_UPDATES_STREAM, batches);
+        }
+    }
+
+    /** Drops the subscriptions of an engine that detached. A trace runs until stopped or nobody listens to it. */
+    void unsubscribe(Collection<String> ids) {
+        for (String id : ids) {
+            if (!TRACE_SUBSCRIBER_ID.equals(id)) {
+                _locationUpdates.unsubscribe(id);
+            }
+        }
+    }
+
+    /** Called when no attached engine listens to location updates anymore. An active trace keeps its subscription. */
+    void onLocationUpdatesCancelled() {
+        _locationUpdates.unsubscribeAllExcept(TRACE_SUBSCRIBER_ID);
+    }
+
+    boolean isTracing() {
+        return (_traceEncoder != null) && _locationUpdates.isSubscribed(TRACE_SUBSCRIBER_ID);
+    }
+
+    /**
+     * Returns the cached location services status. It is computed once and refreshed by provider change
+     * broadcasts, permission results and activity resumes (permissions may be granted in system settings).
+     */
+    private String getLocationServicesStatus() {
+        if (_status == null) {
+            _status = computeLocationServicesStatus();
+        }
+        return _status;
+    }
+
+    /** Recomputes the status and pushes it to Dart if it changed. */
+    void refreshLocationServicesStatus() {
+        String status = computeLocationServicesStatus();
+        if ((status != null) && !status.equals(_status)) {
+            _status = status;
+            RokwireCore.getInstance().emit(RokwireCore.LOCATION_STATUS_STREAM, status);
         }
     }
 
@@ -56,8 +421,8 @@ public class LocationServices implements PluginRegistry.RequestPermissionsResult
      * Handle location services status based on the version of the Android. Even though the compiler throws warnings so that leave suppress deprecated clause.
      * **/
     @SuppressWarnings("deprecation")
-    private String getLocationServicesStatus() {
-        Context activity = RokwirePlugin.getInstance().getActivity();
+    private String computeLocationServicesStatus() {
+        Context activity = (_context != null) ? _context : RokwireCore.getInstance().getContext();
         if (activity != null) {
             boolean locationServicesEnabled;
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
@@ -75,8 +440,10 @@ public class LocationServices implements PluginRegistry.RequestPermissionsResult
                         ContextCompat.checkSelfPermission(activity, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED)) {
                     return "allowed";
                 } else {
-                    boolean locationPermissionRequested = Utils.AppSharedPrefs.getBool(activity, LOCATION_PERMISSIONS_REQUESTED_KEY, false);
-                    return locationPermissionRequested ? "denied" : "not_determined";
+                    if (_permissionsRequested == null) {
+                        _permissionsRequested = Utils.AppSharedPrefs.getBool(activity, LOCATION_PERMISSIONS_REQUESTED_KEY, false);
+                    }
+                    return _permissionsRequested ? "denied" : "not_determined";
                 }
             }
             else {
@@ -88,10 +455,43 @@ public class LocationServices implements PluginRegistry.RequestPermissionsResult
         }
     }
 
+    private final BroadcastReceiver _providersChangedReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            refreshLocationServicesStatus();
+        }
+    };
+
+    private final Application.ActivityLifecycleCallbacks _activityLifecycleCallbacks = new Application.ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+            refreshLocationServicesStatus();
+        }
+
+        @Override
+        public void onActivityCreated(@NonNull Activity activity, Bundle savedInstanceState) {}
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {}
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {}
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {}
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {}
+
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {}
+    };
+
     private void requestLocationPermission(MethodChannel.Result result) {
-        Activity activity = RokwirePlugin.getInstance().getActivity();
+        Activity activity = RokwireCore.getInstance().getActivity();
         if (activity != null) {
             Utils.AppSharedPrefs.saveBool(activity, LOCATION_PERMISSIONS_REQUESTED_KEY, true);
+            _permissionsRequested = true;
             //check if granted
             if (ContextCompat.checkSelfPermission(activity, android.Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED  ||
                     ContextCompat.checkSelfPermission(activity, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
@@ -128,7 +528,9 @@ public class LocationServices implements PluginRegistry.RequestPermissionsResult
                 Log.d(TAG, granted ? "granted" : "not granted");
                 _requestPermissionResult.success(granted ? "allowed" : "denied");
                 _requestPermissionResult = null;
+                refreshLocationServicesStatus();
                 if (granted) {
+                    _locationUpdates.resume();
                     //TBD
                     //if (geofenceMonitor != null) {
                     //    geofenceMonitor.onLocationPermissionGranted();
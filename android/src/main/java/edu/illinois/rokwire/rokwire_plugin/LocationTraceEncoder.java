@@ -0,0 +1,228 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import java.util.Arrays;
+
+/**
+ * Online trace simplification and compact encoding for recorded routes.
+ *
+ * Fixes closer than the tolerance to the last kept point are dropped (dead band). The rest go through
+ * an opening-window Douglas-Peucker pass: a point is only kept when the straight segment from the
+ * last kept point can no longer represent every fix since, within the tolerance. Kept points are
+ * delta-encoded into chunks:
+ *
+ * <pre>
+ * chunk  := point*
+ * point  := zigzag-varint(latitude) zigzag-varint(longitude) zigzag-varint(time)
+ * </pre>
+ *
+ * Coordinates are in microdegrees and time in milliseconds. The first point of a chunk is absolute and
+ * the following ones are deltas to their predecessor, so every chunk decodes on its own.
+ */
+class LocationTraceEncoder {
+
+    static final double DEFAULT_TOLERANCE_METERS = 5.0;
+    static final int DEFAULT_CHUNK_POINTS = 200;
+
+    private static final int MAX_WINDOW = 128;
+    private static final double METERS_PER_DEGREE = 111320.0;
+    private static final double MICRODEGREES = 1e6;
+
+    interface Listener {
+        void onChunk(byte[] data, int points, int sequence);
+    }
+
+    private final double toleranceMeters;
+    private final int chunkPoints;
+    private final Listener listener;
+
+    // Last kept point
+    private boolean hasAnchor;
+    private double anchorLatitude, anchorLongitude;
+
+    // Fixes since the anchor that the current segment has to represent
+    private int windowSize;
+    private final double[] windowLatitudes = new double[MAX_WINDOW];
+    private final double[] windowLongitudes = new double[MAX_WINDOW];
+    private final long[] windowTimes = new long[MAX_WINDOW];
+
+    // Chunk under construction
+    private byte[] chunk = new byte[256];
+    private int chunkLength;
+    private int chunkCount;
+    private int sequence;
+    private long previousLatitude, previousLongitude, previousTime;
+
+    private long inputPoints;
+    private long outputPoints;
+    private long outputBytes;
+
+    LocationTraceEncoder(double toleranceMeters, int chunkPoints, Listener listener) {
+        this.toleranceMeters = (toleranceMeters > 0) ? toleranceMeters : DEFAULT_TOLERANCE_METERS;
+        this.chunkPoints = (chunkPoints > 0) ? chunkPoints : DEFAULT_CHUNK_POINTS;
+        this.listener = listener;
+    }
+
+    long getInputPoints() {
+        return inputPoints;
+    }
+
+    long getOutputPoints() {
+        return outputPoints;
+    }
+
+    long getOutputBytes() {
+        return outputBytes;
+    }
+
+    void add(double latitude, double longitude, long time) {
+        inputPoints++;
+        if (!hasAnchor) {
+            keep(latitude, longitude, time);
+            return;
+        }
+        double metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(anchorLatitude));
+        double x = (longitude - anchorLongitude) * metersPerDegreeLongitude;
+        double y = (latitude - anchorLatitude) * METERS_PER_DEGREE;
+        if ((x * x + y * y) < (toleranceMeters * toleranceMeters)) {
+            return;
+        }
+        for (int index = 0; index < windowSize; index++) {
+            double windowX = (windowLongitudes[index] - anchorLongitude) * metersPerDegreeLongitude;
+            double windowY = (windowLatitudes[index] - anchorLatitude) * METERS_PER_DEGREE;
+            if (segmentDistance(windowX, windowY, x, y) > toleranceMeters) {
+                // The segment to this fix misses an earlier one: the last fix that still fit becomes a point
+                keepWindowEnd();
+                break;
+            }
+        }
+        if (windowSize == MAX_WINDOW) {
+            keepWindowEnd();
+        }
+        windowLatitudes[windowSize] = latitude;
+        windowLongitudes[windowSize] = longitude;
+        windowTimes[windowSize] = time;
+        windowSize++;
+    }
+
+    /** Keeps the pending end of the trace and delivers the current chunk. */
+    void flush() {
+        if (windowSize > 0) {
+            keepWindowEnd();
+        }
+        finishChunk();
+    }
+
+    private void keepWindowEnd() {
+        int last = windowSize - 1;
+        keep(windowLatitudes[last], windowLongitudes[last], windowTimes[last]);
+    }
+
+    private void keep(double latitude, double longitude, long time) {
+        hasAnchor = true;
+        anchorLatitude = latitude;
+        anchorLongitude = longitude;
+        windowSize = 0;
+
+        long latitudeE6 = Math.round(latitude * MICRODEGREES);
+        long longitudeE6 = Math.round(longitude * MICRODEGREES);
+        if (chunkCount == 0) {
+            previousLatitude = previousLongitude = previousTime = 0;
+        }
+        writeVarint(zigzag(latitudeE6 - previousLatitude));
+        writeVarint(zigzag(longitudeE6 - previousLongitude));
+        writeVarint(zigzag(time - previousTime));
+        previousLatitude = latitudeE6;
+        previousLongitude = longitudeE6;
+        previousTime = time;
+        outputPoints++;
+        if (++chunkCount == chunkPoints) {
+            finishChunk();
+        }
+    }
+
+    private void finishChunk() {
+        if (chunkCount == 0) {
+            return;
+        }
+        byte[] data = Arrays.copyOf(chunk, chunkLength);
+        outputBytes += chunkLength;
+        int points = chunkCount;
+        chunkLength = 0;
+        chunkCount = 0;
+        if (listener != null) {
+            listener.onChunk(data, points, sequence);
+        }
+        sequence++;
+    }
+
+    /** Distance from (px, py) to the segment from the origin to (x, y). */
+    private static double segmentDistance(double px, double py, double x, double y) {
+        double lengthSquared = x * x + y * y;
+        double t = (lengthSquared > 0) ? Math.max(0, Math.min(1, (px * x + py * y) / lengthSquared)) : 0;
+        double dx = px - t * x, dy = py - t * y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void writeVarint(long value) {
+        if (chunk.length - chunkLength < 10) {
+            chunk = Arrays.copyOf(chunk, chunk.length * 2);
+        }
+        while ((value & ~0x7fL) != 0) {
+            chunk[chunkLength++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        chunk[chunkLength++] = (byte) value;
+    }
+
+    /** Decodes a chunk into rows of latitude, longitude and time. */
+    static double[][] decode(byte[] data, int points) {
+        double[][] result = new double[points][3];
+        long latitude = 0, longitude = 0, time = 0;
+        int[] offset = new int[1];
+        for (int index = 0; index < points; index++) {
+            latitude += unzigzag(readVarint(data, offset));
+            longitude += unzigzag(readVarint(data, offset));
+            time += unzigzag(readVarint(data, offset));
+            result[index][0] = latitude / MICRODEGREES;
+            result[index][1] = longitude / MICRODEGREES;
+            result[index][2] = time;
+        }
+        return result;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarint(byte[] data, int[] offset) {
+        long value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = data[offset[0]++];
+            value |= (long) (current & 0x7f) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+}
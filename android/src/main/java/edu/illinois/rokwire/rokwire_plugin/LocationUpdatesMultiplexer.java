@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.location.Location;
+
+import com.google.android.gms.location.Priority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multiplexes location subscribers onto a single provider request. The request uses the shortest
+ * interval, the highest priority and the shortest batching delay among subscribers; each batch of
+ * fixes is then thinned out per subscriber to that subscriber's own interval.
+ */
+class LocationUpdatesMultiplexer {
+
+    static final long DEFAULT_INTERVAL_MILLIS = 10000;
+    static final long DEFAULT_MAX_UPDATE_DELAY_MILLIS = 60000;
+
+    interface Provider {
+        /** Starts or replaces the provider request; returns false if updates cannot be requested. */
+        boolean request(long intervalMillis, int priority, long maxUpdateDelayMillis);
+        void remove();
+    }
+
+    private static class Subscription {
+        final long intervalMillis;
+        final int priority;
+        final long maxUpdateDelayMillis;
+        long lastDeliveredTime = Long.MIN_VALUE;
+
+        Subscription(long intervalMillis, int priority, long maxUpdateDelayMillis) {
+            this.intervalMillis = intervalMillis;
+            this.priority = priority;
+            this.maxUpdateDelayMillis = maxUpdateDelayMillis;
+        }
+    }
+
+    private final Provider provider;
+    private final Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+
+    // Active provider request, 0 interval when none
+    private long requestIntervalMillis;
+    private int requestPriority;
+    private long requestMaxUpdateDelayMillis;
+
+    LocationUpdatesMultiplexer(Provider provider) {
+        this.provider = provider;
+    }
+
+    static int priorityFromAccuracy(String accuracy) {
+        if ("high".equals(accuracy)) {
+            return Priority.PRIORITY_HIGH_ACCURACY;
+        } else if ("low".equals(accuracy)) {
+            return Priority.PRIORITY_LOW_POWER;
+        } else if ("passive".equals(accuracy)) {
+            return Priority.PRIORITY_PASSIVE;
+        } else {
+            return Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+        }
+    }
+
+    boolean subscribe(String id, long intervalMillis, int priority, long maxUpdateDelayMillis) {
+        subscriptions.put(id, new Subscription(Math.max(0, intervalMillis), priority, Math.max(0, maxUpdateDelayMillis)));
+        return updateRequest();
+    }
+
+    void unsubscribe(String id) {
+        if (subscriptions.remove(id) != null) {
+            updateRequest();
+        }
+    }
+
+    void unsubscribeAll() {
+        subscriptions.clear();
+        updateRequest();
+    }
+
+    /** Drops every subscription but the given one, which keeps its own lifecycle. */
+    void unsubscribeAllExcept(String keptId) {
+        if (subscriptions.keySet().retainAll(Collections.singleton(keptId))) {
+            updateRequest();
+        }
+    }
+
+    boolean isSubscribed(String id) {
+        return subscriptions.containsKey(id);
+    }
+
+    boolean isEmpty() {
+        return subscriptions.isEmpty();
+    }
+
+    /** Re-issues the merged request, e.g. after the location permission was granted. */
+    boolean resume() {
+        requestIntervalMillis = 0;
+        return updateRequest();
+    }
+
+    /**
+     * Splits a provider batch between subscribers. Returns the fixes due for each subscriber; subscribers
+     * with nothing due are omitted.
+     */
+    Map<String, List<HashMap<String, Object>>> dispatch(List<Location> locations) {
+        Map<String, List<HashMap<String, Object>>> batches = new LinkedHashMap<>();
+        if (locations == null || locations.isEmpty()) {
+            return batches;
+        }
+        for (Map.Entry<String, Subscription> entry : subscriptions.entrySet()) {
+            Subscription subscription = entry.getValue();
+            List<HashMap<String, Object>> batch = null;
+            for (Location location : locations) {
+                long time = location.getTime();
+                if ((subscription.lastDeliveredTime == Long.MIN_VALUE) || ((time - subscription.lastDeliveredTime) >= subscription.intervalMillis)) {
+                    if (batch == null) {
+                        batch = new ArrayList<>();
+                    }
+                    batch.add(toMap(location));
+                    subscription.lastDeliveredTime = time;
+                }
+            }
+            if (batch != null) {
+                batches.put(entry.getKey(), batch);
+            }
+        }
+        return batches;
+    }
+
+    static HashMap<String, Object> toMap(Location location) {
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("latitude", location.getLatitude());
+        map.put("longitude", location.getLongitude());
+        map.put("timestamp", location.getTime());
+        if (location.hasAccuracy()) {
+            map.put("accuracy", (double) location.getAccuracy());
+        }
+        if (location.hasAltitude()) {
+            map.put("altitude", location.getAltitude());
+        }
+        if (location.hasSpeed()) {
+            map.put("speed", (double) location.getSpeed());
+        }
+        if (location.hasBearing()) {
+            map.put("heading", (double) location.getBearing());
+        }
+        return map;
+    }
+
+    private boolean updateRequest() {
+        if (subscriptions.isEmpty()) {
+            if (requestIntervalMillis != 0) {
+                provider.remove();
+                requestIntervalMillis = 0;
+            }
+            return false;
+        }
+        long intervalMillis = Long.MAX_VALUE, maxUpdateDelayMillis = Long.MAX_VALUE;
+        int priority = Priority.PRIORITY_PASSIVE;
+        for (Subscription subscription : subscriptions.values()) {
+            intervalMillis = Math.min(intervalMillis, subscription.intervalMillis);
+            maxUpdateDelayMillis = Math.min(maxUpdateDelayMillis, subscription.maxUpdateDelayMillis);
+            priority = morePrecise(priority, subscription.priority);
+        }
+        intervalMillis = Math.max(1, intervalMillis);
+        if ((intervalMillis == requestIntervalMillis) && (priority == requestPriority) && (maxUpdateDelayMillis == requestMaxUpdateDelayMillis)) {
+            return true;
+        }
+        if (provider.request(intervalMillis, priority, maxUpdateDelayMillis)) {
+            requestIntervalMillis = intervalMillis;
+            requestPriority = priority;
+            requestMaxUpdateDelayMillis = maxUpdateDelayMillis;
+            return true;
+        }
+        requestIntervalMillis = 0;
+        return false;
+    }
+
+    private static int morePrecise(int priority1, int priority2) {
+        return (precision(priority1) >= precision(priority2)) ? priority1 : priority2;
+    }
+
+    private static int precision(int priority) {
+        switch (priority) {
+            case Priority.PRIORITY_HIGH_ACCURACY: return 3;
+            case Priority.PRIORITY_BALANCED_POWER_ACCURACY: return 2;
+            case Priority.PRIORITY_LOW_POWER: return 1;
+            default: return 0;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers nearest-beacon queries across all ranged regions from the sample history kept by
+ * {@link RangedBeaconStore}, without waiting for the next scan. Beacons are ranked by their mean
+ * distance over a time window; the top entries are selected in place into reused primitive buffers.
+ */
+class NearestBeacons {
+
+    static final int DEFAULT_COUNT = 5;
+    static final long DEFAULT_WINDOW_MILLIS = 10000;
+
+    private final double[] stats = new double[RangedBeaconStore.STATS_LENGTH];
+
+    // Selected entries, sorted by distance
+    private int selectedCount;
+    private RangedBeaconStore[] selectedStores = new RangedBeaconStore[0];
+    private int[] selectedIndexes = new int[0];
+    private String[] selectedRegionIds = new String[0];
+    private double[] selectedDistances = new double[0];
+    private double[] selectedRssis = new double[0];
+    private double[] selectedConfidences = new double[0];
+    private int[] selectedSamples = new int[0];
+
+    List<HashMap> query(Map<String, RangedBeaconStore> regionBeacons, int count, long windowMillis, long now) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        ensureCapacity(count);
+        selectedCount = 0;
+        for (Map.Entry<String, RangedBeaconStore> entry : regionBeacons.entrySet()) {
+            RangedBeaconStore store = entry.getValue();
+            for (int index = 0; index < store.size(); index++) {
+                if (store.getWindowStats(index, now, windowMillis, stats)) {
+                    double distance = stats[RangedBeaconStore.STATS_DISTANCE];
+                    if (!(distance > 0)) {
+                        distance = IndoorPositioningEngine.distanceFromRssi(stats[RangedBeaconStore.STATS_RSSI]);
+                    }
+                    select(count, entry.getKey(), store, index, distance);
+                }
+            }
+        }
+
+        List<HashMap> result = new ArrayList<>(selectedCount);
+        for (int position = 0; position < selectedCount; position++) {
+            RangedBeaconStore store = selectedStores[position];
+            int index = selectedIndexes[position];
+            HashMap<String, Object> beacon = new HashMap<>();
+            store.putIdentity(index, beacon);
+            beacon.put("regionId", selectedRegionIds[position]);
+            beacon.put("distance", selectedDistances[position]);
+            beacon.put("rssi", selectedRssis[position]);
+            beacon.put("confidence", selectedConfidences[position]);
+            beacon.put("samples", selectedSamples[position]);
+            result.add(beacon);
+            selectedStores[position] = null;
+        }
+        return result;
+    }
+
+    /**
+     * Confidence in [0, 1] from how many samples back the mean (a half-full history counts as complete)
+     * and how stable the distance was within the window.
+     */
+    static double confidence(int samples, double meanDistance, double deviation) {
+        double sampleFactor = Math.min(1.0, samples / (RangedBeaconStore.HISTORY_SIZE / 2.0));
+        double stability = 1.0 / (1.0 + deviation / Math.max(meanDistance, 0.1));
+        return sampleFactor * stability;
+    }
+
+    private void select(int count, String regionId, RangedBeaconStore store, int index, double distance) {
+        if ((selectedCount == count) && (distance >= selectedDistances[count - 1])) {
+            return;
+        }
+        // The same beacon is ranged in every region sharing its scan region; keep it once
+        for (int position = 0; position < selectedCount; position++) {
+            RangedBeaconStore other = selectedStores[position];
+            if (store.isSameBeacon(index, other, selectedIndexes[position])) {
+                return;
+            }
+        }
+        int position = Math.min(selectedCount, count - 1);
+        while ((position > 0) && (selectedDistances[position - 1] > distance)) {
+            move(position - 1, position);
+            position--;
+        }
+        selectedStores[position] = store;
+        selectedIndexes[position] = index;
+        selectedRegionIds[position] = regionId;
+        selectedDistances[position] = distance;
+        selectedRssis[position] = stats[RangedBeaconStore.STATS_RSSI];
+        selectedSamples[position] = (int) stats[RangedBeaconStore.STATS_SAMPLES];
+        selectedConfidences[position] = confidence(selectedSamples[position], distance, stats[RangedBeaconStore.STATS_DEVIATION]);
+        if (selectedCount < count) {
+            selectedCount++;
+        }
+    }
+
+    private void move(int from, int to) {
+        selectedStores[to] = selectedStores[from];
+        selectedIndexes[to] = selectedIndexes[from];
+        selectedRegionIds[to] = selectedRegionIds[from];
+        selectedDistances[to] = selectedDistances[from];
+        selectedRssis[to] = selectedRssis[from];
+        selectedConfidences[to] = selectedConfidences[from];
+        selectedSamples[to] = selectedSamples[from];
+    }
+
+    private void ensureCapacity(int count) {
+        if (selectedStores.length < count) {
+            selectedStores = new RangedBeaconStore[count];
+            selectedIndexes = new int[count];
+            selectedRegionIds = new String[count];
+            selectedDistances = new double[count];
+            selectedRssis = new double[count];
+            selectedConfidences = new double[count];
+            selectedSamples = new int[count];
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+import androidx.core.util.AtomicFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Schedules local notifications natively. Pending notifications are kept in a compact binary store
+ * sorted by due time, and a single inexact AlarmManager window is armed for the earliest one. Every
+ * notification due within {@link #WINDOW_MILLIS} of that wakeup is posted with it, so a batch of event
+ * reminders costs one wakeup instead of one each; a notification may therefore be posted up to a window
+ * early. The alarm is re-armed from the store after reboot and app updates by NotificationSchedulerReceiver.
+ */
+class NotificationScheduler {
+
+    private static final String TAG = "NotificationScheduler";
+
+    static final long WINDOW_MILLIS = 5 * 60 * 1000;
+
+    static final String STORE_FILE_NAME = "rokwire_scheduled_notifications";
+    private static final int STORE_VERSION = 2;
+
+    // Notification cuts its texts at 5K chars anyway; at up to 3 bytes per char this keeps every field within writeUTF's 64K limit
+    static final int MAX_TEXT_LENGTH = 5 * 1024;
+
+    static final String ACTION_ALARM = "edu.illinois.rokwire.notifications.ALARM";
+    static final String EXTRA_NOTIFICATION_ID = "edu.illinois.rokwire.notification_id";
+
+    private static final int ALARM_REQUEST_CODE = 0x4e53;
+
+    static class Entry {
+        final String id;
+        final long dueTime;
+        final String title;
+        final String subtitle;
+        final String body;
+        final boolean sound;
+        final String channel;
+
+        Entry(String id, long dueTime, String title, String body, String channel) {
+            this(id, dueTime, title, null, body, true, channel);
+        }
+
+        Entry(String id, long dueTime, String title, String subtitle, String body, boolean sound, String channel) {
+            this.id = id;
+            this.dueTime = dueTime;
+            this.title = title;
+            this.subtitle = subtitle;
+            this.body = body;
+            this.sound = sound;
+            this.channel = channel;
+        }
+
+        Entry withChannel(String channel) {
+            return new Entry(id, dueTime, title, subtitle, body, sound, channel);
+        }
+
+        /**
+         * Builds an entry from {id, dateTime (ms since epoch), title, subtitle, body, sound, channel}; returns null when id or
+         * dateTime is missing.
+         */
+        static Entry fromMap(Object map) {
+            String id = Utils.Map.getValueFromPath(map, "id", null);
+            long dueTime = Utils.Map.getLongFromPath(map, "dateTime", 0);
+            String channel = Utils.Map.getValueFromPath(map, "channel", null);
+            if (Utils.Str.isEmpty(id) || (id.length() > MAX_TEXT_LENGTH) || (dueTime <= 0) ||
+                    ((channel != null) && (channel.length() > MAX_TEXT_LENGTH))) {
+                return null;
+            }
+            return new Entry(id, dueTime, truncate(Utils.Map.getValueFromPath(map, "title", null)), truncate(Utils.Map.getValueFromPath(map, "subtitle", null)),
+                    truncate(Utils.Map.getValueFromPath(map, "body", null)), Utils.Map.getValueFromPath(map, "sound", true), channel);
+        }
+
+        private static String truncate(String text) {
+            return ((text != null) && (text.length() > MAX_TEXT_LENGTH)) ? text.substring(0, MAX_TEXT_LENGTH) : text;
+        }
+
+        HashMap<String, Object> toMap() {
+            HashMap<String, Object> map = new HashMap<>();
+            map.put("id", id);
+            map.put("dateTime", dueTime);
+            map.put("title", title);
+            map.put("subtitle", subtitle);
+            map.put("body", body);
+            map.put("sound", sound);
+            map.put("channel", channel);
+            return map;
+        }
+    }
+
+    private static NotificationScheduler _instance = null;
+
+    static NotificationScheduler getInstance() {
+        if (_instance == null) {
+            _instance = new NotificationScheduler();
+        }
+        return _instance;
+    }
+
+    /** Drops the in-memory state so the next instance reloads the store, as a new process would. */
+    @VisibleForTesting
+    static void resetInstance() {
+        _instance = null;
+    }
+
+    // Sorted by due time, loaded from the store on first use
+    private List<Entry> _entries;
+
+    // Start of the armed alarm window, 0 when nothing is armed by this process
+    private long _armedTime = 0;
+    private int _wakeups = 0;
+
+    /** Adds or replaces the entries and re-arms the alarm; returns the number of entries accepted. */
+    int schedule(Context context, Collection<Entry> entries, long now) {
+        if ((context == null) || (entries == null)) {
+            return 0;
+        }
+        load(context);
+        Set<String> ids = new HashSet<>();
+        for (Entry entry : entries) {
+            ids.add(entry.id);
+        }
+        removeIds(ids);
+        _entries.addAll(entries);
+        Collections.sort(_entries, (entry1, entry2) -> Long.compare(entry1.dueTime, entry2.dueTime));
+        save(context);
+        arm(context, now);
+        return entries.size();
+    }
+
+    /** Cancels the entries with the given ids, or all entries when ids is null; returns the number cancelled. */
+    int cancel(Context context, Collection<String> ids, long now) {
+        if (context == null) {
+            return 0;
+        }
+        load(context);
+        int count;
+        if (ids == null) {
+            count = _entries.size();
+            _entries.clear();
+        }
+        else {
+            count = removeIds(new HashSet<>(ids));
+        }
+        if (count > 0) {
+            save(context);
+            arm(context, now);
+        }
+        return count;
+    }
+
+    List<Entry> getPending(Context context) {
+        if (context == null) {
+            return Collections.emptyList();
+        }
+        load(context);
+        return new ArrayList<>(_entries);
+    }
+
+    /** Posts every entry due within a window of the wakeup and re-arms for the rest; returns the number posted. */
+    int onAlarm(Context context, long now) {
+        if (context == null) {
+            return 0;
+        }
+        load(context);
+        _armedTime = 0;
+        _wakeups++;
+        int posted = 0;
+        if (!_entries.isEmpty()) {
+            long cutoff = Math.max(now, _entries.get(0).dueTime) + WINDOW_MILLIS;
+            if (_entries.get(0).dueTime <= now + WINDOW_MILLIS) {
+                for (Iterator<Entry> iterator = _entries.iterator(); iterator.hasNext(); ) {
+                    Entry entry = iterator.next();
+                    if (cutoff < entry.dueTime) {
+                        break;
+                    }
+                    NotificationCompat.Builder builder = Utils.Notifications.build(context, entry.id, entry.title, entry.body, entry.channel, EXTRA_NOTIFICATION_ID)
+                            .setSubText(entry.subtitle)
+                            .setSilent(!entry.sound);
+                    if (Utils.Notifications.post(context, TAG, entry.id, builder)) {
+                        posted++;
+                    }
+                    iterator.remove();
+                }
+                save(context);
+            }
+        }
+        arm(context, now);
+        return posted;
+    }
+
+    /** Re-arms the alarm from the store, e.g. after reboot when the system dropped it. */
+    void reschedule(Context context, long now) {
+        if (context == null) {
+            return;
+        }
+        load(context);
+        _armedTime = 0;
+        arm(context, now);
+    }
+
+    HashMap<String, Object> getStats(Context context) {
+        HashMap<String, Object> stats = new HashMap<>();
+        stats.put("pending", (context != null) ? getPending(context).size() : 0);
+        stats.put("wakeups", _wakeups);
+        stats.put("armedTime", _armedTime);
+        return stats;
+    }
+
+    private int removeIds(Set<String> ids) {
+        int count = 0;
+        for (Iterator<Entry> iterator = _entries.iterator(); iterator.hasNext(); ) {
+            if (ids.contains(iterator.next().id)) {
+                iterator.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void arm(Context context, long now) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+        PendingIntent alarmIntent = getAlarmIntent(context);
+        if (_entries.isEmpty()) {
+            // Also cancels an alarm armed by an earlier process
+            alarmManager.cancel(alarmIntent);
+            _armedTime = 0;
+            return;
+        }
+        long windowStart = Math.max(now, _entries.get(0).dueTime);
+        if (windowStart == _armedTime) {
+            return;
+        }
+        // Inexact, so the system may also batch it with other apps' alarms
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            alarmManager.setWindow(AlarmManager.RTC_WAKEUP, windowStart, WINDOW_MILLIS, alarmIntent);
+        }
+        else {
+            alarmManager.set(AlarmManager.RTC_WAKEUP, windowStart, alarmIntent);
+        }
+        _armedTime = windowStart;
+    }
+
+    private static PendingIntent getAlarmIntent(Context context) {
+        Intent intent = new Intent(context, NotificationSchedulerReceiver.class).setAction(ACTION_ALARM);
+        int flags = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) ? (PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT) : PendingIntent.FLAG_UPDATE_CURRENT;
+        return PendingIntent.getBroadcast(context, ALARM_REQUEST_CODE, intent, flags);
+    }
+
+    // Store: version, count, then per entry id, due time, optional title, subtitle and body, sound flag and optional channel.
+    // Version 1 entries have no subtitle and sound flag.
+
+    private static AtomicFile getStoreFile(Context context) {
+        return new AtomicFile(new File(ContextCompat.getNoBackupFilesDir(context), STORE_FILE_NAME));
+    }
+
+    private void load(Context context) {
+        if (_entries != null) {
+            return;
+        }
+        _entries = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(getStoreFile(context).openRead())) {
+            // Version 1 stores lack subtitle and sound
+            int version = input.readInt();
+            if ((version != 1) && (version != STORE_VERSION)) {
+                return;
+            }
+            int count = input.readInt();
+            for (int index = 0; index < count; index++) {
+                String id = input.readUTF();
+                long dueTime = input.readLong();
+                String title = readOptionalUTF(input);
+                String subtitle = (version > 1) ? readOptionalUTF(input) : null;
+                String body = readOptionalUTF(input);
+                boolean sound = (version <= 1) || input.readBoolean();
+                _entries.add(new Entry(id, dueTime, title, subtitle, body, sound, readOptionalUTF(input)));
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing scheduled yet
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to load scheduled notifications: " + e);
+        }
+    }
+
+    private void save(Context context) {
+        AtomicFile file = getStoreFile(context);
+        if (_entries.isEmpty()) {
+            file.delete();
+            return;
+        }
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream output = new DataOutputStream(stream);
+            output.writeInt(STORE_VERSION);
+            output.writeInt(_entries.size());
+            for (Entry entry : _entries) {
+                output.writeUTF(entry.id);
+                output.writeLong(entry.dueTime);
+                writeOptionalUTF(output, entry.title);
+                writeOptionalUTF(output, entry.subtitle);
+                writeOptionalUTF(output, entry.body);
+                output.writeBoolean(entry.sound);
+                writeOptionalUTF(output, entry.channel);
+            }
+            output.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to save scheduled notifications: " + e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private static String readOptionalUTF(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private static void writeOptionalUTF(DataOutputStream output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Delivers scheduled notifications when their alarm window fires, and re-arms the alarm after reboot or
+ * an app update, since the system drops pending alarms in both cases.
+ */
+public class NotificationSchedulerReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = (intent != null) ? intent.getAction() : null;
+        if (action == null) {
+            return;
+        }
+        RokwireCore.getInstance().applyApplicationContext(context);
+        Context appContext = RokwireCore.getInstance().getApplicationContext();
+        long now = System.currentTimeMillis();
+        switch (action) {
+            case NotificationScheduler.ACTION_ALARM:
+                NotificationScheduler.getInstance().onAlarm(appContext, now);
+                break;
+            case Intent.ACTION_BOOT_COMPLETED:
+            case Intent.ACTION_MY_PACKAGE_REPLACED:
+                NotificationScheduler.getInstance().reschedule(appContext, now);
+                break;
+            default:
+                break;
+        }
+    }
+}
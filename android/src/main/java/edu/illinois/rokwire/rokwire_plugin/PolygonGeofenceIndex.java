@@ -0,0 +1,229 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable polygon geofence index: an STR-packed R-tree over polygon bounding boxes with
+ * ray-casting point-in-polygon tests. Vertices are kept in primitive arrays and queries do
+ * not allocate.
+ */
+class PolygonGeofenceIndex {
+
+    private static final int NODE_CAPACITY = 16;
+
+    static class Polygon {
+        final String id;
+        final double[] latitudes;
+        final double[] longitudes;
+
+        Polygon(String id, double[] latitudes, double[] longitudes) {
+            this.id = id;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+        }
+    }
+
+    private final String[] ids;
+    private final double[][] latitudes;
+    private final double[][] longitudes;
+
+    // R-tree nodes: boxes as [minLat, minLng, maxLat, maxLng], children are polygon indices for leaves
+    private double[] nodeBoxes = new double[0];
+    private int[] nodeChildStart = new int[0];
+    private int[] nodeChildCount = new int[0];
+    private boolean[] nodeLeaf = new boolean[0];
+    private int nodeCount = 0;
+    private int[] children = new int[0];
+    private int childrenCount = 0;
+    private int root = -1;
+    private final int[] stack;
+
+    PolygonGeofenceIndex(List<Polygon> polygons) {
+        int count = polygons.size();
+        ids = new String[count];
+        latitudes = new double[count][];
+        longitudes = new double[count][];
+        double[] boxes = new double[count * 4];
+        int[] items = new int[count];
+        for (int index = 0; index < count; index++) {
+            Polygon polygon = polygons.get(index);
+            ids[index] = polygon.id;
+            latitudes[index] = polygon.latitudes;
+            longitudes[index] = polygon.longitudes;
+            boxes[index * 4] = boxes[index * 4 + 1] = Double.POSITIVE_INFINITY;
+            boxes[index * 4 + 2] = boxes[index * 4 + 3] = Double.NEGATIVE_INFINITY;
+            for (int vertex = 0; vertex < polygon.latitudes.length; vertex++) {
+                expand(boxes, index, polygon.latitudes[vertex], polygon.longitudes[vertex], polygon.latitudes[vertex], polygon.longitudes[vertex]);
+            }
+            items[index] = index;
+        }
+        if (count > 0) {
+            build(items, boxes, count);
+        }
+        stack = new int[Math.max(1, nodeCount)];
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    String getId(int polygonIndex) {
+        return ids[polygonIndex];
+    }
+
+    /**
+     * Collects the indexes of all polygons containing the point into {@code result}, which must
+     * have room for {@link #size()} entries. Returns the number of polygons found.
+     */
+    int query(double latitude, double longitude, int[] result) {
+        if (root < 0) {
+            return 0;
+        }
+        int found = 0;
+        int stackSize = 0;
+        stack[stackSize++] = root;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            if (!contains(nodeBoxes, node, latitude, longitude)) {
+                continue;
+            }
+            int start = nodeChildStart[node], end = start + nodeChildCount[node];
+            if (nodeLeaf[node]) {
+                for (int position = start; position < end; position++) {
+                    int polygon = children[position];
+                    if (containsPoint(latitudes[polygon], longitudes[polygon], latitude, longitude)) {
+                        result[found++] = polygon;
+                    }
+                }
+            } else {
+                for (int position = start; position < end; position++) {
+                    stack[stackSize++] = children[position];
+                }
+            }
+        }
+        return found;
+    }
+
+    /** Even-odd ray casting test; vertices are treated as planar coordinates which is accurate at building scale. */
+    static boolean containsPoint(double[] latitudes, double[] longitudes, double latitude, double longitude) {
+        boolean inside = false;
+        int count = latitudes.length;
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            double latI = latitudes[i], latJ = latitudes[j];
+            if (((latI > latitude) != (latJ > latitude)) &&
+                    (longitude < (longitudes[j] - longitudes[i]) * (latitude - latI) / (latJ - latI) + longitudes[i])) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    // STR bulk loading
+
+    private void build(int[] items, double[] itemBoxes, int itemCount) {
+        boolean leafLevel = true;
+        while (true) {
+            int[] order = strOrder(itemBoxes, itemCount);
+            int levelNodeCount = (itemCount + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            int[] levelNodes = new int[levelNodeCount];
+            double[] levelBoxes = new double[levelNodeCount * 4];
+            for (int levelNode = 0; levelNode < levelNodeCount; levelNode++) {
+                int start = levelNode * NODE_CAPACITY, end = Math.min(itemCount, start + NODE_CAPACITY);
+                int node = addNode(leafLevel, childrenCount, end - start);
+                levelBoxes[levelNode * 4] = levelBoxes[levelNode * 4 + 1] = Double.POSITIVE_INFINITY;
+                levelBoxes[levelNode * 4 + 2] = levelBoxes[levelNode * 4 + 3] = Double.NEGATIVE_INFINITY;
+                for (int position = start; position < end; position++) {
+                    int item = order[position];
+                    addChild(items[item]);
+                    expand(levelBoxes, levelNode, itemBoxes[item * 4], itemBoxes[item * 4 + 1], itemBoxes[item * 4 + 2], itemBoxes[item * 4 + 3]);
+                }
+                System.arraycopy(levelBoxes, levelNode * 4, nodeBoxes, node * 4, 4);
+                levelNodes[levelNode] = node;
+            }
+            if (levelNodeCount == 1) {
+                root = levelNodes[0];
+                return;
+            }
+            items = levelNodes;
+            itemBoxes = levelBoxes;
+            itemCount = levelNodeCount;
+            leafLevel = false;
+        }
+    }
+
+    /** Sort-Tile-Recursive ordering: vertical slices by longitude center, each slice sorted by latitude center. */
+    private static int[] strOrder(double[] boxes, int count) {
+        Integer[] order = new Integer[count];
+        for (int index = 0; index < count; index++) {
+            order[index] = index;
+        }
+        int leafCount = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceCount = (int) Math.ceil(Math.sqrt(leafCount));
+        int sliceSize = sliceCount * NODE_CAPACITY;
+        Arrays.sort(order, (a, b) -> Double.compare(boxes[a * 4 + 1] + boxes[a * 4 + 3], boxes[b * 4 + 1] + boxes[b * 4 + 3]));
+        for (int sliceStart = 0; sliceStart < count; sliceStart += sliceSize) {
+            Arrays.sort(order, sliceStart, Math.min(count, sliceStart + sliceSize), (a, b) -> Double.compare(boxes[a * 4] + boxes[a * 4 + 2], boxes[b * 4] + boxes[b * 4 + 2]));
+        }
+        int[] result = new int[count];
+        for (int index = 0; index < count; index++) {
+            result[index] = order[index];
+        }
+        return result;
+    }
+
+    private int addNode(boolean leaf, int childStart, int childCount) {
+        if (nodeCount == nodeLeaf.length) {
+            int capacity = Math.max(8, nodeCount * 2);
+            nodeBoxes = Arrays.copyOf(nodeBoxes, capacity * 4);
+            nodeChildStart = Arrays.copyOf(nodeChildStart, capacity);
+            nodeChildCount = Arrays.copyOf(nodeChildCount, capacity);
+            nodeLeaf = Arrays.copyOf(nodeLeaf, capacity);
+        }
+        nodeLeaf[nodeCount] = leaf;
+        nodeChildStart[nodeCount] = childStart;
+        nodeChildCount[nodeCount] = childCount;
+        return nodeCount++;
+    }
+
+    private void addChild(int child) {
+        if (childrenCount == children.length) {
+            children = Arrays.copyOf(children, Math.max(16, childrenCount * 2));
+        }
+        children[childrenCount++] = child;
+    }
+
+    private static void expand(double[] boxes, int index, double minLat, double minLng, double maxLat, double maxLng) {
+        int offset = index * 4;
+        boxes[offset] = Math.min(boxes[offset], minLat);
+        boxes[offset + 1] = Math.min(boxes[offset + 1], minLng);
+        boxes[offset + 2] = Math.max(boxes[offset + 2], maxLat);
+        boxes[offset + 3] = Math.max(boxes[offset + 3], maxLng);
+    }
+
+    private static boolean contains(double[] boxes, int index, double latitude, double longitude) {
+        int offset = index * 4;
+        return (boxes[offset] <= latitude) && (latitude <= boxes[offset + 2]) &&
+                (boxes[offset + 1] <= longitude) && (longitude <= boxes[offset + 3]);
+    }
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Ranged beacons of one region kept in parallel primitive arrays and updated in place on every
+ * ranging cycle. Entries are looked up by identity through an open-addressing index, so a cycle with
+ * an unchanged set of beacons only overwrites primitive slots instead of replacing the region state.
+ *
+ * Identity is the UUID (as two longs) with major and minor for iBeacon/AltBeacon frames, or the
+ * namespace and instance packed into the same two longs for Eddystone-UID frames. Beacons parsed by
+ * custom layouts keep their identifiers as is, with a hash of them in the two longs.
+ *
+ * Every entry also keeps a ring buffer of its last {@link #HISTORY_SIZE} RSSI/distance samples,
+ * stored back to back in shared primitive arrays. Entries missing from a ranging cycle are no longer
+ * current, but keep their history until their last sample is {@link #RETENTION_MILLIS} old.
+ */
+class RangedBeaconStore {
+
+    static final byte FORMAT_UUID_MAJOR_MINOR = 0;
+    static final byte FORMAT_NAMESPACE_INSTANCE = 1;
+    static final byte FORMAT_IDENTIFIERS = 2;
+
+    static final int HISTORY_SIZE = 16;
+    static final long RETENTION_MILLIS = 60 * 1000;
+
+    static final int STATS_DISTANCE = 0;
+    static final int STATS_RSSI = 1;
+    static final int STATS_SAMPLES = 2;
+    static final int STATS_DEVIATION = 3;
+    static final int STATS_LENGTH = 4;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int size;
+    private byte[] formats = new byte[INITIAL_CAPACITY];
+    private long[] idsHigh = new long[INITIAL_CAPACITY];
+    private long[] idsLow = new long[INITIAL_CAPACITY];
+    private short[] majors = new short[INITIAL_CAPACITY];
+    private short[] minors = new short[INITIAL_CAPACITY];
+    private Identifier[][] identifiers = new Identifier[INITIAL_CAPACITY][];
+    private int[] rssis = new int[INITIAL_CAPACITY];
+    private double[] distances = new double[INITIAL_CAPACITY];
+    private long[] lastSeenTimes = new long[INITIAL_CAPACITY];
+    private int[] cycles = new int[INITIAL_CAPACITY];
+    private int cycle;
+
+    // Sample history: entry i owns the ring [i * HISTORY_SIZE, (i + 1) * HISTORY_SIZE)
+    private int[] historyRssis = new int[INITIAL_CAPACITY * HISTORY_SIZE];
+    private double[] historyDistances = new double[INITIAL_CAPACITY * HISTORY_SIZE];
+    private long[] historyTimes = new long[INITIAL_CAPACITY * HISTORY_SIZE];
+    private int[] historyHeads = new int[INITIAL_CAPACITY];
+    private int[] historyCounts = new int[INITIAL_CAPACITY];
+
+    // Open-addressing index: slot holds entry index + 1, 0 marks an empty slot
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    // Identity of the beacon being decoded, reused across calls
+    private byte decodedFormat;
+    private long decodedHigh, decodedLow;
+    private short decodedMajor, decodedMinor;
+    private List<Identifier> decodedIdentifiers;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    byte getFormat(int index) {
+        return formats[index];
+    }
+
+    long getIdHigh(int index) {
+        return idsHigh[index];
+    }
+
+    long getIdLow(int index) {
+        return idsLow[index];
+    }
+
+    int getMajor(int index) {
+        return majors[index] & 0xffff;
+    }
+
+    int getMinor(int index) {
+        return minors[index] & 0xffff;
+    }
+
+    int getRssi(int index) {
+        return rssis[index];
+    }
+
+    double getDistance(int index) {
+        return distances[index];
+    }
+
+    long getLastSeen(int index) {
+        return lastSeenTimes[index];
+    }
+
+    /** Whether the entry was ranged in the latest cycle. */
+    boolean isCurrent(int index) {
+        return cycles[index] == cycle;
+    }
+
+    /**
+     * Aggregates the samples of an entry taken within {@code windowMillis} before {@code now} into
+     * {@code stats}: mean distance, mean RSSI, sample count and distance standard deviation.
+     * Returns false if there are no samples in the window.
+     */
+    boolean getWindowStats(int index, long now, long windowMillis, double[] stats) {
+        int base = index * HISTORY_SIZE;
+        int count = historyCounts[index];
+        int samples = 0;
+        double distanceSum = 0, distanceSquaredSum = 0, rssiSum = 0;
+        for (int offset = 0; offset < count; offset++) {
+            // Walk back from the newest sample
+            int position = base + ((historyHeads[index] - 1 - offset + HISTORY_SIZE) % HISTORY_SIZE);
+            if ((now - historyTimes[position]) > windowMillis) {
+                break;
+            }
+            double distance = historyDistances[position];
+            distanceSum += distance;
+            distanceSquaredSum += distance * distance;
+            rssiSum += historyRssis[position];
+            samples++;
+        }
+        if (samples == 0) {
+            return false;
+        }
+        double mean = distanceSum / samples;
+        stats[STATS_DISTANCE] = mean;
+        stats[STATS_RSSI] = rssiSum / samples;
+        stats[STATS_SAMPLES] = samples;
+        stats[STATS_DEVIATION] = Math.sqrt(Math.max(0, distanceSquaredSum / samples - mean * mean));
+        return true;
+    }
+
+    UUID getUuid(int index) {
+        return new UUID(idsHigh[index], idsLow[index]);
+    }
+
+    /** Whether the entry at {@code index} is the same beacon as the entry at {@code otherIndex} of {@code other}. */
+    boolean isSameBeacon(int index, RangedBeaconStore other, int otherIndex) {
+        return (idsHigh[index] == other.idsHigh[otherIndex]) && (idsLow[index] == other.idsLow[otherIndex]) &&
+                (majors[index] == other.majors[otherIndex]) && (minors[index] == other.minors[otherIndex]) &&
+                (formats[index] == other.formats[otherIndex]) &&
+                ((formats[index] != FORMAT_IDENTIFIERS) || Arrays.equals(identifiers[index], other.identifiers[otherIndex]));
+    }
+
+    /**
+     * Puts the identity of an entry into {@code beaconMap}: uuid, major and minor for iBeacon/AltBeacon, namespace
+     * and instance for Eddystone-UID, or the identifiers list for custom layouts.
+     */
+    void putIdentity(int index, HashMap<String, Object> beaconMap) {
+        if (formats[index] == FORMAT_UUID_MAJOR_MINOR) {
+            beaconMap.put("uuid", getUuid(index).toString());
+            beaconMap.put("major", getMajor(index));
+            beaconMap.put("minor", getMinor(index));
+        } else if (formats[index] == FORMAT_NAMESPACE_INSTANCE) {
+            String hex = String.format(Locale.US, "%016x%016x", idsHigh[index], idsLow[index]);
+            beaconMap.put("namespace", "0x" + hex.substring(0, 20));
+            beaconMap.put("instance", "0x" + hex.substring(20));
+        } else {
+            List<String> identifierList = new ArrayList<>(identifiers[index].length);
+            for (Identifier identifier : identifiers[index]) {
+                identifierList.add(identifier.toString());
+            }
+            beaconMap.put("identifiers", identifierList);
+        }
+    }
+
+    /** Index of the iBeacon/AltBeacon entry with the given identity, or -1. */
+    int indexOf(UUID uuid, int major, int minor) {
+        return find(FORMAT_UUID_MAJOR_MINOR, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), (short) major, (short) minor);
+    }
+
+    /**
+     * Applies one ranging cycle. Known beacons are updated in place and new ones are appended. The ones
+     * missing from the cycle stop being current and are dropped once older than {@link #RETENTION_MILLIS}.
+     * Returns true if the set of current beacons changed.
+     */
+    boolean update(Collection<Beacon> beacons, long timestamp) {
+        boolean changed = false;
+        int previousCycle = cycle++;
+        if (beacons != null) {
+            for (Beacon beacon : beacons) {
+                if (!decode(beacon)) {
+                    continue;
+                }
+                int index = find(decodedFormat, decodedHigh, decodedLow, decodedMajor, decodedMinor);
+                if (index < 0) {
+                    index = append();
+                    changed = true;
+                } else if ((cycles[index] != previousCycle) && (cycles[index] != cycle)) {
+                    changed = true;
+                }
+                rssis[index] = beacon.getRssi();
+                distances[index] = beacon.getDistance();
+                lastSeenTimes[index] = timestamp;
+                cycles[index] = cycle;
+                addSample(index, rssis[index], distances[index], timestamp);
+            }
+        }
+        for (int index = 0; index < size; index++) {
+            if (cycles[index] == previousCycle) {
+                changed = true;
+                break;
+            }
+        }
+        removeStale(timestamp);
+        return changed;
+    }
+
+    void clear() {
+        Arrays.fill(identifiers, 0, size, null);
+        size = 0;
+        Arrays.fill(slots, 0);
+    }
+
+    /** Current beacons of the latest cycle, or null if the store holds no entries at all. */
+    List<HashMap> toListMap() {
+        if (size == 0) {
+            return null;
+        }
+        List<HashMap> beaconsList = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            if (cycles[index] != cycle) {
+                continue;
+            }
+            HashMap<String, Object> beaconMap = new HashMap<>();
+            putIdentity(index, beaconMap);
+            beaconsList.add(beaconMap);
+        }
+        return beaconsList;
+    }
+
+    private boolean decode(Beacon beacon) {
+        List<Identifier> identifiers = beacon.getIdentifiers();
+        decodedIdentifiers = null;
+        if (identifiers.size() == 3) {
+            byte[] uuid = identifiers.get(0).toByteArray();
+            byte[] major = identifiers.get(1).toByteArray();
+            byte[] minor = identifiers.get(2).toByteArray();
+            if ((uuid.length == 16) && (major.length <= 2) && (minor.length <= 2)) {
+                decodedFormat = FORMAT_UUID_MAJOR_MINOR;
+                decodedHigh = readLong(uuid, 0, 8);
+                decodedLow = readLong(uuid, 8, 8);
+                decodedMajor = (short) readLong(major, 0, major.length);
+                decodedMinor = (short) readLong(minor, 0, minor.length);
+                return true;
+            }
+        } else if (identifiers.size() == 2) {
+            byte[] namespace = identifiers.get(0).toByteArray();
+            byte[] instance = identifiers.get(1).toByteArray();
+            if ((namespace.length == 10) && (instance.length == 6)) {
+                decodedFormat = FORMAT_NAMESPACE_INSTANCE;
+                decodedHigh = readLong(namespace, 0, 8);
+                decodedLow = (readLong(namespace, 8, 2) << 48) | readLong(instance, 0, 6);
+                decodedMajor = decodedMinor = 0;
+                return true;
+            }
+        }
+        if (identifiers.isEmpty()) {
+            return false;
+        }
+        // Custom layout: FNV-1a over the identifier bytes, the identifiers themselves settle collisions
+        long hash = 0xcbf29ce484222325L;
+        for (Identifier identifier : identifiers) {
+            for (byte value : identifier.toByteArray()) {
+                hash = (hash ^ (value & 0xff)) * 0x100000001b3L;
+            }
+            hash = (hash ^ 0xff) * 0x100000001b3L;
+        }
+        decodedFormat = FORMAT_IDENTIFIERS;
+        decodedHigh = hash;
+        decodedLow = identifiers.size();
+        decodedMajor = decodedMinor = 0;
+        decodedIdentifiers = identifiers;
+        return true;
+    }
+
+    private boolean isDecodedIdentifiers(int index) {
+        Identifier[] entryIdentifiers = identifiers[index];
+        if (entryIdentifiers.length != decodedIdentifiers.size()) {
+            return false;
+        }
+        for (int position = 0; position < entryIdentifiers.length; position++) {
+            if (!entryIdentifiers[position].equals(decodedIdentifiers.get(position))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long readLong(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int index = offset; index < offset + length; index++) {
+            value = (value << 8) | (bytes[index] & 0xff);
+        }
+        return value;
+    }
+
+    private int find(byte format, long high, long low, short major, short minor) {
+        int mask = slots.length - 1;
+        for (int slot = hash(format, high, low, major, minor) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            if ((idsHigh[index] == high) && (idsLow[index] == low) && (majors[index] == major) && (minors[index] == minor) && (formats[index] == format) &&
+                    ((format != FORMAT_IDENTIFIERS) || isDecodedIdentifiers(index))) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private int append() {
+        if (size == formats.length) {
+            grow();
+        }
+        int index = size++;
+        formats[index] = decodedFormat;
+        idsHigh[index] = decodedHigh;
+        idsLow[index] = decodedLow;
+        majors[index] = decodedMajor;
+        minors[index] = decodedMinor;
+        identifiers[index] = (decodedIdentifiers != null) ? decodedIdentifiers.toArray(new Identifier[0]) : null;
+        historyHeads[index] = 0;
+        historyCounts[index] = 0;
+        insertSlot(index);
+        return index;
+    }
+
+    private void addSample(int index, int rssi, double distance, long timestamp) {
+        int position = index * HISTORY_SIZE + historyHeads[index];
+        historyRssis[position] = rssi;
+        historyDistances[position] = distance;
+        historyTimes[position] = timestamp;
+        historyHeads[index] = (historyHeads[index] + 1) % HISTORY_SIZE;
+        if (historyCounts[index] < HISTORY_SIZE) {
+            historyCounts[index]++;
+        }
+    }
+
+    private void removeStale(long now) {
+        int kept = 0;
+        for (int index = 0; index < size; index++) {
+            if ((cycles[index] == cycle) || ((now - lastSeenTimes[index]) <= RETENTION_MILLIS)) {
+                if (kept != index) {
+                    formats[kept] = formats[index];
+                    idsHigh[kept] = idsHigh[index];
+                    idsLow[kept] = idsLow[index];
+                    majors[kept] = majors[index];
+                    minors[kept] = minors[index];
+                    identifiers[kept] = identifiers[index];
+                    rssis[kept] = rssis[index];
+                    distances[kept] = distances[index];
+                    lastSeenTimes[kept] = lastSeenTimes[index];
+                    cycles[kept] = cycles[index];
+                    historyHeads[kept] = historyHeads[index];
+                    historyCounts[kept] = historyCounts[index];
+                    System.arraycopy(historyRssis, index * HISTORY_SIZE, historyRssis, kept * HISTORY_SIZE, HISTORY_SIZE);
+                    System.arraycopy(historyDistances, index * HISTORY_SIZE, historyDistances, kept * HISTORY_SIZE, HISTORY_SIZE);
+                    System.arraycopy(historyTimes, index * HISTORY_SIZE, historyTimes, kept * HISTORY_SIZE, HISTORY_SIZE);
+                }
+                kept++;
+            }
+        }
+        if (kept == size) {
+            return;
+        }
+        Arrays.fill(identifiers, kept, size, null);
+        size = kept;
+        rebuildSlots();
+    }
+
+    private void grow() {
+        int capacity = formats.length * 2;
+        formats = Arrays.copyOf(formats, capacity);
+        idsHigh = Arrays.copyOf(idsHigh, capacity);
+        idsLow = Arrays.copyOf(idsLow, capacity);
+        majors = Arrays.copyOf(majors, capacity);
+        minors = Arrays.copyOf(minors, capacity);
+        identifiers = Arrays.copyOf(identifiers, capacity);
+        rssis = Arrays.copyOf(rssis, capacity);
+        distances = Arrays.copyOf(distances, capacity);
+        lastSeenTimes = Arrays.copyOf(lastSeenTimes, capacity);
+        cycles = Arrays.copyOf(cycles, capacity);
+        historyRssis = Arrays.copyOf(historyRssis, capacity * HISTORY_SIZE);
+        historyDistances = Arrays.copyOf(historyDistances, capacity * HISTORY_SIZE);
+        historyTimes = Arrays.copyOf(historyTimes, capacity * HISTORY_SIZE);
+        historyHeads = Arrays.copyOf(historyHeads, capacity);
+        historyCounts = Arrays.copyOf(historyCounts, capacity);
+        slots = new int[capacity * 2];
+        rebuildSlots();
+    }
+
+    private void rebuildSlots() {
+        Arrays.fill(slots, 0);
+        for (int index = 0; index < size; index++) {
+            insertSlot(index);
+        }
+    }
+
+    private void insertSlot(int index) {
+        int mask = slots.length - 1;
+        int slot = hash(formats[index], idsHigh[index], idsLow[index], majors[index], minors[index]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    private static int hash(byte format, long high, long low, short major, short minor) {
+        long value = high * 0x9e3779b97f4a7c15L ^ low;
+        value = (value ^ (value >>> 29)) * 0xbf58476d1ce4e5b9L;
+        value ^= ((long) (major & 0xffff) << 16) | (minor & 0xffff) | ((long) format << 32);
+        value = (value ^ (value >>> 32)) * 0x94d049bb133111ebL;
+        return (int) (value ^ (value >>> 31));
+    }
+}
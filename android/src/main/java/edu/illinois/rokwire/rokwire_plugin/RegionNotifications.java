@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Posts notifications on region enter natively, from templates given with the monitored regions
+ * ({@code notification: {title, body, channel, cooldown}}), so a geofence broadcast does not have to
+ * start the Flutter engine. Templates and last posting times are persisted, since the broadcast may
+ * arrive in a cold process; each region is rate limited by its cooldown.
+ */
+class RegionNotifications {
+
+    private static final String TAG = "RegionNotifications";
+
+    static final String PREFS_FILE_NAME = "edu.illinois.rokwire.region_notifications";
+    private static final String TEMPLATES_KEY = "templates";
+    private static final String POSTED_KEY_PREFIX = "posted.";
+
+    static final long DEFAULT_COOLDOWN_MILLIS = 3600000;
+
+    static final String EXTRA_REGION_ID = "edu.illinois.rokwire.region_id";
+
+    static class Template {
+        final String title;
+        final String body;
+        final String channel;
+        final long cooldownMillis;
+
+        Template(String title, String body, String channel, long cooldownMillis) {
+            this.title = title;
+            this.body = body;
+            this.channel = channel;
+            this.cooldownMillis = cooldownMillis;
+        }
+
+        /** Builds a template from a region entry's notification map; cooldown is given in seconds. */
+        static Template fromMap(Object notification) {
+            String title = Utils.Map.getValueFromPath(notification, "title", null);
+            String body = Utils.Map.getValueFromPath(notification, "body", null);
+            if (Utils.Str.isEmpty(title) && Utils.Str.isEmpty(body)) {
+                return null;
+            }
+            String channel = Utils.Map.getValueFromPath(notification, "channel", null);
+            double cooldown = Utils.Map.getDoubleFromPath(notification, "cooldown", DEFAULT_COOLDOWN_MILLIS / 1000.0);
+            return new Template(title, body, channel, (long) (cooldown * 1000));
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.putOpt("title", title);
+            json.putOpt("body", body);
+            json.putOpt("channel", channel);
+            json.put("cooldown", cooldownMillis);
+            return json;
+        }
+
+        static Template fromJson(JSONObject json) {
+            return new Template(json.optString("title", null), json.optString("body", null), json.optString("channel", null),
+                    json.optLong("cooldown", DEFAULT_COOLDOWN_MILLIS));
+        }
+    }
+
+    // Loaded from preferences on first use
+    private Map<String, Template> templates;
+    private String templatesJson;
+
+    /** Replaces the templates; they are written only when they changed. */
+    void setTemplates(Context context, Map<String, Template> newTemplates) {
+        if (context == null) {
+            return;
+        }
+        String json;
+        try {
+            JSONObject jsonTemplates = new JSONObject();
+            for (Map.Entry<String, Template> entry : newTemplates.entrySet()) {
+                jsonTemplates.put(entry.getKey(), entry.getValue().toJson());
+            }
+            json = jsonTemplates.toString();
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to encode notification templates: " + e);
+            return;
+        }
+        loadTemplates(context);
+        if (json.equals(templatesJson)) {
+            return;
+        }
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_FILE_NAME, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = prefs.edit();
+        editor.putString(TEMPLATES_KEY, json);
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(POSTED_KEY_PREFIX) && !newTemplates.containsKey(key.substring(POSTED_KEY_PREFIX.length()))) {
+                editor.remove(key);
+            }
+        }
+        editor.apply();
+        templates = new HashMap<>(newTemplates);
+        templatesJson = json;
+    }
+
+    /** Posts the region's notification unless it has no template or is still cooling down. */
+    boolean onRegionEnter(Context context, String regionId, long now) {
+        if ((context == null) || (regionId == null)) {
+            return false;
+        }
+        loadTemplates(context);
+        Template template = templates.get(regionId);
+        if (template == null) {
+            return false;
+        }
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_FILE_NAME, Context.MODE_PRIVATE);
+        String postedKey = POSTED_KEY_PREFIX + regionId;
+        long lastPosted = prefs.getLong(postedKey, Long.MIN_VALUE);
+        if ((lastPosted != Long.MIN_VALUE) && (now - lastPosted < template.cooldownMillis)) {
+            return false;
+        }
+        if (!post(context, regionId, template)) {
+            return false;
+        }
+        prefs.edit().putLong(postedKey, now).apply();
+        return true;
+    }
+
+    private void loadTemplates(Context context) {
+        if (templates != null) {
+            return;
+        }
+        templates = new HashMap<>();
+        templatesJson = context.getSharedPreferences(PREFS_FILE_NAME, Context.MODE_PRIVATE).getString(TEMPLATES_KEY, null);
+        if (templatesJson != null) {
+            try {
+                JSONObject json = new JSONObject(templatesJson);
+                for (Iterator<String> keys = json.keys(); keys.hasNext(); ) {
+                    String regionId = keys.next();
+                    templates.put(regionId, Template.fromJson(json.getJSONObject(regionId)));
+                }
+            } catch (JSONException e) {
+                Log.e(TAG, "Failed to decode notification templates: " + e);
+            }
+        }
+    }
+
+    private static boolean post(Context context, String regionId, Template template) {
+        return Utils.Notifications.post(context, TAG, regionId, template.title, template.body, template.channel, EXTRA_REGION_ID);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The region set last synced from Dart, keyed by region id. Digests and the set hash are opaque values computed
+ * by Dart over its own region encoding: the hash lets Dart skip a sync when nothing changed, and the per-region
+ * digests let the native side report which ids are stale, so only those are sent. A mutation without a hash
+ * leaves the set hash unknown until Dart vouches for the resulting set again.
+ */
+class RegionSet {
+
+    private final Map<String, Map<String, Object>> entries = new LinkedHashMap<>();
+    private final Map<String, String> digests = new HashMap<>();
+    private String hash;
+
+    /** Replaces the whole set. */
+    void replace(List<Map<String, Object>> regions, Map<String, String> regionDigests, String setHash) {
+        entries.clear();
+        digests.clear();
+        put(regions, regionDigests, false);
+        hash = setHash;
+    }
+
+    /** Adds regions, replacing those with the same ids; returns true if the set changed. */
+    boolean add(List<Map<String, Object>> regions, Map<String, String> regionDigests, String setHash) {
+        hash = setHash;
+        return put(regions, regionDigests, false);
+    }
+
+    /** Replaces regions with the same ids, ignoring unknown ones; returns true if the set changed. */
+    boolean update(List<Map<String, Object>> regions, Map<String, String> regionDigests, String setHash) {
+        hash = setHash;
+        return put(regions, regionDigests, true);
+    }
+
+    /** Removes the regions with the given ids; returns true if the set changed. */
+    boolean remove(Collection<String> ids, String setHash) {
+        hash = setHash;
+        boolean changed = false;
+        if (ids != null) {
+            for (String id : ids) {
+                digests.remove(id);
+                if (entries.remove(id) != null) {
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Compares Dart's per-region digests with the synced ones: {@code missing} ids are not in the set, {@code changed}
+     * ids have a different or unknown digest and {@code removed} ids are in the set but no longer in Dart's.
+     */
+    HashMap<String, Object> getStale(Map<String, String> regionDigests) {
+        List<String> missing = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        if (regionDigests != null) {
+            for (Map.Entry<String, String> entry : regionDigests.entrySet()) {
+                if (!entries.containsKey(entry.getKey())) {
+                    missing.add(entry.getKey());
+                } else if ((entry.getValue() == null) || !entry.getValue().equals(digests.get(entry.getKey()))) {
+                    changed.add(entry.getKey());
+                }
+            }
+        }
+        for (String id : entries.keySet()) {
+            if ((regionDigests == null) || !regionDigests.containsKey(id)) {
+                removed.add(id);
+            }
+        }
+        HashMap<String, Object> stale = new HashMap<>();
+        stale.put("missing", missing);
+        stale.put("changed", changed);
+        stale.put("removed", removed);
+        return stale;
+    }
+
+    Map<String, String> getDigests() {
+        return new HashMap<>(digests);
+    }
+
+    List<Map<String, Object>> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    String getHash() {
+        return hash;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private boolean put(List<Map<String, Object>> regions, Map<String, String> regionDigests, boolean existingOnly) {
+        boolean changed = false;
+        if (regions != null) {
+            for (Map<String, Object> region : regions) {
+                String id = Utils.Map.getValueFromPath(region, "id", null);
+                if ((id == null) || (existingOnly && !entries.containsKey(id))) {
+                    continue;
+                }
+                if (!region.equals(entries.put(id, region))) {
+                    changed = true;
+                }
+                String digest = (regionDigests != null) ? regionDigests.get(id) : null;
+                if (digest != null) {
+                    digests.put(id, digest);
+                } else {
+                    digests.remove(id);
+                }
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+import androidx.core.util.AtomicFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.flutter.plugin.common.StandardMessageCodec;
+
+/**
+ * Persists the last synced region set, so geofences can be registered again after Play Services dropped them
+ * without starting the Flutter engine. Regions are written with the method channel codec, so they load with the
+ * same value types Dart sent them with. Saves are written in order on a background thread from a snapshot of the
+ * set; a load waits for the pending ones. The transition debounce periods are kept beside it, so a process started
+ * by a geofence broadcast debounces like the app did.
+ */
+class RegionStore {
+
+    private static final String TAG = "RegionStore";
+
+    static final String STORE_FILE_NAME = "rokwire_geofence_regions";
+    private static final int STORE_VERSION = 1;
+
+    static final String SETTINGS_PREFS_NAME = "edu.illinois.rokwire.geofence_settings";
+    private static final String ENTER_CONFIRM_KEY = "transition.enter_confirm";
+    private static final String EXIT_GRACE_KEY = "transition.exit_grace";
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor();
+
+    // Store: version, then the codec encoded {hash, regions, digests} map
+
+    static void save(Context context, RegionSet regionSet) {
+        if (context == null) {
+            return;
+        }
+        HashMap<String, Object> message;
+        if (regionSet.size() != 0) {
+            message = new HashMap<>();
+            message.put("hash", regionSet.getHash());
+            message.put("regions", regionSet.getEntries());
+            message.put("digests", regionSet.getDigests());
+        } else {
+            message = null;
+        }
+        writer.execute(() -> write(context, message));
+    }
+
+    private static void write(Context context, Map<String, Object> message) {
+        AtomicFile file = getStoreFile(context);
+        if (message == null) {
+            file.delete();
+            return;
+        }
+        ByteBuffer buffer = StandardMessageCodec.INSTANCE.encodeMessage(message);
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream output = new DataOutputStream(stream);
+            output.writeInt(STORE_VERSION);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+            output.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to save regions: " + e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    /** Replaces the region set with the stored one; returns false if there is none. */
+    static boolean load(Context context, RegionSet regionSet) {
+        if (context == null) {
+            return false;
+        }
+        awaitPendingWrites();
+        Object message;
+        try (DataInputStream input = new DataInputStream(getStoreFile(context).openRead())) {
+            if (input.readInt() != STORE_VERSION) {
+                return false;
+            }
+            byte[] bytes = new byte[input.readInt()];
+            input.readFully(bytes);
+            message = StandardMessageCodec.INSTANCE.decodeMessage(ByteBuffer.wrap(bytes));
+        } catch (FileNotFoundException e) {
+            // Nothing synced yet
+            return false;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to load regions: " + e);
+            return false;
+        }
+        if (!(message instanceof Map<?, ?>)) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> regions = (List<Map<String, Object>>) Utils.Map.getListFromPath(message, "regions");
+        if ((regions == null) || regions.isEmpty()) {
+            return false;
+        }
+        Map<String, String> digests = new HashMap<>();
+        Object digestsMap = ((Map<?, ?>) message).get("digests");
+        if (digestsMap instanceof Map<?, ?>) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) digestsMap).entrySet()) {
+                if ((entry.getKey() instanceof String) && (entry.getValue() instanceof String)) {
+                    digests.put((String) entry.getKey(), (String) entry.getValue());
+                }
+            }
+        }
+        regionSet.replace(regions, digests, Utils.Map.getValueFromPath(message, "hash", null));
+        return true;
+    }
+
+    static void saveTransitionDebounce(Context context, long enterConfirmMillis, long exitGraceMillis) {
+        if (context != null) {
+            context.getSharedPreferences(SETTINGS_PREFS_NAME, Context.MODE_PRIVATE).edit().
+                    putLong(ENTER_CONFIRM_KEY, enterConfirmMillis).
+                    putLong(EXIT_GRACE_KEY, exitGraceMillis).
+                    apply();
+        }
+    }
+
+    /** Applies the stored debounce periods; the debouncer keeps its own when none are stored. */
+    static void loadTransitionDebounce(Context context, TransitionDebouncer debouncer) {
+        SharedPreferences preferences = (context != null) ? context.getSharedPreferences(SETTINGS_PREFS_NAME, Context.MODE_PRIVATE) : null;
+        if ((preferences != null) && preferences.contains(ENTER_CONFIRM_KEY)) {
+            debouncer.setPeriods(preferences.getLong(ENTER_CONFIRM_KEY, 0), preferences.getLong(EXIT_GRACE_KEY, 0));
+        }
+    }
+
+    private static void awaitPendingWrites() {
+        try {
+            writer.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Failed to wait for pending saves: " + e);
+        }
+    }
+
+    private static AtomicFile getStoreFile(Context context) {
+        return new AtomicFile(new File(ContextCompat.getNoBackupFilesDir(context), STORE_FILE_NAME));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.app.Activity;
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Process-wide core shared by every Flutter engine the plugin is attached to. Monitoring, state and caches
+ * (GeofenceMonitor, LocationServices) live here once; each engine's RokwirePlugin instance is an endpoint
+ * holding that engine's channels. Events fan out to every attached endpoint, and the monitors keep running
+ * until the last engine detaches, so a secondary headless engine can come and go without restarting them.
+ * All methods are called on the main thread.
+ */
+class RokwireCore {
+
+    static final String GEOFENCE_EVENTS_STREAM = "edu.illinois.rokwire/geofence_events";
+    static final String REGION_STATE_STREAM = "edu.illinois.rokwire/region_state";
+    static final String BEACON_EVENTS_STREAM = "edu.illinois.rokwire/beacon_events";
+    static final String LOCATION_UPDATES_STREAM = "edu.illinois.rokwire/location_updates";
+    static final String LOCATION_TRACE_STREAM = "edu.illinois.rokwire/location_trace";
+    static final String LOCATION_STATUS_STREAM = "edu.illinois.rokwire/location_status";
+
+    static final String[] STREAMS = {
+            GEOFENCE_EVENTS_STREAM, REGION_STATE_STREAM, BEACON_EVENTS_STREAM,
+            LOCATION_UPDATES_STREAM, LOCATION_TRACE_STREAM, LOCATION_STATUS_STREAM,
+    };
+
+    private static final RokwireCore instance = new RokwireCore();
+
+    // Attached engines, in attach order
+    private final List<RokwirePlugin> endpoints = new ArrayList<>();
+    private Context applicationContext;
+
+    static RokwireCore getInstance() {
+        return instance;
+    }
+
+    void attach(RokwirePlugin endpoint, Context context) {
+        if (endpoints.contains(endpoint)) {
+            return;
+        }
+        endpoints.add(endpoint);
+        if (endpoints.size() == 1) {
+            applicationContext = context.getApplicationContext();
+            LocationServices.getInstance().init(applicationContext);
+        }
+    }
+
+    void detach(RokwirePlugin endpoint) {
+        if (endpoints.remove(endpoint)) {
+            if (endpoints.isEmpty()) {
+                GeofenceMonitor.getInstance().unInit();
+                LocationServices.getInstance().unInit();
+                applicationContext = null;
+            } else {
+                onStreamCancelled(LOCATION_UPDATES_STREAM);
+                onStreamCancelled(LOCATION_TRACE_STREAM);
+            }
+        }
+    }
+
+    /**
+     * Applies the application context in a process started by a broadcast (geofence transition, boot),
+     * where no engine is attached yet.
+     */
+    void applyApplicationContext(Context context) {
+        if ((applicationContext == null) && (context != null)) {
+            applicationContext = context.getApplicationContext();
+        }
+    }
+
+    int getEndpointCount() {
+        return endpoints.size();
+    }
+
+    Context getApplicationContext() {
+        return applicationContext;
+    }
+
+    /** The most recently attached engine's Activity, if any engine has one bound. */
+    Activity getActivity() {
+        for (int index = endpoints.size() - 1; 0 <= index; index--) {
+            Activity activity = endpoints.get(index).getActivity();
+            if (activity != null) {
+                return activity;
+            }
+        }
+        return null;
+    }
+
+    /** A bound Activity when there is one, otherwise the application context. */
+    Context getContext() {
+        Activity activity = getActivity();
+        return (activity != null) ? activity : applicationContext;
+    }
+
+    // Events
+
+    boolean isListening(String stream) {
+        for (RokwirePlugin endpoint : endpoints) {
+            if (endpoint.isListening(stream)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void emit(String stream, Object event) {
+        for (RokwirePlugin endpoint : endpoints) {
+            endpoint.emit(stream, event);
+        }
+    }
+
+    boolean isGeoFenceListening(String event) {
+        return isListening(geoFenceStream(event));
+    }
+
+    void notifyGeoFence(String event, Object arguments) {
+        String stream = geoFenceStream(event);
+        if (isListening(stream)) {
+            HashMap<String, Object> payload = new HashMap<>();
+            payload.put("event", event);
+            payload.put("data", arguments);
+            emit(stream, payload);
+        }
+    }
+
+    /** Called when an engine stops listening to a stream. */
+    void onStreamCancelled(String stream) {
+        if (LOCATION_UPDATES_STREAM.equals(stream) && !isListening(stream)) {
+            LocationServices.getInstance().onLocationUpdatesCancelled();
+        } else if (LOCATION_TRACE_STREAM.equals(stream) && !isListening(stream)) {
+            LocationServices.getInstance().onTraceCancelled();
+        }
+    }
+
+    private static String geoFenceStream(String event) {
+        if ("onCurrentRegionsChanged".equals(event)) {
+            return REGION_STATE_STREAM;
+        } else if ("onBeaconsInRegionChanged".equals(event) || "onPositionChanged".equals(event)) {
+            return BEACON_EVENTS_STREAM;
+        } else {
+            return GEOFENCE_EVENTS_STREAM;
+        }
+    }
+}
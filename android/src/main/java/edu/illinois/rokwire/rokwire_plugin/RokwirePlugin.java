@@ -43,6 +43,7 @@ import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
 import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
 import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
 import io.flutter.plugin.common.PluginRegistry;
 import io.flutter.plugin.common.MethodChannel;
 
@@ -56,6 +57,10 @@ public class RokwirePlugin implements FlutterPlugin, MethodCallHandler, Activity
     _instance = this;
   }
 
+  /**
+   * Returns the most recently created plugin instance. With several engines attached each has its own
+   * instance; shared state and event fan-out live in RokwireCore.
+   */
   public static RokwirePlugin getInstance() {
     return (_instance != null) ? _instance : new RokwirePlugin();
   }
@@ -71,7 +76,13 @@ public class RokwirePlugin implements FlutterPlugin, MethodCallHandler, Activity
   public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
     _channel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), "edu.illinois.rokwire/plugin");
     _channel.setMethodCallHandler(this);
+    for (String stream : RokwireCore.STREAMS) {
+      EventStream eventStream = new EventStream(() -> RokwireCore.getInstance().onStreamCancelled(stream));
+      eventStream.attach(flutterPluginBinding.getBinaryMessenger(), stream);
+      _eventStreams.put(stream, eventStream);
+    }
     _flutterBinding = flutterPluginBinding;
+    RokwireCore.getInstance().attach(this, flutterPluginBinding.getApplicationContext());
 
     // Initialize GeofenceMonitor after we have activity available because it checks for activity permissions.
     // GeofenceMonitor.getInstance().init();
@@ -80,8 +91,15 @@ public class RokwirePlugin implements FlutterPlugin, MethodCallHandler, Activity
   @Override
   public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
     _channel.setMethodCallHandler(null);
+    for (EventStream eventStream : _eventStreams.values()) {
+      eventStream.detach();
+    }
+    _eventStreams.clear();
+    LocationServices.getInstance().unsubscribe(_locationSubscriptions);
+    _locationSubscriptions.clear();
     _flutterBinding = null;
-    GeofenceMonitor.getInstance().unInit();
+    // Monitors keep running while other engines are attached
+    RokwireCore.getInstance().detach(this);
   }
 
   // ActivityAware
@@ -113,6 +131,13 @@ public class RokwirePlugin implements FlutterPlugin, MethodCallHandler, Activity
   /// This local reference serves to register the plugin with the Flutter Engine and unregister it
   /// when the Flutter Engine is detached from the Activity
   private MethodChannel _channel;
+
+  /// This engine's event streams, keyed by channel name. Geofence and location events are emitted on the
+  /// engine's messenger independently of the Activity binding, and fanned out to every engine by RokwireCore.
+  private final Map<String, EventStream> _eventStreams = new HashMap<>();
+
+  /// Location update subscriptions made by this engine, dropped when it detaches.
+  private final Set<String> _locationSubscriptions = new HashSet<>();
   
   @Override
   public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
@@ -133,6 +158,15 @@ public class RokwirePlugin implements FlutterPlugin, MethodCallHandler, Activity
     else if (firstMethodComponent.equals("showNotification")) {
       result.success(showNotification(call));
     }
+    else if (firstMethodComponent.equals("scheduleNotifications")) {
+      result.success(scheduleNotifications(call.arguments));
+    }
+    else if (firstMethodComponent.equals("cancelNotifications")) {
+      result.success(cancelNotifications(call.arguments));
+    }
+    else if (firstMethodComponent.equals("scheduledNotifications")) {
+      result.success(getScheduledNotifications());
+    }
     else if (firstMethodComponent.equals("getDeviceId")) {
       result.success(getDeviceId(call.arguments));
     }
@@ -152,6 +186,7 @@ public class RokwirePlugin implements FlutterPlugin, MethodCallHandler, Activity
       result.success(launchAppSettings(call.arguments));
     }
     else if (firstMethodComponent.equals("locationServices")) {
+      _trackLocationSubscription(nextMethodComponents, call.arguments);
       LocationServices.getInstance().handleMethodCall(nextMethodComponents, call.arguments, result);
     }
     else if (firstMethodComponent.equals("trackingServices")) {
@@ -166,9 +201,23 @@ public class RokwirePlugin implements FlutterPlugin, MethodCallHandler, Activity
   }
 
   public void notifyGeoFence​(String event, Object arguments) {
-    Activity activity = getActivity();
-    if ((activity != null) && (_channel != null)) {
-      activity.runOnUiThread(() -> _channel.invokeMethod(String.format("geoFence.%s", event), arguments));
+    RokwireCore.getInstance().notifyGeoFence(event, arguments);
+  }
+
+  /// Lets callers skip building costly event arguments while no engine is listening.
+  public boolean isGeoFenceListening(String event) {
+    return RokwireCore.getInstance().isGeoFenceListening(event);
+  }
+
+  boolean isListening(String stream) {
+    EventStream eventStream = _eventStreams.get(stream);
+    return (eventStream != null) && eventStream.isListening();
+  }
+
+  void emit(String stream, Object event) {
+    EventStream eventStream = _eventStreams.get(stream);
+    if (eventStream != null) {
+      eventStream.emit(event);
     }
   }
 
@@ -250,6 +299,11 @@ public class RokwirePlugin implements FlutterPlugin, MethodCallHandler, Activity
   }
 
   private boolean showNotification(MethodCall call) {
+    /// Notifications with a future dateTime are handed to the native scheduler
+    Object dateTime = call.argument("dateTime");
+    if ((dateTime instanceof Number) && (System.currentTimeMillis() < ((Number) dateTime).longValue())) {
+      return scheduleNotification(call.arguments);
+    }
     Activity activity = getActivity();
     Application application = (activity != null) ? activity.getApplication() : null;
     if ((application != null) && (_notificationChannel != null)) {
@@ -283,6 +337,62 @@ public class RokwirePlugin implements FlutterPlugin, MethodCallHandler, Activity
     return false;
   }
 
+  private boolean scheduleNotification(Object params) {
+    if ((params instanceof Map) && !(((Map<?, ?>) params).get("id") instanceof String)) {
+      Map<Object, Object> paramsWithId = new HashMap<>((Map<?, ?>) params);
+      paramsWithId.put("id", UUID.randomUUID().toString());
+      params = paramsWithId;
+    }
+    NotificationScheduler.Entry entry = notificationEntry(params);
+    return (entry != null) && (NotificationScheduler.getInstance().schedule(RokwireCore.getInstance().getApplicationContext(),
+      Collections.singletonList(entry), System.currentTimeMillis()) > 0);
+  }
+
+  private int scheduleNotifications(Object params) {
+    List<NotificationScheduler.Entry> entries = new ArrayList<>();
+    if (params instanceof List) {
+      for (Object item : (List<?>) params) {
+        NotificationScheduler.Entry entry = notificationEntry(item);
+        if (entry != null) {
+          entries.add(entry);
+        }
+      }
+    }
+    return entries.isEmpty() ? 0 : NotificationScheduler.getInstance().schedule(RokwireCore.getInstance().getApplicationContext(),
+      entries, System.currentTimeMillis());
+  }
+
+  /// Cancels the scheduled notifications with the given ids, or all of them when no ids are given
+  private int cancelNotifications(Object params) {
+    List<String> ids = null;
+    if (params instanceof List) {
+      ids = new ArrayList<>();
+      for (Object item : (List<?>) params) {
+        if (item instanceof String) {
+          ids.add((String) item);
+        }
+      }
+    }
+    return NotificationScheduler.getInstance().cancel(RokwireCore.getInstance().getApplicationContext(), ids, System.currentTimeMillis());
+  }
+
+  private List<HashMap<String, Object>> getScheduledNotifications() {
+    List<HashMap<String, Object>> result = new ArrayList<>();
+    for (NotificationScheduler.Entry entry : NotificationScheduler.getInstance().getPending(RokwireCore.getInstance().getApplicationContext())) {
+      result.add(entry.toMap());
+    }
+    return result;
+  }
+
+  /// Scheduled notifications default to the channel created through createAndroidNotificationChannel
+  private NotificationScheduler.Entry notificationEntry(Object params) {
+    NotificationScheduler.Entry entry = NotificationScheduler.Entry.fromMap(params);
+    if ((entry != null) && (entry.channel == null) && (_notificationChannel != null)) {
+      entry = entry.withChannel(_notificationChannel.getId());
+    }
+    return entry;
+  }
+
   private boolean launchApp(Object params) {
     Activity activity = getActivity();
     if (activity == null) {
@@ -351,6 +461,18 @@ public class RokwirePlugin implements FlutterPlugin, MethodCallHandler, Activity
 
   // Helpers
 
+  private void _trackLocationSubscription(String method, Object params) {
+    if ("subscribe".equals(method)) {
+      String id = Utils.Map.getValueFromPath(params, "id", null);
+      if (id != null) {
+        _locationSubscriptions.add(id);
+      }
+    }
+    else if ("unsubscribe".equals(method) && (params instanceof String)) {
+      _locationSubscriptions.remove(params);
+    }
+  }
+
   private void _applyActivityBinding(ActivityPluginBinding binding) {
     if (_activityBinding != binding) {
       if (_activityBinding != null) {
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns raw enter/exit inputs from geofence, polygon and beacon sources into stable region membership. An enter
+ * is confirmed only if the region is still reported inside after the enter confirmation period, and an exit only
+ * after the exit grace period; an input back to the stable state cancels the pending transition, so oscillation at
+ * region boundaries collapses into at most one transition. Pending transitions sit in a hashed timer wheel ticked
+ * on the handler only while any are pending. With both periods zero, inputs are applied immediately.
+ */
+class TransitionDebouncer {
+
+    static final long TICK_MILLIS = 250;
+    static final int WHEEL_SIZE = 64;
+
+    interface Listener {
+        void onTransitions(@NonNull List<String> entered, @NonNull List<String> exited);
+    }
+
+    private static class State {
+        final String regionId;
+        boolean inside;
+        boolean pending;
+        long deadline;
+        int slot = -1;
+
+        State(String regionId) {
+            this.regionId = regionId;
+        }
+    }
+
+    private final Handler handler;
+    private final Listener listener;
+
+    // Regions that are inside or have a pending transition
+    private final Map<String, State> states = new HashMap<>();
+    private final List<List<State>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private int pendingCount = 0;
+    private long currentTick = 0;
+    private boolean ticking = false;
+
+    private long enterConfirmMillis = 0;
+    private long exitGraceMillis = 0;
+
+    private long inputs = 0;
+    private long collapsed = 0;
+    private long transitions = 0;
+
+    // Run once no transition is pending
+    private final List<Runnable> settledCallbacks = new ArrayList<>();
+
+    TransitionDebouncer(@NonNull Handler handler, @NonNull Listener listener) {
+        this.handler = handler;
+        this.listener = listener;
+        for (int index = 0; index < WHEEL_SIZE; index++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    /** Changes the periods for transitions that become pending from now on. */
+    void setPeriods(long enterConfirmMillis, long exitGraceMillis) {
+        this.enterConfirmMillis = Math.max(0, enterConfirmMillis);
+        this.exitGraceMillis = Math.max(0, exitGraceMillis);
+    }
+
+    /** Feeds raw inputs for the regions; immediate transitions are reported before this returns. */
+    void update(Collection<String> regionIds, boolean inside) {
+        long now = SystemClock.elapsedRealtime();
+        List<String> entered = new ArrayList<>();
+        List<String> exited = new ArrayList<>();
+        for (String regionId : regionIds) {
+            inputs++;
+            State state = states.get(regionId);
+            if (state == null) {
+                if (!inside) {
+                    continue;
+                }
+                states.put(regionId, state = new State(regionId));
+            }
+            if (state.inside == inside) {
+                if (state.pending) {
+                    unschedule(state);
+                    collapsed++;
+                    if (!state.inside) {
+                        states.remove(regionId);
+                    }
+                }
+                continue;
+            }
+            if (state.pending) {
+                // Already heading there, the original deadline stands
+                continue;
+            }
+            long period = inside ? enterConfirmMillis : exitGraceMillis;
+            if (period <= 0) {
+                commit(state, entered, exited);
+            } else {
+                state.deadline = now + period;
+                schedule(state, now);
+            }
+        }
+        notifyListener(entered, exited);
+        notifySettled();
+    }
+
+    /** Marks regions as stably inside without reporting a transition, e.g. when restored after a cold start. */
+    void restore(Collection<String> regionIds) {
+        for (String regionId : regionIds) {
+            State state = states.get(regionId);
+            if (state == null) {
+                states.put(regionId, state = new State(regionId));
+                state.inside = true;
+            }
+        }
+    }
+
+    /** Drops a region without reporting a transition, e.g. when it is no longer monitored. */
+    void remove(String regionId) {
+        State state = states.remove(regionId);
+        if ((state != null) && state.pending) {
+            unschedule(state);
+        }
+        notifySettled();
+    }
+
+    /** Runs the callback once no transition is pending, right away if none is. */
+    void whenSettled(@NonNull Runnable callback) {
+        settledCallbacks.add(callback);
+        notifySettled();
+    }
+
+    boolean isPending(String regionId) {
+        State state = states.get(regionId);
+        return (state != null) && state.pending;
+    }
+
+    HashMap<String, Object> getStats() {
+        HashMap<String, Object> stats = new HashMap<>();
+        stats.put("inputs", inputs);
+        stats.put("collapsed", collapsed);
+        stats.put("transitions", transitions);
+        stats.put("pending", pendingCount);
+        stats.put("enterConfirm", enterConfirmMillis);
+        stats.put("exitGrace", exitGraceMillis);
+        return stats;
+    }
+
+    private void commit(State state, List<String> entered, List<String> exited) {
+        state.inside = !state.inside;
+        transitions++;
+        if (state.inside) {
+            entered.add(state.regionId);
+        } else {
+            exited.add(state.regionId);
+            states.remove(state.regionId);
+        }
+    }
+
+    private void notifySettled() {
+        if ((pendingCount == 0) && !settledCallbacks.isEmpty()) {
+            List<Runnable> callbacks = new ArrayList<>(settledCallbacks);
+            settledCallbacks.clear();
+            for (Runnable callback : callbacks) {
+                callback.run();
+            }
+        }
+    }
+
+    private void notifyListener(List<String> entered, List<String> exited) {
+        if (!entered.isEmpty() || !exited.isEmpty()) {
+            listener.onTransitions(entered, exited);
+        }
+    }
+
+    //region Timer wheel
+
+    private void schedule(State state, long now) {
+        long dueTick = (state.deadline + TICK_MILLIS - 1) / TICK_MILLIS;
+        state.slot = (int) (dueTick % WHEEL_SIZE);
+        state.pending = true;
+        wheel.get(state.slot).add(state);
+        pendingCount++;
+        if (!ticking) {
+            ticking = true;
+            currentTick = now / TICK_MILLIS;
+            handler.postDelayed(tickRunnable, TICK_MILLIS);
+        }
+    }
+
+    private void unschedule(State state) {
+        wheel.get(state.slot).remove(state);
+        state.slot = -1;
+        state.pending = false;
+        pendingCount--;
+        if ((pendingCount == 0) && ticking) {
+            ticking = false;
+            handler.removeCallbacks(tickRunnable);
+        }
+    }
+
+    private final Runnable tickRunnable = this::tick;
+
+    private void tick() {
+        long now = SystemClock.elapsedRealtime();
+        long nowTick = now / TICK_MILLIS;
+        List<String> entered = new ArrayList<>();
+        List<String> exited = new ArrayList<>();
+        // Catch up on late ticks; after a full turn every slot has been visited
+        long ticks = Math.min(nowTick - currentTick, WHEEL_SIZE);
+        for (long tick = nowTick - ticks + 1; tick <= nowTick; tick++) {
+            for (Iterator<State> iterator = wheel.get((int) (tick % WHEEL_SIZE)).iterator(); iterator.hasNext(); ) {
+                State state = iterator.next();
+                // Deadlines more than a turn away stay in their slot until a later turn
+                if (state.deadline <= now) {
+                    iterator.remove();
+                    state.slot = -1;
+                    state.pending = false;
+                    pendingCount--;
+                    commit(state, entered, exited);
+                }
+            }
+        }
+        currentTick = nowTick;
+        if (pendingCount > 0) {
+            handler.postDelayed(tickRunnable, TICK_MILLIS);
+        } else {
+            ticking = false;
+        }
+        notifyListener(entered, exited);
+        notifySettled();
+    }
+
+    //endregion
+}
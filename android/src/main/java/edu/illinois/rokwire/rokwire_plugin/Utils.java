@@ -16,22 +16,26 @@
 
 package edu.illinois.rokwire.rokwire_plugin;
 
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
 import android.content.Context;
+import android.content.Intent;
 import android.content.SharedPreferences;
+import android.os.Build;
 import android.util.Log;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Formatter;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.lang.Exception;
 
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
 import androidx.security.crypto.MasterKey;
 import androidx.security.crypto.EncryptedSharedPreferences;
 
-import org.altbeacon.beacon.Beacon;
-
 public class Utils {
 
     private static final String TAG = "rokwire_plugin";
@@ -100,6 +104,21 @@ public class Utils {
             return (valueObject instanceof Boolean) ? (Boolean) valueObject : defaultValue;
         }
 
+        public static List<?> getListFromPath(Object object, String path) {
+            Object valueObject = getValueFromPath(object, path);
+            return (valueObject instanceof List<?>) ? (List<?>) valueObject : null;
+        }
+
+        public static long getLongFromPath(Object object, String path, long defaultValue) {
+            Object valueObject = getValueFromPath(object, path);
+            return (valueObject instanceof Number) ? ((Number) valueObject).longValue() : defaultValue;
+        }
+
+        public static double getDoubleFromPath(Object object, String path, double defaultValue) {
+            Object valueObject = getValueFromPath(object, path);
+            return (valueObject instanceof Number) ? ((Number) valueObject).doubleValue() : defaultValue;
+        }
+
         private static Object getValueFromPath(Object object, String path) {
             if (!(object instanceof java.util.Map) || Str.isEmpty(path)) {
                 return null;
@@ -221,47 +240,68 @@ public class Utils {
         }
 
     }
-    
-    public static class Beacons {
 
-        public static boolean equalCollections(Collection<Beacon> collection1, Collection<Beacon> collection2) {
-            int collection1Size = collection1 != null ? collection1.size() : 0;
-            int collection2Size = collection2 != null ? collection2.size() : 0;
-            if (collection1Size != collection2Size) {
+    public static class Notifications {
+
+        public static final String DEFAULT_CHANNEL_ID = "edu.illinois.rokwire.firebase_messaging.notification_channel";
+        public static final String DEFAULT_CHANNEL_NAME = "Rokwire";
+
+        /**
+         * Posts a notification with the app icon that opens the launch activity with {@code extraName} set to {@code key}.
+         * The channel is created when missing, so this works from a cold process without Flutter.
+         */
+        public static boolean post(Context context, String tag, String key, String title, String body, String channel, String extraName) {
+            if ((context == null) || (key == null)) {
                 return false;
-            } else if (collection1Size == 0) {
-                return true;
             }
-            Iterator<Beacon> iterator = collection2.iterator();
-            for (Beacon beacon1 : collection1) {
-                Beacon beacon2 = iterator.next();
-                if (!beacon1.equals(beacon2)) {
-                    return false;
-                }
-            }
-            return true;
+            return post(context, tag, key, build(context, key, title, body, channel, extraName));
         }
 
-        public static List<HashMap> toListMap(Collection<Beacon> beacons) {
-            if (beacons == null || beacons.isEmpty()) {
-                return null;
+        /** Posts a notification built by {@link #build}, replacing an earlier one with the same key. */
+        public static boolean post(Context context, String tag, String key, NotificationCompat.Builder builder) {
+            if ((context == null) || (key == null)) {
+                return false;
+            }
+            NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
+            if (!notificationManager.areNotificationsEnabled()) {
+                return false;
             }
-            List<HashMap> beaconsResponse = new ArrayList<>();
-            for (Beacon beacon : beacons) {
-                HashMap<String, Object> beaconMap = new HashMap<>();
-                String uuid = beacon.getId1().toString();
-                beaconMap.put("uuid", uuid);
-                String major = beacon.getId2().toString();
-                if (!Utils.Str.isEmpty(major)) {
-                    beaconMap.put("major", Integer.parseInt(major));
+            Notification notification = builder
+                    .setAutoCancel(true)
+                    .build();
+            try {
+                // One notification per key, posting it again replaces it
+                notificationManager.notify(tag, key.hashCode(), notification);
+                return true;
+            } catch (SecurityException e) {
+                Log.e(TAG, "Failed to post notification: " + e);
+                return false;
+            }
+        }
+
+        /** Builds a notification with the app icon and launch intent, creating its channel when missing. */
+        public static NotificationCompat.Builder build(@NonNull Context context, @NonNull String key, String title, String body, String channel, String extraName) {
+            String channelId = !Str.isEmpty(channel) ? channel : DEFAULT_CHANNEL_ID;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                NotificationManager manager = context.getSystemService(NotificationManager.class);
+                if ((manager != null) && (manager.getNotificationChannel(channelId) == null)) {
+                    manager.createNotificationChannel(new NotificationChannel(channelId, DEFAULT_CHANNEL_NAME, NotificationManager.IMPORTANCE_DEFAULT));
                 }
-                String minor = beacon.getId3().toString();
-                if (!Utils.Str.isEmpty(minor)) {
-                    beaconMap.put("minor", Integer.parseInt(minor));
+            }
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channelId)
+                    .setSmallIcon(context.getApplicationInfo().icon)
+                    .setContentTitle(title)
+                    .setContentText(body)
+                    .setPriority(NotificationCompat.PRIORITY_DEFAULT);
+            Intent launchIntent = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+            if (launchIntent != null) {
+                if (extraName != null) {
+                    launchIntent.putExtra(extraName, key);
                 }
-                beaconsResponse.add(beaconMap);
+                int flags = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) ? (PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT) : PendingIntent.FLAG_UPDATE_CURRENT;
+                builder.setContentIntent(PendingIntent.getActivity(context, key.hashCode(), launchIntent, flags));
             }
-            return beaconsResponse;
+            return builder;
         }
     }
 }
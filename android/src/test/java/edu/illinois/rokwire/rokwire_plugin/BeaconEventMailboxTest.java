@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BeaconEventMailboxTest {
+
+    private final List<String> sent = new ArrayList<>();
+    private final List<Long> sequences = new ArrayList<>();
+    private boolean listening = true;
+
+    private BeaconEventMailbox mailbox(int window, long ackTimeoutMillis) {
+        return new BeaconEventMailbox(window, ackTimeoutMillis, (regionId, sequence) -> {
+            if (!listening) {
+                return false;
+            }
+            sent.add(regionId);
+            sequences.add(sequence);
+            return true;
+        });
+    }
+
+    @Test
+    public void latestValueWinsWhileWindowIsFull() {
+        BeaconEventMailbox mailbox = mailbox(1, 1000);
+        mailbox.post("a", 0);
+        for (int i = 0; i < 100; i++) {
+            mailbox.post("b", i);
+            mailbox.post("a", i);
+        }
+        assertEquals(1, sent.size());
+        assertEquals(198, mailbox.getCoalesced());
+        assertEquals(201, mailbox.getPosted());
+
+        // Acking releases one update per pending region, in posting order
+        mailbox.ack(sequences.get(0), 100);
+        mailbox.ack(sequences.get(1), 100);
+        mailbox.ack(sequences.get(2), 100);
+        assertEquals(3, sent.size());
+        assertEquals("b", sent.get(1));
+        assertEquals("a", sent.get(2));
+        assertFalse(mailbox.hasPending());
+        assertEquals(3, mailbox.getAcked());
+        assertEquals(0, mailbox.getInFlightCount());
+    }
+
+    @Test
+    public void everyPendingRegionKeepsItsLatestState() {
+        BeaconEventMailbox mailbox = mailbox(1, 1000);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                mailbox.post("region-" + i, 0);
+            }
+        }
+        // One in flight, every other region pending once, nothing dropped
+        assertEquals(0, mailbox.getDropped());
+        assertEquals(199, mailbox.getCoalesced());
+        for (int i = 0; i < 100; i++) {
+            mailbox.ack(Long.MAX_VALUE, 0);
+        }
+        assertEquals(101, sent.size());
+        assertEquals("region-0", sent.get(0));
+        assertEquals("region-1", sent.get(1));
+        assertEquals("region-99", sent.get(99));
+        assertEquals("region-0", sent.get(100));
+        assertFalse(mailbox.hasPending());
+    }
+
+    @Test
+    public void unacknowledgedUpdatesExpire() {
+        BeaconEventMailbox mailbox = mailbox(2, 1000);
+        mailbox.post("a", 0);
+        mailbox.post("b", 0);
+        mailbox.post("c", 0);
+        assertEquals(2, sent.size());
+        assertTrue(mailbox.hasPending());
+        assertEquals(1000, mailbox.getNextExpiration());
+
+        mailbox.flush(999);
+        assertEquals(2, sent.size());
+        mailbox.flush(1000);
+        assertEquals(3, sent.size());
+        assertEquals(2, mailbox.getTimedOut());
+        assertEquals(2000, mailbox.getNextExpiration());
+    }
+
+    @Test
+    public void acksFromWithinSendAreReentrant() {
+        List<String> delivered = new ArrayList<>();
+        BeaconEventMailbox[] mailbox = new BeaconEventMailbox[1];
+        mailbox[0] = new BeaconEventMailbox(1, 1000, (regionId, sequence) -> {
+            delivered.add(regionId);
+            mailbox[0].ack(sequence, 0);
+            return true;
+        });
+        mailbox[0].post("a", 0);
+        mailbox[0].post("b", 0);
+        mailbox[0].post("a", 0);
+        assertEquals(3, delivered.size());
+        assertEquals(0, mailbox[0].getCoalesced());
+        assertEquals(3, mailbox[0].getAcked());
+    }
+
+    @Test
+    public void updatesWithoutListenerAreDropped() {
+        BeaconEventMailbox mailbox = mailbox(1, 1000);
+        listening = false;
+        mailbox.post("a", 0);
+        assertEquals(0, sent.size());
+        assertEquals(1, mailbox.getDropped());
+        assertEquals(0, mailbox.getInFlightCount());
+        listening = true;
+        mailbox.post("a", 0);
+        assertEquals(1, sent.size());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.BeaconParser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class BeaconLayoutsTest {
+
+    @Test
+    public void namedLayoutsCarryHardwareAssist() {
+        BeaconLayouts.ScanCounters counters = new BeaconLayouts.ScanCounters();
+        List<BeaconParser> parsers = BeaconLayouts.createParsers(Arrays.asList("iBeacon", "altbeacon", "eddystone_uid"), counters);
+        assertEquals(3, parsers.size());
+        assertArrayEquals(new int[]{0x004c}, parsers.get(0).getHardwareAssistManufacturers());
+        assertArrayEquals(new int[]{0x0118}, parsers.get(1).getHardwareAssistManufacturers());
+        assertNotNull(parsers.get(2).getServiceUuid());
+    }
+
+    @Test
+    public void invalidLayoutsAreSkipped() {
+        BeaconLayouts.ScanCounters counters = new BeaconLayouts.ScanCounters();
+        assertTrue(BeaconLayouts.createParsers(Arrays.asList("", "m:bogus"), counters).isEmpty());
+        assertEquals(1, BeaconLayouts.createParsers(Collections.singletonList("m:2-3=beac,i:4-19,i:20-21,i:22-23,p:24-24,d:25-25"), counters).size());
+    }
+
+    @Test
+    public void parsedAdvertisementsAreCounted() {
+        BeaconLayouts.ScanCounters counters = new BeaconLayouts.ScanCounters();
+        BeaconParser parser = BeaconLayouts.createParsers(Collections.singletonList(BeaconLayouts.IBEACON), counters).get(0);
+
+        Beacon beacon = parser.fromScanData(iBeaconAdvertisement(), -60, null, 0);
+        assertNotNull(beacon);
+        assertEquals("8af7b7d2-6c4e-4f4d-9b2c-9d3cb1f7a001", beacon.getId1().toString());
+        assertEquals(1, beacon.getId2().toInt());
+        assertEquals(2, beacon.getId3().toInt());
+
+        assertNull(parser.fromScanData(new byte[]{0x02, 0x01, 0x06, 0x03, (byte) 0xff, 0x01, 0x02}, -60, null, 0));
+        assertEquals(1L, counters.toMap().get("parsed"));
+    }
+
+    private static byte[] iBeaconAdvertisement() {
+        byte[] uuid = {(byte) 0x8a, (byte) 0xf7, (byte) 0xb7, (byte) 0xd2, 0x6c, 0x4e, 0x4f, 0x4d, (byte) 0x9b, 0x2c, (byte) 0x9d, 0x3c, (byte) 0xb1, (byte) 0xf7, (byte) 0xa0, 0x01};
+        byte[] data = new byte[30];
+        int index = 0;
+        data[index++] = 0x02; data[index++] = 0x01; data[index++] = 0x06;
+        data[index++] = 0x1a; data[index++] = (byte) 0xff; data[index++] = 0x4c; data[index++] = 0x00;
+        data[index++] = 0x02; data[index++] = 0x15;
+        System.arraycopy(uuid, 0, data, index, uuid.length);
+        index += uuid.length;
+        data[index++] = 0x00; data[index++] = 0x01;
+        data[index++] = 0x00; data[index++] = 0x02;
+        data[index] = (byte) 0xc5;
+        return data;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.app.Application;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.android.gms.location.Geofence;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class DwellStatsTest {
+
+    private static final long MINUTE = 60000;
+
+    private final Application application = ApplicationProvider.getApplicationContext();
+
+    @Test
+    public void visitsAggregatedIntoHistogram() {
+        DwellStats stats = new DwellStats();
+        long now = 1000000;
+        long[] dwells = {30000, 10 * MINUTE, 12 * MINUTE, 5 * 60 * MINUTE};
+        for (long dwell : dwells) {
+            stats.onEnter(application, "library", now);
+            stats.onExit(application, "library", now + dwell);
+            now += dwell + MINUTE;
+        }
+        // An exit without an open visit is ignored
+        stats.onExit(application, "library", now);
+
+        Map<String, Object> library = region(stats, "library");
+        assertEquals(4, library.get("visits"));
+        assertEquals(30000 + 22 * MINUTE + 300 * MINUTE, library.get("total"));
+        assertEquals(300 * MINUTE, library.get("last"));
+        assertEquals(Arrays.asList(1, 0, 2, 0, 0, 0, 0, 1), library.get("histogram"));
+        assertFalse(library.containsKey("enteredAt"));
+    }
+
+    @Test
+    public void openVisitSurvivesProcessDeath() {
+        new DwellStats().onEnter(application, "library", 1000);
+
+        // A new instance reads the persisted aggregate, as after the process was restarted
+        DwellStats stats = new DwellStats();
+        assertEquals(1000L, region(stats, "library").get("enteredAt"));
+        stats.onExit(application, "library", 1000 + 20 * MINUTE);
+        assertEquals(1, region(new DwellStats(), "library").get("visits"));
+
+        // Removing the region abandons the open visit and keeps the counts
+        stats.onEnter(application, "library", 2000000);
+        stats.onRemoved(application, "library");
+        stats.onExit(application, "library", 3000000);
+        assertEquals(1, region(new DwellStats(), "library").get("visits"));
+
+        stats.reset(application, Collections.singletonList("library"));
+        assertNull(region(new DwellStats(), "library"));
+    }
+
+    @Test
+    public void monitorRecordsStableTransitions() {
+        PluginTestHarness harness = new PluginTestHarness().attach();
+        try {
+            harness.monitor().resetDwellStats(null);
+            harness.monitor().monitorRegions(Collections.singletonList(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0)));
+            harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("campus"));
+            assertTrue(regions(harness.monitor().getDwellStats()).containsKey("campus"));
+            harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_EXIT, Collections.singletonList("campus"));
+            Map<?, ?> campus = (Map<?, ?>) regions(harness.monitor().getDwellStats()).get("campus");
+            assertEquals(1, campus.get("visits"));
+            assertEquals(DwellStats.BUCKET_COUNT, ((List<?>) campus.get("histogram")).size());
+        } finally {
+            harness.detach();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> region(DwellStats stats, String regionId) {
+        return (Map<String, Object>) regions(stats.toMap(application)).get(regionId);
+    }
+
+    private static Map<?, ?> regions(Map<String, Object> stats) {
+        return (Map<?, ?>) stats.get("regions");
+    }
+}
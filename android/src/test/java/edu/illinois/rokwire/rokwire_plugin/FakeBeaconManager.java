@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.BeaconManager;
+import org.altbeacon.beacon.MonitorNotifier;
+import org.altbeacon.beacon.RangeNotifier;
+import org.altbeacon.beacon.Region;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * BeaconManager that never touches the Bluetooth stack. Monitoring and ranging requests are
+ * recorded, and tests drive the registered notifiers directly.
+ */
+class FakeBeaconManager extends BeaconManager {
+
+    final Set<Region> monitoredRegions = new LinkedHashSet<>();
+    final Set<Region> rangedRegions = new LinkedHashSet<>();
+    int startMonitoringCalls = 0;
+    int stopMonitoringCalls = 0;
+    Boolean backgroundMode;
+
+    private FakeBeaconManager(Context context) {
+        super(context);
+    }
+
+    static FakeBeaconManager create(Context context) {
+        BeaconManager.setManifestCheckingDisabled(true);
+        return new FakeBeaconManager(context);
+    }
+
+    @Override
+    public void startMonitoring(@NonNull Region region) {
+        startMonitoringCalls++;
+        monitoredRegions.add(region);
+    }
+
+    @Override
+    public void stopMonitoring(@NonNull Region region) {
+        stopMonitoringCalls++;
+        monitoredRegions.remove(region);
+    }
+
+    @Override
+    public void startRangingBeacons(@NonNull Region region) {
+        rangedRegions.add(region);
+    }
+
+    @Override
+    public void stopRangingBeacons(@NonNull Region region) {
+        rangedRegions.remove(region);
+    }
+
+    @Override
+    public void setBackgroundMode(boolean backgroundMode) {
+        this.backgroundMode = backgroundMode;
+    }
+
+    @NonNull
+    @Override
+    public Collection<Region> getMonitoredRegions() {
+        return new ArrayList<>(monitoredRegions);
+    }
+
+    @NonNull
+    @Override
+    public Collection<Region> getRangedRegions() {
+        return new ArrayList<>(rangedRegions);
+    }
+
+    void enter(Region region) {
+        for (MonitorNotifier notifier : getMonitoringNotifiers()) {
+            notifier.didEnterRegion(region);
+        }
+    }
+
+    void exit(Region region) {
+        for (MonitorNotifier notifier : getMonitoringNotifiers()) {
+            notifier.didExitRegion(region);
+        }
+    }
+
+    void range(Region region, Collection<Beacon> beacons) {
+        for (RangeNotifier notifier : getRangingNotifiers()) {
+            notifier.didRangeBeaconsInRegion(beacons, region);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.altbeacon.beacon.Beacon;
+
+/**
+ * Builds ranged beacons for tests. Distances are fixed instead of computed by a device model.
+ */
+class FakeBeacons {
+
+    static Beacon beacon(String uuid, int major, int minor, int rssi, double distance) {
+        Beacon beacon = new Beacon.Builder().
+                setId1(uuid).
+                setId2(Integer.toString(major)).
+                setId3(Integer.toString(minor)).
+                setRssi(rssi).
+                setTxPower(-59).
+                build();
+        return new DistanceBeacon(beacon, distance);
+    }
+
+    private static class DistanceBeacon extends Beacon {
+        private final double fixedDistance;
+
+        DistanceBeacon(Beacon beacon, double distance) {
+            super(beacon);
+            fixedDistance = distance;
+        }
+
+        @Override
+        public double getDistance() {
+            return fixedDistance;
+        }
+    }
+}
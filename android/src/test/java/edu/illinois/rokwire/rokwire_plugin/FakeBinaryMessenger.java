@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.StandardMethodCodec;
+
+/**
+ * BinaryMessenger standing in for the Flutter engine. Outgoing method calls are decoded and
+ * counted per method name. Geofence events sent on subscribed event channels are counted as
+ * "geoFence.<event>", like the method calls they replace.
+ */
+class FakeBinaryMessenger implements BinaryMessenger {
+
+    final List<MethodCall> calls = new ArrayList<>();
+    final Map<String, Integer> callCounts = new HashMap<>();
+    final Map<String, BinaryMessageHandler> handlers = new HashMap<>();
+    final Set<String> listenedChannels = new HashSet<>();
+    EventListener eventListener;
+
+    interface EventListener {
+        void onEvent(MethodCall event);
+    }
+    long sentBytes = 0;
+
+    @Override
+    public void send(String channel, ByteBuffer message) {
+        send(channel, message, null);
+    }
+
+    @Override
+    public void send(String channel, ByteBuffer message, BinaryReply callback) {
+        if (message != null) {
+            // Encoded method calls are handed over unflipped, with the payload ending at position().
+            if (message.position() != 0) {
+                message.flip();
+            }
+            sentBytes += message.remaining();
+            message.order(ByteOrder.nativeOrder());
+            MethodCall call;
+            if (listenedChannels.contains(channel)) {
+                Object event = StandardMethodCodec.INSTANCE.decodeEnvelope(message);
+                Object name = (event instanceof Map) ? ((Map<?, ?>) event).get("event") : null;
+                Object data = (event instanceof Map) ? ((Map<?, ?>) event).get("data") : event;
+                call = new MethodCall((name != null) ? ("geoFence." + name) : channel, data);
+            } else {
+                call = StandardMethodCodec.INSTANCE.decodeMethodCall(message);
+            }
+            calls.add(call);
+            Integer count = callCounts.get(call.method);
+            callCounts.put(call.method, (count != null) ? (count + 1) : 1);
+            if ((eventListener != null) && listenedChannels.contains(channel)) {
+                eventListener.onEvent(call);
+            }
+        }
+        if (callback != null) {
+            callback.reply(null);
+        }
+    }
+
+    @Override
+    public void setMessageHandler(String channel, BinaryMessageHandler handler) {
+        if (handler != null) {
+            handlers.put(channel, handler);
+        } else {
+            handlers.remove(channel);
+        }
+    }
+
+    /** Subscribes to an event channel the way the Dart side does. */
+    void listen(String channel) {
+        listenedChannels.add(channel);
+        sendToHandler(channel, new MethodCall("listen", null));
+    }
+
+    void cancel(String channel) {
+        sendToHandler(channel, new MethodCall("cancel", null));
+    }
+
+    private void sendToHandler(String channel, MethodCall call) {
+        BinaryMessageHandler handler = handlers.get(channel);
+        if (handler != null) {
+            ByteBuffer message = StandardMethodCodec.INSTANCE.encodeMethodCall(call);
+            message.flip();
+            handler.onMessage(message, reply -> {});
+        }
+    }
+
+    int count(String method) {
+        Integer count = callCounts.get(method);
+        return (count != null) ? count : 0;
+    }
+
+    int totalCount() {
+        return calls.size();
+    }
+
+    void reset() {
+        calls.clear();
+        callCounts.clear();
+        sentBytes = 0;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.app.PendingIntent;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process GeofencingClient replacement. Registered geofences are kept in memory and every
+ * request completes immediately, so tests can run offline without Play Services.
+ */
+class FakeGeofencingClient implements InvocationHandler {
+
+    final Set<String> registeredIds = new HashSet<>();
+    final Map<String, Geofence> registeredGeofences = new HashMap<>();
+    final Map<String, Integer> initialTriggers = new HashMap<>();
+    int addRequests = 0;
+    int removeRequests = 0;
+    int addedGeofences = 0;
+
+    private Exception nextFailure;
+    // Add requests containing any of these ids fail with the mapped exception
+    private final Map<String, Exception> rejectedIds = new HashMap<>();
+
+    static FakeGeofencingClient create() {
+        return new FakeGeofencingClient();
+    }
+
+    GeofencingClient client() {
+        return (GeofencingClient) Proxy.newProxyInstance(GeofencingClient.class.getClassLoader(), new Class<?>[]{GeofencingClient.class}, this);
+    }
+
+    void failNextRequest(Exception exception) {
+        nextFailure = exception;
+    }
+
+    void rejectId(String id, Exception exception) {
+        rejectedIds.put(id, exception);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "addGeofences":
+                return addGeofences((GeofencingRequest) args[0]);
+            case "removeGeofences":
+                return removeGeofences(args[0]);
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "FakeGeofencingClient";
+            default:
+                throw new UnsupportedOperationException("FakeGeofencingClient." + method.getName());
+        }
+    }
+
+    private Task<Void> addGeofences(GeofencingRequest request) {
+        addRequests++;
+        Task<Void> failure = takeFailure();
+        if (failure != null) {
+            return failure;
+        }
+        for (Geofence geofence : request.getGeofences()) {
+            Exception rejection = rejectedIds.get(geofence.getRequestId());
+            if (rejection != null) {
+                return Tasks.forException(rejection);
+            }
+        }
+        for (Geofence geofence : request.getGeofences()) {
+            registeredIds.add(geofence.getRequestId());
+            registeredGeofences.put(geofence.getRequestId(), geofence);
+            initialTriggers.put(geofence.getRequestId(), request.getInitialTrigger());
+            addedGeofences++;
+        }
+        return Tasks.forResult(null);
+    }
+
+    private Task<Void> removeGeofences(Object target) {
+        removeRequests++;
+        Task<Void> failure = takeFailure();
+        if (failure != null) {
+            return failure;
+        }
+        if (target instanceof List<?>) {
+            for (Object id : (List<?>) target) {
+                registeredIds.remove(id);
+            }
+        } else if (target instanceof PendingIntent) {
+            registeredIds.clear();
+        }
+        return Tasks.forResult(null);
+    }
+
+    private Task<Void> takeFailure() {
+        if (nextFailure != null) {
+            Exception exception = nextFailure;
+            nextFailure = null;
+            return Tasks.forException(exception);
+        }
+        return null;
+    }
+}
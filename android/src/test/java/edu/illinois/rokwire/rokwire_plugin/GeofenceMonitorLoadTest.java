@@ -0,0 +1,238 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import com.google.android.gms.location.Geofence;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+import org.altbeacon.beacon.Region;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Synthetic load and soak scenarios for GeofenceMonitor. The assertions are on message, request and
+ * allocation counts; wall clock budgets are checked only in benchmark runs (-Drokwire.benchmark=true).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class GeofenceMonitorLoadTest {
+
+    private static final String BEACON_UUID = "8af7b7d2-6c4e-4f4d-9b2c-9d3cb1f7a001";
+
+    private PluginTestHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new PluginTestHarness().attach();
+    }
+
+    @After
+    public void tearDown() {
+        harness.detach();
+    }
+
+    @Test
+    public void monitorRegionsSyncsTenThousandGeofences() {
+        List<Map<String, Object>> regions = geofenceEntries(10000, 0);
+
+        PluginTestHarness.Probe probe = PluginTestHarness.Probe.start();
+        harness.monitor().monitorRegions(regions);
+        harness.idleMainLooper();
+        probe.stop();
+        assertAllocations("10k region sync", probe, regions.size(), 64 * 1024);
+
+        assertEquals(10000, harness.geofencingClient.registeredIds.size());
+        assertEquals(10000 / GeofenceRegistrationQueue.MAX_CHUNK_SIZE, harness.geofencingClient.addRequests);
+        PluginTestHarness.Probe.assertTiming("10k region sync took " + probe.elapsedMillis() + " ms", probe.elapsedMillis() < 5000);
+
+        // Shrink to half: removals must be applied and reported with a single message.
+        harness.messenger.reset();
+        probe = PluginTestHarness.Probe.start();
+        harness.monitor().monitorRegions(geofenceEntries(5000, 0));
+        harness.idleMainLooper();
+        probe.stop();
+        assertAllocations("5k region resync", probe, 5000, 64 * 1024);
+
+        assertEquals(5000, harness.geofencingClient.registeredIds.size());
+        assertEquals(10000 / GeofenceRegistrationQueue.MAX_CHUNK_SIZE, harness.geofencingClient.addRequests);
+        assertEquals(5000 / GeofenceRegistrationQueue.MAX_CHUNK_SIZE, harness.geofencingClient.removeRequests);
+        assertEquals(1, harness.messenger.count("geoFence.onCurrentRegionsChanged"));
+        PluginTestHarness.Probe.assertTiming("5k region resync took " + probe.elapsedMillis() + " ms", probe.elapsedMillis() < 5000);
+    }
+
+    @Test
+    public void soakRepeatedSyncsKeepStateBounded() {
+        List<Map<String, Object>> setA = geofenceEntries(2000, 0);
+        List<Map<String, Object>> setB = geofenceEntries(2000, 1000);
+
+        PluginTestHarness.Probe probe = PluginTestHarness.Probe.start();
+        for (int cycle = 0; cycle < 50; cycle++) {
+            harness.monitor().monitorRegions(((cycle % 2) == 0) ? setA : setB);
+            harness.idleMainLooper();
+        }
+        probe.stop();
+        assertAllocations("2k region resync", probe, 50, 64L * 1024 * 1024);
+
+        assertEquals(2000, harness.geofencingClient.registeredIds.size());
+        // Only the 1000 ids that differ between the sets are registered again on every sync
+        assertEquals(2000 + 49 * 1000, harness.geofencingClient.addedGeofences);
+        assertTrue(harness.monitor().getCurrentIds().isEmpty());
+    }
+
+    @Test
+    public void rangingTwoHundredBeaconsAtTenHertz() {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.beaconEntry("hall", BEACON_UUID, null, null));
+        harness.monitor().monitorRegions(regions);
+        assertTrue(harness.monitor().startRangingBeaconsInRegion("hall"));
+        Region region = harness.beaconManager.rangedRegions.iterator().next();
+
+        List<Beacon> beacons = beacons(200);
+        int cycles = 100; // 10 seconds at 10 Hz
+        int changedCycles = 0;
+        harness.messenger.reset();
+
+        PluginTestHarness.Probe probe = PluginTestHarness.Probe.start();
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            List<Beacon> cycleBeacons = new ArrayList<>(beacons);
+            if ((cycle % 10) == 0) {
+                // every second one beacon drops out of range
+                cycleBeacons.remove(cycle / 10);
+                changedCycles++;
+            } else if ((cycle % 10) == 1) {
+                changedCycles++;
+            }
+            harness.beaconManager.range(region, cycleBeacons);
+        }
+        harness.idleMainLooper();
+        probe.stop();
+        assertAllocations("ranging cycle", probe, cycles, 2 * 1024 * 1024);
+
+        assertEquals(changedCycles, harness.messenger.count("geoFence.onBeaconsInRegionChanged"));
+        // Every cycle must comfortably fit into the 100 ms ranging period.
+        PluginTestHarness.Probe.assertTiming("mean ranging cycle " + (probe.elapsedMillis() / cycles) + " ms", (probe.elapsedMillis() / cycles) < 50);
+    }
+
+    @Test
+    public void slowConsumerBacklogStaysBounded() {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        for (int index = 0; index < 4; index++) {
+            regions.add(PluginTestHarness.beaconEntry("hall-" + index, BEACON_UUID, index, null));
+        }
+        harness.monitor().monitorRegions(regions);
+        for (int index = 0; index < 4; index++) {
+            assertTrue(harness.monitor().startRangingBeaconsInRegion("hall-" + index));
+        }
+        List<Region> ranged = new ArrayList<>(harness.beaconManager.rangedRegions);
+
+        harness.ackBeaconEvents = false;
+        harness.messenger.reset();
+        List<Beacon> beacons = beacons(20);
+        int cycles = 200;
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            // every cycle changes the membership of every region
+            for (Region region : ranged) {
+                harness.beaconManager.range(region, beacons.subList(0, 10 + (cycle % 10)));
+            }
+        }
+        HashMap<String, Object> stats = harness.monitor().getBeaconEventStats();
+        assertEquals(BeaconEventMailbox.DEFAULT_WINDOW, harness.messenger.count("geoFence.onBeaconsInRegionChanged"));
+        assertEquals((long) cycles * ranged.size(), stats.get("posted"));
+        // Apart from the first sends and one pending slot per region every update was superseded
+        assertEquals((long) (cycles * ranged.size() - BeaconEventMailbox.DEFAULT_WINDOW - ranged.size()), stats.get("coalesced"));
+        assertEquals(0L, stats.get("dropped"));
+
+        // Once Dart catches up every region gets exactly its latest state
+        harness.ackBeaconEvents = true;
+        harness.monitor().ackBeaconEvents(Long.MAX_VALUE);
+        assertEquals(BeaconEventMailbox.DEFAULT_WINDOW + ranged.size(), harness.messenger.count("geoFence.onBeaconsInRegionChanged"));
+        assertEquals(0, harness.monitor().getBeaconEventStats().get("inFlight"));
+    }
+
+    @Test
+    public void geofenceIntentBurst() {
+        int regionCount = 1000;
+        harness.monitor().monitorRegions(geofenceEntries(regionCount, 0));
+        harness.idleMainLooper();
+        harness.messenger.reset();
+
+        int bursts = 5000;
+        PluginTestHarness.Probe probe = PluginTestHarness.Probe.start();
+        for (int index = 0; index < bursts; index++) {
+            String id = regionId(index % regionCount);
+            int transition = (((index / regionCount) % 2) == 0) ? Geofence.GEOFENCE_TRANSITION_ENTER : Geofence.GEOFENCE_TRANSITION_EXIT;
+            harness.monitor().applyGeofenceTransition(transition, Collections.singletonList(id));
+        }
+        harness.idleMainLooper();
+        probe.stop();
+        assertAllocations("geofence transition", probe, bursts, 1024 * 1024);
+
+        assertEquals(3000, harness.messenger.count("geoFence.onEnterRegion"));
+        assertEquals(2000, harness.messenger.count("geoFence.onExitRegion"));
+        assertEquals(bursts, harness.messenger.count("geoFence.onCurrentRegionsChanged"));
+        assertEquals(regionCount, harness.monitor().getCurrentIds().size());
+        PluginTestHarness.Probe.assertTiming("transition throughput " + probe.perSecond(bursts) + "/s", probe.perSecond(bursts) > 500);
+    }
+
+    // Helpers
+
+    private static String regionId(int index) {
+        return String.format(Locale.US, "region-%05d", index);
+    }
+
+    private static List<Map<String, Object>> geofenceEntries(int count, int firstIndex) {
+        List<Map<String, Object>> entries = new ArrayList<>(count);
+        for (int index = firstIndex; index < firstIndex + count; index++) {
+            entries.add(PluginTestHarness.geofenceEntry(regionId(index), 40.1 + (index % 100) * 0.001, -88.2 + (index / 100) * 0.001, 50.0));
+        }
+        return entries;
+    }
+
+    private static List<Beacon> beacons(int count) {
+        List<Beacon> beacons = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            beacons.add(new Beacon.Builder().
+                    setId1(BEACON_UUID).
+                    setId2(Identifier.fromInt(index / 100).toString()).
+                    setId3(Identifier.fromInt(index % 100).toString()).
+                    setRssi(-60 - (index % 30)).
+                    setTxPower(-59).
+                    build());
+        }
+        return beacons;
+    }
+
+    private static void assertAllocations(String scenario, PluginTestHarness.Probe probe, long operations, long maxBytesPerOperation) {
+        long bytesPerOperation = probe.allocatedBytes / operations;
+        assertTrue(scenario + " allocated " + bytesPerOperation + " bytes per operation", bytesPerOperation < maxBytesPerOperation);
+    }
+}
@@ -0,0 +1,542 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.app.Notification;
+import android.content.Context;
+import android.content.Intent;
+import android.location.LocationManager;
+import android.os.Looper;
+
+import androidx.core.app.NotificationCompat;
+
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofenceStatusCodes;
+import com.google.android.gms.location.GeofencingRequest;
+
+import org.altbeacon.beacon.Region;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class GeofenceMonitorTest {
+
+    private static final String BEACON_UUID = "8af7b7d2-6c4e-4f4d-9b2c-9d3cb1f7a001";
+
+    private PluginTestHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new PluginTestHarness().attach();
+    }
+
+    @After
+    public void tearDown() {
+        harness.detach();
+    }
+
+    @Test
+    public void beaconRegionsGatedByParentGeofence() {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0));
+        for (int index = 0; index < 3; index++) {
+            HashMap<String, Object> child = PluginTestHarness.beaconEntry("room-" + index, BEACON_UUID, 1, index);
+            child.put("parent_id", "campus");
+            regions.add(child);
+        }
+        regions.add(PluginTestHarness.beaconEntry("lobby", BEACON_UUID, 2, null));
+        harness.monitor().monitorRegions(regions);
+
+        assertEquals(1, harness.beaconManager.monitoredRegions.size());
+        assertFalse(harness.monitor().startRangingBeaconsInRegion("room-0"));
+
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("campus"));
+        assertEquals(4, harness.beaconManager.monitoredRegions.size());
+
+        Region room = regionWithId("room-1");
+        harness.beaconManager.enter(room);
+        assertTrue(harness.monitor().startRangingBeaconsInRegion("room-1"));
+        assertTrue(harness.monitor().getCurrentIds().contains("room-1"));
+
+        harness.messenger.reset();
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_EXIT, Collections.singletonList("campus"));
+        assertEquals(1, harness.beaconManager.monitoredRegions.size());
+        assertTrue(harness.beaconManager.rangedRegions.isEmpty());
+        assertTrue(harness.monitor().getCurrentIds().isEmpty());
+        assertEquals(2, harness.messenger.count("geoFence.onExitRegion"));
+        assertEquals(1, harness.messenger.count("geoFence.onCurrentRegionsChanged"));
+        // The deactivated room's visit is recorded like an exit
+        assertEquals(1, dwellStats("room-1").get("visits"));
+        assertFalse(dwellStats("room-1").containsKey("enteredAt"));
+
+        // Late callbacks from the deactivated region are ignored
+        harness.beaconManager.enter(room);
+        assertFalse(harness.monitor().getCurrentIds().contains("room-1"));
+    }
+
+    @Test
+    public void deltaSyncRegistersOnlyChangedRegions() {
+        Map<String, String> digests = new HashMap<>();
+        digests.put("campus", "c1");
+        digests.put("library", "l1");
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0));
+        regions.add(PluginTestHarness.geofenceEntry("library", 40.11, -88.23, 100.0));
+        harness.monitor().monitorRegions(regions, digests, "set1");
+        harness.idleMainLooper();
+        assertEquals("set1", harness.monitor().getRegionSetHash());
+        assertEquals(2, harness.geofencingClient.addedGeofences);
+
+        // Dart's set moved the library and added the quad; only those are reported and registered
+        digests.put("library", "l2");
+        digests.put("quad", "q1");
+        digests.remove("campus");
+        Map<String, Object> stale = harness.monitor().getStaleRegions(digests);
+        assertEquals(Collections.singletonList("quad"), stale.get("missing"));
+        assertEquals(Collections.singletonList("library"), stale.get("changed"));
+        assertEquals(Collections.singletonList("campus"), stale.get("removed"));
+
+        assertTrue(harness.monitor().removeRegions(Collections.singletonList("campus"), null));
+        assertNull(harness.monitor().getRegionSetHash());
+        assertTrue(harness.monitor().addRegions(Collections.singletonList(PluginTestHarness.geofenceEntry("quad", 40.107, -88.227, 150.0)),
+                Collections.singletonMap("quad", "q1"), null));
+        assertTrue(harness.monitor().updateRegions(Collections.singletonList(PluginTestHarness.geofenceEntry("library", 40.12, -88.23, 100.0)),
+                Collections.singletonMap("library", "l2"), "set2"));
+        harness.idleMainLooper();
+        assertEquals("set2", harness.monitor().getRegionSetHash());
+        assertEquals(4, harness.geofencingClient.addedGeofences);
+        assertEquals(2, harness.geofencingClient.registeredIds.size());
+        assertFalse(harness.geofencingClient.registeredIds.contains("campus"));
+
+        // Updating unknown ids or repeating an unchanged region does not touch the registrations
+        assertFalse(harness.monitor().updateRegions(Collections.singletonList(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0)), null, "set2"));
+        assertFalse(harness.monitor().addRegions(Collections.singletonList(PluginTestHarness.geofenceEntry("quad", 40.107, -88.227, 150.0)),
+                Collections.singletonMap("quad", "q1"), "set2"));
+        assertTrue(((List<?>) harness.monitor().getStaleRegions(digests).get("changed")).isEmpty());
+
+        // Removing the last regions stops monitoring
+        assertTrue(harness.monitor().removeRegions(Arrays.asList("quad", "library"), "empty"));
+        harness.idleMainLooper();
+        assertTrue(harness.geofencingClient.registeredIds.isEmpty());
+    }
+
+    @Test
+    public void tunedRegionsRegisteredWithTheirSettings() {
+        HashMap<String, Object> tuning = new HashMap<>();
+        tuning.put("responsiveness", 300);
+        tuning.put("transitions", Arrays.asList("dwell", "exit"));
+        tuning.put("loitering_delay", 120);
+        tuning.put("expiration", 3600);
+        tuning.put("initial_trigger", Collections.emptyList());
+        HashMap<String, Object> analytics = PluginTestHarness.geofenceEntry("analytics", 40.1, -88.2, 500.0);
+        analytics.put("tuning", tuning);
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0));
+        regions.add(analytics);
+        harness.monitor().monitorRegions(regions);
+        harness.idleMainLooper();
+
+        // One request per initial trigger policy
+        assertEquals(2, harness.geofencingClient.addRequests);
+        assertEquals(GeofencingRequest.INITIAL_TRIGGER_ENTER, (int) harness.geofencingClient.initialTriggers.get("campus"));
+        assertEquals(0, (int) harness.geofencingClient.initialTriggers.get("analytics"));
+
+        Geofence campus = harness.geofencingClient.registeredGeofences.get("campus");
+        assertEquals(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT, campus.getTransitionTypes());
+        assertEquals(Geofence.NEVER_EXPIRE, campus.getExpirationTime());
+        Geofence analyticsGeofence = harness.geofencingClient.registeredGeofences.get("analytics");
+        assertEquals(Geofence.GEOFENCE_TRANSITION_DWELL | Geofence.GEOFENCE_TRANSITION_EXIT, analyticsGeofence.getTransitionTypes());
+        assertEquals(300000, analyticsGeofence.getNotificationResponsiveness());
+        assertEquals(120000, analyticsGeofence.getLoiteringDelay());
+        assertNotEquals(Geofence.NEVER_EXPIRE, analyticsGeofence.getExpirationTime());
+
+        // Dwell reports presence like enter
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_DWELL, Collections.singletonList("analytics"));
+        assertEquals(Collections.singletonList("analytics"), harness.monitor().getCurrentIds());
+    }
+
+    @Test
+    public void dwellOnlyRegionsStillExit() {
+        HashMap<String, Object> tuning = new HashMap<>();
+        tuning.put("transitions", Collections.singletonList("dwell"));
+        HashMap<String, Object> lounge = PluginTestHarness.geofenceEntry("lounge", 40.1, -88.2, 100.0);
+        lounge.put("tuning", tuning);
+        harness.monitor().monitorRegions(Collections.singletonList(lounge));
+        harness.idleMainLooper();
+
+        Geofence geofence = harness.geofencingClient.registeredGeofences.get("lounge");
+        assertEquals(Geofence.GEOFENCE_TRANSITION_DWELL | Geofence.GEOFENCE_TRANSITION_EXIT, geofence.getTransitionTypes());
+
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_DWELL, Collections.singletonList("lounge"));
+        assertEquals(Collections.singletonList("lounge"), harness.monitor().getCurrentIds());
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_EXIT, Collections.singletonList("lounge"));
+        assertTrue(harness.monitor().getCurrentIds().isEmpty());
+
+        // Exit alone stays as requested
+        tuning.put("transitions", Collections.singletonList("exit"));
+        assertEquals(Geofence.GEOFENCE_TRANSITION_EXIT, GeofenceTuning.fromMap(tuning).transitions);
+    }
+
+    @Test
+    public void polygonTransitionsReachDart() {
+        HashMap<String, Object> location = new HashMap<>();
+        location.put("polygon", Arrays.asList(
+                Arrays.asList(40.100, -88.230),
+                Arrays.asList(40.100, -88.220),
+                Arrays.asList(40.110, -88.220),
+                Arrays.asList(40.110, -88.230)));
+        HashMap<String, Object> quad = new HashMap<>();
+        quad.put("id", "quad");
+        quad.put("location", location);
+        harness.monitor().monitorRegions(Collections.singletonList(quad));
+        harness.messenger.reset();
+
+        harness.monitor().evaluatePolygonRegions(40.105, -88.225);
+        assertEquals(1, harness.messenger.count("geoFence.onEnterRegion"));
+        assertEquals(Collections.singletonList("quad"), harness.monitor().getCurrentIds());
+
+        // Further fixes inside change nothing
+        harness.monitor().evaluatePolygonRegions(40.106, -88.224);
+        assertEquals(1, harness.messenger.count("geoFence.onEnterRegion"));
+        assertEquals(1, harness.messenger.count("geoFence.onCurrentRegionsChanged"));
+
+        harness.monitor().evaluatePolygonRegions(40.120, -88.225);
+        assertEquals(1, harness.messenger.count("geoFence.onExitRegion"));
+        assertTrue(harness.monitor().getCurrentIds().isEmpty());
+    }
+
+    @Test
+    public void oscillatingSourcesCollapseIntoStableTransitions() {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0));
+        regions.add(PluginTestHarness.beaconEntry("lobby", BEACON_UUID, 2, null));
+        harness.monitor().monitorRegions(regions);
+        harness.monitor().setTransitionDebounce(2000, 10000);
+        Region lobby = regionWithId("lobby");
+
+        harness.messenger.reset();
+        for (int cycle = 0; cycle < 5; cycle++) {
+            harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("campus"));
+            harness.beaconManager.enter(lobby);
+            advance(500);
+            harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_EXIT, Collections.singletonList("campus"));
+            harness.beaconManager.exit(lobby);
+            advance(500);
+        }
+        assertEquals(0, harness.messenger.count("geoFence.onEnterRegion"));
+
+        // Both sources settle inside and enter together, later flapping within the exit grace is absorbed
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("campus"));
+        harness.beaconManager.enter(lobby);
+        advance(2500);
+        assertEquals(2, harness.messenger.count("geoFence.onEnterRegion"));
+        assertEquals(1, harness.messenger.count("geoFence.onCurrentRegionsChanged"));
+        for (int cycle = 0; cycle < 5; cycle++) {
+            harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_EXIT, Collections.singletonList("campus"));
+            harness.beaconManager.exit(lobby);
+            advance(3000);
+            harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("campus"));
+            harness.beaconManager.enter(lobby);
+        }
+        advance(20000);
+        assertEquals(0, harness.messenger.count("geoFence.onExitRegion"));
+        assertEquals(2, harness.monitor().getCurrentIds().size());
+    }
+
+    @Test
+    public void eventsStreamedWithoutActivity() {
+        harness.plugin.onDetachedFromActivity();
+        harness.messenger.cancel(RokwireCore.BEACON_EVENTS_STREAM);
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0));
+        regions.add(PluginTestHarness.beaconEntry("lobby", BEACON_UUID, 2, null));
+        harness.monitor().monitorRegions(regions);
+
+        harness.messenger.reset();
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("campus"));
+        assertEquals(1, harness.messenger.count("geoFence.onEnterRegion"));
+        assertEquals(1, harness.messenger.count("geoFence.onCurrentRegionsChanged"));
+
+        // Nothing is sent on a stream Dart is not listening to
+        Region lobby = regionWithId("lobby");
+        harness.beaconManager.enter(lobby);
+        assertTrue(harness.monitor().startRangingBeaconsInRegion("lobby"));
+        harness.beaconManager.range(lobby, Collections.singletonList(FakeBeacons.beacon(BEACON_UUID, 2, 1, -60, 1.5)));
+        assertEquals(0, harness.messenger.count("geoFence.onBeaconsInRegionChanged"));
+        assertEquals(2, harness.messenger.count("geoFence.onEnterRegion"));
+    }
+
+    @Test
+    public void beaconRegionsMergedAndLimitedByBudget() {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.beaconEntry("building", BEACON_UUID, null, null));
+        regions.add(PluginTestHarness.beaconEntry("building-alias", BEACON_UUID, null, null));
+        for (int index = 0; index < 5; index++) {
+            HashMap<String, Object> room = PluginTestHarness.beaconEntry("room-" + index, BEACON_UUID, 1, index);
+            room.put("priority", index);
+            regions.add(room);
+        }
+        harness.monitor().setBeaconRegionBudget(3);
+        harness.monitor().monitorRegions(regions);
+
+        // Identical identifiers share one scan region
+        assertEquals(harness.monitor().getBeaconScanRegion("building"), harness.monitor().getBeaconScanRegion("building-alias"));
+        // Budget keeps the highest priority rooms
+        assertEquals(3, harness.beaconManager.monitoredRegions.size());
+        assertNotNull(harness.monitor().getBeaconScanRegion("room-4"));
+        assertNotNull(harness.monitor().getBeaconScanRegion("room-3"));
+        assertNull(harness.monitor().getBeaconScanRegion("building"));
+
+        // Entering a merged scan region enters every member with a single update
+        harness.monitor().setBeaconRegionBudget(7);
+        assertEquals(6, harness.beaconManager.monitoredRegions.size());
+        harness.messenger.reset();
+        harness.beaconManager.enter(regionWithId("building"));
+        assertEquals(2, harness.messenger.count("geoFence.onEnterRegion"));
+        assertEquals(1, harness.messenger.count("geoFence.onCurrentRegionsChanged"));
+
+        // Shrinking the budget keeps the region the user is inside of and leaves the others untouched
+        int startCalls = harness.beaconManager.startMonitoringCalls;
+        harness.monitor().setBeaconRegionBudget(2);
+        assertEquals(2, harness.beaconManager.monitoredRegions.size());
+        assertTrue(harness.monitor().getCurrentIds().contains("building"));
+        assertNotNull(harness.monitor().getBeaconScanRegion("room-4"));
+        assertEquals(startCalls, harness.beaconManager.startMonitoringCalls);
+    }
+
+    @Test
+    public void beaconLayoutsSwapParsersOnlyWhenValid() {
+        assertTrue(harness.monitor().setBeaconLayouts(Collections.singletonList(BeaconLayouts.IBEACON)));
+        assertEquals(1, harness.beaconManager.getBeaconParsers().size());
+        assertEquals(BeaconLayouts.IBEACON, harness.beaconManager.getBeaconParsers().get(0).getIdentifier());
+
+        assertFalse(harness.monitor().setBeaconLayouts(Collections.singletonList("m:bogus")));
+        assertEquals(1, harness.beaconManager.getBeaconParsers().size());
+        assertEquals(BeaconLayouts.IBEACON, harness.beaconManager.getBeaconParsers().get(0).getIdentifier());
+        assertEquals(0L, harness.monitor().getBeaconScanStats().get("unmatched"));
+    }
+
+    @Test
+    public void overBudgetBeaconRegionsRotate() {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        for (int index = 0; index < 10; index++) {
+            HashMap<String, Object> room = PluginTestHarness.beaconEntry("room-" + index, BEACON_UUID, 1, index);
+            room.put("priority", index);
+            regions.add(room);
+        }
+        harness.monitor().setBeaconRegionBudget(5);
+        harness.monitor().monitorRegions(regions);
+
+        // Four slots by rank, one rotating through the six regions that did not make the cut
+        assertEquals(5, harness.beaconManager.monitoredRegions.size());
+        assertNotNull(harness.monitor().getBeaconScanRegion("room-6"));
+        assertNotNull(harness.monitor().getBeaconScanRegion("room-5"));
+        Set<String> rotated = new HashSet<>();
+        for (int period = 0; period < 6; period++) {
+            for (int index = 0; index < 6; index++) {
+                if (harness.monitor().getBeaconScanRegion("room-" + index) != null) {
+                    rotated.add("room-" + index);
+                }
+            }
+            assertNotNull(harness.monitor().getBeaconScanRegion("room-9"));
+            assertEquals(5, harness.beaconManager.monitoredRegions.size());
+            advance(BeaconRegionManager.ROTATION_PERIOD_MILLIS);
+        }
+        assertEquals(6, rotated.size());
+
+        // A rotated region the user enters keeps its slot
+        while (harness.monitor().getBeaconScanRegion("room-2") == null) {
+            advance(BeaconRegionManager.ROTATION_PERIOD_MILLIS);
+        }
+        harness.beaconManager.enter(regionWithId("room-2"));
+        for (int period = 0; period < 6; period++) {
+            advance(BeaconRegionManager.ROTATION_PERIOD_MILLIS);
+            assertNotNull(harness.monitor().getBeaconScanRegion("room-2"));
+        }
+        assertTrue(harness.monitor().getCurrentIds().contains("room-2"));
+    }
+
+    @Test
+    public void beaconScannerFollowsLifecycleAndReleasesWhenIdle() {
+        harness.monitor().setBeaconScanForeground(false);
+        assertEquals(Boolean.TRUE, harness.beaconManager.backgroundMode);
+        harness.monitor().setBeaconScanForeground(true);
+        assertEquals(Boolean.FALSE, harness.beaconManager.backgroundMode);
+
+        harness.monitor().monitorRegions(Collections.singletonList(PluginTestHarness.beaconEntry("lobby", BEACON_UUID, 2, null)));
+        Region lobby = regionWithId("lobby");
+        harness.beaconManager.enter(lobby);
+        assertTrue(harness.monitor().startRangingBeaconsInRegion("lobby"));
+
+        // The scan strategy is switched with scanning stopped, then scanning resumes
+        Notification notification = new NotificationCompat.Builder(harness.application, "beacons").setSmallIcon(android.R.drawable.ic_dialog_info).build();
+        assertTrue(harness.monitor().setBeaconForegroundService(notification));
+        assertEquals(notification, harness.beaconManager.getForegroundServiceNotification());
+        assertEquals("foregroundService", harness.monitor().getBeaconScanStats().get("mode"));
+        assertTrue(harness.beaconManager.monitoredRegions.contains(lobby));
+        assertTrue(harness.beaconManager.rangedRegions.contains(lobby));
+
+        assertTrue(harness.monitor().setBeaconForegroundService(null));
+        assertNull(harness.beaconManager.getForegroundServiceNotification());
+        assertEquals("foreground", harness.monitor().getBeaconScanStats().get("mode"));
+
+        // Without beacon regions every scan is stopped, including regions AltBeacon restored on its own
+        harness.beaconManager.startMonitoring(new Region("restored", null, null, null));
+        harness.monitor().monitorRegions(Collections.singletonList(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0)));
+        assertTrue(harness.beaconManager.monitoredRegions.isEmpty());
+        assertTrue(harness.beaconManager.rangedRegions.isEmpty());
+        assertEquals(false, harness.monitor().getBeaconScanStats().get("scanning"));
+    }
+
+    @Test
+    public void openVisitsCloseAfterColdStart() {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0));
+        regions.add(PluginTestHarness.geofenceEntry("library", 40.104, -88.229, 80.0));
+        harness.monitor().monitorRegions(regions);
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Arrays.asList("campus", "library"));
+        assertTrue(dwellStats("campus").containsKey("enteredAt"));
+
+        // The process died inside both regions; the exit broadcast starts a new one without Dart
+        GeofenceMonitor.resetInstance();
+        GeofenceMonitor.getInstance().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_EXIT, Collections.singletonList("campus"));
+        assertEquals(1, dwellStats("campus").get("visits"));
+        assertFalse(dwellStats("campus").containsKey("enteredAt"));
+        assertEquals(Collections.singletonList("library"), GeofenceMonitor.getInstance().getCurrentIds());
+
+        // A restored region missing from the next sync is dropped
+        GeofenceMonitor.getInstance().monitorRegions(Collections.singletonList(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0)));
+        assertTrue(GeofenceMonitor.getInstance().getCurrentIds().isEmpty());
+        assertEquals(0, dwellStats("library").get("visits"));
+    }
+
+    @Test
+    public void geofencesNotAvailableRegisteredWhenLocationReturns() {
+        LocationManager locationManager = (LocationManager) harness.application.getSystemService(Context.LOCATION_SERVICE);
+        shadowOf(locationManager).setLocationEnabled(false);
+        harness.geofencingClient.failNextRequest(new ApiException(new Status(GeofenceStatusCodes.GEOFENCE_NOT_AVAILABLE)));
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0));
+        regions.add(PluginTestHarness.geofenceEntry("library", 40.104, -88.229, 80.0));
+        harness.monitor().monitorRegions(regions);
+        harness.idleMainLooper();
+        advance(GeofenceRegistrationQueue.MAX_BACKOFF_MILLIS);
+        assertEquals(1, harness.geofencingClient.addRequests);
+        assertTrue(harness.geofencingClient.registeredIds.isEmpty());
+
+        shadowOf(locationManager).setLocationEnabled(true);
+        harness.application.sendBroadcast(new Intent(LocationManager.PROVIDERS_CHANGED_ACTION));
+        harness.idleMainLooper();
+        assertEquals(2, harness.geofencingClient.registeredIds.size());
+    }
+
+    @Test
+    public void debouncePeriodsSurviveColdStart() {
+        harness.monitor().setTransitionDebounce(2000, 5000);
+        harness.monitor().monitorRegions(Collections.singletonList(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0)));
+
+        // A geofence broadcast starts a new process without Dart
+        GeofenceMonitor.resetInstance();
+        boolean[] settled = {false};
+        GeofenceMonitor.getInstance().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("campus"));
+        GeofenceMonitor.getInstance().whenTransitionsSettled(() -> settled[0] = true);
+        assertTrue(GeofenceMonitor.getInstance().getCurrentIds().isEmpty());
+        assertFalse(settled[0]);
+
+        advance(2500);
+        assertEquals(Collections.singletonList("campus"), GeofenceMonitor.getInstance().getCurrentIds());
+        assertTrue(settled[0]);
+    }
+
+    @Test
+    public void droppedGeofencesRecoveredFromStore() {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0));
+        regions.add(PluginTestHarness.geofenceEntry("library", 40.104, -88.229, 80.0));
+        harness.monitor().monitorRegions(regions, null, "set-1");
+        harness.idleMainLooper();
+        assertEquals(2, harness.geofencingClient.registeredIds.size());
+
+        // After reboot Play Services forgot the geofences and the process runs without Dart
+        GeofenceMonitor.resetInstance();
+        assertTrue(harness.geofencingClient.registeredIds.isEmpty());
+        GeofenceMonitor.getInstance().applyGeofencingClient(harness.geofencingClient.client());
+        new GeofenceRecoveryReceiver().onReceive(harness.application, new Intent(Intent.ACTION_BOOT_COMPLETED));
+        harness.idleMainLooper();
+        assertEquals(2, harness.geofencingClient.registeredIds.size());
+        assertEquals("set-1", GeofenceMonitor.getInstance().getRegionSetHash());
+        Geofence library = harness.geofencingClient.registeredGeofences.get("library");
+        assertEquals(80.0, library.getRadius(), 0.01);
+
+        // Location turned off drops them again; they return with the provider
+        LocationManager locationManager = (LocationManager) harness.application.getSystemService(Context.LOCATION_SERVICE);
+        shadowOf(locationManager).setLocationEnabled(false);
+        harness.geofencingClient.registeredIds.clear();
+        GeofenceMonitor.getInstance().onGeofencesNotAvailable();
+        harness.application.sendBroadcast(new Intent(LocationManager.PROVIDERS_CHANGED_ACTION));
+        harness.idleMainLooper();
+        assertTrue(harness.geofencingClient.registeredIds.isEmpty());
+
+        shadowOf(locationManager).setLocationEnabled(true);
+        harness.application.sendBroadcast(new Intent(LocationManager.PROVIDERS_CHANGED_ACTION));
+        harness.idleMainLooper();
+        assertEquals(2, harness.geofencingClient.registeredIds.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> dwellStats(String regionId) {
+        Map<String, Object> regions = (Map<String, Object>) GeofenceMonitor.getInstance().getDwellStats().get("regions");
+        return (Map<String, Object>) regions.get(regionId);
+    }
+
+    private Region regionWithId(String regionId) {
+        Region region = harness.monitor().getBeaconScanRegion(regionId);
+        if (region == null) {
+            throw new AssertionError("Region not monitored: " + regionId);
+        }
+        return region;
+    }
+
+    private static void advance(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+    }
+}
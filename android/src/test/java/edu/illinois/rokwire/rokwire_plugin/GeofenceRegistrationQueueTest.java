@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofenceStatusCodes;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.tasks.Task;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class GeofenceRegistrationQueueTest {
+
+    private FakeGeofencingClient fake;
+    private GeofenceRegistrationQueue queue;
+    private int notAvailable = 0;
+
+    @Before
+    public void setUp() {
+        fake = FakeGeofencingClient.create();
+        GeofencingClient client = fake.client();
+        queue = new GeofenceRegistrationQueue(new Handler(Looper.getMainLooper()), new GeofenceRegistrationQueue.Client() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public Task<Void> addGeofences(@NonNull List<Geofence> geofences) {
+                return client.addGeofences(new GeofencingRequest.Builder().addGeofences(geofences).build(), null);
+            }
+
+            @Override
+            public Task<Void> removeGeofences(@NonNull List<String> geofenceIds) {
+                return client.removeGeofences(geofenceIds);
+            }
+
+            @Override
+            public void onGeofencesNotAvailable() {
+                notAvailable++;
+            }
+        });
+    }
+
+    @Test
+    public void splitsIntoBoundedChunks() {
+        queue.add(geofences(120));
+        idle();
+        assertEquals(3, fake.addRequests);
+        assertEquals(120, fake.registeredIds.size());
+        assertEquals(GeofenceRegistrationQueue.State.REGISTERED, queue.getState("g-119"));
+        assertTrue(queue.isIdle());
+    }
+
+    @Test
+    public void collapsesOperationsForSameId() {
+        queue.add(geofences(2));
+        queue.remove(Collections.singletonList("g-0"));
+        idle();
+        assertEquals(1, fake.addRequests);
+        assertEquals(0, fake.removeRequests);
+        assertNull(queue.getState("g-0"));
+        assertEquals(GeofenceRegistrationQueue.State.REGISTERED, queue.getState("g-1"));
+
+        queue.remove(Collections.singletonList("g-1"));
+        queue.add(geofences(2).subList(1, 2));
+        idle();
+        assertEquals(2, fake.addRequests);
+        assertEquals(0, fake.removeRequests);
+    }
+
+    @Test
+    public void retriesTransientFailuresWithBackoff() {
+        fake.failNextRequest(new ApiException(new Status(CommonStatusCodes.TIMEOUT)));
+        queue.add(geofences(10));
+        idle();
+        assertEquals(1, fake.addRequests);
+        assertEquals(GeofenceRegistrationQueue.State.PENDING_ADD, queue.getState("g-0"));
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(GeofenceRegistrationQueue.INITIAL_BACKOFF_MILLIS));
+        assertEquals(2, fake.addRequests);
+        assertEquals(10, fake.registeredIds.size());
+        assertEquals(GeofenceRegistrationQueue.State.REGISTERED, queue.getState("g-0"));
+    }
+
+    @Test
+    public void notAvailableWaitsForResume() {
+        fake.failNextRequest(new ApiException(new Status(GeofenceStatusCodes.GEOFENCE_NOT_AVAILABLE)));
+        queue.add(geofences(10));
+        idle();
+        assertEquals(1, notAvailable);
+
+        // No attempts are used up while location is off
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(GeofenceRegistrationQueue.MAX_BACKOFF_MILLIS));
+        assertEquals(1, fake.addRequests);
+        assertEquals(GeofenceRegistrationQueue.State.PENDING_ADD, queue.getState("g-0"));
+
+        queue.resume();
+        idle();
+        assertEquals(2, fake.addRequests);
+        assertEquals(10, fake.registeredIds.size());
+        assertTrue(queue.isIdle());
+    }
+
+    @Test
+    public void settlesAfterCompletionOrBackoff() {
+        int[] settled = {0};
+        queue.whenSettled(() -> settled[0]++);
+        assertEquals(1, settled[0]);
+
+        queue.add(geofences(60));
+        queue.whenSettled(() -> settled[0]++);
+        assertEquals(1, settled[0]);
+        idle();
+        assertEquals(2, settled[0]);
+
+        // A retry backoff does not hold the caller for minutes
+        fake.failNextRequest(new ApiException(new Status(CommonStatusCodes.TIMEOUT)));
+        queue.add(geofences(70).subList(60, 70));
+        queue.whenSettled(() -> settled[0]++);
+        idle();
+        assertEquals(3, settled[0]);
+        assertEquals(GeofenceRegistrationQueue.State.PENDING_ADD, queue.getState("g-60"));
+    }
+
+    @Test
+    public void failingRegionDoesNotExhaustOthersRetries() {
+        fake.rejectId("g-3", new ApiException(new Status(CommonStatusCodes.TIMEOUT)));
+        queue.add(geofences(10));
+        idle();
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(GeofenceRegistrationQueue.MAX_BACKOFF_MILLIS * GeofenceRegistrationQueue.MAX_ATTEMPTS));
+
+        // Shrinking retry chunks separate the failing region from the others
+        assertTrue(queue.isIdle());
+        assertEquals(9, fake.registeredIds.size());
+        assertEquals(GeofenceRegistrationQueue.State.FAILED, queue.getState("g-3"));
+        assertEquals(GeofenceRegistrationQueue.State.REGISTERED, queue.getState("g-4"));
+        assertEquals(GeofenceRegistrationQueue.State.REGISTERED, queue.getState("g-9"));
+    }
+
+    @Test
+    public void doesNotRetryTooManyGeofences() {
+        fake.failNextRequest(new ApiException(new Status(GeofenceStatusCodes.GEOFENCE_TOO_MANY_GEOFENCES)));
+        queue.add(geofences(10));
+        idle();
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(GeofenceRegistrationQueue.MAX_BACKOFF_MILLIS));
+        assertEquals(1, fake.addRequests);
+        assertEquals(GeofenceRegistrationQueue.State.FAILED, queue.getState("g-0"));
+        for (String state : queue.getStates().values()) {
+            assertEquals("failed", state);
+        }
+    }
+
+    private static void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private static List<Geofence> geofences(int count) {
+        List<Geofence> geofences = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            geofences.add(new Geofence.Builder().
+                    setRequestId("g-" + index).
+                    setCircularRegion(40.1, -88.2, 50).
+                    setExpirationDuration(Geofence.NEVER_EXPIRE).
+                    setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT).
+                    build());
+        }
+        return geofences;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.google.android.gms.location.Geofence;
+
+import org.altbeacon.beacon.Region;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Replays location traces and synthetic beacon scans through the GeofenceMonitor decision logic.
+ * Play Services geofence evaluation is replaced by an in-process circle containment check. The
+ * Robolectric clock advances by the time between samples, so debounce timers fire as on a device
+ * while a trace of hours still replays in milliseconds. Transitions are the enter and exit events
+ * the monitor sends to Dart, including those of polygon regions it evaluates itself.
+ */
+class GeofenceTraceReplay {
+
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    private final PluginTestHarness harness;
+
+    // Circle regions as parallel arrays
+    private final String[] circleIds;
+    private final double[] circleLatitudes;
+    private final double[] circleLongitudes;
+    private final double[] circleRadiuses;
+
+    private final List<String> beaconRegionIds = new ArrayList<>();
+
+    GeofenceTraceReplay(PluginTestHarness harness, List<Map<String, Object>> regions) {
+        this.harness = harness;
+        harness.monitor().monitorRegions(regions);
+        harness.idleMainLooper();
+
+        List<Map<String, Object>> circles = new ArrayList<>();
+        for (Map<String, Object> region : regions) {
+            if (region.containsKey("location") && (Utils.Map.getListFromPath(region, "location.polygon") == null)) {
+                circles.add(region);
+            }
+        }
+        circleIds = new String[circles.size()];
+        circleLatitudes = new double[circles.size()];
+        circleLongitudes = new double[circles.size()];
+        circleRadiuses = new double[circles.size()];
+        for (int index = 0; index < circles.size(); index++) {
+            Map<String, Object> circle = circles.get(index);
+            circleIds[index] = Utils.Map.getValueFromPath(circle, "id", null);
+            circleLatitudes[index] = Utils.Map.getValueFromPath(circle, "location.latitude", 0.0);
+            circleLongitudes[index] = Utils.Map.getValueFromPath(circle, "location.longitude", 0.0);
+            circleRadiuses[index] = Utils.Map.getValueFromPath(circle, "location.radius", 0.0);
+        }
+        for (Map<String, Object> region : regions) {
+            if (region.containsKey("beacon")) {
+                beaconRegionIds.add(Utils.Map.getValueFromPath(region, "id", null));
+            }
+        }
+    }
+
+    Report replay(LocationTrace trace) {
+        harness.messenger.reset();
+        Report report = new Report(trace.name, trace.samples.size());
+        Set<String> insideCircles = new HashSet<>();
+        Set<String> insideBeacons = new HashSet<>();
+        List<String> entered = new ArrayList<>();
+        List<String> exited = new ArrayList<>();
+
+        // Transitions as the monitor reports them, stamped with the replay clock
+        long traceStart = !trace.samples.isEmpty() ? trace.samples.get(0).timestamp : 0;
+        long clockStart = SystemClock.uptimeMillis();
+        FakeBinaryMessenger.EventListener harnessListener = harness.messenger.eventListener;
+        harness.messenger.eventListener = event -> {
+            if (harnessListener != null) {
+                harnessListener.onEvent(event);
+            }
+            if ("geoFence.onEnterRegion".equals(event.method) || "geoFence.onExitRegion".equals(event.method)) {
+                report.addTransition(traceStart + SystemClock.uptimeMillis() - clockStart,
+                        "geoFence.onEnterRegion".equals(event.method) ? "enter" : "exit", String.valueOf(event.arguments));
+            }
+        };
+
+        long replayStart = System.nanoTime();
+        long previousTimestamp = traceStart;
+        for (int step = 0; step < trace.samples.size(); step++) {
+            LocationTrace.Sample sample = trace.samples.get(step);
+            if (sample.timestamp > previousTimestamp) {
+                shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(sample.timestamp - previousTimestamp));
+                previousTimestamp = sample.timestamp;
+            }
+            long stepStart = System.nanoTime();
+
+            // Location: circle containment stands in for Play Services
+            entered.clear();
+            exited.clear();
+            for (int index = 0; index < circleIds.length; index++) {
+                boolean inside = distanceMeters(sample.latitude, sample.longitude, circleLatitudes[index], circleLongitudes[index]) <= circleRadiuses[index];
+                String id = circleIds[index];
+                if (inside && insideCircles.add(id)) {
+                    entered.add(id);
+                } else if (!inside && insideCircles.remove(id)) {
+                    exited.add(id);
+                }
+            }
+            if (!entered.isEmpty()) {
+                harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, entered);
+            }
+            if (!exited.isEmpty()) {
+                harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_EXIT, exited);
+            }
+
+            // Polygon regions are evaluated by the on-device engine itself
+            harness.monitor().evaluatePolygonRegions(sample.latitude, sample.longitude);
+
+            // Beacons: synthetic scan results from the trace, delivered for the scan region the region is monitored by
+            for (String regionId : beaconRegionIds) {
+                Region scanRegion = harness.monitor().getBeaconScanRegion(regionId);
+                boolean inRange = sample.beaconRegionIds.contains(regionId) && (scanRegion != null);
+                if (inRange && insideBeacons.add(regionId)) {
+                    harness.beaconManager.enter(scanRegion);
+                } else if (!inRange && insideBeacons.remove(regionId)) {
+                    if (scanRegion != null) {
+                        harness.beaconManager.exit(scanRegion);
+                    }
+                }
+            }
+
+            report.stepNanos[step] = System.nanoTime() - stepStart;
+        }
+        harness.idleMainLooper();
+        report.totalNanos = System.nanoTime() - replayStart;
+        harness.messenger.eventListener = harnessListener;
+        report.eventCounts.putAll(harness.messenger.callCounts);
+        return report;
+    }
+
+    static double distanceMeters(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLat = Math.toRadians(latitude2 - latitude1);
+        double dLng = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    static class Report {
+        final String traceName;
+        final long[] stepNanos;
+        final List<String> transitions = new ArrayList<>();
+        final Map<String, Integer> eventCounts = new HashMap<>();
+        long totalNanos;
+
+        Report(String traceName, int steps) {
+            this.traceName = traceName;
+            this.stepNanos = new long[steps];
+        }
+
+        void addTransition(long timestamp, String kind, String regionId) {
+            transitions.add(String.format(Locale.US, "%d %s %s", timestamp, kind, regionId));
+        }
+
+        int totalEvents() {
+            int total = 0;
+            for (Integer count : eventCounts.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        int eventCount(String method) {
+            Integer count = eventCounts.get(method);
+            return (count != null) ? count : 0;
+        }
+
+        double eventsPerSecond() {
+            return (totalNanos > 0) ? (totalEvents() * 1e9 / totalNanos) : 0;
+        }
+
+        double stepsPerSecond() {
+            return (totalNanos > 0) ? (stepNanos.length * 1e9 / totalNanos) : 0;
+        }
+
+        long stepPercentileNanos(double percentile) {
+            if (stepNanos.length == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(stepNanos, stepNanos.length);
+            Arrays.sort(sorted);
+            int index = (int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)));
+            return sorted[index];
+        }
+
+        String summary() {
+            return String.format(Locale.US, "[replay] %s: %d steps, %d transitions, %d events %s, step p50 %.1f us, p99 %.1f us, %.0f steps/s, %.0f events/s",
+                    traceName, stepNanos.length, transitions.size(), totalEvents(), eventCounts,
+                    stepPercentileNanos(0.5) / 1e3, stepPercentileNanos(0.99) / 1e3, stepsPerSecond(), eventsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays bundled traces against a small region set. Point the {@code rokwire.replay.traces}
+ * system property at a directory of CSV/GPX traces and {@code rokwire.replay.regions} at a JSON
+ * array of monitorRegions entries to replay recorded field data offline.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class GeofenceTraceReplayTest {
+
+    private PluginTestHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new PluginTestHarness().attach();
+    }
+
+    @After
+    public void tearDown() {
+        harness.detach();
+    }
+
+    @Test
+    public void replayCsvTraceWithBeaconScans() throws IOException {
+        GeofenceTraceReplay replay = new GeofenceTraceReplay(harness, quadRegions());
+        GeofenceTraceReplay.Report report = replay.replay(loadResource("quad_walk.csv"));
+
+        assertEquals(Arrays.asList(
+                "1760000006000 enter quad-a",
+                "1760000010000 enter lab",
+                "1760000013000 exit lab",
+                "1760000015000 exit quad-a",
+                "1760000016000 enter quad-b",
+                "1760000025000 exit quad-b"), report.transitions);
+        assertEquals(3, report.eventCount("geoFence.onEnterRegion"));
+        assertEquals(3, report.eventCount("geoFence.onExitRegion"));
+        assertEquals(6, report.eventCount("geoFence.onCurrentRegionsChanged"));
+    }
+
+    @Test
+    public void replayGpxTrace() throws IOException {
+        GeofenceTraceReplay replay = new GeofenceTraceReplay(harness, quadRegions());
+        GeofenceTraceReplay.Report report = replay.replay(loadResource("quad_walk.gpx"));
+
+        assertEquals(4, report.transitions.size());
+        assertEquals(2, report.eventCount("geoFence.onEnterRegion"));
+        assertEquals(2, report.eventCount("geoFence.onExitRegion"));
+    }
+
+    @Test
+    public void replayReportsPolygonAndDebouncedTransitions() throws IOException {
+        HashMap<String, Object> location = new HashMap<>();
+        location.put("polygon", Arrays.asList(
+                Arrays.asList(40.10025, -88.2010),
+                Arrays.asList(40.10025, -88.1990),
+                Arrays.asList(40.10075, -88.1990),
+                Arrays.asList(40.10075, -88.2010)));
+        HashMap<String, Object> lawn = new HashMap<>();
+        lawn.put("id", "lawn");
+        lawn.put("location", location);
+        List<Map<String, Object>> regions = quadRegions();
+        regions.add(lawn);
+        harness.monitor().setTransitionDebounce(2000, 0);
+
+        GeofenceTraceReplay replay = new GeofenceTraceReplay(harness, regions);
+        GeofenceTraceReplay.Report report = replay.replay(loadResource("quad_walk.csv"));
+
+        // The polygon is evaluated by the monitor itself; enters are reported once held for the confirmation period
+        List<String> lawnTransitions = transitionsOf(report, "lawn");
+        assertEquals(2, lawnTransitions.size());
+        long enteredAt = timestampOf(lawnTransitions.get(0));
+        assertTrue(lawnTransitions.get(0), (1760000015000L <= enteredAt) && (enteredAt <= 1760000015000L + TransitionDebouncer.TICK_MILLIS));
+        assertEquals("1760000018000 exit lawn", lawnTransitions.get(1));
+        assertTrue(report.transitions.contains("1760000013000 exit lab"));
+        assertEquals(4, report.eventCount("geoFence.onEnterRegion"));
+    }
+
+    @Test
+    public void replayRecordedTraces() throws Exception {
+        String tracesPath = System.getProperty("rokwire.replay.traces");
+        String regionsPath = System.getProperty("rokwire.replay.regions");
+        Assume.assumeTrue((tracesPath != null) && (regionsPath != null));
+
+        File[] traceFiles = new File(tracesPath).listFiles((dir, name) -> name.endsWith(".csv") || name.endsWith(".gpx"));
+        assertNotNull(traceFiles);
+        List<Map<String, Object>> regions = regionsFromJson(new String(Files.readAllBytes(new File(regionsPath).toPath()), StandardCharsets.UTF_8));
+        GeofenceTraceReplay replay = new GeofenceTraceReplay(harness, regions);
+        for (File traceFile : traceFiles) {
+            // Enter and exit alternate for every region
+            GeofenceTraceReplay.Report report = replay.replay(LocationTrace.load(traceFile));
+            Map<String, Boolean> inside = new HashMap<>();
+            for (String transition : report.transitions) {
+                String[] fields = transition.split(" ");
+                boolean entered = "enter".equals(fields[1]);
+                assertNotEquals(report.summary() + ": " + transition, entered, Boolean.TRUE.equals(inside.put(fields[2], entered)));
+            }
+        }
+    }
+
+    // Helpers
+
+    private static List<String> transitionsOf(GeofenceTraceReplay.Report report, String regionId) {
+        List<String> transitions = new ArrayList<>();
+        for (String transition : report.transitions) {
+            if (transition.endsWith(" " + regionId)) {
+                transitions.add(transition);
+            }
+        }
+        return transitions;
+    }
+
+    private static long timestampOf(String transition) {
+        return Long.parseLong(transition.substring(0, transition.indexOf(' ')));
+    }
+
+    private static List<Map<String, Object>> quadRegions() {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(PluginTestHarness.geofenceEntry("quad-a", 40.1000, -88.2000, 50.0));
+        regions.add(PluginTestHarness.geofenceEntry("quad-b", 40.1010, -88.2000, 50.0));
+        regions.add(PluginTestHarness.beaconEntry("lab", "8af7b7d2-6c4e-4f4d-9b2c-9d3cb1f7a001", 1, null));
+        return regions;
+    }
+
+    private LocationTrace loadResource(String name) throws IOException {
+        try (InputStream stream = getClass().getClassLoader().getResourceAsStream("traces/" + name)) {
+            assertNotNull(name, stream);
+            return LocationTrace.load(name, stream);
+        }
+    }
+
+    private static List<Map<String, Object>> regionsFromJson(String json) throws Exception {
+        JSONArray jsonArray = new JSONArray(json);
+        List<Map<String, Object>> regions = new ArrayList<>();
+        for (int index = 0; index < jsonArray.length(); index++) {
+            regions.add(toHashMap(jsonArray.getJSONObject(index), false));
+        }
+        return regions;
+    }
+
+    private static HashMap<String, Object> toHashMap(JSONObject jsonObject, boolean doubleNumbers) throws Exception {
+        HashMap<String, Object> map = new HashMap<>();
+        Iterator<String> keys = jsonObject.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = jsonObject.get(key);
+            if (value instanceof JSONObject) {
+                // location coordinates arrive from Dart as doubles
+                value = toHashMap((JSONObject) value, "location".equals(key));
+            } else if (doubleNumbers && (value instanceof Number)) {
+                value = ((Number) value).doubleValue();
+            } else if (value == JSONObject.NULL) {
+                value = null;
+            }
+            map.put(key, value);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.altbeacon.beacon.Beacon;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class IndoorPositioningEngineTest {
+
+    private static final String BEACON_UUID = "8af7b7d2-6c4e-4f4d-9b2c-9d3cb1f7a001";
+    private static final double ORIGIN_LATITUDE = 40.1020;
+    private static final double ORIGIN_LONGITUDE = -88.2272;
+
+    // Anchors at the corners of a 20 x 10 m room, in meters east/north of the origin
+    private static final double[][] ANCHORS = {{0, 0}, {20, 0}, {20, 10}, {0, 10}};
+
+    @Test
+    public void solverRecoversPositionFromNoisyRanges() {
+        double[] xs = new double[ANCHORS.length], ys = new double[ANCHORS.length];
+        double[] distances = new double[ANCHORS.length], weights = new double[ANCHORS.length];
+        double[] result = new double[3];
+        Random random = new Random(7);
+        for (int index = 0; index < ANCHORS.length; index++) {
+            xs[index] = ANCHORS[index][0];
+            ys[index] = ANCHORS[index][1];
+            distances[index] = Math.hypot(xs[index] - 6, ys[index] - 4) + random.nextGaussian() * 0.3;
+            weights[index] = 1.0 / (distances[index] * distances[index]);
+        }
+        IndoorPositioningEngine.solve(xs, ys, distances, weights, ANCHORS.length, result);
+        assertEquals(6, result[0], 0.5);
+        assertEquals(4, result[1], 0.5);
+        assertTrue(result[2] < 1.0);
+    }
+
+    @Test
+    public void enginePublishesSmoothedPositionAtConfiguredRate() {
+        IndoorPositioningEngine engine = new IndoorPositioningEngine();
+        engine.setAnchors(anchorEntries());
+        engine.setPublishInterval(1000);
+        assertTrue(engine.hasAnchors());
+
+        RangedBeaconStore store = new RangedBeaconStore();
+        int published = 0;
+        for (int cycle = 0; cycle < 30; cycle++) {
+            store.update(rangedBeacons(10, 5), 0);
+            engine.beginCycle();
+            engine.addMeasurements(store);
+            engine.addMeasurements(store); // same anchors ranged in a second region count once
+            if (engine.endCycle(cycle * 100L + 1)) {
+                published++;
+            }
+        }
+        assertEquals(3, published);
+
+        Map<String, Object> position = engine.toMap();
+        assertNotNull(position);
+        assertEquals(4, position.get("anchors"));
+        double x = ((Double) position.get("longitude") - ORIGIN_LONGITUDE) * 111320.0 * Math.cos(Math.toRadians(ORIGIN_LATITUDE));
+        double y = ((Double) position.get("latitude") - ORIGIN_LATITUDE) * 111320.0;
+        assertEquals(10, x, 0.1);
+        assertEquals(5, y, 0.1);
+    }
+
+    @Test
+    public void unknownBeaconsAreIgnored() {
+        IndoorPositioningEngine engine = new IndoorPositioningEngine();
+        engine.setAnchors(anchorEntries());
+        RangedBeaconStore store = new RangedBeaconStore();
+        List<Beacon> beacons = new ArrayList<>();
+        beacons.add(beacon(9, 9, 3.0));
+        store.update(beacons, 0);
+        engine.beginCycle();
+        engine.addMeasurements(store);
+        assertFalse(engine.endCycle(1));
+    }
+
+    /** JVM benchmark of the per-cycle math; it must not allocate. */
+    @Test
+    public void solverBenchmark() {
+        int count = 8;
+        double[] xs = new double[count], ys = new double[count], distances = new double[count], weights = new double[count];
+        double[] result = new double[3];
+        Random random = new Random(11);
+        for (int index = 0; index < count; index++) {
+            xs[index] = random.nextDouble() * 50;
+            ys[index] = random.nextDouble() * 50;
+            distances[index] = Math.hypot(xs[index] - 25, ys[index] - 25) + random.nextGaussian();
+            weights[index] = 1.0 / (distances[index] * distances[index]);
+        }
+        for (int warmup = 0; warmup < 20000; warmup++) {
+            IndoorPositioningEngine.solve(xs, ys, distances, weights, count, result);
+        }
+
+        int iterations = 200000;
+        PluginTestHarness.Probe probe = PluginTestHarness.Probe.start();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            IndoorPositioningEngine.solve(xs, ys, distances, weights, count, result);
+        }
+        probe.stop();
+        assertTrue("allocated " + probe.allocatedBytes + " bytes", probe.allocatedBytes < 4096);
+    }
+
+    private static List<Map<String, Object>> anchorEntries() {
+        List<Map<String, Object>> anchors = new ArrayList<>();
+        double metersPerDegreeLongitude = 111320.0 * Math.cos(Math.toRadians(ORIGIN_LATITUDE));
+        for (int index = 0; index < ANCHORS.length; index++) {
+            HashMap<String, Object> anchor = new HashMap<>();
+            anchor.put("uuid", BEACON_UUID);
+            anchor.put("major", 1);
+            anchor.put("minor", index);
+            anchor.put("latitude", ORIGIN_LATITUDE + ANCHORS[index][1] / 111320.0);
+            anchor.put("longitude", ORIGIN_LONGITUDE + ANCHORS[index][0] / metersPerDegreeLongitude);
+            anchors.add(anchor);
+        }
+        return anchors;
+    }
+
+    private static List<Beacon> rangedBeacons(double x, double y) {
+        List<Beacon> beacons = new ArrayList<>();
+        for (int index = 0; index < ANCHORS.length; index++) {
+            beacons.add(beacon(1, index, Math.hypot(ANCHORS[index][0] - x, ANCHORS[index][1] - y)));
+        }
+        return beacons;
+    }
+
+    private static Beacon beacon(int major, int minor, double distance) {
+        return FakeBeacons.beacon(BEACON_UUID, major, minor, -60, distance);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.location.Location;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class LastKnownLocationCacheTest {
+
+    private static final long SECOND_NANOS = 1000000000L;
+
+    @Test
+    public void returnsNewestFixWithinBounds() {
+        LastKnownLocationCache cache = new LastKnownLocationCache();
+        Location accurate = location(10 * SECOND_NANOS, 5f);
+        Location coarse = location(20 * SECOND_NANOS, 500f);
+        assertTrue(cache.offer(accurate));
+        assertTrue(cache.offer(coarse));
+
+        long now = 25 * SECOND_NANOS;
+        assertSame(coarse, cache.get(60000, -1, now));
+        assertSame(accurate, cache.get(60000, 50, now));
+        // The accurate fix is 15s old
+        assertNull(cache.get(10000, 50, now));
+        assertNull(cache.get(60000, 1, now));
+    }
+
+    @Test
+    public void boundsCheckSingleFix() {
+        Location location = location(10 * SECOND_NANOS, 50f);
+        assertTrue(LastKnownLocationCache.isWithinBounds(location, 5000, -1, 12 * SECOND_NANOS));
+        assertTrue(LastKnownLocationCache.isWithinBounds(location, 5000, 50.0, 12 * SECOND_NANOS));
+        assertFalse(LastKnownLocationCache.isWithinBounds(location, 5000, 20.0, 12 * SECOND_NANOS));
+        assertFalse(LastKnownLocationCache.isWithinBounds(location, 1000, -1, 12 * SECOND_NANOS));
+        assertFalse(LastKnownLocationCache.isWithinBounds(null, 5000, -1, 12 * SECOND_NANOS));
+    }
+
+    @Test
+    public void ignoresOutOfOrderFixes() {
+        LastKnownLocationCache cache = new LastKnownLocationCache();
+        Location newer = location(20 * SECOND_NANOS, 10f);
+        assertTrue(cache.offer(newer));
+        assertFalse(cache.offer(location(10 * SECOND_NANOS, 1f)));
+        assertFalse(cache.offer(null));
+        assertSame(newer, cache.getNewest());
+    }
+
+    @Test
+    public void evictsOldestFixesBeyondCapacity() {
+        LastKnownLocationCache cache = new LastKnownLocationCache();
+        Location first = location(SECOND_NANOS, 1f);
+        cache.offer(first);
+        for (int i = 0; i < LastKnownLocationCache.CAPACITY; i++) {
+            cache.offer(location((i + 2) * SECOND_NANOS, 100f));
+        }
+        long now = (LastKnownLocationCache.CAPACITY + 2) * SECOND_NANOS;
+        assertNull(cache.get(60000, 10, now));
+        assertEquals(100f, cache.get(60000, -1, now).getAccuracy(), 0);
+
+        cache.clear();
+        assertNull(cache.getNewest());
+        assertNull(cache.get(60000, -1, now));
+    }
+
+    static Location location(long elapsedRealtimeNanos, float accuracy) {
+        Location location = new Location("fused");
+        location.setLatitude(40.1);
+        location.setLongitude(-88.2);
+        location.setTime(elapsedRealtimeNanos / 1000000L);
+        location.setElapsedRealtimeNanos(elapsedRealtimeNanos);
+        location.setAccuracy(accuracy);
+        return location;
+    }
+}
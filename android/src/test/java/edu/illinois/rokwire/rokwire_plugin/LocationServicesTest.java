@@ -0,0 +1,242 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.Manifest;
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class LocationServicesTest {
+
+    private PluginTestHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new PluginTestHarness().attach();
+        harness.messenger.listen(RokwireCore.LOCATION_STATUS_STREAM);
+    }
+
+    @After
+    public void tearDown() {
+        harness.detach();
+    }
+
+    @Test
+    public void statusIsCachedAndPushedOnProviderChanges() {
+        LocationManager locationManager = (LocationManager) harness.application.getSystemService(Context.LOCATION_SERVICE);
+        shadowOf(locationManager).setLocationEnabled(true);
+        assertEquals("allowed", queryStatus());
+
+        // Without a broadcast the cached value is served
+        shadowOf(locationManager).setLocationEnabled(false);
+        assertEquals("allowed", queryStatus());
+
+        harness.application.sendBroadcast(new Intent(LocationManager.PROVIDERS_CHANGED_ACTION));
+        harness.idleMainLooper();
+        assertEquals("disabled", queryStatus());
+
+        shadowOf(locationManager).setLocationEnabled(true);
+        harness.application.sendBroadcast(new Intent(LocationManager.PROVIDERS_CHANGED_ACTION));
+        harness.idleMainLooper();
+        assertEquals("allowed", queryStatus());
+
+        // Repeated broadcasts without a change are not pushed
+        harness.application.sendBroadcast(new Intent(LocationManager.PROVIDERS_CHANGED_ACTION));
+        harness.idleMainLooper();
+        assertEquals(2, statusEvents().size());
+        assertEquals("disabled", statusEvents().get(0));
+        assertEquals("allowed", statusEvents().get(1));
+    }
+
+    @Test
+    public void permissionChangesAreSeenOnResume() {
+        LocationManager locationManager = (LocationManager) harness.application.getSystemService(Context.LOCATION_SERVICE);
+        shadowOf(locationManager).setLocationEnabled(true);
+        assertEquals("allowed", queryStatus());
+        shadowOf(harness.application).denyPermissions(Manifest.permission.ACCESS_FINE_LOCATION);
+        assertEquals("allowed", queryStatus());
+
+        Robolectric.buildActivity(Activity.class).setup();
+        assertEquals("not_determined", queryStatus());
+        assertEquals(1, statusEvents().size());
+    }
+
+    @Test
+    public void lastKnownIsServedFromDeliveredFixes() {
+        Location location = LastKnownLocationCacheTest.location(SystemClock.elapsedRealtimeNanos(), 12f);
+        LocationServices.getInstance().onLocationsBatch(Collections.singletonList(location));
+
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("maxAge", 30000);
+        params.put("accuracy", 20.0);
+        Object[] fix = new Object[1];
+        LocationServices.getInstance().handleMethodCall("lastKnown", params, new MethodChannel.Result() {
+            @Override
+            public void success(Object result) {
+                fix[0] = result;
+            }
+
+            @Override
+            public void error(String errorCode, String errorMessage, Object errorDetails) {
+            }
+
+            @Override
+            public void notImplemented() {
+            }
+        });
+        assertEquals(LocationUpdatesMultiplexer.toMap(location), fix[0]);
+    }
+
+    @Test
+    public void lastKnownBoundsAcceptLongValues() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMinutes(5));
+        Location location = LastKnownLocationCacheTest.location(SystemClock.elapsedRealtimeNanos() - 90 * 1000000000L, 12f);
+        LocationServices.getInstance().onLocationsBatch(Collections.singletonList(location));
+
+        // Beyond the one minute default, so only served if the Long value is read
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("maxAge", 120000L);
+        params.put("timeout", 1000L);
+        assertEquals(LocationUpdatesMultiplexer.toMap(location), invoke("lastKnown", params));
+    }
+
+    @Test
+    public void traceKeepsItsSubscriptionWhenUpdatesAreCancelled() {
+        HashMap<String, Object> subscription = new HashMap<>();
+        subscription.put("id", "map");
+        invoke("subscribe", subscription);
+        harness.messenger.listen(RokwireCore.LOCATION_TRACE_STREAM);
+        invoke("startTrace", null);
+        assertTrue(LocationServices.getInstance().isTracing());
+
+        // Dart cannot reach the trace subscription through the public ids
+        invoke("unsubscribe", "rokwire.trace");
+        LocationServices.getInstance().onLocationUpdatesCancelled();
+        assertTrue(LocationServices.getInstance().isTracing());
+
+        invoke("stopTrace", null);
+        assertFalse(LocationServices.getInstance().isTracing());
+    }
+
+    @Test
+    public void cancelledTraceStopsAndStopReturnsTail() {
+        harness.messenger.listen(RokwireCore.LOCATION_TRACE_STREAM);
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("chunkPoints", 2);
+        invoke("startTrace", params);
+        // A turn after the second fix: the first two fill a chunk, the third is the tail
+        double[][] fixes = {{40.1, -88.2}, {40.101, -88.2}, {40.101, -88.199}};
+        List<Location> locations = new ArrayList<>();
+        for (int index = 0; index < fixes.length; index++) {
+            Location location = LastKnownLocationCacheTest.location(SystemClock.elapsedRealtimeNanos(), 5f);
+            location.setLatitude(fixes[index][0]);
+            location.setLongitude(fixes[index][1]);
+            location.setTime(index * 1000L);
+            locations.add(location);
+        }
+        LocationServices.getInstance().onLocationsBatch(locations);
+        assertEquals(1, harness.messenger.count(RokwireCore.LOCATION_TRACE_STREAM));
+
+        // Cancelling the stream stops the recorder and keeps the tail instead of emitting it to nobody
+        harness.messenger.cancel(RokwireCore.LOCATION_TRACE_STREAM);
+        assertFalse(LocationServices.getInstance().isTracing());
+        Map<?, ?> result = (Map<?, ?>) invoke("stopTrace", null);
+        assertEquals(1, harness.messenger.count(RokwireCore.LOCATION_TRACE_STREAM));
+        List<?> chunks = (List<?>) result.get("chunks");
+        assertEquals(1, chunks.size());
+        assertEquals(1, ((Map<?, ?>) chunks.get(0)).get("points"));
+        assertEquals(3L, result.get("inputPoints"));
+    }
+
+    private List<Object> statusEvents() {
+        List<Object> events = new ArrayList<>();
+        for (MethodCall call : harness.messenger.calls) {
+            if (RokwireCore.LOCATION_STATUS_STREAM.equals(call.method)) {
+                events.add(call.arguments);
+            }
+        }
+        return events;
+    }
+
+    static Object invoke(String method, Object params) {
+        Object[] value = new Object[1];
+        LocationServices.getInstance().handleMethodCall(method, params, new MethodChannel.Result() {
+            @Override
+            public void success(Object result) {
+                value[0] = result;
+            }
+
+            @Override
+            public void error(String errorCode, String errorMessage, Object errorDetails) {
+            }
+
+            @Override
+            public void notImplemented() {
+            }
+        });
+        return value[0];
+    }
+
+    private static String queryStatus() {
+        Object[] status = new Object[1];
+        LocationServices.getInstance().handleMethodCall("queryStatus", null, new MethodChannel.Result() {
+            @Override
+            public void success(Object result) {
+                status[0] = result;
+            }
+
+            @Override
+            public void error(String errorCode, String errorMessage, Object errorDetails) {
+            }
+
+            @Override
+            public void notImplemented() {
+            }
+        });
+        return (String) status[0];
+    }
+}
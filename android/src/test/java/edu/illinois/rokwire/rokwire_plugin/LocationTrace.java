@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * Recorded location trace. CSV rows are {@code timestamp_ms,latitude,longitude[,beacon_region_ids]}
+ * where beacon region ids are separated by ';' and list the beacon regions in range at that moment.
+ * GPX files contribute their {@code trkpt} elements.
+ */
+class LocationTrace {
+
+    static class Sample {
+        final long timestamp;
+        final double latitude;
+        final double longitude;
+        final Set<String> beaconRegionIds;
+
+        Sample(long timestamp, double latitude, double longitude, Set<String> beaconRegionIds) {
+            this.timestamp = timestamp;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.beaconRegionIds = beaconRegionIds;
+        }
+    }
+
+    final String name;
+    final List<Sample> samples;
+
+    LocationTrace(String name, List<Sample> samples) {
+        this.name = name;
+        this.samples = samples;
+    }
+
+    static LocationTrace load(File file) throws IOException {
+        try (InputStream stream = new FileInputStream(file)) {
+            return load(file.getName(), stream);
+        }
+    }
+
+    static LocationTrace load(String name, InputStream stream) throws IOException {
+        return name.toLowerCase(Locale.US).endsWith(".gpx") ? fromGpx(name, stream) : fromCsv(name, stream);
+    }
+
+    static LocationTrace fromCsv(String name, InputStream stream) throws IOException {
+        List<Sample> samples = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || !Character.isDigit(line.charAt(0))) {
+                continue; // comments and header
+            }
+            String[] columns = line.split(",", -1);
+            if (columns.length < 3) {
+                continue;
+            }
+            Set<String> beaconRegionIds = Collections.emptySet();
+            if ((columns.length > 3) && !columns[3].trim().isEmpty()) {
+                beaconRegionIds = new LinkedHashSet<>();
+                for (String regionId : columns[3].split(";")) {
+                    if (!regionId.trim().isEmpty()) {
+                        beaconRegionIds.add(regionId.trim());
+                    }
+                }
+            }
+            samples.add(new Sample(Long.parseLong(columns[0].trim()), Double.parseDouble(columns[1].trim()), Double.parseDouble(columns[2].trim()), beaconRegionIds));
+        }
+        return new LocationTrace(name, samples);
+    }
+
+    static LocationTrace fromGpx(String name, InputStream stream) throws IOException {
+        List<Sample> samples = new ArrayList<>();
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
+            NodeList points = document.getElementsByTagName("trkpt");
+            SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+            timeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+            for (int index = 0; index < points.getLength(); index++) {
+                Element point = (Element) points.item(index);
+                NodeList timeNodes = point.getElementsByTagName("time");
+                long timestamp = index * 1000L;
+                if (timeNodes.getLength() > 0) {
+                    try {
+                        timestamp = timeFormat.parse(timeNodes.item(0).getTextContent().trim()).getTime();
+                    } catch (ParseException e) {
+                        // keep synthetic 1 Hz timestamp
+                    }
+                }
+                samples.add(new Sample(timestamp, Double.parseDouble(point.getAttribute("lat")), Double.parseDouble(point.getAttribute("lon")), Collections.emptySet()));
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to parse GPX trace " + name, e);
+        }
+        return new LocationTrace(name, samples);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LocationTraceEncoderTest {
+
+    private static final double METERS_PER_DEGREE = 111320.0;
+    private static final double LATITUDE = 40.1020;
+    private static final double LONGITUDE = -88.2272;
+
+    @Test
+    public void hourLongWalkCompressesTenfoldWithinTolerance() {
+        double tolerance = 5.0;
+        List<double[]> decoded = new ArrayList<>();
+        int[] chunks = new int[1];
+        LocationTraceEncoder encoder = new LocationTraceEncoder(tolerance, 50, (data, points, sequence) -> {
+            assertEquals(chunks[0]++, sequence);
+            for (double[] point : LocationTraceEncoder.decode(data, points)) {
+                decoded.add(point);
+            }
+        });
+
+        // One hour at 1 Hz: 1.4 m/s legs of two minutes with a turn after each, plus 2 m of GPS noise
+        double[][] fixes = walk(3600, new Random(3));
+        for (int index = 0; index < fixes.length; index++) {
+            encoder.add(fixes[index][0], fixes[index][1], index * 1000L);
+        }
+        encoder.flush();
+
+        assertEquals(fixes.length, encoder.getInputPoints());
+        assertEquals(encoder.getOutputPoints(), decoded.size());
+        assertTrue(chunks[0] > 1);
+
+        long rawBytes = fixes.length * 3L * 8; // latitude, longitude and time as 8 byte values
+        assertTrue(String.format(Locale.US, "%d fixes -> %d points, %d bytes", fixes.length, encoder.getOutputPoints(), encoder.getOutputBytes()),
+                rawBytes >= 10 * encoder.getOutputBytes());
+
+        // Every fix lies within the tolerance (plus microdegree rounding) of the decoded polyline
+        double maxError = 0;
+        for (double[] fix : fixes) {
+            maxError = Math.max(maxError, distanceToPolyline(fix, decoded));
+        }
+        assertTrue("max error " + maxError, maxError <= tolerance + 0.2);
+        assertEquals(0, decoded.get(0)[2], 0);
+    }
+
+    @Test
+    public void stationaryFixesCollapse() {
+        LocationTraceEncoder encoder = new LocationTraceEncoder(5.0, 50, null);
+        Random random = new Random(5);
+        for (int index = 0; index < 600; index++) {
+            encoder.add(LATITUDE + random.nextGaussian() * 1e-5, LONGITUDE + random.nextGaussian() * 1e-5, index * 1000L);
+        }
+        encoder.flush();
+        assertTrue(encoder.getOutputPoints() <= 3);
+    }
+
+    private static double[][] walk(int count, Random random) {
+        double[][] fixes = new double[count][2];
+        double metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE));
+        double x = 0, y = 0, heading = 0;
+        for (int index = 0; index < count; index++) {
+            if ((index % 120) == 0) {
+                heading += Math.toRadians(60 + random.nextInt(60));
+            }
+            x += 1.4 * Math.cos(heading);
+            y += 1.4 * Math.sin(heading);
+            fixes[index][0] = LATITUDE + (y + random.nextGaussian() * 2) / METERS_PER_DEGREE;
+            fixes[index][1] = LONGITUDE + (x + random.nextGaussian() * 2) / metersPerDegreeLongitude;
+        }
+        return fixes;
+    }
+
+    private static double distanceToPolyline(double[] fix, List<double[]> polyline) {
+        double metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE));
+        double px = fix[1] * metersPerDegreeLongitude, py = fix[0] * METERS_PER_DEGREE;
+        double best = Double.MAX_VALUE;
+        for (int index = 0; index < polyline.size(); index++) {
+            double[] start = polyline.get(index);
+            double[] end = polyline.get(Math.min(index + 1, polyline.size() - 1));
+            double ax = start[1] * metersPerDegreeLongitude, ay = start[0] * METERS_PER_DEGREE;
+            double bx = end[1] * metersPerDegreeLongitude - ax, by = end[0] * METERS_PER_DEGREE - ay;
+            double lengthSquared = bx * bx + by * by;
+            double t = (lengthSquared > 0) ? Math.max(0, Math.min(1, ((px - ax) * bx + (py - ay) * by) / lengthSquared)) : 0;
+            best = Math.min(best, Math.hypot(px - ax - t * bx, py - ay - t * by));
+        }
+        return best;
+    }
+}
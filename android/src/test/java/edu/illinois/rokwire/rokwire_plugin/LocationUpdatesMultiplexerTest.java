@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.location.Location;
+
+import com.google.android.gms.location.Priority;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class LocationUpdatesMultiplexerTest {
+
+    private static class FakeProvider implements LocationUpdatesMultiplexer.Provider {
+        int requests, removals;
+        long intervalMillis, maxUpdateDelayMillis;
+        int priority;
+
+        @Override
+        public boolean request(long intervalMillis, int priority, long maxUpdateDelayMillis) {
+            requests++;
+            this.intervalMillis = intervalMillis;
+            this.priority = priority;
+            this.maxUpdateDelayMillis = maxUpdateDelayMillis;
+            return true;
+        }
+
+        @Override
+        public void remove() {
+            removals++;
+        }
+    }
+
+    @Test
+    public void subscribersShareOneMergedRequest() {
+        FakeProvider provider = new FakeProvider();
+        LocationUpdatesMultiplexer multiplexer = new LocationUpdatesMultiplexer(provider);
+
+        assertTrue(multiplexer.subscribe("route", 1000, Priority.PRIORITY_HIGH_ACCURACY, 30000));
+        assertTrue(multiplexer.subscribe("weather", 60000, Priority.PRIORITY_LOW_POWER, 300000));
+        assertEquals(1, provider.requests);
+        assertEquals(1000, provider.intervalMillis);
+        assertEquals(Priority.PRIORITY_HIGH_ACCURACY, provider.priority);
+        assertEquals(30000, provider.maxUpdateDelayMillis);
+
+        multiplexer.unsubscribe("route");
+        assertEquals(2, provider.requests);
+        assertEquals(60000, provider.intervalMillis);
+        assertEquals(Priority.PRIORITY_LOW_POWER, provider.priority);
+
+        multiplexer.unsubscribe("weather");
+        assertEquals(1, provider.removals);
+        assertTrue(multiplexer.isEmpty());
+    }
+
+    @Test
+    public void keptSubscriptionSurvivesBulkUnsubscribe() {
+        FakeProvider provider = new FakeProvider();
+        LocationUpdatesMultiplexer multiplexer = new LocationUpdatesMultiplexer(provider);
+        multiplexer.subscribe("route", 1000, Priority.PRIORITY_HIGH_ACCURACY, 30000);
+        multiplexer.subscribe("trace", 5000, Priority.PRIORITY_BALANCED_POWER_ACCURACY, 60000);
+
+        multiplexer.unsubscribeAllExcept("trace");
+        assertTrue(multiplexer.isSubscribed("trace"));
+        assertFalse(multiplexer.isSubscribed("route"));
+        assertEquals(5000, provider.intervalMillis);
+        assertEquals(0, provider.removals);
+
+        // Nothing else to drop, the request stays as is
+        int requests = provider.requests;
+        multiplexer.unsubscribeAllExcept("trace");
+        assertEquals(requests, provider.requests);
+    }
+
+    @Test
+    public void batchesAreThinnedPerSubscriber() {
+        LocationUpdatesMultiplexer multiplexer = new LocationUpdatesMultiplexer(new FakeProvider());
+        multiplexer.subscribe("route", 1000, Priority.PRIORITY_HIGH_ACCURACY, 30000);
+        multiplexer.subscribe("weather", 10000, Priority.PRIORITY_LOW_POWER, 30000);
+
+        // A 30 second batch of 1 Hz fixes
+        Map<String, List<HashMap<String, Object>>> batches = multiplexer.dispatch(fixes(0, 30));
+        assertEquals(30, batches.get("route").size());
+        assertEquals(3, batches.get("weather").size());
+        assertEquals(40.1 + 0.0001 * 10, (Double) batches.get("weather").get(1).get("latitude"), 1e-9);
+
+        // Interval carries over batch boundaries
+        batches = multiplexer.dispatch(fixes(30, 5));
+        assertEquals(5, batches.get("route").size());
+        assertTrue(batches.containsKey("weather"));
+        batches = multiplexer.dispatch(fixes(35, 2));
+        assertFalse(batches.containsKey("weather"));
+    }
+
+    private static List<Location> fixes(int start, int count) {
+        List<Location> locations = new ArrayList<>();
+        for (int index = start; index < start + count; index++) {
+            Location location = new Location("fused");
+            location.setLatitude(40.1 + 0.0001 * index);
+            location.setLongitude(-88.2);
+            location.setAccuracy(5);
+            location.setTime(index * 1000L);
+            locations.add(location);
+        }
+        return locations;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.altbeacon.beacon.Beacon;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class NearestBeaconsTest {
+
+    private static final String BEACON_UUID = "8af7b7d2-6c4e-4f4d-9b2c-9d3cb1f7a001";
+
+    @Test
+    public void windowStatsCoverRecentSamplesOnly() {
+        RangedBeaconStore store = new RangedBeaconStore();
+        for (int cycle = 0; cycle < 40; cycle++) {
+            // Distance jumps from 10 m to 2 m after 30 cycles, one cycle per second
+            store.update(Arrays.asList(FakeBeacons.beacon(BEACON_UUID, 1, 1, -70, (cycle < 30) ? 10.0 : 2.0)), cycle * 1000L);
+        }
+        double[] stats = new double[RangedBeaconStore.STATS_LENGTH];
+        assertTrue(store.getWindowStats(0, 39000, 5000, stats));
+        assertEquals(2.0, stats[RangedBeaconStore.STATS_DISTANCE], 1e-9);
+        assertEquals(6, (int) stats[RangedBeaconStore.STATS_SAMPLES]);
+        assertEquals(0.0, stats[RangedBeaconStore.STATS_DEVIATION], 1e-9);
+
+        // The ring holds the last HISTORY_SIZE samples only
+        assertTrue(store.getWindowStats(0, 39000, 60000, stats));
+        assertEquals(RangedBeaconStore.HISTORY_SIZE, (int) stats[RangedBeaconStore.STATS_SAMPLES]);
+        assertFalse(store.getWindowStats(0, 100000, 5000, stats));
+    }
+
+    @Test
+    public void nearestAcrossRegionsSortedAndDeduplicated() {
+        RangedBeaconStore hall = new RangedBeaconStore();
+        RangedBeaconStore lobby = new RangedBeaconStore();
+        for (int cycle = 0; cycle < 10; cycle++) {
+            long now = cycle * 1000L;
+            List<Beacon> hallBeacons = new ArrayList<>();
+            for (int minor = 0; minor < 50; minor++) {
+                hallBeacons.add(FakeBeacons.beacon(BEACON_UUID, 1, minor, -80, 5.0 + minor));
+            }
+            hall.update(hallBeacons, now);
+            // The same beacon seen through a region sharing the scan region, plus a closer noisy one
+            lobby.update(Arrays.asList(FakeBeacons.beacon(BEACON_UUID, 1, 0, -80, 5.0),
+                    FakeBeacons.beacon(BEACON_UUID, 2, 7, -60, ((cycle % 2) == 0) ? 1.0 : 3.0)), now);
+        }
+        Map<String, RangedBeaconStore> regions = new LinkedHashMap<>();
+        regions.put("hall", hall);
+        regions.put("lobby", lobby);
+
+        List<HashMap> nearest = new NearestBeacons().query(regions, 3, 10000, 9000);
+        assertEquals(3, nearest.size());
+        assertEquals(2, nearest.get(0).get("major"));
+        assertEquals(2.0, (Double) nearest.get(0).get("distance"), 1e-9);
+        assertEquals(0, nearest.get(1).get("minor"));
+        assertEquals("hall", nearest.get(1).get("regionId"));
+        assertEquals(1, nearest.get(2).get("minor"));
+        // Stable readings earn more confidence than noisy ones
+        assertTrue((Double) nearest.get(1).get("confidence") > (Double) nearest.get(0).get("confidence"));
+    }
+}
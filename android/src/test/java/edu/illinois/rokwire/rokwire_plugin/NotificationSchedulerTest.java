@@ -0,0 +1,206 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.app.AlarmManager;
+import android.app.Application;
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.core.app.NotificationCompat;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowAlarmManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class NotificationSchedulerTest {
+
+    private static final long NOW = 1780000000000L;
+    private static final long MINUTE = 60000;
+
+    private final Application application = ApplicationProvider.getApplicationContext();
+
+    @Before
+    public void setUp() {
+        NotificationScheduler.resetInstance();
+    }
+
+    @Test
+    public void nearbyDueTimesShareOneWakeup() {
+        NotificationScheduler scheduler = NotificationScheduler.getInstance();
+        assertEquals(4, scheduler.schedule(application, Arrays.asList(
+                entry("lecture", NOW + 10 * MINUTE),
+                entry("lab", NOW + 12 * MINUTE),
+                entry("seminar", NOW + 14 * MINUTE),
+                entry("concert", NOW + 120 * MINUTE)), NOW));
+
+        // One inexact window armed for the earliest reminder
+        assertEquals(1, alarms().getScheduledAlarms().size());
+        ShadowAlarmManager.ScheduledAlarm alarm = alarms().getNextScheduledAlarm();
+        assertEquals(NOW + 10 * MINUTE, alarm.getTriggerAtMs());
+        assertEquals(NotificationScheduler.WINDOW_MILLIS, alarm.getWindowLengthMs());
+
+        // The wakeup posts everything due within its window and re-arms for the rest
+        assertEquals(3, scheduler.onAlarm(application, NOW + 11 * MINUTE));
+        assertEquals(3, notifications().size());
+        assertEquals(1, scheduler.getPending(application).size());
+        assertEquals(NOW + 120 * MINUTE, alarms().getNextScheduledAlarm().getTriggerAtMs());
+        assertEquals(1, alarms().getScheduledAlarms().size());
+
+        assertEquals(1, scheduler.onAlarm(application, NOW + 121 * MINUTE));
+        assertEquals(4, notifications().size());
+        assertTrue(scheduler.getPending(application).isEmpty());
+        assertNull(alarms().getNextScheduledAlarm());
+    }
+
+    @Test
+    public void rescheduleReplacesById() {
+        NotificationScheduler scheduler = NotificationScheduler.getInstance();
+        scheduler.schedule(application, Collections.singletonList(entry("lecture", NOW + 10 * MINUTE)), NOW);
+        scheduler.schedule(application, Collections.singletonList(entry("lecture", NOW + 60 * MINUTE)), NOW);
+        assertEquals(1, scheduler.getPending(application).size());
+        assertEquals(NOW + 60 * MINUTE, alarms().getNextScheduledAlarm().getTriggerAtMs());
+
+        // A wakeup before anything is due posts nothing
+        assertEquals(0, scheduler.onAlarm(application, NOW + 10 * MINUTE));
+        assertEquals(1, scheduler.getPending(application).size());
+    }
+
+    @Test
+    public void bulkCancel() {
+        NotificationScheduler scheduler = NotificationScheduler.getInstance();
+        scheduler.schedule(application, Arrays.asList(
+                entry("lecture", NOW + 10 * MINUTE),
+                entry("lab", NOW + 20 * MINUTE),
+                entry("seminar", NOW + 30 * MINUTE)), NOW);
+
+        assertEquals(2, scheduler.cancel(application, Arrays.asList("lecture", "seminar", "unknown"), NOW));
+        assertEquals(NOW + 20 * MINUTE, alarms().getNextScheduledAlarm().getTriggerAtMs());
+
+        assertEquals(1, scheduler.cancel(application, null, NOW));
+        assertNull(alarms().getNextScheduledAlarm());
+    }
+
+    @Test
+    public void storeSurvivesReboot() {
+        List<NotificationScheduler.Entry> entries = new ArrayList<>();
+        entries.add(new NotificationScheduler.Entry("lecture", NOW + 10 * MINUTE, "Lecture", "Starts in 10 minutes", "reminders"));
+        entries.add(new NotificationScheduler.Entry("lab", NOW - 60 * MINUTE, null, "Missed while off", null));
+        NotificationScheduler.getInstance().schedule(application, entries, NOW - 120 * MINUTE);
+
+        // After reboot the process is new and the system dropped the alarm
+        NotificationScheduler.resetInstance();
+        alarmManager().cancel(alarms().getNextScheduledAlarm().getOperation());
+        assertNull(alarms().getNextScheduledAlarm());
+        new NotificationSchedulerReceiver().onReceive(application, new Intent(Intent.ACTION_BOOT_COMPLETED));
+        assertNotNull(alarms().getNextScheduledAlarm());
+
+        List<NotificationScheduler.Entry> pending = NotificationScheduler.getInstance().getPending(application);
+        assertEquals(2, pending.size());
+        assertEquals("lab", pending.get(0).id);
+        assertEquals("Lecture", pending.get(1).title);
+        assertEquals("reminders", pending.get(1).channel);
+
+        // An overdue notification is posted on the first wakeup
+        assertEquals(1, NotificationScheduler.getInstance().onAlarm(application, NOW));
+        assertEquals("Missed while off", notifications().get(0).extras.getString(NotificationCompat.EXTRA_TEXT));
+    }
+
+    @Test
+    public void subtitleAndSoundArePassedThrough() {
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("id", "exam");
+        params.put("dateTime", NOW + 10 * MINUTE);
+        params.put("title", "Exam");
+        params.put("subtitle", "Room 1404");
+        params.put("body", "Starts in 10 minutes");
+        params.put("sound", false);
+        NotificationScheduler.Entry entry = NotificationScheduler.Entry.fromMap(params);
+        assertNotNull(entry);
+        NotificationScheduler.getInstance().schedule(application, Collections.singletonList(entry), NOW);
+
+        // Kept by the store across processes
+        NotificationScheduler.resetInstance();
+        NotificationScheduler.Entry pending = NotificationScheduler.getInstance().getPending(application).get(0);
+        assertEquals("Room 1404", pending.subtitle);
+        assertFalse(pending.sound);
+        assertEquals(false, pending.toMap().get("sound"));
+
+        assertEquals(1, NotificationScheduler.getInstance().onAlarm(application, NOW + 10 * MINUTE));
+        assertEquals("Room 1404", notifications().get(0).extras.getString(NotificationCompat.EXTRA_SUB_TEXT));
+    }
+
+    @Test
+    public void oversizedTextsAreTruncatedAndOversizedIdsRejected() {
+        char[] text = new char[40000];
+        Arrays.fill(text, '\u20ac');
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("id", "essay");
+        params.put("dateTime", NOW + 10 * MINUTE);
+        params.put("body", new String(text));
+        NotificationScheduler.Entry essay = NotificationScheduler.Entry.fromMap(params);
+        assertNotNull(essay);
+        assertEquals(NotificationScheduler.MAX_TEXT_LENGTH, essay.body.length());
+
+        params.put("id", new String(text));
+        assertNull(NotificationScheduler.Entry.fromMap(params));
+
+        // The store still takes every entry
+        NotificationScheduler.getInstance().schedule(application, Arrays.asList(essay, entry("lecture", NOW + 20 * MINUTE)), NOW);
+        NotificationScheduler.resetInstance();
+        List<NotificationScheduler.Entry> pending = NotificationScheduler.getInstance().getPending(application);
+        assertEquals(2, pending.size());
+        assertEquals(essay.body, pending.get(0).body);
+    }
+
+    private static NotificationScheduler.Entry entry(String id, long dueTime) {
+        return new NotificationScheduler.Entry(id, dueTime, id, "Reminder", null);
+    }
+
+    private AlarmManager alarmManager() {
+        return (AlarmManager) application.getSystemService(Context.ALARM_SERVICE);
+    }
+
+    private ShadowAlarmManager alarms() {
+        return shadowOf(alarmManager());
+    }
+
+    private List<Notification> notifications() {
+        return shadowOf((NotificationManager) application.getSystemService(Context.NOTIFICATION_SERVICE)).getAllNotifications();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.Application;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+
+import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
+
+import org.junit.Assert;
+import org.robolectric.Robolectric;
+
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Wires a RokwirePlugin instance to a Robolectric activity and to in-process fakes for the
+ * method channel, the geofencing client and the beacon manager.
+ */
+class PluginTestHarness {
+
+    final Application application = ApplicationProvider.getApplicationContext();
+    final FakeBinaryMessenger messenger = new FakeBinaryMessenger();
+    final FakeGeofencingClient geofencingClient = FakeGeofencingClient.create();
+    final FakeBeaconManager beaconManager = FakeBeaconManager.create(application);
+    final RokwirePlugin plugin = new RokwirePlugin();
+    final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+    // Acknowledge beacon events as soon as they arrive, like a responsive Dart isolate
+    boolean ackBeaconEvents = true;
+
+    PluginTestHarness attach() {
+        GeofenceMonitor.resetInstance();
+        plugin.onAttachedToEngine(new FlutterPlugin.FlutterPluginBinding(application, null, messenger, null, null, null, null));
+        plugin.onAttachedToActivity(activityBinding(activity));
+        messenger.listen(RokwireCore.GEOFENCE_EVENTS_STREAM);
+        messenger.listen(RokwireCore.REGION_STATE_STREAM);
+        messenger.listen(RokwireCore.BEACON_EVENTS_STREAM);
+        messenger.eventListener = event -> {
+            if (ackBeaconEvents && "geoFence.onBeaconsInRegionChanged".equals(event.method)) {
+                monitor().ackBeaconEvents(((Number) event.<Object>argument("sequence")).longValue());
+            }
+        };
+        shadowOf(application).grantPermissions(Manifest.permission.ACCESS_COARSE_LOCATION, Manifest.permission.ACCESS_FINE_LOCATION);
+        monitor().applyGeofencingClient(geofencingClient.client());
+        monitor().applyBeaconManager(beaconManager);
+        return this;
+    }
+
+    void detach() {
+        plugin.onDetachedFromActivity();
+        plugin.onDetachedFromEngine(new FlutterPlugin.FlutterPluginBinding(application, null, messenger, null, null, null, null));
+        GeofenceMonitor.resetInstance();
+    }
+
+    GeofenceMonitor monitor() {
+        return GeofenceMonitor.getInstance();
+    }
+
+    void idleMainLooper() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    static HashMap<String, Object> geofenceEntry(String id, double latitude, double longitude, double radius) {
+        HashMap<String, Object> location = new HashMap<>();
+        location.put("latitude", latitude);
+        location.put("longitude", longitude);
+        location.put("radius", radius);
+        HashMap<String, Object> entry = new HashMap<>();
+        entry.put("id", id);
+        entry.put("location", location);
+        return entry;
+    }
+
+    static HashMap<String, Object> beaconEntry(String id, String uuid, Integer major, Integer minor) {
+        HashMap<String, Object> beacon = new HashMap<>();
+        beacon.put("uuid", uuid);
+        if (major != null) {
+            beacon.put("major", major);
+        }
+        if (minor != null) {
+            beacon.put("minor", minor);
+        }
+        HashMap<String, Object> entry = new HashMap<>();
+        entry.put("id", id);
+        entry.put("beacon", beacon);
+        return entry;
+    }
+
+    private static ActivityPluginBinding activityBinding(Activity activity) {
+        return (ActivityPluginBinding) Proxy.newProxyInstance(ActivityPluginBinding.class.getClassLoader(), new Class<?>[]{ActivityPluginBinding.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getActivity": return activity;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    /** Main thread cost of a block of work: elapsed time and bytes allocated by the calling thread. */
+    static class Probe {
+        private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        // Wall clock budgets depend on the machine, so they are checked only in runs with -Drokwire.benchmark=true
+        static final boolean BENCHMARK = Boolean.getBoolean("rokwire.benchmark");
+
+        private final long startNanos;
+        private final long startBytes;
+        long elapsedNanos;
+        long allocatedBytes;
+
+        private Probe() {
+            startBytes = allocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        static Probe start() {
+            return new Probe();
+        }
+
+        Probe stop() {
+            elapsedNanos = System.nanoTime() - startNanos;
+            allocatedBytes = allocatedBytes() - startBytes;
+            return this;
+        }
+
+        double elapsedMillis() {
+            return elapsedNanos / 1e6;
+        }
+
+        double perSecond(long count) {
+            return (elapsedNanos > 0) ? (count * 1e9 / elapsedNanos) : Double.POSITIVE_INFINITY;
+        }
+
+        /** Asserts a wall clock budget in benchmark runs only. */
+        static void assertTiming(String message, boolean withinBudget) {
+            if (BENCHMARK) {
+                Assert.assertTrue(message, withinBudget);
+            }
+        }
+
+        private static long allocatedBytes() {
+            if (threadBean instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+            return 0;
+        }
+    }
+}
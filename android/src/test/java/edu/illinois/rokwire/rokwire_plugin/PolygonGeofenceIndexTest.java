@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PolygonGeofenceIndexTest {
+
+    @Test
+    public void concavePolygonContainment() {
+        // L-shaped footprint: the notch at the top right is outside
+        double[] latitudes = {0, 0, 1, 1, 2, 2};
+        double[] longitudes = {0, 2, 2, 1, 1, 0};
+        assertTrue(PolygonGeofenceIndex.containsPoint(latitudes, longitudes, 0.5, 1.5));
+        assertTrue(PolygonGeofenceIndex.containsPoint(latitudes, longitudes, 1.5, 0.5));
+        assertFalse(PolygonGeofenceIndex.containsPoint(latitudes, longitudes, 1.5, 1.5));
+        assertFalse(PolygonGeofenceIndex.containsPoint(latitudes, longitudes, -0.5, 0.5));
+    }
+
+    @Test
+    public void emptyIndex() {
+        PolygonGeofenceIndex index = new PolygonGeofenceIndex(new ArrayList<>());
+        assertTrue(index.isEmpty());
+        assertEquals(0, index.query(40.1, -88.2, new int[0]));
+    }
+
+    @Test
+    public void queryMatchesBruteForce() {
+        List<PolygonGeofenceIndex.Polygon> polygons = grid(100, 100);
+        PolygonGeofenceIndex index = new PolygonGeofenceIndex(polygons);
+        int[] result = new int[index.size()];
+        Random random = new Random(7);
+        for (int sample = 0; sample < 2000; sample++) {
+            double latitude = 40.0 + random.nextDouble() * 0.011;
+            double longitude = -88.3 + random.nextDouble() * 0.011;
+            int found = index.query(latitude, longitude, result);
+            String[] indexed = new String[found];
+            for (int position = 0; position < found; position++) {
+                indexed[position] = index.getId(result[position]);
+            }
+            List<String> expected = new ArrayList<>();
+            for (PolygonGeofenceIndex.Polygon polygon : polygons) {
+                if (PolygonGeofenceIndex.containsPoint(polygon.latitudes, polygon.longitudes, latitude, longitude)) {
+                    expected.add(polygon.id);
+                }
+            }
+            Arrays.sort(indexed);
+            assertArrayEquals(expected.stream().sorted().toArray(), indexed);
+        }
+    }
+
+    @Test
+    public void queryThroughput() {
+        PolygonGeofenceIndex index = new PolygonGeofenceIndex(grid(200, 200));
+        int[] result = new int[index.size()];
+        Random random = new Random(11);
+        int queries = 200000;
+        double[] latitudes = new double[queries];
+        double[] longitudes = new double[queries];
+        for (int query = 0; query < queries; query++) {
+            latitudes[query] = 40.0 + random.nextDouble() * 0.021;
+            longitudes[query] = -88.3 + random.nextDouble() * 0.021;
+        }
+        int hits = 0;
+        long start = System.nanoTime();
+        for (int query = 0; query < queries; query++) {
+            hits += index.query(latitudes[query], longitudes[query], result);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(hits > 0);
+        // A loose budget, catching regressions by orders of magnitude in benchmark runs
+        PluginTestHarness.Probe.assertTiming("200k queries took " + (elapsed / 1000000) + " ms", elapsed < 10000000000L);
+    }
+
+    /** Grid of square building footprints, 0.0001 deg apart with a gap between them. */
+    private static List<PolygonGeofenceIndex.Polygon> grid(int rows, int columns) {
+        List<PolygonGeofenceIndex.Polygon> polygons = new ArrayList<>(rows * columns);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                double minLat = 40.0 + row * 0.0001, minLng = -88.3 + column * 0.0001, size = 0.00008;
+                polygons.add(new PolygonGeofenceIndex.Polygon(String.format(Locale.US, "b-%d-%d", row, column),
+                        new double[]{minLat, minLat, minLat + size, minLat + size},
+                        new double[]{minLng, minLng + size, minLng + size, minLng}));
+            }
+        }
+        return polygons;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class RangedBeaconStoreTest {
+
+    private static final String BEACON_UUID = "8af7b7d2-6c4e-4f4d-9b2c-9d3cb1f7a001";
+
+    @Test
+    public void updatesInPlaceAndReportsMembershipChanges() {
+        RangedBeaconStore store = new RangedBeaconStore();
+        List<Beacon> beacons = new ArrayList<>();
+        for (int index = 0; index < 300; index++) {
+            beacons.add(beacon(index / 100, 65000 + (index % 100), -60));
+        }
+        assertTrue(store.update(beacons, 1000));
+        assertEquals(300, store.size());
+
+        // Same set with new readings and a different order is not a change
+        List<Beacon> nextCycle = new ArrayList<>();
+        for (int index = 0; index < 300; index++) {
+            nextCycle.add(beacon(index / 100, 65000 + (index % 100), -70));
+        }
+        Collections.reverse(nextCycle);
+        assertFalse(store.update(nextCycle, 2000));
+        int index = store.indexOf(UUID.fromString(BEACON_UUID), 2, 65099);
+        assertTrue(index >= 0);
+        assertEquals(65099, store.getMinor(index));
+        assertEquals(-70, store.getRssi(index));
+        assertEquals(2000, store.getLastSeen(index));
+
+        // Missed beacons stop being current but keep their history within the retention window
+        assertTrue(store.update(nextCycle.subList(0, 150), 3000));
+        assertEquals(300, store.size());
+        assertEquals(150, store.toListMap().size());
+        int missedIndex = store.indexOf(UUID.fromString(BEACON_UUID), 0, 65000);
+        assertTrue(missedIndex >= 0);
+        assertFalse(store.isCurrent(missedIndex));
+        assertTrue(store.isCurrent(store.indexOf(UUID.fromString(BEACON_UUID), 2, 65000)));
+
+        // Seen again, it is current again
+        assertTrue(store.update(nextCycle, 4000));
+        assertEquals(300, store.toListMap().size());
+        assertFalse(store.update(nextCycle, 5000));
+
+        // Expired entries are removed and the index stays consistent
+        assertTrue(store.update(nextCycle.subList(0, 150), 6000));
+        assertFalse(store.update(nextCycle.subList(0, 150), 5000 + RangedBeaconStore.RETENTION_MILLIS + 1));
+        assertEquals(150, store.size());
+        assertEquals(-1, store.indexOf(UUID.fromString(BEACON_UUID), 0, 65000));
+        assertTrue(store.indexOf(UUID.fromString(BEACON_UUID), 2, 65000) >= 0);
+
+        assertTrue(store.update(null, 7000 + RangedBeaconStore.RETENTION_MILLIS));
+        assertTrue(store.toListMap().isEmpty());
+        assertFalse(store.update(null, 7000 + 2 * RangedBeaconStore.RETENTION_MILLIS));
+        assertTrue(store.isEmpty());
+        assertNull(store.toListMap());
+    }
+
+    @Test
+    public void listMapMatchesChannelFormat() {
+        RangedBeaconStore store = new RangedBeaconStore();
+        store.update(Collections.singletonList(beacon(7, 8, -60)), 0);
+        List<HashMap> list = store.toListMap();
+        assertEquals(1, list.size());
+        assertEquals(BEACON_UUID, list.get(0).get("uuid"));
+        assertEquals(7, list.get(0).get("major"));
+        assertEquals(8, list.get(0).get("minor"));
+    }
+
+    @Test
+    public void eddystoneAndCustomLayoutBeaconsAreKept() {
+        RangedBeaconStore store = new RangedBeaconStore();
+        Beacon eddystone = new Beacon.Builder().
+                setId1("0x00010203040506070809").
+                setId2("0x0a0b0c0d0e0f").
+                setRssi(-60).
+                build();
+        Beacon custom = new Beacon.Builder().
+                setIdentifiers(Arrays.asList(Identifier.parse("0xbeef"), Identifier.parse("12"), Identifier.parse("0x0102030405"))).
+                setRssi(-70).
+                build();
+        assertTrue(store.update(Arrays.asList(eddystone, custom), 0));
+        assertFalse(store.update(Arrays.asList(custom, eddystone), 1000));
+        assertEquals(2, store.size());
+
+        List<HashMap> list = store.toListMap();
+        assertEquals("0x00010203040506070809", list.get(0).get("namespace"));
+        assertEquals("0x0a0b0c0d0e0f", list.get(0).get("instance"));
+        assertEquals(Arrays.asList("0xbeef", "12", "0x0102030405"), list.get(1).get("identifiers"));
+        assertNull(list.get(1).get("uuid"));
+
+        // Custom beacons differing in one identifier are separate entries
+        Beacon otherCustom = new Beacon.Builder().
+                setIdentifiers(Arrays.asList(Identifier.parse("0xbeef"), Identifier.parse("13"), Identifier.parse("0x0102030405"))).
+                setRssi(-70).
+                build();
+        assertTrue(store.update(Arrays.asList(custom, otherCustom), 2000));
+        assertEquals(2, store.size());
+        assertTrue(store.isSameBeacon(0, store, 0));
+        assertFalse(store.isSameBeacon(0, store, 1));
+    }
+
+    private static Beacon beacon(int major, int minor, int rssi) {
+        return new Beacon.Builder().
+                setId1(BEACON_UUID).
+                setId2(Integer.toString(major)).
+                setId3(Integer.toString(minor)).
+                setRssi(rssi).
+                setTxPower(-59).
+                build();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.app.Application;
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+
+import androidx.core.app.NotificationCompat;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.android.gms.location.Geofence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class RegionNotificationsTest {
+
+    private final Application application = ApplicationProvider.getApplicationContext();
+    private PluginTestHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new PluginTestHarness().attach();
+    }
+
+    @After
+    public void tearDown() {
+        harness.detach();
+    }
+
+    @Test
+    public void enterPostsTemplateWithCooldown() {
+        harness.monitor().monitorRegions(regions(600));
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("library"));
+        List<Notification> notifications = notifications();
+        assertEquals(1, notifications.size());
+        assertEquals("Welcome", notifications.get(0).extras.getString(NotificationCompat.EXTRA_TITLE));
+        assertEquals("You are at the library", notifications.get(0).extras.getString(NotificationCompat.EXTRA_TEXT));
+
+        // Re-entering within the cooldown does not notify again
+        notificationManager().cancelAll();
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_EXIT, Collections.singletonList("library"));
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("library"));
+        assertTrue(notifications().isEmpty());
+
+        // Regions without a template never notify
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("quad"));
+        assertTrue(notifications().isEmpty());
+    }
+
+    @Test
+    public void templatesSurviveColdProcess() {
+        harness.monitor().monitorRegions(regions(0));
+
+        // A new instance reads the persisted templates, as after a geofence broadcast started the process
+        RegionNotifications coldNotifications = new RegionNotifications();
+        assertTrue(coldNotifications.onRegionEnter(application, "library", 1000));
+        assertTrue(coldNotifications.onRegionEnter(application, "library", 1000));
+        assertFalse(coldNotifications.onRegionEnter(application, "quad", 1000));
+
+        RegionNotifications.Template template = new RegionNotifications.Template("Hi", null, null, 60000);
+        Map<String, RegionNotifications.Template> templates = new HashMap<>();
+        templates.put("library", template);
+        coldNotifications.setTemplates(application, templates);
+        // The last posting time is kept for regions that still have a template
+        assertFalse(new RegionNotifications().onRegionEnter(application, "library", 60999));
+        assertTrue(new RegionNotifications().onRegionEnter(application, "library", 61000));
+        assertFalse(new RegionNotifications().onRegionEnter(application, "library", 120999));
+        assertEquals(1, notifications().size());
+    }
+
+    private static List<Map<String, Object>> regions(int cooldownSeconds) {
+        HashMap<String, Object> notification = new HashMap<>();
+        notification.put("title", "Welcome");
+        notification.put("body", "You are at the library");
+        notification.put("cooldown", cooldownSeconds);
+        HashMap<String, Object> library = PluginTestHarness.geofenceEntry("library", 40.1, -88.2, 100.0);
+        library.put("notification", notification);
+        List<Map<String, Object>> regions = new ArrayList<>();
+        regions.add(library);
+        regions.add(PluginTestHarness.geofenceEntry("quad", 40.2, -88.2, 100.0));
+        return regions;
+    }
+
+    private NotificationManager notificationManager() {
+        return (NotificationManager) application.getSystemService(Context.NOTIFICATION_SERVICE);
+    }
+
+    private List<Notification> notifications() {
+        return shadowOf(notificationManager()).getAllNotifications();
+    }
+}
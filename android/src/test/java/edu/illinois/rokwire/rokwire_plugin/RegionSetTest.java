@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RegionSetTest {
+
+    @Test
+    public void staleIdsFollowDigests() {
+        RegionSet set = new RegionSet();
+        Map<String, String> digests = new HashMap<>();
+        digests.put("a", "1");
+        set.replace(Arrays.asList(region("a", 1), region("b", 1)), digests, "h1");
+        assertEquals("h1", set.getHash());
+
+        Map<String, String> dart = new HashMap<>();
+        dart.put("a", "1");
+        dart.put("b", "1");
+        dart.put("c", "1");
+        Map<String, Object> stale = set.getStale(dart);
+        // b was synced without a digest, so it is reported changed
+        assertEquals(Collections.singletonList("c"), stale.get("missing"));
+        assertEquals(Collections.singletonList("b"), stale.get("changed"));
+        assertTrue(((List<?>) stale.get("removed")).isEmpty());
+
+        assertEquals(Collections.singletonList("b"), set.getStale(Collections.singletonMap("a", "1")).get("removed"));
+    }
+
+    @Test
+    public void mutationsReportChanges() {
+        RegionSet set = new RegionSet();
+        assertTrue(set.add(Collections.singletonList(region("a", 1)), Collections.singletonMap("a", "1"), "h1"));
+        assertFalse(set.add(Collections.singletonList(region("a", 1)), Collections.singletonMap("a", "1"), "h1"));
+        assertFalse(set.update(Collections.singletonList(region("b", 1)), Collections.singletonMap("b", "1"), null));
+        assertNull(set.getHash());
+        assertEquals(1, set.size());
+
+        assertTrue(set.update(Collections.singletonList(region("a", 2)), Collections.singletonMap("a", "2"), "h2"));
+        assertEquals(2, set.getEntries().get(0).get("version"));
+        assertTrue(((List<?>) set.getStale(Collections.singletonMap("a", "2")).get("changed")).isEmpty());
+
+        assertFalse(set.remove(Collections.singletonList("b"), "h2"));
+        assertTrue(set.remove(Collections.singletonList("a"), "h3"));
+        assertEquals(0, set.size());
+        assertEquals("h3", set.getHash());
+    }
+
+    private static Map<String, Object> region(String id, int version) {
+        Map<String, Object> region = new HashMap<>();
+        region.put("id", id);
+        region.put("version", version);
+        return region;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import com.google.android.gms.location.Geofence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+import java.util.HashMap;
+
+import io.flutter.embedding.engine.plugins.FlutterPlugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class RokwireCoreTest {
+
+    private PluginTestHarness harness;
+
+    // Headless secondary engine: no Activity, own messenger
+    private final RokwirePlugin backgroundPlugin = new RokwirePlugin();
+    private final FakeBinaryMessenger backgroundMessenger = new FakeBinaryMessenger();
+
+    @Before
+    public void setUp() {
+        harness = new PluginTestHarness().attach();
+        harness.monitor().monitorRegions(Collections.singletonList(PluginTestHarness.geofenceEntry("campus", 40.1, -88.2, 500.0)));
+        harness.idleMainLooper();
+        backgroundPlugin.onAttachedToEngine(binding(backgroundMessenger));
+        backgroundMessenger.listen(RokwireCore.GEOFENCE_EVENTS_STREAM);
+        backgroundMessenger.listen(RokwireCore.REGION_STATE_STREAM);
+    }
+
+    @After
+    public void tearDown() {
+        if (RokwireCore.getInstance().getEndpointCount() > 1) {
+            backgroundPlugin.onDetachedFromEngine(binding(backgroundMessenger));
+        }
+        harness.detach();
+    }
+
+    @Test
+    public void eventsFanOutToAllEngines() {
+        assertEquals(2, RokwireCore.getInstance().getEndpointCount());
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("campus"));
+
+        assertEquals(1, harness.messenger.count("geoFence.onEnterRegion"));
+        assertEquals(1, backgroundMessenger.count("geoFence.onEnterRegion"));
+        assertEquals(1, backgroundMessenger.count("geoFence.onCurrentRegionsChanged"));
+    }
+
+    @Test
+    public void detachingSecondaryEngineKeepsMonitoring() {
+        backgroundPlugin.onDetachedFromEngine(binding(backgroundMessenger));
+        assertEquals(1, RokwireCore.getInstance().getEndpointCount());
+        assertTrue(harness.monitor().isInitialized());
+        assertTrue(harness.geofencingClient.registeredIds.contains("campus"));
+
+        backgroundMessenger.reset();
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("campus"));
+        assertEquals(1, harness.messenger.count("geoFence.onEnterRegion"));
+        assertEquals(0, backgroundMessenger.totalCount());
+    }
+
+    @Test
+    public void detachingSecondaryEngineKeepsTrace() {
+        backgroundMessenger.listen(RokwireCore.LOCATION_UPDATES_STREAM);
+        harness.messenger.listen(RokwireCore.LOCATION_TRACE_STREAM);
+        HashMap<String, Object> subscription = new HashMap<>();
+        subscription.put("id", "rokwire.trace");
+        assertEquals(false, LocationServicesTest.invoke("subscribe", subscription));
+        LocationServicesTest.invoke("startTrace", null);
+        assertTrue(LocationServices.getInstance().isTracing());
+
+        backgroundPlugin.onDetachedFromEngine(binding(backgroundMessenger));
+        assertTrue(LocationServices.getInstance().isTracing());
+
+        LocationServicesTest.invoke("stopTrace", null);
+        assertFalse(LocationServices.getInstance().isTracing());
+    }
+
+    @Test
+    public void headlessEngineAloneReceivesEvents() {
+        harness.plugin.onDetachedFromActivity();
+        harness.messenger.cancel(RokwireCore.GEOFENCE_EVENTS_STREAM);
+        harness.monitor().applyGeofenceTransition(Geofence.GEOFENCE_TRANSITION_ENTER, Collections.singletonList("campus"));
+
+        assertEquals(0, harness.messenger.count("geoFence.onEnterRegion"));
+        assertEquals(1, backgroundMessenger.count("geoFence.onEnterRegion"));
+    }
+
+    private FlutterPlugin.FlutterPluginBinding binding(FakeBinaryMessenger messenger) {
+        return new FlutterPlugin.FlutterPluginBinding(harness.application, null, messenger, null, null, null, null);
+    }
+}
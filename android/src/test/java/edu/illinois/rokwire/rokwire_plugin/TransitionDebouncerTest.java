@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.illinois.rokwire.rokwire_plugin;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class TransitionDebouncerTest {
+
+    private final List<String> events = new ArrayList<>();
+    private TransitionDebouncer debouncer;
+
+    @Before
+    public void setUp() {
+        debouncer = new TransitionDebouncer(new Handler(Looper.getMainLooper()), (entered, exited) -> {
+            for (String regionId : entered) {
+                events.add("+" + regionId);
+            }
+            for (String regionId : exited) {
+                events.add("-" + regionId);
+            }
+        });
+    }
+
+    @Test
+    public void zeroPeriodsApplyImmediately() {
+        debouncer.update(Arrays.asList("a", "b"), true);
+        debouncer.update(Collections.singletonList("a"), true);
+        debouncer.update(Collections.singletonList("c"), false);
+        debouncer.update(Collections.singletonList("a"), false);
+        assertEquals(Arrays.asList("+a", "+b", "-a"), events);
+    }
+
+    @Test
+    public void oscillationCollapses() {
+        debouncer.setPeriods(2000, 5000);
+
+        // Enter is confirmed only if not withdrawn within the confirmation period
+        debouncer.update(Collections.singletonList("a"), true);
+        advance(1000);
+        debouncer.update(Collections.singletonList("a"), false);
+        advance(5000);
+        assertTrue(events.isEmpty());
+
+        debouncer.update(Collections.singletonList("a"), true);
+        advance(1000);
+        // A repeated enter keeps the original deadline
+        debouncer.update(Collections.singletonList("a"), true);
+        advance(1250);
+        assertEquals(Collections.singletonList("+a"), events);
+
+        // Exits within the grace period are absorbed by the next enter
+        for (int cycle = 0; cycle < 10; cycle++) {
+            debouncer.update(Collections.singletonList("a"), false);
+            advance(1000);
+            debouncer.update(Collections.singletonList("a"), true);
+            advance(1000);
+        }
+        assertEquals(Collections.singletonList("+a"), events);
+        assertEquals(11L, debouncer.getStats().get("collapsed"));
+
+        debouncer.update(Collections.singletonList("a"), false);
+        advance(4000);
+        assertTrue(debouncer.isPending("a"));
+        advance(1250);
+        assertFalse(debouncer.isPending("a"));
+        assertEquals(Arrays.asList("+a", "-a"), events);
+        assertEquals(0, debouncer.getStats().get("pending"));
+    }
+
+    @Test
+    public void settlesOnceNothingIsPending() {
+        int[] settled = {0};
+        debouncer.whenSettled(() -> settled[0]++);
+        assertEquals(1, settled[0]);
+
+        debouncer.setPeriods(2000, 0);
+        debouncer.update(Collections.singletonList("a"), true);
+        debouncer.whenSettled(() -> settled[0]++);
+        advance(1000);
+        assertEquals(1, settled[0]);
+        advance(1250);
+        assertEquals(Collections.singletonList("+a"), events);
+        assertEquals(2, settled[0]);
+    }
+
+    @Test
+    public void deadlinesBeyondOneWheelTurn() {
+        long grace = TransitionDebouncer.TICK_MILLIS * TransitionDebouncer.WHEEL_SIZE * 3 + 100;
+        debouncer.update(Collections.singletonList("a"), true);
+        debouncer.setPeriods(0, grace);
+        debouncer.update(Collections.singletonList("a"), false);
+        advance(grace - 500);
+        assertEquals(Collections.singletonList("+a"), events);
+        advance(750);
+        assertEquals(Arrays.asList("+a", "-a"), events);
+    }
+
+    @Test
+    public void removedRegionsReportNothing() {
+        debouncer.setPeriods(1000, 1000);
+        debouncer.update(Arrays.asList("a", "b"), true);
+        debouncer.remove("a");
+        advance(1500);
+        assertEquals(Collections.singletonList("+b"), events);
+    }
+
+    private static void advance(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+    }
+}
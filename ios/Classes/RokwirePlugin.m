@@ -218,11 +218,15 @@ static RokwirePlugin *_sharedInstance = nil;
 		content.body = [parameters rokwireStringForKey:@"body"];
 		content.sound = [parameters rokwireBoolForKey:@"sound" defaults:true] ? [UNNotificationSound defaultSound] : nil;
 		
+		// A future dateTime (ms since epoch) delays the notification, an id replaces the pending one with the same id
+		NSNumber* dateTime = [parameters rokwireNumberForKey:@"dateTime"];
+		NSTimeInterval delay = (dateTime != nil) ? (dateTime.doubleValue / 1000.0 - [[NSDate date] timeIntervalSince1970]) : 0;
 		UNTimeIntervalNotificationTrigger* trigger = [UNTimeIntervalNotificationTrigger
-														triggerWithTimeInterval:1 repeats:NO];
+														triggerWithTimeInterval:MAX(delay, 1) repeats:NO];
 		
+		NSString* identifier = [parameters rokwireStringForKey:@"id"] ?: @"edu.illinois.rokwire.poll.created";
 		UNNotificationRequest* request = [UNNotificationRequest
-											requestWithIdentifier:@"edu.illinois.rokwire.poll.created" content:content trigger:trigger];
+											requestWithIdentifier:identifier content:content trigger:trigger];
 		
 		UNUserNotificationCenter* center = [UNUserNotificationCenter currentNotificationCenter];
 		[center addNotificationRequest:request withCompletionHandler:^(NSError * _Nullable error) {
@@ -24,9 +24,13 @@ class GeoFenceRegion {
   final Set<String>? types;
   final String? name;
   final bool? enabled;
+  final String? parentId;
+  final int? priority;
+  final GeoFenceNotification? notification;
+  final GeoFenceTuning? tuning;
   final dynamic data;
   
-  GeoFenceRegion({this.id, this.types, this.name, this.enabled, this.data});
+  GeoFenceRegion({this.id, this.types, this.name, this.enabled, this.parentId, this.priority, this.notification, this.tuning, this.data});
 
   static GeoFenceRegion? fromJson(Map<String, dynamic>? json) {
     return (json != null) ? GeoFenceRegion(
@@ -34,6 +38,10 @@ class GeoFenceRegion {
       types: JsonUtils.setStringsValue(json['types']),
       name: JsonUtils.stringValue(json['name']),
       enabled: JsonUtils.boolValue(json['enabled']),
+      parentId: JsonUtils.stringValue(json['parent_id']),
+      priority: JsonUtils.intValue(json['priority']),
+      notification: GeoFenceNotification.fromJson(JsonUtils.mapValue(json['notification'])),
+      tuning: GeoFenceTuning.fromJson(JsonUtils.mapValue(json['tuning'])),
       data: GeoFenceLocation.fromJson(JsonUtils.mapValue(json['location'])) ?? GeoFenceBeacon.fromJson(JsonUtils.mapValue(json['beacon'])),
     ) : null;
   }
@@ -45,6 +53,18 @@ class GeoFenceRegion {
       'name': name,
       'enabled': enabled,
     };
+    if (parentId != null) {
+      json['parent_id'] = parentId;
+    }
+    if (priority != null) {
+      json['priority'] = priority;
+    }
+    if (notification != null) {
+      json['notification'] = notification!.toJson();
+    }
+    if (tuning != null) {
+      json['tuning'] = tuning!.toJson();
+    }
     if (data is GeoFenceLocation) {
       json['location'] = (data as GeoFenceLocation).toJson(radius: locationRadius);
     } 
@@ -134,6 +154,10 @@ class GeoFenceRegion {
       const DeepCollectionEquality().equals(types, other.types) &&
       (name == other.name) &&
       (enabled == other.enabled) &&
+      (parentId == other.parentId) &&
+      (priority == other.priority) &&
+      (notification == other.notification) &&
+      (tuning == other.tuning) &&
       (
         ((data == null) && (other.data == null)) ||
         ((data != null) && (other.data != null) && (data == other.data))
@@ -147,33 +171,153 @@ class GeoFenceRegion {
       const DeepCollectionEquality().hash(types) ^
       (name?.hashCode ?? 0) ^
       (enabled?.hashCode ?? 0) ^
+      (parentId?.hashCode ?? 0) ^
+      (priority?.hashCode ?? 0) ^
+      (notification?.hashCode ?? 0) ^
+      (tuning?.hashCode ?? 0) ^
       (data?.hashCode ?? 0);
   }
 }
 
 enum GeoFenceRegionType { location, beacon}
 
+/// Play Services geofence settings of a location region. Slow [responsiveness] and [GeoFenceTransition.dwell]
+/// transitions suit regions that only feed background analytics; an empty [initialTrigger] disables the initial trigger.
+/// Exit is always registered along with enter or dwell.
+class GeoFenceTuning {
+  final Duration? responsiveness;
+  final Set<GeoFenceTransition>? transitions;
+  final Duration? loiteringDelay;
+  final Duration? expiration;
+  final Set<GeoFenceTransition>? initialTrigger;
+
+  GeoFenceTuning({this.responsiveness, this.transitions, this.loiteringDelay, this.expiration, this.initialTrigger});
+
+  static GeoFenceTuning? fromJson(Map<String, dynamic>? json) {
+    return (json != null) ? GeoFenceTuning(
+      responsiveness: _durationFromJson(json['responsiveness']),
+      transitions: GeoFenceTransition.setFromJson(json['transitions']),
+      loiteringDelay: _durationFromJson(json['loitering_delay']),
+      expiration: _durationFromJson(json['expiration']),
+      initialTrigger: GeoFenceTransition.setFromJson(json['initial_trigger']),
+    ) : null;
+  }
+
+  toJson() {
+    return {
+      'responsiveness': responsiveness?.inSeconds,
+      'transitions': GeoFenceTransition.setToJson(transitions),
+      'loitering_delay': loiteringDelay?.inSeconds,
+      'expiration': expiration?.inSeconds,
+      'initial_trigger': GeoFenceTransition.setToJson(initialTrigger),
+    };
+  }
+
+  static Duration? _durationFromJson(dynamic value) {
+    int? seconds = JsonUtils.intValue(value);
+    return (seconds != null) ? Duration(seconds: seconds) : null;
+  }
+
+  @override
+  bool operator==(Object other) =>
+    (other is GeoFenceTuning) &&
+    (responsiveness == other.responsiveness) &&
+    const SetEquality<GeoFenceTransition>().equals(transitions, other.transitions) &&
+    (loiteringDelay == other.loiteringDelay) &&
+    (expiration == other.expiration) &&
+    const SetEquality<GeoFenceTransition>().equals(initialTrigger, other.initialTrigger);
+
+  @override
+  int get hashCode =>
+    (responsiveness?.hashCode ?? 0) ^
+    const SetEquality<GeoFenceTransition>().hash(transitions) ^
+    (loiteringDelay?.hashCode ?? 0) ^
+    (expiration?.hashCode ?? 0) ^
+    const SetEquality<GeoFenceTransition>().hash(initialTrigger);
+}
+
+enum GeoFenceTransition { enter, exit, dwell;
+
+  static Set<GeoFenceTransition>? setFromJson(dynamic value) {
+    List<String>? names = JsonUtils.listStringsValue(value);
+    return (names != null) ? GeoFenceTransition.values.where((GeoFenceTransition transition) => names.contains(transition.name)).toSet() : null;
+  }
+
+  static List<String>? setToJson(Set<GeoFenceTransition>? transitions) =>
+    transitions?.map((GeoFenceTransition transition) => transition.name).toList();
+}
+
+/// Notification posted natively when the region is entered, at most once per [cooldown].
+class GeoFenceNotification {
+  final String? title;
+  final String? body;
+  final String? channel;
+  final Duration? cooldown;
+
+  GeoFenceNotification({this.title, this.body, this.channel, this.cooldown});
+
+  static GeoFenceNotification? fromJson(Map<String, dynamic>? json) {
+    int? cooldown = (json != null) ? JsonUtils.intValue(json['cooldown']) : null;
+    return (json != null) ? GeoFenceNotification(
+      title: JsonUtils.stringValue(json['title']),
+      body: JsonUtils.stringValue(json['body']),
+      channel: JsonUtils.stringValue(json['channel']),
+      cooldown: (cooldown != null) ? Duration(seconds: cooldown) : null,
+    ) : null;
+  }
+
+  toJson() {
+    return {
+      'title': title,
+      'body': body,
+      'channel': channel,
+      'cooldown': cooldown?.inSeconds,
+    };
+  }
+
+  @override
+  bool operator==(Object other) =>
+    (other is GeoFenceNotification) &&
+    (title == other.title) &&
+    (body == other.body) &&
+    (channel == other.channel) &&
+    (cooldown == other.cooldown);
+
+  @override
+  int get hashCode =>
+    (title?.hashCode ?? 0) ^
+    (body?.hashCode ?? 0) ^
+    (channel?.hashCode ?? 0) ^
+    (cooldown?.hashCode ?? 0);
+}
+
 class GeoFenceLocation {
   final double? latitude;
   final double? longitude;
   final double? radius;
+  final List<GeoFencePoint>? polygon;
 
-  GeoFenceLocation({this.latitude, this.longitude, this.radius});
+  GeoFenceLocation({this.latitude, this.longitude, this.radius, this.polygon});
 
   static GeoFenceLocation? fromJson(Map<String, dynamic>? json) {
     return (json != null) ? GeoFenceLocation(
       latitude: JsonUtils.doubleValue(json['latitude']),
       longitude: JsonUtils.doubleValue(json['longitude']),
       radius: JsonUtils.doubleValue(json['radius']),
+      polygon: GeoFencePoint.listFromJsonList(JsonUtils.listValue(json['polygon'])),
     ) : null;
   }
 
   toJson({double? radius}) {
-    return {
+    Map<String, dynamic> json = {
       'latitude': latitude,
       'longitude': longitude,
       'radius': radius ?? this.radius,
     };
+    if (polygon != null) {
+      json['polygon'] = GeoFencePoint.listToJsonList(polygon);
+    }
+    return json;
   }
 
   @override
@@ -181,7 +325,8 @@ class GeoFenceLocation {
     bool value = (other is GeoFenceLocation) &&
       (latitude == other.latitude) &&
       (longitude == other.longitude) &&
-      (radius == other.radius);
+      (radius == other.radius) &&
+      const DeepCollectionEquality().equals(polygon, other.polygon);
       return value;
   }
 
@@ -190,7 +335,65 @@ class GeoFenceLocation {
     return
       (latitude?.hashCode ?? 0) ^
       (longitude?.hashCode ?? 0) ^
-      (radius?.hashCode ?? 0);
+      (radius?.hashCode ?? 0) ^
+      const DeepCollectionEquality().hash(polygon);
+  }
+}
+
+class GeoFencePoint {
+  final double? latitude;
+  final double? longitude;
+
+  GeoFencePoint({this.latitude, this.longitude});
+
+  static GeoFencePoint? fromJson(Map<String, dynamic>? json) {
+    return (json != null) ? GeoFencePoint(
+      latitude: JsonUtils.doubleValue(json['latitude']),
+      longitude: JsonUtils.doubleValue(json['longitude']),
+    ) : null;
+  }
+
+  toJson() {
+    return {
+      'latitude': latitude,
+      'longitude': longitude,
+    };
+  }
+
+  @override
+  bool operator==(Object other) =>
+    (other is GeoFencePoint) &&
+      (latitude == other.latitude) &&
+      (longitude == other.longitude);
+
+  @override
+  int get hashCode =>
+    (latitude?.hashCode ?? 0) ^
+    (longitude?.hashCode ?? 0);
+
+  static List<GeoFencePoint>? listFromJsonList(List<dynamic>? values) {
+    List<GeoFencePoint>? points;
+    if (values != null) {
+      points = <GeoFencePoint>[];
+      for (dynamic value in values) {
+        GeoFencePoint? point = GeoFencePoint.fromJson(JsonUtils.mapValue(value));
+        if (point != null) {
+          points.add(point);
+        }
+      }
+    }
+    return points;
+  }
+
+  static List<dynamic>? listToJsonList(List<GeoFencePoint>? points) {
+    List<dynamic>? jsonList;
+    if (points != null) {
+      jsonList = <dynamic>[];
+      for (GeoFencePoint point in points) {
+        jsonList.add(point.toJson());
+      }
+    }
+    return jsonList;
   }
 }
 
@@ -199,13 +402,23 @@ class GeoFenceBeacon {
   final int? major;
   final int? minor;
 
-  GeoFenceBeacon({this.uuid, this.major, this.minor});
+  // Eddystone-UID beacons
+  final String? namespace;
+  final String? instance;
+
+  // Beacons parsed by custom layouts
+  final List<String>? identifiers;
+
+  GeoFenceBeacon({this.uuid, this.major, this.minor, this.namespace, this.instance, this.identifiers});
 
   static GeoFenceBeacon? fromJson(Map<String, dynamic>? json) {
     return (json != null) ? GeoFenceBeacon(
       uuid: JsonUtils.stringValue(json['uuid']),
       major: JsonUtils.intValue(json['major']),
       minor: JsonUtils.intValue(json['minor']),
+      namespace: JsonUtils.stringValue(json['namespace']),
+      instance: JsonUtils.stringValue(json['instance']),
+      identifiers: JsonUtils.listStringsValue(json['identifiers']),
     ) : null;
   }
 
@@ -214,6 +427,9 @@ class GeoFenceBeacon {
       'uuid': uuid,
       'major': major,
       'minor': minor,
+      if (namespace != null) 'namespace': namespace,
+      if (instance != null) 'instance': instance,
+      if (identifiers != null) 'identifiers': identifiers,
     };
   }
 
@@ -221,7 +437,10 @@ class GeoFenceBeacon {
     return (beacon != null) &&
       ((uuid == null) || (uuid == beacon.uuid)) &&
       ((major == null) || (major == beacon.major)) &&
-      ((minor == null) || (minor == beacon.minor));
+      ((minor == null) || (minor == beacon.minor)) &&
+      ((namespace == null) || (namespace == beacon.namespace)) &&
+      ((instance == null) || (instance == beacon.instance)) &&
+      ((identifiers == null) || const DeepCollectionEquality().equals(identifiers, beacon.identifiers));
   }
 
   @override
@@ -229,7 +448,10 @@ class GeoFenceBeacon {
     bool value = (other is GeoFenceBeacon) &&
       (uuid == other.uuid) &&
       (major == other.major) &&
-      (minor == other.minor);
+      (minor == other.minor) &&
+      (namespace == other.namespace) &&
+      (instance == other.instance) &&
+      const DeepCollectionEquality().equals(identifiers, other.identifiers);
       return value;
   }
 
@@ -238,7 +460,10 @@ class GeoFenceBeacon {
     return
       (uuid?.hashCode ?? 0) ^
       (major?.hashCode ?? 0) ^
-      (minor?.hashCode ?? 0);
+      (minor?.hashCode ?? 0) ^
+      (namespace?.hashCode ?? 0) ^
+      (instance?.hashCode ?? 0) ^
+      const DeepCollectionEquality().hash(identifiers);
   }
 
   static List<GeoFenceBeacon>? listFromJsonList(List? values) {
@@ -255,3 +480,89 @@ class GeoFenceBeacon {
     return beacons;
   }
 }
+
+class GeoFenceNearBeacon {
+  final GeoFenceBeacon? beacon;
+  final String? regionId;
+  final double? distance;
+  final double? rssi;
+  final double? confidence;
+  final int? samples;
+
+  GeoFenceNearBeacon({this.beacon, this.regionId, this.distance, this.rssi, this.confidence, this.samples});
+
+  static GeoFenceNearBeacon? fromJson(Map<String, dynamic>? json) {
+    return (json != null) ? GeoFenceNearBeacon(
+      beacon: GeoFenceBeacon.fromJson(json),
+      regionId: JsonUtils.stringValue(json['regionId']),
+      distance: JsonUtils.doubleValue(json['distance']),
+      rssi: JsonUtils.doubleValue(json['rssi']),
+      confidence: JsonUtils.doubleValue(json['confidence']),
+      samples: JsonUtils.intValue(json['samples']),
+    ) : null;
+  }
+
+  static List<GeoFenceNearBeacon>? listFromJsonList(List? values) {
+    List<GeoFenceNearBeacon>? beacons;
+    if (values != null) {
+      beacons = <GeoFenceNearBeacon>[];
+      for (dynamic value in values) {
+        GeoFenceNearBeacon? beacon = GeoFenceNearBeacon.fromJson(JsonUtils.mapValue(value));
+        if (beacon != null) {
+          beacons.add(beacon);
+        }
+      }
+    }
+    return beacons;
+  }
+}
+
+class GeoFenceAnchor {
+  final GeoFenceBeacon beacon;
+  final double latitude;
+  final double longitude;
+
+  GeoFenceAnchor({required this.beacon, required this.latitude, required this.longitude});
+
+  toJson() {
+    return {
+      'uuid': beacon.uuid,
+      'major': beacon.major,
+      'minor': beacon.minor,
+      'latitude': latitude,
+      'longitude': longitude,
+    };
+  }
+
+  static List<dynamic>? listToJsonList(Iterable<GeoFenceAnchor>? anchors) {
+    List<dynamic>? jsonList;
+    if (anchors != null) {
+      jsonList = [];
+      for (GeoFenceAnchor anchor in anchors) {
+        jsonList.add(anchor.toJson());
+      }
+    }
+    return jsonList;
+  }
+}
+
+class GeoFencePosition {
+  final double? latitude;
+  final double? longitude;
+  final double? accuracy;
+  final int? anchors;
+  final DateTime? timestamp;
+
+  GeoFencePosition({this.latitude, this.longitude, this.accuracy, this.anchors, this.timestamp});
+
+  static GeoFencePosition? fromJson(Map<String, dynamic>? json) {
+    int? timestamp = (json != null) ? JsonUtils.intValue(json['timestamp']) : null;
+    return (json != null) ? GeoFencePosition(
+      latitude: JsonUtils.doubleValue(json['latitude']),
+      longitude: JsonUtils.doubleValue(json['longitude']),
+      accuracy: JsonUtils.doubleValue(json['accuracy']),
+      anchors: JsonUtils.intValue(json['anchors']),
+      timestamp: (timestamp != null) ? DateTime.fromMillisecondsSinceEpoch(timestamp) : null,
+    ) : null;
+  }
+}
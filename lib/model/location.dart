@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import 'dart:typed_data';
+
+import 'package:rokwire_plugin/utils/utils.dart';
+
+enum LocationUpdatesAccuracy { high, balanced, low, passive }
+
+class LocationFix {
+  final double? latitude;
+  final double? longitude;
+  final double? accuracy;
+  final double? altitude;
+  final double? speed;
+  final double? heading;
+  final DateTime? timestamp;
+
+  LocationFix({this.latitude, this.longitude, this.accuracy, this.altitude, this.speed, this.heading, this.timestamp});
+
+  static LocationFix? fromJson(Map<String, dynamic>? json) {
+    int? timestamp = (json != null) ? JsonUtils.intValue(json['timestamp']) : null;
+    return (json != null) ? LocationFix(
+      latitude: JsonUtils.doubleValue(json['latitude']),
+      longitude: JsonUtils.doubleValue(json['longitude']),
+      accuracy: JsonUtils.doubleValue(json['accuracy']),
+      altitude: JsonUtils.doubleValue(json['altitude']),
+      speed: JsonUtils.doubleValue(json['speed']),
+      heading: JsonUtils.doubleValue(json['heading']),
+      timestamp: (timestamp != null) ? DateTime.fromMillisecondsSinceEpoch(timestamp) : null,
+    ) : null;
+  }
+
+  static List<LocationFix>? listFromJsonList(List<dynamic>? values) {
+    List<LocationFix>? fixes;
+    if (values != null) {
+      fixes = <LocationFix>[];
+      for (dynamic value in values) {
+        LocationFix? fix = LocationFix.fromJson(JsonUtils.mapValue(value));
+        if (fix != null) {
+          fixes.add(fix);
+        }
+      }
+    }
+    return fixes;
+  }
+}
+
+/// A chunk of a natively simplified location trace. Points are zigzag varint triplets of latitude and
+/// longitude in microdegrees and time in milliseconds; the first one is absolute, the rest are deltas.
+class LocationTraceChunk {
+  final int? sequence;
+  final int? points;
+  final Uint8List? data;
+
+  LocationTraceChunk({this.sequence, this.points, this.data});
+
+  static LocationTraceChunk? fromJson(Map<String, dynamic>? json) {
+    dynamic data = (json != null) ? json['data'] : null;
+    return (json != null) ? LocationTraceChunk(
+      sequence: JsonUtils.intValue(json['sequence']),
+      points: JsonUtils.intValue(json['points']),
+      data: (data is Uint8List) ? data : null,
+    ) : null;
+  }
+
+  static List<LocationTraceChunk>? listFromJsonList(List<dynamic>? values) {
+    List<LocationTraceChunk>? chunks;
+    if (values != null) {
+      chunks = <LocationTraceChunk>[];
+      for (dynamic value in values) {
+        LocationTraceChunk? chunk = LocationTraceChunk.fromJson(JsonUtils.mapValue(value));
+        if (chunk != null) {
+          chunks.add(chunk);
+        }
+      }
+    }
+    return chunks;
+  }
+
+  List<LocationFix> decode() {
+    List<LocationFix> fixes = <LocationFix>[];
+    Uint8List? bytes = data;
+    if ((bytes != null) && (points != null)) {
+      int offset = 0, latitude = 0, longitude = 0, time = 0;
+      int readVarint() {
+        int value = 0, shift = 0, current;
+        do {
+          current = bytes[offset++];
+          value |= (current & 0x7f) << shift;
+          shift += 7;
+        } while ((current & 0x80) != 0);
+        return (value >> 1) ^ -(value & 1);
+      }
+      for (int index = 0; index < points!; index++) {
+        latitude += readVarint();
+        longitude += readVarint();
+        time += readVarint();
+        fixes.add(LocationFix(latitude: latitude / 1e6, longitude: longitude / 1e6, timestamp: DateTime.fromMillisecondsSinceEpoch(time)));
+      }
+    }
+    return fixes;
+  }
+}
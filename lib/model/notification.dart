@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Board of Trustees of the University of Illinois.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import 'package:rokwire_plugin/utils/utils.dart';
+
+class ScheduledNotification {
+  final String id;
+  final DateTime dateTime;
+  final String? title;
+  final String? subtitle;
+  final String? body;
+  final bool sound;
+  final String? channel;
+
+  ScheduledNotification({required this.id, required this.dateTime, this.title, this.subtitle, this.body, this.sound = true, this.channel});
+
+  static ScheduledNotification? fromJson(Map<String, dynamic>? json) {
+    String? id = (json != null) ? JsonUtils.stringValue(json['id']) : null;
+    int? dateTime = (json != null) ? JsonUtils.intValue(json['dateTime']) : null;
+    return ((json != null) && (id != null) && (dateTime != null)) ? ScheduledNotification(
+      id: id,
+      dateTime: DateTime.fromMillisecondsSinceEpoch(dateTime),
+      title: JsonUtils.stringValue(json['title']),
+      subtitle: JsonUtils.stringValue(json['subtitle']),
+      body: JsonUtils.stringValue(json['body']),
+      sound: JsonUtils.boolValue(json['sound']) ?? true,
+      channel: JsonUtils.stringValue(json['channel']),
+    ) : null;
+  }
+
+  toJson() {
+    return {
+      'id': id,
+      'dateTime': dateTime.millisecondsSinceEpoch,
+      'title': title,
+      'subtitle': subtitle,
+      'body': body,
+      'sound': sound,
+      'channel': channel,
+    };
+  }
+
+  static List<ScheduledNotification>? listFromJsonList(List<dynamic>? values) {
+    List<ScheduledNotification>? notifications;
+    if (values != null) {
+      notifications = <ScheduledNotification>[];
+      for (dynamic value in values) {
+        ScheduledNotification? notification = ScheduledNotification.fromJson(JsonUtils.mapValue(value));
+        if (notification != null) {
+          notifications.add(notification);
+        }
+      }
+    }
+    return notifications;
+  }
+}
@@ -4,7 +4,9 @@ import 'dart:async';
 import 'package:flutter/foundation.dart';
 import 'package:flutter/services.dart';
 import 'package:flutter_local_notifications/flutter_local_notifications.dart';
+import 'package:rokwire_plugin/model/notification.dart';
 import 'package:rokwire_plugin/service/geo_fence.dart';
+import 'package:rokwire_plugin/utils/utils.dart';
 
 class RokwirePlugin {
   static final MethodChannel _channel = _createChannel('edu.illinois.rokwire/plugin', _handleChannelCall);
@@ -33,17 +35,43 @@ class RokwirePlugin {
     return null;
   }
 
-  static Future<bool?> showNotification({ String? title, String? subtitle, String? body, bool sound = true }) async {
+  // A future dateTime schedules the notification natively, under the given id if any.
+  static Future<bool?> showNotification({ String? title, String? subtitle, String? body, bool sound = true, String? id, DateTime? dateTime }) async {
     try { return await _channel.invokeMethod('showNotification', {
       'title': title,
       'subtitle': subtitle,
       'body': body,
       'sound': sound,
+      'id': id,
+      'dateTime': dateTime?.millisecondsSinceEpoch,
     }); }
     catch(e) { debugPrint(e.toString()); }
     return null;
   }
 
+  // Schedules or replaces notifications by id. Notifications due close together share a single wakeup,
+  // so each may be posted a few minutes early. Returns the number scheduled.
+  static Future<int?> scheduleNotifications(List<ScheduledNotification> notifications) async {
+    try { return await _channel.invokeMethod('scheduleNotifications', notifications.map((notification) => notification.toJson()).toList()); }
+    catch(e) { debugPrint(e.toString()); }
+    return null;
+  }
+
+  // Cancels the scheduled notifications with the given ids, or all of them. Returns the number cancelled.
+  static Future<int?> cancelNotifications([List<String>? ids]) async {
+    try { return await _channel.invokeMethod('cancelNotifications', ids); }
+    catch(e) { debugPrint(e.toString()); }
+    return null;
+  }
+
+  static Future<List<ScheduledNotification>?> scheduledNotifications() async {
+    try {
+      return ScheduledNotification.listFromJsonList(JsonUtils.listValue(await _channel.invokeMethod('scheduledNotifications')));
+    }
+    catch(e) { debugPrint(e.toString()); }
+    return null;
+  }
+
   static Future<String?> getDeviceId([String? identifier, String? identifier2]) async {
     try { return await _channel.invokeMethod('getDeviceId', {
       'identifier': identifier,
@@ -14,10 +14,14 @@
  * limitations under the License.
  */
 
+import 'dart:async';
 import 'dart:collection';
+import 'dart:convert';
 import 'dart:core';
 import 'package:flutter/foundation.dart';
+import 'package:flutter/services.dart';
 import 'package:collection/collection.dart';
+import 'package:pointycastle/digests/sha256.dart';
 
 import 'package:rokwire_plugin/model/geo_fence.dart';
 import 'package:rokwire_plugin/rokwire_plugin.dart';
@@ -33,9 +37,17 @@ class GeoFence with Service, NotificationsListener implements ContentItemCategor
   static const String notifyRegionExit             = "edu.illinois.rokwire.geofence.region.exit";
   static const String notifyCurrentRegionsUpdated  = "edu.illinois.rokwire.geofence.regions.current.updated";
   static const String notifyCurrentBeaconsUpdated  = "edu.illinois.rokwire.geofence.beacons.current.updated";
+  static const String notifyPositionUpdated        = "edu.illinois.rokwire.geofence.position.updated";
   
   static const String _regionContentCategory = "region";
 
+  static const List<EventChannel> _eventChannels = <EventChannel>[
+    EventChannel('edu.illinois.rokwire/geofence_events'),
+    EventChannel('edu.illinois.rokwire/region_state'),
+    EventChannel('edu.illinois.rokwire/beacon_events'),
+  ];
+  final List<StreamSubscription<dynamic>> _eventSubscriptions = <StreamSubscription<dynamic>>[];
+
   LinkedHashMap<String, GeoFenceRegion>? _regions;
   Map<String, bool> _regionOverrides = <String, bool>{};
   Set<String> _insideRegions = <String>{};
@@ -65,11 +77,20 @@ class GeoFence with Service, NotificationsListener implements ContentItemCategor
     NotificationService().subscribe(this, [
       Content.notifyContentItemsChanged,
     ]);
+    for (EventChannel channel in _eventChannels) {
+      _eventSubscriptions.add(channel.receiveBroadcastStream().listen(_onPluginEvent, onError: (e) {
+        debugPrint(e.toString());
+      }));
+    }
   }
 
   @override
   void destroyService() {
     NotificationService().unsubscribe(this);
+    for (StreamSubscription<dynamic> subscription in _eventSubscriptions) {
+      subscription.cancel();
+    }
+    _eventSubscriptions.clear();
   }
 
   @override
@@ -157,6 +178,77 @@ class GeoFence with Service, NotificationsListener implements ContentItemCategor
     return JsonUtils.boolValue(await RokwirePlugin.geoFence('stopRangingBeaconsInRegion', regionId));
   }
 
+  Future<void> setBeaconRegionBudget(int budget) async {
+    await RokwirePlugin.geoFence('setBeaconRegionBudget', budget);
+  }
+
+  Future<bool?> setBeaconLayouts(List<String> layouts) async {
+    return JsonUtils.boolValue(await RokwirePlugin.geoFence('setBeaconLayouts', layouts));
+  }
+
+  /// Scans beacons from a foreground service showing an ongoing notification, so background scans keep the
+  /// foreground cycle. Pass `enabled: false` to return to the default background scanning. Android only.
+  Future<bool?> setBeaconForegroundService({String? title, String? body, String? channel, bool enabled = true}) async {
+    return JsonUtils.boolValue(await RokwirePlugin.geoFence('setBeaconForegroundService', enabled ? {
+      'title': title,
+      'body': body,
+      'channel': channel,
+    } : null));
+  }
+
+  /// Beacon scan counters: `parsed` advertisements, `unmatched` ones that reached the app but matched no layout, plus scan `mode` and `scanning`.
+  Future<Map<String, dynamic>?> beaconScanStats() async {
+    return JsonUtils.mapValue(await RokwirePlugin.geoFence('beaconScanStats'));
+  }
+
+  /// Posted, delivered, coalesced, dropped, acked and timed out beacon notification counts.
+  Future<Map<String, dynamic>?> beaconEventStats() async {
+    return JsonUtils.mapValue(await RokwirePlugin.geoFence('beaconEventStats'));
+  }
+
+  /// Enter and exit transitions from geofences and beacons are reported only after holding for these periods.
+  /// The periods are stored natively, so a process started in the background by a geofence debounces too.
+  Future<void> setTransitionDebounce({ Duration? enterConfirmation, Duration? exitGrace }) async {
+    await RokwirePlugin.geoFence('setTransitionDebounce', {
+      'enter': (enterConfirmation?.inMilliseconds ?? 0) / 1000.0,
+      'exit': (exitGrace?.inMilliseconds ?? 0) / 1000.0,
+    });
+  }
+
+  /// Raw input, collapsed and stable transition counts of the native debouncer.
+  Future<Map<String, dynamic>?> transitionStats() async {
+    return JsonUtils.mapValue(await RokwirePlugin.geoFence('transitionStats'));
+  }
+
+  /// Per-region dwell aggregates kept natively: {buckets: [upper bounds in ms], regions: {id: {visits, total, last, histogram, enteredAt}}}.
+  Future<Map<String, dynamic>?> dwellStats() async {
+    return JsonUtils.mapValue(await RokwirePlugin.geoFence('dwellStats'));
+  }
+
+  /// Clears the dwell aggregates of the given regions, or of all regions.
+  Future<void> resetDwellStats([List<String>? regionIds]) async {
+    await RokwirePlugin.geoFence('resetDwellStats', regionIds);
+  }
+
+  Future<List<GeoFenceNearBeacon>?> nearestBeacons({ int? count, int? window }) async {
+    return GeoFenceNearBeacon.listFromJsonList(JsonUtils.listValue(await RokwirePlugin.geoFence('nearestBeacons', {
+      if (count != null) 'count': count,
+      if (window != null) 'window': window,
+    })));
+  }
+
+  Future<void> setPositioningAnchors(List<GeoFenceAnchor> anchors, { int? publishInterval, double? smoothing }) async {
+    await RokwirePlugin.geoFence('setPositioningAnchors', {
+      'anchors': GeoFenceAnchor.listToJsonList(anchors),
+      if (publishInterval != null) 'publishInterval': publishInterval,
+      if (smoothing != null) 'smoothing': smoothing,
+    });
+  }
+
+  Future<GeoFencePosition?> position() async {
+    return GeoFencePosition.fromJson(JsonUtils.mapValue(await RokwirePlugin.geoFence('position')));
+  }
+
   Future<List<GeoFenceBeacon>?> beaconsInRegion(String regionId) async {
     return GeoFenceBeacon.listFromJsonList(JsonUtils.listValue(await RokwirePlugin.geoFence('getBeaconsInRegion', regionId)));
   }
@@ -200,9 +292,62 @@ class GeoFence with Service, NotificationsListener implements ContentItemCategor
 
   @protected
   Future<void> monitorRegions() async {
-    await RokwirePlugin.geoFence('monitorRegions', GeoFenceRegion.listToJsonList(GeoFenceRegion.filterList(_regions?.values, shouldMonitorRegion), locationRadius: _debugRegionRadius?.toDouble()));
+    await _syncRegions(GeoFenceRegion.listToJsonList(GeoFenceRegion.filterList(_regions?.values, shouldMonitorRegion), locationRadius: _debugRegionRadius?.toDouble()) ?? []);
+  }
+
+  // Sends nothing when the native region set hash matches, otherwise only the regions reported stale against
+  // per-region digests. Falls back to the full list where delta sync is not supported.
+  Future<void> _syncRegions(List<dynamic> regions) async {
+    Map<String, dynamic> regionsById = <String, dynamic>{};
+    Map<String, String> digests = <String, String>{};
+    for (dynamic region in regions) {
+      String? id = JsonUtils.stringValue(region['id']);
+      if (id != null) {
+        regionsById[id] = region;
+        digests[id] = _digest(jsonEncode(region));
+      }
+    }
+    List<String> ids = List<String>.from(digests.keys)..sort();
+    String hash = _digest(ids.map((String id) => '$id:${digests[id]}').join('\n'));
+    if (await RokwirePlugin.geoFence('regionSetHash') == hash) {
+      return;
+    }
+
+    Map<String, dynamic>? stale = JsonUtils.mapValue(await RokwirePlugin.geoFence('staleRegions', digests));
+    if (stale == null) {
+      await RokwirePlugin.geoFence('monitorRegions', regions);
+      return;
+    }
+    List<String> missing = JsonUtils.listStringsValue(stale['missing']) ?? <String>[];
+    List<String> changed = JsonUtils.listStringsValue(stale['changed']) ?? <String>[];
+    List<String> removed = JsonUtils.listStringsValue(stale['removed']) ?? <String>[];
+
+    // The set hash is recorded by the last call only, so an interrupted sync is retried
+    if (removed.isNotEmpty) {
+      await RokwirePlugin.geoFence('removeRegions', {
+        'ids': removed,
+        'hash': (missing.isEmpty && changed.isEmpty) ? hash : null,
+      });
+    }
+    if (missing.isNotEmpty) {
+      await RokwirePlugin.geoFence('addRegions', {
+        'regions': missing.map((String id) => regionsById[id]).toList(),
+        'digests': { for (String id in missing) id : digests[id] },
+        'hash': changed.isEmpty ? hash : null,
+      });
+    }
+    if (changed.isNotEmpty || (missing.isEmpty && removed.isEmpty)) {
+      await RokwirePlugin.geoFence('updateRegions', {
+        'regions': changed.map((String id) => regionsById[id]).toList(),
+        'digests': { for (String id in changed) id : digests[id] },
+        'hash': hash,
+      });
+    }
   }
 
+  static String _digest(String value) =>
+    SHA256Digest().process(utf8.encode(value)).sublist(0, 16).map((int byte) => byte.toRadixString(16).padLeft(2, '0')).join();
+
   @protected
   bool shouldMonitorRegion(GeoFenceRegion region) => (region.enabled == true) && !_regionOverrides.containsKey(region.id);
 
@@ -296,6 +441,13 @@ class GeoFence with Service, NotificationsListener implements ContentItemCategor
 
   // Plugin
 
+  void _onPluginEvent(dynamic event) {
+    Map<String, dynamic>? params = JsonUtils.mapValue(event);
+    if (params != null) {
+      onPluginNotification(JsonUtils.stringValue(params['event']), params['data']);
+    }
+  }
+
   Future<dynamic> onPluginNotification(String? name, dynamic arguments) async {
     if (name == 'onEnterRegion') {
       String? regionId = JsonUtils.stringValue(arguments);
@@ -315,6 +467,14 @@ class GeoFence with Service, NotificationsListener implements ContentItemCategor
       String? regionId = (params != null) ? JsonUtils.stringValue(params['regionId']) : null;
       List<GeoFenceBeacon>? beacons = (params != null) ? GeoFenceBeacon.listFromJsonList(JsonUtils.listValue(params['beacons'])) : null;
       _updateInsideBeacons(regionId: regionId, beaconsList: beacons);
+      int? sequence = (params != null) ? JsonUtils.intValue(params['sequence']) : null;
+      if (sequence != null) {
+        // Let the native side send the next pending beacons update
+        RokwirePlugin.geoFence('ackBeacons', sequence);
+      }
+    }
+    else if (name == 'onPositionChanged') {
+      NotificationService().notify(notifyPositionUpdated, GeoFencePosition.fromJson(JsonUtils.mapValue(arguments)));
     }
   }
 }
@@ -16,8 +16,11 @@
 
 import 'dart:async';
 
+import 'package:flutter/foundation.dart';
+import 'package:flutter/services.dart';
 import 'package:flutter/widgets.dart';
 import 'package:geolocator/geolocator.dart';
+import 'package:rokwire_plugin/model/location.dart';
 import 'package:rokwire_plugin/rokwire_plugin.dart';
 import 'package:rokwire_plugin/service/app_livecycle.dart';
 import 'package:rokwire_plugin/service/notification_service.dart';
@@ -36,9 +39,20 @@ class LocationServices with Service, NotificationsListener {
   static const String notifyStatusChanged  = "edu.illinois.rokwire.locationservices.status.changed";
   static const String notifyLocationChanged  = "edu.illinois.rokwire.locationservices.location.changed";
 
+  static const EventChannel _locationUpdatesChannel = EventChannel('edu.illinois.rokwire/location_updates');
+  static const EventChannel _locationTraceChannel = EventChannel('edu.illinois.rokwire/location_trace');
+  static const EventChannel _locationStatusChannel = EventChannel('edu.illinois.rokwire/location_status');
+
   LocationServicesStatus? _lastStatus;
   Position? _lastLocation;
   StreamSubscription<Position>? _locationMonitor;
+  StreamSubscription<dynamic>? _statusSubscription;
+
+  StreamSubscription<dynamic>? _locationUpdatesSubscription;
+  final Map<String, StreamController<List<LocationFix>>> _locationUpdatesControllers = <String, StreamController<List<LocationFix>>>{};
+  int _locationUpdatesCounter = 0;
+  // Subscriber ids must not collide with those of other engines attached to the same native plugin
+  final String _locationUpdatesIdPrefix = 'subscriber${DateTime.now().microsecondsSinceEpoch.toRadixString(36)}';
 
   // Singletone Factory
 
@@ -61,11 +75,23 @@ class LocationServices with Service, NotificationsListener {
     NotificationService().subscribe(this, [
       AppLivecycle.notifyStateChanged,
     ]);
+    // Only Android pushes status changes; other platforms, or a stream that failed or ended, fall back to querying on resume.
+    if (defaultTargetPlatform == TargetPlatform.android) {
+      _statusSubscription = _locationStatusChannel.receiveBroadcastStream().listen(_onStatusChanged, onError: (e) {
+        _cancelStatusSubscription();
+      }, onDone: _cancelStatusSubscription);
+    }
+  }
+
+  void _cancelStatusSubscription() {
+    _statusSubscription?.cancel();
+    _statusSubscription = null;
   }
 
   @override
   void destroyService() {
     NotificationService().unsubscribe(this);
+    _cancelStatusSubscription();
     _locationMonitor?.cancel();
     _locationMonitor = null;
   }
@@ -165,6 +191,104 @@ class LocationServices with Service, NotificationsListener {
     }
   }
 
+  // Location Updates
+
+  /// Batched location updates from the native fused provider. All subscribers share one provider request;
+  /// fixes are accumulated for up to [maxDelay] and thinned out to each subscriber's [interval].
+  Stream<List<LocationFix>> locationUpdates({ Duration interval = const Duration(seconds: 10), LocationUpdatesAccuracy accuracy = LocationUpdatesAccuracy.balanced, Duration maxDelay = const Duration(minutes: 1) }) {
+    String id = '$_locationUpdatesIdPrefix.${++_locationUpdatesCounter}';
+    late StreamController<List<LocationFix>> controller;
+    controller = StreamController<List<LocationFix>>(
+      onListen: () {
+        _locationUpdatesControllers[id] = controller;
+        _locationUpdatesSubscription ??= _locationUpdatesChannel.receiveBroadcastStream().listen(_onLocationUpdates, onError: (e) {
+          debugPrint(e.toString());
+        });
+        RokwirePlugin.locationServices('subscribe', {
+          'id': id,
+          'interval': interval.inMilliseconds,
+          'accuracy': accuracy.name,
+          'maxDelay': maxDelay.inMilliseconds,
+        });
+      },
+      onCancel: () {
+        _locationUpdatesControllers.remove(id);
+        RokwirePlugin.locationServices('unsubscribe', id);
+        if (_locationUpdatesControllers.isEmpty) {
+          _locationUpdatesSubscription?.cancel();
+          _locationUpdatesSubscription = null;
+        }
+      },
+    );
+    return controller.stream;
+  }
+
+  void _onLocationUpdates(dynamic event) {
+    JsonUtils.mapValue(event)?.forEach((String id, dynamic value) {
+      List<LocationFix>? fixes = LocationFix.listFromJsonList(JsonUtils.listValue(value));
+      if (fixes != null) {
+        _locationUpdatesControllers[id]?.add(fixes);
+      }
+    });
+  }
+
+  // Last Known Location
+
+  /// Returns a cached fix not older than [maxAge] and within [accuracy] meters, if given. When the native cache cannot
+  /// satisfy the bounds, a single location request limited to [timeout] is made; null if that yields no fix within the bounds.
+  Future<LocationFix?> lastKnown({ Duration maxAge = const Duration(minutes: 1), double? accuracy, Duration timeout = const Duration(seconds: 5) }) async {
+    return LocationFix.fromJson(JsonUtils.mapValue(await RokwirePlugin.locationServices('lastKnown', {
+      'maxAge': maxAge.inMilliseconds,
+      'accuracy': accuracy,
+      'timeout': timeout.inMilliseconds,
+    })));
+  }
+
+  // Location Trace
+
+  /// Records a route natively. Fixes are simplified within [tolerance] meters, delta encoded and delivered in chunks
+  /// of up to [chunkPoints] points. Recording starts when the stream is listened to and stops when the subscription
+  /// is cancelled; call [stopTrace] afterwards to get the final chunk.
+  Stream<LocationTraceChunk> startTrace({ double tolerance = 5.0, int chunkPoints = 200, Duration interval = const Duration(seconds: 1), LocationUpdatesAccuracy accuracy = LocationUpdatesAccuracy.high, Duration maxDelay = const Duration(minutes: 1) }) {
+    StreamSubscription<dynamic>? traceSubscription;
+    late StreamController<LocationTraceChunk> controller;
+    controller = StreamController<LocationTraceChunk>(
+      onListen: () {
+        // Listen first, so no chunk is emitted before the native side has a listener
+        traceSubscription = _locationTraceChannel.receiveBroadcastStream().listen((dynamic event) {
+          LocationTraceChunk? chunk = LocationTraceChunk.fromJson(JsonUtils.mapValue(event));
+          if (chunk != null) {
+            controller.add(chunk);
+          }
+        }, onError: controller.addError, onDone: controller.close);
+        RokwirePlugin.locationServices('startTrace', {
+          'tolerance': tolerance,
+          'chunkPoints': chunkPoints,
+          'interval': interval.inMilliseconds,
+          'accuracy': accuracy.name,
+          'maxDelay': maxDelay.inMilliseconds,
+        });
+      },
+      // The native side stops recording once nobody listens and keeps the tail for stopTrace
+      onCancel: () => traceSubscription?.cancel(),
+    );
+    return controller.stream;
+  }
+
+  Future<void> flushTrace() async {
+    await RokwirePlugin.locationServices('flushTrace');
+  }
+
+  /// Stops recording and returns input/output point and byte counts. The chunks not delivered through the stream,
+  /// including the final one, are returned as a list of [LocationTraceChunk] under 'chunks'.
+  Future<Map<String, dynamic>?> stopTrace() async {
+    Map<String, dynamic>? result = JsonUtils.mapValue(await RokwirePlugin.locationServices('stopTrace'));
+    if (result != null) {
+      result['chunks'] = LocationTraceChunk.listFromJsonList(JsonUtils.listValue(result['chunks']));
+    }
+    return result;
+  }
+
   // Helpers
 
   void _notifyStatusChanged() {
@@ -184,8 +308,17 @@ class LocationServices with Service, NotificationsListener {
     }
   }
 
+  void _onStatusChanged(dynamic event) {
+    LocationServicesStatus? status = _locationServicesStatusFromString(JsonUtils.stringValue(event));
+    if ((status != null) && (status != _lastStatus)) {
+      _lastStatus = status;
+      _updateLocationMonitor();
+      _notifyStatusChanged();
+    }
+  }
+
   void _onAppLivecycleStateChanged(AppLifecycleState? state) {
-    if (state == AppLifecycleState.resumed) {
+    if ((state == AppLifecycleState.resumed) && (_statusSubscription == null)) {
       LocationServicesStatus? lastStatus = _lastStatus;
       status.then((_) {
         if (lastStatus != _lastStatus) {